@@ -0,0 +1,33 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import org.bouncycastle.crypto.CipherParameters;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Benchmarks {@link JinahyaBufferedBlockCipherCrypto} across algorithms and block cipher modes.
+ */
+public class JinahyaBufferedBlockCipherCryptoBenchmark
+        extends JinahyaCryptoBenchmark {
+
+    @Override
+    protected void prepare() {
+        params = JinahyaCryptoBenchmarkUtils.newParams(mode);
+    }
+
+    @Override
+    protected JinahyaCrypto newCrypto() {
+        return new JinahyaBufferedBlockCipherCrypto(
+                JinahyaCryptoBenchmarkUtils.newBufferedBlockCipher(algorithm, mode),
+                params
+        );
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Param({"AES", "ARIA", "LEA", "SEED"})
+    private String algorithm;
+
+    @Param({"ECB", "CBC", "CFB", "OFB", "CTR", "CTS"})
+    private String mode;
+
+    private CipherParameters params;
+}
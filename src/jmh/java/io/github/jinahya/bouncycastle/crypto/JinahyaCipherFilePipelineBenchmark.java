@@ -0,0 +1,112 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherCrypto;
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherFilePipeline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks {@link JinahyaCipherFilePipeline pipelined} file encryption against the sequential
+ * {@link JinahyaCrypto#encrypt(Path, Path)}.
+ * <p>
+ * Scores are per file; multiply by the {@code fileSize} for the throughput in bytes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Thread)
+public class JinahyaCipherFilePipelineBenchmark {
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("jinahya-pipeline");
+        input = Files.write(directory.resolve("input"), JinahyaCryptoBenchmarkUtils.newRandomBytes(fileSize));
+        output = directory.resolve("output");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Benchmark
+    public long encrypt_sequential() throws IOException {
+        final JinahyaCrypto crypto;
+        switch (mode) {
+            case "CBC":
+                crypto = new JinahyaBufferedBlockCipherCrypto(
+                        JinahyaCryptoBenchmarkUtils.newBufferedBlockCipher("AES", mode),
+                        JinahyaCryptoBenchmarkUtils.newParams(mode));
+                break;
+            case "CTR":
+                crypto = new JinahyaStreamCipherCrypto(
+                        JinahyaCryptoBenchmarkUtils.newStreamCipher("AES", mode),
+                        JinahyaCryptoBenchmarkUtils.newParams(mode));
+                break;
+            default:
+                crypto = new JinahyaAEADCipherCrypto(
+                        JinahyaCryptoBenchmarkUtils.newAEADCipher("AES", mode),
+                        JinahyaCryptoBenchmarkUtils.newParams(mode));
+                break;
+        }
+        return crypto.encrypt(input, output);
+    }
+
+    @Benchmark
+    public long encrypt_pipelined() throws IOException {
+        final JinahyaCipherFilePipeline pipeline;
+        switch (mode) {
+            case "CBC":
+                pipeline = new JinahyaBufferedBlockCipherFilePipeline(
+                        JinahyaCryptoBenchmarkUtils.newBufferedBlockCipher("AES", mode),
+                        JinahyaCryptoBenchmarkUtils.newParams(mode), true);
+                break;
+            case "CTR":
+                pipeline = new JinahyaStreamCipherFilePipeline(
+                        JinahyaCryptoBenchmarkUtils.newStreamCipher("AES", mode),
+                        JinahyaCryptoBenchmarkUtils.newParams(mode), true);
+                break;
+            default:
+                pipeline = new JinahyaAEADCipherFilePipeline(
+                        JinahyaCryptoBenchmarkUtils.newAEADCipher("AES", mode),
+                        JinahyaCryptoBenchmarkUtils.newParams(mode), true);
+                break;
+        }
+        return pipeline.process(input, output);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Param({"CBC", "CTR", "GCM"})
+    private String mode;
+
+    @Param({"16777216"})
+    private int fileSize;
+
+    private Path directory;
+
+    private Path input;
+
+    private Path output;
+}
@@ -0,0 +1,106 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link JinahyaCrypto#encryptAll(byte[], int[], JinahyaCryptoArena) batch} operations against
+ * per-message operations, for many small messages.
+ * <p>
+ * Scores are per message. Run with {@code -prof gc} to see the allocations saved by reusing an arena.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Thread)
+@OperationsPerInvocation(JinahyaCryptoBatchBenchmark.COUNT)
+public class JinahyaCryptoBatchBenchmark {
+
+    static final int COUNT = 1024;
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Setup
+    public void setup() {
+        final var params = JinahyaCryptoBenchmarkUtils.newParams(mode);
+        if ("CBC".equals(mode)) {
+            crypto = new JinahyaBufferedBlockCipherCrypto(
+                    JinahyaCryptoBenchmarkUtils.newBufferedBlockCipher("AES", mode),
+                    params
+            );
+        } else {
+            crypto = new JinahyaStreamCipherCrypto(
+                    JinahyaCryptoBenchmarkUtils.newStreamCipher("AES", mode),
+                    params
+            );
+        }
+        messages = new byte[COUNT][];
+        offsets = new int[COUNT + 1];
+        final var in = new JinahyaCryptoArena();
+        for (int i = 0; i < COUNT; i++) {
+            messages[i] = JinahyaCryptoBenchmarkUtils.newRandomBytes(messageLength);
+            in.append(messages[i], 0, messageLength);
+            offsets[i + 1] = in.size();
+        }
+        plain = in.array();
+        final var out = crypto.encryptAll(plain, offsets, new JinahyaCryptoArena());
+        encrypted = out.array();
+        encryptedOffsets = new int[COUNT + 1];
+        for (int i = 0; i < COUNT; i++) {
+            encryptedOffsets[i + 1] = out.offset(i) + out.length(i);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Benchmark
+    public void encrypt_each(final Blackhole blackhole) {
+        for (final var message : messages) {
+            blackhole.consume(crypto.encrypt(message));
+        }
+    }
+
+    @Benchmark
+    public JinahyaCryptoArena encryptAll_offsets() {
+        return crypto.encryptAll(plain, offsets, arena.clear());
+    }
+
+    @Benchmark
+    public JinahyaCryptoArena decryptAll_offsets() {
+        return crypto.decryptAll(encrypted, encryptedOffsets, arena.clear());
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Param({"32", "200"})
+    private int messageLength;
+
+    @Param({"CBC", "CTR"})
+    private String mode;
+
+    private JinahyaCrypto crypto;
+
+    private byte[][] messages;
+
+    private byte[] plain;
+
+    private int[] offsets;
+
+    private byte[] encrypted;
+
+    private int[] encryptedOffsets;
+
+    private final JinahyaCryptoArena arena = new JinahyaCryptoArena();
+}
@@ -0,0 +1,126 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An abstract benchmark measuring all three entry points, {@code byte[]}, {@link ByteBuffer}, and
+ * {@link java.io.InputStream}/{@link OutputStream}, of a {@link JinahyaCrypto}, in both directions.
+ * <p>
+ * The {@code direct} parameter only affects {@code *_buffer} benchmarks. Run with {@code -prof gc} for allocation
+ * rates; see {@link JinahyaCryptoBenchmarkUtils}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Thread)
+public abstract class JinahyaCryptoBenchmark {
+
+    /**
+     * Prepares states, such as parameters, for {@link #newCrypto()}.
+     *
+     * @implSpec The default implementation does nothing.
+     */
+    protected void prepare() {
+    }
+
+    /**
+     * Creates a new crypto, with fixed parameters, for decryption, and, unless {@link #encryptor()} is overridden,
+     * for encryption.
+     *
+     * @return a new crypto.
+     */
+    protected abstract JinahyaCrypto newCrypto();
+
+    /**
+     * Returns the crypto for each encryption.
+     *
+     * @return the crypto for each encryption.
+     * @implSpec The default implementation returns the crypto created by {@link #newCrypto()} on the setup.
+     */
+    protected JinahyaCrypto encryptor() {
+        return crypto;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Setup
+    public void setup() {
+        prepare();
+        plain = JinahyaCryptoBenchmarkUtils.newRandomBytes(length);
+        crypto = newCrypto();
+        encrypted = newCrypto().encrypt(plain);
+        plainBuffer = JinahyaCryptoBenchmarkUtils.newBuffer(direct, plain);
+        encryptedBuffer = JinahyaCryptoBenchmarkUtils.newBuffer(direct, encrypted);
+        outputBuffer = JinahyaCryptoBenchmarkUtils.newBuffer(direct, Math.max(plain.length, encrypted.length) + 64);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Benchmark
+    public byte[] encrypt_bytes() {
+        return encryptor().encrypt(plain);
+    }
+
+    @Benchmark
+    public int encrypt_buffer() {
+        return encryptor().encrypt(plainBuffer.rewind(), outputBuffer.clear());
+    }
+
+    @Benchmark
+    public long encrypt_stream() throws IOException {
+        return encryptor().encrypt(new ByteArrayInputStream(plain), OutputStream.nullOutputStream(), inbuf);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Benchmark
+    public byte[] decrypt_bytes() {
+        return crypto.decrypt(encrypted);
+    }
+
+    @Benchmark
+    public int decrypt_buffer() {
+        return crypto.decrypt(encryptedBuffer.rewind(), outputBuffer.clear());
+    }
+
+    @Benchmark
+    public long decrypt_stream() throws IOException {
+        return crypto.decrypt(new ByteArrayInputStream(encrypted), OutputStream.nullOutputStream(), inbuf);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Param({"16", "1024", "65536", "1048576", "67108864"})
+    protected int length;
+
+    @Param({"false", "true"})
+    protected boolean direct;
+
+    private JinahyaCrypto crypto;
+
+    private byte[] plain;
+
+    private byte[] encrypted;
+
+    private ByteBuffer plainBuffer;
+
+    private ByteBuffer encryptedBuffer;
+
+    private ByteBuffer outputBuffer;
+
+    private final byte[] inbuf = new byte[8192];
+}
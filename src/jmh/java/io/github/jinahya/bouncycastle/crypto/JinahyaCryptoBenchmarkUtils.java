@@ -0,0 +1,174 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.DefaultBufferedBlockCipher;
+import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.engines.ARIAEngine;
+import org.bouncycastle.crypto.engines.LEAEngine;
+import org.bouncycastle.crypto.engines.SEEDEngine;
+import org.bouncycastle.crypto.modes.AEADCipher;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.CCMBlockCipher;
+import org.bouncycastle.crypto.modes.CFBBlockCipher;
+import org.bouncycastle.crypto.modes.CTSBlockCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.modes.OFBBlockCipher;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.paddings.PKCS7Padding;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ciphers, parameters, and inputs shared by benchmarks.
+ * <p>
+ * Benchmarks are run, with {@code -prof gc}, by {@code mvn test-compile exec:exec@jmh}; pass JMH options with
+ * {@code -Djmh.args="..."}, e.g., {@code -Djmh.args="JinahyaAEADCipherCryptoBenchmark -p length=16,1024"}.
+ */
+public final class JinahyaCryptoBenchmarkUtils {
+
+    /**
+     * Returns a new engine of specified algorithm.
+     *
+     * @param algorithm the algorithm; one of {@code AES}, {@code ARIA}, {@code LEA}, and {@code SEED}.
+     * @return a new engine.
+     */
+    public static BlockCipher newEngine(final String algorithm) {
+        switch (algorithm) {
+            case "AES":
+                return AESEngine.newInstance();
+            case "ARIA":
+                return new ARIAEngine();
+            case "LEA":
+                return new LEAEngine();
+            case "SEED":
+                return new SEEDEngine();
+            default:
+                throw new IllegalArgumentException("unknown algorithm: " + algorithm);
+        }
+    }
+
+    /**
+     * Returns a new buffered block cipher of specified algorithm and mode.
+     *
+     * @param algorithm the algorithm.
+     * @param mode      the mode; one of {@code ECB}, {@code CBC}, {@code CFB}, {@code OFB}, {@code CTR}, and
+     *                  {@code CTS}.
+     * @return a new buffered block cipher.
+     */
+    public static BufferedBlockCipher newBufferedBlockCipher(final String algorithm, final String mode) {
+        final var engine = newEngine(algorithm);
+        switch (mode) {
+            case "ECB":
+                return new PaddedBufferedBlockCipher(engine, new PKCS7Padding());
+            case "CBC":
+                return new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(engine), new PKCS7Padding());
+            case "CTS":
+                return new CTSBlockCipher(CBCBlockCipher.newInstance(engine));
+            default:
+                return new DefaultBufferedBlockCipher(newStreamCipher(engine, mode));
+        }
+    }
+
+    /**
+     * Returns a new stream cipher of specified algorithm and mode.
+     *
+     * @param algorithm the algorithm.
+     * @param mode      the mode; one of {@code CFB}, {@code OFB}, and {@code CTR}.
+     * @return a new stream cipher.
+     */
+    public static StreamCipher newStreamCipher(final String algorithm, final String mode) {
+        return (StreamCipher) newStreamCipher(newEngine(algorithm), mode);
+    }
+
+    private static BlockCipher newStreamCipher(final BlockCipher engine, final String mode) {
+        switch (mode) {
+            case "CFB":
+                return CFBBlockCipher.newInstance(engine, engine.getBlockSize() << 3);
+            case "OFB":
+                return new OFBBlockCipher(engine, engine.getBlockSize() << 3);
+            case "CTR":
+                return SICBlockCipher.newInstance(engine);
+            default:
+                throw new IllegalArgumentException("unknown mode: " + mode);
+        }
+    }
+
+    /**
+     * Returns a new AEAD cipher of specified algorithm and mode.
+     *
+     * @param algorithm the algorithm.
+     * @param mode      the mode; one of {@code GCM} and {@code CCM}.
+     * @return a new AEAD cipher.
+     */
+    public static AEADCipher newAEADCipher(final String algorithm, final String mode) {
+        switch (mode) {
+            case "GCM":
+                return GCMBlockCipher.newInstance(newEngine(algorithm));
+            case "CCM":
+                return CCMBlockCipher.newInstance(newEngine(algorithm));
+            default:
+                throw new IllegalArgumentException("unknown mode: " + mode);
+        }
+    }
+
+    /**
+     * Returns new parameters, of a random key and, unless {@code mode} is {@code ECB}, a random iv, for specified
+     * mode.
+     *
+     * @param mode the mode.
+     * @return new parameters.
+     */
+    public static CipherParameters newParams(final String mode) {
+        final var key = new KeyParameter(newRandomBytes(16));
+        if ("ECB".equals(mode)) {
+            return key;
+        }
+        return new ParametersWithIV(key, newRandomBytes(16));
+    }
+
+    /**
+     * Returns a new array of random bytes.
+     *
+     * @param length the length of the array.
+     * @return a new array of random bytes.
+     */
+    public static byte[] newRandomBytes(final int length) {
+        final var bytes = new byte[length];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Returns a new buffer, of specified kind, flipped, containing specified bytes.
+     *
+     * @param direct {@code true} for a direct buffer; {@code false} for a heap buffer.
+     * @param bytes  the bytes.
+     * @return a new buffer.
+     */
+    public static ByteBuffer newBuffer(final boolean direct, final byte[] bytes) {
+        return newBuffer(direct, bytes.length).put(bytes).flip();
+    }
+
+    /**
+     * Returns a new, empty, buffer of specified kind.
+     *
+     * @param direct   {@code true} for a direct buffer; {@code false} for a heap buffer.
+     * @param capacity the capacity.
+     * @return a new buffer.
+     */
+    public static ByteBuffer newBuffer(final boolean direct, final int capacity) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private JinahyaCryptoBenchmarkUtils() {
+        throw new AssertionError("instantiation is not allowed");
+    }
+}
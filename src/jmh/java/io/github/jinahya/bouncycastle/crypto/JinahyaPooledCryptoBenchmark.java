@@ -0,0 +1,95 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.paddings.PKCS7Padding;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the scalability of a {@link JinahyaPooledCrypto} shared among threads, against creating a new crypto, with
+ * a new engine, for each operation.
+ * <p>
+ * Run {@link #main(String...)} for a scaling series from 1 to 64 threads, or run with {@code -t <threads>}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JinahyaPooledCryptoBenchmark {
+
+    private static BufferedBlockCipher newCipher() {
+        return new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()), new PKCS7Padding());
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Param({"16", "1024"})
+    private int length;
+
+    private CipherParameters params;
+
+    private byte[] plain;
+
+    private JinahyaPooledCrypto pooled;
+
+    @Setup
+    public void setup() {
+        final var key = new byte[16];
+        final var iv = new byte[16];
+        ThreadLocalRandom.current().nextBytes(key);
+        ThreadLocalRandom.current().nextBytes(iv);
+        params = new ParametersWithIV(new KeyParameter(key), iv);
+        plain = new byte[length];
+        ThreadLocalRandom.current().nextBytes(plain);
+        pooled = JinahyaPooledCrypto.ofBufferedBlockCipher(
+                JinahyaPooledCryptoBenchmark::newCipher,
+                params,
+                Runtime.getRuntime().availableProcessors() << 1
+        );
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Benchmark
+    public byte[] encrypt_pooled() {
+        return pooled.encrypt(plain);
+    }
+
+    @Benchmark
+    public byte[] encrypt_newCryptoForEachOperation() {
+        return new JinahyaBufferedBlockCipherCrypto(newCipher(), params).encrypt(plain);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    public static void main(final String... args) throws RunnerException {
+        for (final var threads : new int[] {1, 2, 4, 8, 16, 32, 64}) {
+            new Runner(
+                    new OptionsBuilder()
+                            .include(JinahyaPooledCryptoBenchmark.class.getName())
+                            .threads(threads)
+                            .build()
+            ).run();
+        }
+    }
+}
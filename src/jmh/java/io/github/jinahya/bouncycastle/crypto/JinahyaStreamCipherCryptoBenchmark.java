@@ -0,0 +1,33 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import org.bouncycastle.crypto.CipherParameters;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Benchmarks {@link JinahyaStreamCipherCrypto} across algorithms and block cipher modes which are stream ciphers.
+ */
+public class JinahyaStreamCipherCryptoBenchmark
+        extends JinahyaCryptoBenchmark {
+
+    @Override
+    protected void prepare() {
+        params = JinahyaCryptoBenchmarkUtils.newParams(mode);
+    }
+
+    @Override
+    protected JinahyaCrypto newCrypto() {
+        return new JinahyaStreamCipherCrypto(
+                JinahyaCryptoBenchmarkUtils.newStreamCipher(algorithm, mode),
+                params
+        );
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Param({"AES", "ARIA", "LEA", "SEED"})
+    private String algorithm;
+
+    @Param({"CFB", "OFB", "CTR"})
+    private String mode;
+
+    private CipherParameters params;
+}
@@ -0,0 +1,60 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import io.github.jinahya.bouncycastle.crypto.JinahyaCrypto;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoBenchmark;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoBenchmarkUtils;
+import org.bouncycastle.crypto.modes.AEADCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Benchmarks {@link JinahyaAEADCipherCrypto} across algorithms and AEAD modes.
+ * <p>
+ * Since a nonce should never be reused for encryption, each encryption is performed by a new crypto, on the same
+ * cipher, with a new nonce.
+ */
+public class JinahyaAEADCipherCryptoBenchmark
+        extends JinahyaCryptoBenchmark {
+
+    private static final int MAC_SIZE = 128;
+
+    private static final int NONCE_LENGTH = 12;
+
+    @Override
+    protected void prepare() {
+        key = new KeyParameter(JinahyaCryptoBenchmarkUtils.newRandomBytes(16));
+        encryptionCipher = JinahyaCryptoBenchmarkUtils.newAEADCipher(algorithm, mode);
+    }
+
+    @Override
+    protected JinahyaCrypto newCrypto() {
+        return new JinahyaAEADCipherCrypto(
+                JinahyaCryptoBenchmarkUtils.newAEADCipher(algorithm, mode),
+                new AEADParameters(key, MAC_SIZE, new byte[NONCE_LENGTH])
+        );
+    }
+
+    @Override
+    protected JinahyaCrypto encryptor() {
+        final var nonce = new byte[NONCE_LENGTH];
+        final var c = ++counter;
+        for (int i = 0; i < Long.BYTES; i++) {
+            nonce[NONCE_LENGTH - 1 - i] = (byte) (c >> (i << 3));
+        }
+        return new JinahyaAEADCipherCrypto(encryptionCipher, new AEADParameters(key, MAC_SIZE, nonce));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Param({"AES", "ARIA", "LEA", "SEED"})
+    private String algorithm;
+
+    @Param({"GCM", "CCM"})
+    private String mode;
+
+    private KeyParameter key;
+
+    private AEADCipher encryptionCipher;
+
+    private long counter;
+}
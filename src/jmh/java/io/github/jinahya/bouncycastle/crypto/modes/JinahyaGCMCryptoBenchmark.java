@@ -0,0 +1,83 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoBenchmarkUtils;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.AEADCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link JinahyaGCMCrypto}, which keys its cipher once, against a {@link JinahyaAEADCipherCrypto} re-keyed
+ * for each message, for small messages.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Thread)
+public class JinahyaGCMCryptoBenchmark {
+
+    private static final int NONCE_LENGTH = 12;
+
+    @Setup
+    public void setup() {
+        key = new KeyParameter(JinahyaCryptoBenchmarkUtils.newRandomBytes(16));
+        cipher = GCMBlockCipher.newInstance(AESEngine.newInstance(),
+                                            JinahyaGCMCrypto.Multiplier.valueOf(multiplier).newInstance());
+        crypto = new JinahyaGCMCrypto(AESEngine::newInstance, key, 128,
+                                      JinahyaGCMCrypto.Multiplier.valueOf(multiplier));
+        plain = JinahyaCryptoBenchmarkUtils.newRandomBytes(messageLength);
+    }
+
+    private byte[] nextNonce() {
+        final var nonce = new byte[NONCE_LENGTH];
+        final var c = ++counter;
+        for (int i = 0; i < Long.BYTES; i++) {
+            nonce[NONCE_LENGTH - 1 - i] = (byte) (c >> (i << 3));
+        }
+        return nonce;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Benchmark
+    public byte[] encrypt_rekeyed() {
+        return new JinahyaAEADCipherCrypto(cipher, new AEADParameters(key, 128, nextNonce())).encrypt(plain);
+    }
+
+    @Benchmark
+    public byte[] encrypt_keyedOnce() {
+        return crypto.encrypt(nextNonce(), null, plain);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Param({"BASIC", "TABLES_4K", "TABLES_64K"})
+    private String multiplier;
+
+    @Param({"16", "256"})
+    private int messageLength;
+
+    private KeyParameter key;
+
+    private AEADCipher cipher;
+
+    private JinahyaGCMCrypto crypto;
+
+    private byte[] plain;
+
+    private long counter;
+}
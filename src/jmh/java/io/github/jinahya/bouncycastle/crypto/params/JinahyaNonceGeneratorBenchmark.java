@@ -0,0 +1,55 @@
+package io.github.jinahya.bouncycastle.crypto.params;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link JinahyaNonceGenerator}s against a shared {@link SecureRandom}, from multiple threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Threads(4)
+@State(Scope.Benchmark)
+public class JinahyaNonceGeneratorBenchmark {
+
+    private static final int NONCE_LENGTH = 12;
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Benchmark
+    public byte[] sharedSecureRandom() {
+        final var nonce = new byte[NONCE_LENGTH];
+        random.nextBytes(nonce);
+        return nonce;
+    }
+
+    @Benchmark
+    public byte[] counter() {
+        return counter.next();
+    }
+
+    @Benchmark
+    public byte[] random() {
+        return drbg.next();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final SecureRandom random = new SecureRandom();
+
+    private final JinahyaNonceGenerator counter = JinahyaNonceGenerator.ofCounter(NONCE_LENGTH);
+
+    private final JinahyaNonceGenerator drbg = JinahyaNonceGenerator.ofRandom(NONCE_LENGTH);
+}
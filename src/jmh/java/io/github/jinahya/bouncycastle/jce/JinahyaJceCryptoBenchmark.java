@@ -0,0 +1,41 @@
+package io.github.jinahya.bouncycastle.jce;
+
+import io.github.jinahya.bouncycastle.crypto.JinahyaCrypto;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoBenchmark;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoBenchmarkUtils;
+import io.github.jinahya.bouncycastle.jce.provider.BouncyCastleProviderUtils;
+import org.openjdk.jmh.annotations.Param;
+
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Benchmarks {@link JinahyaJceCrypto} across algorithms, in {@code CBC} mode with {@code PKCS5Padding}.
+ */
+public class JinahyaJceCryptoBenchmark
+        extends JinahyaCryptoBenchmark {
+
+    @Override
+    protected void prepare() {
+        key = JinahyaCryptoBenchmarkUtils.newRandomBytes(16);
+        iv = JinahyaCryptoBenchmarkUtils.newRandomBytes(16);
+    }
+
+    @Override
+    protected JinahyaCrypto newCrypto() {
+        return new JinahyaJceCrypto(
+                algorithm + "/CBC/PKCS5Padding",
+                BouncyCastleProviderUtils.getBouncyCastleProvider(),
+                new SecretKeySpec(key, algorithm),
+                new IvParameterSpec(iv)
+        );
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Param({"AES", "ARIA", "SEED"})
+    private String algorithm;
+
+    private byte[] key;
+
+    private byte[] iv;
+}
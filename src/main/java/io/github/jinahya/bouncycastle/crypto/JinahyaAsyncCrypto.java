@@ -0,0 +1,251 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * An asynchronous view of a crypto, whose operations run on an executor and complete {@link CompletableFuture}s.
+ * <p>
+ * Operations are limited by a semaphore, so that CPU-bound operations do not oversubscribe processors regardless of
+ * the number of threads of the executor. By default, operations run on the {@link #getDefaultExecutor() default
+ * executor}, which, on Java 21 and later, starts a virtual thread for each operation, and, on earlier versions, is a
+ * bounded pool of platform threads; and are limited by the {@link #getDefaultLimiter() default limiter}, which is
+ * shared among all instances.
+ * <p>
+ * Operations of a crypto may run concurrently; hence the crypto should be thread-safe, e.g., a
+ * {@link JinahyaPooledCrypto}.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ */
+public class JinahyaAsyncCrypto {
+
+    private static final class DefaultExecutorHolder {
+
+        private static final ExecutorService INSTANCE = JinahyaCryptoThreads.newExecutor();
+
+        private DefaultExecutorHolder() {
+            throw new AssertionError("instantiation is not allowed");
+        }
+    }
+
+    private static final Semaphore DEFAULT_LIMITER = new Semaphore(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Returns the default executor, which is created on the first invocation.
+     *
+     * @return the default executor.
+     */
+    public static Executor getDefaultExecutor() {
+        return DefaultExecutorHolder.INSTANCE;
+    }
+
+    /**
+     * Returns the default limiter, whose number of permits is the number of available processors.
+     *
+     * @return the default limiter.
+     */
+    public static Semaphore getDefaultLimiter() {
+        return DEFAULT_LIMITER;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance with specified crypto, the {@link #getDefaultExecutor() default executor}, and the
+     * {@link #getDefaultLimiter() default limiter}.
+     *
+     * @param crypto the crypto; should be thread-safe.
+     */
+    public JinahyaAsyncCrypto(final JinahyaCrypto crypto) {
+        this(crypto, getDefaultExecutor(), getDefaultLimiter());
+    }
+
+    /**
+     * Creates a new instance with specified arguments.
+     *
+     * @param crypto   the crypto; should be thread-safe.
+     * @param executor the executor on which operations run.
+     * @param limiter  the semaphore limiting the number of concurrent operations.
+     */
+    public JinahyaAsyncCrypto(final JinahyaCrypto crypto, final Executor executor, final Semaphore limiter) {
+        super();
+        this.crypto = Objects.requireNonNull(crypto, "crypto is null");
+        this.executor = Objects.requireNonNull(executor, "executor is null");
+        this.limiter = Objects.requireNonNull(limiter, "limiter is null");
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Submits specified operation, which runs on the {@link #executor} while holding a permit of the {@link #limiter}.
+     * The operation does not run when the result has already been completed, e.g., cancelled.
+     */
+    private <T> CompletableFuture<T> submit(final Callable<T> operation) {
+        final var future = new CompletableFuture<T>();
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    limiter.acquire();
+                } catch (final InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    future.completeExceptionally(ie);
+                    return;
+                }
+                try {
+                    if (!future.isDone()) {
+                        future.complete(operation.call());
+                    }
+                } catch (final Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    limiter.release();
+                }
+            });
+        } catch (final RuntimeException re) { // RejectedExecutionException
+            future.completeExceptionally(re);
+        }
+        return future;
+    }
+
+    // ---------------------------------------------------------------------------------------------------------- byte[]
+
+    /**
+     * Encrypts specified input bytes asynchronously.
+     *
+     * @param in the input bytes to encrypt.
+     * @return a future of an array of encrypted bytes.
+     * @see JinahyaCrypto#encrypt(byte[])
+     */
+    public CompletableFuture<byte[]> encryptAsync(final byte[] in) {
+        Objects.requireNonNull(in, "in is null");
+        return submit(() -> crypto.encrypt(in));
+    }
+
+    /**
+     * Decrypts specified input bytes asynchronously.
+     *
+     * @param in the input bytes to decrypt.
+     * @return a future of an array of decrypted bytes.
+     * @see JinahyaCrypto#decrypt(byte[])
+     */
+    public CompletableFuture<byte[]> decryptAsync(final byte[] in) {
+        Objects.requireNonNull(in, "in is null");
+        return submit(() -> crypto.decrypt(in));
+    }
+
+    // ------------------------------------------------------------------------------------------------------ ByteBuffer
+
+    /**
+     * Encrypts all remaining bytes of specified input buffer asynchronously. Neither buffer should be accessed until
+     * the result completes.
+     *
+     * @param input  the input buffer.
+     * @param output the output buffer.
+     * @return a future of the number of bytes put on the {@code output}.
+     * @see JinahyaCrypto#encrypt(ByteBuffer, ByteBuffer)
+     */
+    public CompletableFuture<Integer> encryptAsync(final ByteBuffer input, final ByteBuffer output) {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        return submit(() -> crypto.encrypt(input, output));
+    }
+
+    /**
+     * Decrypts all remaining bytes of specified input buffer asynchronously. Neither buffer should be accessed until
+     * the result completes.
+     *
+     * @param input  the input buffer.
+     * @param output the output buffer.
+     * @return a future of the number of bytes put on the {@code output}.
+     * @see JinahyaCrypto#decrypt(ByteBuffer, ByteBuffer)
+     */
+    public CompletableFuture<Integer> decryptAsync(final ByteBuffer input, final ByteBuffer output) {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        return submit(() -> crypto.decrypt(input, output));
+    }
+
+    // ---------------------------------------------------------------------------------------------------------- stream
+
+    /**
+     * Encrypts all bytes from specified input stream asynchronously. Note that a permit of the limiter is held while
+     * the streams block.
+     *
+     * @param in    the input stream.
+     * @param out   the output stream.
+     * @param inbuf a buffer for reading bytes from the {@code in}.
+     * @return a future of the number of bytes written to the {@code out}.
+     * @see JinahyaCrypto#encrypt(InputStream, OutputStream, byte[])
+     */
+    public CompletableFuture<Long> encryptAsync(final InputStream in, final OutputStream out, final byte[] inbuf) {
+        Objects.requireNonNull(in, "in is null");
+        Objects.requireNonNull(out, "out is null");
+        Objects.requireNonNull(inbuf, "inbuf is null");
+        return submit(() -> crypto.encrypt(in, out, inbuf));
+    }
+
+    /**
+     * Decrypts all bytes from specified input stream asynchronously. Note that a permit of the limiter is held while
+     * the streams block.
+     *
+     * @param in    the input stream.
+     * @param out   the output stream.
+     * @param inbuf a buffer for reading bytes from the {@code in}.
+     * @return a future of the number of bytes written to the {@code out}.
+     * @see JinahyaCrypto#decrypt(InputStream, OutputStream, byte[])
+     */
+    public CompletableFuture<Long> decryptAsync(final InputStream in, final OutputStream out, final byte[] inbuf) {
+        Objects.requireNonNull(in, "in is null");
+        Objects.requireNonNull(out, "out is null");
+        Objects.requireNonNull(inbuf, "inbuf is null");
+        return submit(() -> crypto.decrypt(in, out, inbuf));
+    }
+
+    // ------------------------------------------------------------------------------------------------------------ path
+
+    /**
+     * Encrypts all bytes of specified input file, to specified output file, asynchronously.
+     *
+     * @param input  the input file.
+     * @param output the output file.
+     * @return a future of the number of bytes written to the {@code output}.
+     * @see JinahyaCrypto#encrypt(Path, Path)
+     */
+    public CompletableFuture<Long> encryptAsync(final Path input, final Path output) {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        return submit(() -> crypto.encrypt(input, output));
+    }
+
+    /**
+     * Decrypts all bytes of specified input file, to specified output file, asynchronously.
+     *
+     * @param input  the input file.
+     * @param output the output file.
+     * @return a future of the number of bytes written to the {@code output}.
+     * @see JinahyaCrypto#decrypt(Path, Path)
+     */
+    public CompletableFuture<Long> decryptAsync(final Path input, final Path output) {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        return submit(() -> crypto.decrypt(input, output));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final JinahyaCrypto crypto;
+
+    private final Executor executor;
+
+    private final Semaphore limiter;
+}
@@ -0,0 +1,263 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of byte arrays, in power-of-two size classes, for staging bytes being processed.
+ * <p>
+ * Each thread caches released arrays in a magazine per size class, and exchanges full magazines with a shared depot,
+ * whose total number of bytes is capped by the {@link #getCapacity() capacity}; arrays released beyond the capacity
+ * are left to the garbage collector. Virtual threads, which are usually too short-lived to fill a magazine, exchange
+ * single arrays with the depot instead. Arrays are wiped when they are {@link #release(byte[]) released}, and arrays
+ * larger than the largest size class are neither pooled nor cached.
+ * <p>
+ * Magazines are not counted against the capacity; each platform thread which has released arrays may retain up to
+ * {@link #MAGAZINE_BYTES_PER_THREAD} bytes in its magazines, in addition to the depot, until the thread terminates. A
+ * pool hence retains at most {@code capacity + MAGAZINE_BYTES_PER_THREAD * (number of platform threads)} bytes.
+ * <p>
+ * An acquired array should be released at most once, and should not be used after it has been released.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ */
+public final class JinahyaBufferPool {
+
+    /**
+     * The binary logarithm of the smallest size class; {@code 64} bytes.
+     */
+    public static final int MIN_SIZE_CLASS = 6;
+
+    /**
+     * The binary logarithm of the largest size class; {@code 1048576} bytes.
+     */
+    public static final int MAX_SIZE_CLASS = 20;
+
+    /**
+     * The maximum number of arrays in a magazine.
+     */
+    public static final int MAGAZINE_ROUNDS = 16;
+
+    /**
+     * The maximum number of bytes of arrays in a magazine, unless the magazine holds a single array.
+     */
+    public static final int MAGAZINE_BYTES = 262144;
+
+    /**
+     * The maximum number of bytes of arrays which a thread may retain in its magazines, outside the depot; about
+     * {@code 3} MiB.
+     */
+    public static final long MAGAZINE_BYTES_PER_THREAD;
+
+    static {
+        var bytes = 0L;
+        for (int sizeClass = MIN_SIZE_CLASS; sizeClass <= MAX_SIZE_CLASS; sizeClass++) {
+            bytes += (long) rounds(sizeClass) << sizeClass;
+        }
+        MAGAZINE_BYTES_PER_THREAD = bytes;
+    }
+
+    /**
+     * The default capacity, in bytes, of the depot of the {@link #getDefault() default} pool.
+     */
+    public static final long DEFAULT_CAPACITY = 33554432L;
+
+    private static final JinahyaBufferPool DEFAULT = new JinahyaBufferPool(DEFAULT_CAPACITY);
+
+    /**
+     * Returns the default pool, which all cryptos share.
+     *
+     * @return the default pool.
+     */
+    public static JinahyaBufferPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the size class of specified size.
+     *
+     * @param size the size.
+     * @return the binary logarithm of the smallest power of two not less than {@code size}, and not less than the
+     * {@link #MIN_SIZE_CLASS}.
+     */
+    static int sizeClass(final int size) {
+        if (size <= (1 << MIN_SIZE_CLASS)) {
+            return MIN_SIZE_CLASS;
+        }
+        return Integer.SIZE - Integer.numberOfLeadingZeros(size - 1);
+    }
+
+    private static int rounds(final int sizeClass) {
+        return Math.max(1, Math.min(MAGAZINE_ROUNDS, MAGAZINE_BYTES >> sizeClass));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * A stack of arrays of a size class, confined to a thread.
+     */
+    private static final class Magazine {
+
+        private Magazine(final int rounds) {
+            super();
+            arrays = new byte[rounds][];
+        }
+
+        private byte[][] arrays;
+
+        private int count;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance with specified capacity.
+     *
+     * @param capacity the maximum number of bytes of arrays in the depot; {@code 0L} for thread-local caching only.
+     * @see #MAGAZINE_BYTES_PER_THREAD
+     */
+    public JinahyaBufferPool(final long capacity) {
+        super();
+        if (capacity < 0L) {
+            throw new IllegalArgumentException("capacity(" + capacity + ") is negative");
+        }
+        this.capacity = capacity;
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        final Queue<byte[][]>[] depots = new Queue[MAX_SIZE_CLASS - MIN_SIZE_CLASS + 1];
+        for (int i = 0; i < depots.length; i++) {
+            depots[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.depots = depots;
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        final Queue<byte[]>[] singles = new Queue[depots.length];
+        for (int i = 0; i < singles.length; i++) {
+            singles[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.singles = singles;
+        magazines = ThreadLocal.withInitial(() -> {
+            final var m = new Magazine[MAX_SIZE_CLASS - MIN_SIZE_CLASS + 1];
+            for (int i = 0; i < m.length; i++) {
+                m[i] = new Magazine(rounds(MIN_SIZE_CLASS + i));
+            }
+            return m;
+        });
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the capacity of the depot of this pool, which does not include arrays cached in magazines of threads.
+     *
+     * @return the maximum number of bytes of arrays in the depot.
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of bytes of arrays currently in the depot of this pool.
+     *
+     * @return the number of bytes of arrays in the depot.
+     */
+    public long getDepotBytes() {
+        return depotBytes.get();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Acquires an array of at least specified size. The length of the result is the smallest power of two not less
+     * than the {@code size}, unless the {@code size} is larger than the largest size class.
+     *
+     * @param size the minimum size of the array.
+     * @return an array whose length is not less than {@code size}.
+     * @see #release(byte[])
+     */
+    public byte[] acquire(final int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size(" + size + ") is negative");
+        }
+        final var sizeClass = sizeClass(size);
+        if (sizeClass > MAX_SIZE_CLASS) {
+            return new byte[size];
+        }
+        if (JinahyaCryptoThreads.isVirtual(Thread.currentThread())) {
+            final var single = singles[sizeClass - MIN_SIZE_CLASS].poll();
+            if (single != null) {
+                depotBytes.addAndGet(-single.length);
+                return single;
+            }
+            return new byte[1 << sizeClass];
+        }
+        final var magazine = magazines.get()[sizeClass - MIN_SIZE_CLASS];
+        if (magazine.count == 0) {
+            final var full = depots[sizeClass - MIN_SIZE_CLASS].poll();
+            if (full != null) {
+                depotBytes.addAndGet(-((long) full.length << sizeClass));
+                magazine.arrays = full;
+                magazine.count = full.length;
+            }
+        }
+        if (magazine.count > 0) {
+            final var array = magazine.arrays[--magazine.count];
+            magazine.arrays[magazine.count] = null;
+            return array;
+        }
+        return new byte[1 << sizeClass];
+    }
+
+    /**
+     * Wipes, and releases, specified array. Arrays not {@link #acquire(int) acquired} from a pool are just wiped unless
+     * their lengths match a size class.
+     *
+     * @param array the array to release.
+     */
+    public void release(final byte[] array) {
+        Arrays.fill(Objects.requireNonNull(array, "array is null"), (byte) 0);
+        final var length = array.length;
+        if (Integer.bitCount(length) != 1 || length < (1 << MIN_SIZE_CLASS) || length > (1 << MAX_SIZE_CLASS)) {
+            return;
+        }
+        final var sizeClass = Integer.numberOfTrailingZeros(length);
+        if (JinahyaCryptoThreads.isVirtual(Thread.currentThread())) {
+            if (reserve(length)) {
+                singles[sizeClass - MIN_SIZE_CLASS].offer(array);
+            }
+            return;
+        }
+        final var magazine = magazines.get()[sizeClass - MIN_SIZE_CLASS];
+        if (magazine.count == magazine.arrays.length) {
+            if (!reserve((long) magazine.count << sizeClass)) {
+                return; // the depot is full
+            }
+            depots[sizeClass - MIN_SIZE_CLASS].offer(magazine.arrays);
+            magazine.arrays = new byte[magazine.arrays.length][];
+            magazine.count = 0;
+        }
+        magazine.arrays[magazine.count++] = array;
+    }
+
+    private boolean reserve(final long bytes) {
+        for (long b; ; ) {
+            if ((b = depotBytes.get()) + bytes > capacity) {
+                return false;
+            }
+            if (depotBytes.compareAndSet(b, b + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final long capacity;
+
+    private final Queue<byte[][]>[] depots;
+
+    private final Queue<byte[]>[] singles;
+
+    private final AtomicLong depotBytes = new AtomicLong();
+
+    private final ThreadLocal<Magazine[]> magazines;
+}
@@ -8,6 +8,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
 import java.util.Objects;
 
@@ -30,11 +31,48 @@ public class JinahyaBufferedBlockCipherCrypto
         cipher.init(encryption, params);
     }
 
+    @Override
+    protected void reinitFor(final boolean encryption) {
+        cipher.reset();
+    }
+
+    @Override
+    protected String getAlgorithmName() {
+        return cipher.getUnderlyingCipher().getAlgorithmName();
+    }
+
+    // ----------------------------------------------------------------------------------------------------------- batch
+    @Override
+    protected int processMessage(final boolean encryption, final byte[] in, final int inoff, final int inlen,
+                                 final JinahyaCryptoArena arena) {
+        if (encryption) {
+            initForEncryption();
+        } else {
+            initForDecryption();
+        }
+        final var outoff = arena.reserve(cipher.getOutputSize(inlen));
+        try {
+            return JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(
+                    cipher,
+                    in,
+                    inoff,
+                    inlen,
+                    arena.array(),
+                    outoff
+            );
+        } catch (final InvalidCipherTextException icte) {
+            throw encryption
+                  ? JinahyaCryptoException.ofEncryptionFailure(icte)
+                  : JinahyaCryptoException.ofDecryptionFailure(icte);
+        }
+    }
+
     // -----------------------------------------------------------------------------------------------------------------
     @Override
     public byte[] encrypt(final byte[] in) {
         Objects.requireNonNull(in, "in is null");
         initForEncryption();
+        final var operation = operationStarted(true);
         final var out = new byte[cipher.getOutputSize(in.length)];
         try {
             final var outlen = JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(
@@ -45,31 +83,46 @@ public class JinahyaBufferedBlockCipherCrypto
                     out,
                     0
             );
+            operationCompleted(operation, in.length, outlen);
             return Arrays.copyOf(out, outlen);
         } catch (final InvalidCipherTextException icte) {
-            throw JinahyaCryptoException.ofEncryptionFailure(icte);
+            final var exception = JinahyaCryptoException.ofEncryptionFailure(icte);
+            operationFailed(operation, exception);
+            throw exception;
+        } catch (final RuntimeException re) {
+            operationFailed(operation, re);
+            throw re;
         }
     }
 
     @Override
     public int encrypt(final ByteBuffer input, final ByteBuffer output) {
         initForEncryption();
+        final var operation = operationStarted(true);
+        final var inlen = Objects.requireNonNull(input, "input is null").remaining();
         try {
-            return JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(
+            final var outlen = JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(
                     cipher,
                     input,
                     output
             );
+            operationCompleted(operation, inlen, outlen);
+            return outlen;
         } catch (final InvalidCipherTextException icte) {
-            throw JinahyaCryptoException.ofEncryptionFailure(icte);
+            final var exception = JinahyaCryptoException.ofEncryptionFailure(icte);
+            operationFailed(operation, exception);
+            throw exception;
+        } catch (final RuntimeException re) {
+            operationFailed(operation, re);
+            throw re;
         }
     }
-
     // -----------------------------------------------------------------------------------------------------------------
     @Override
-    public byte[] decrypt(byte[] in) {
+    public byte[] decrypt(final byte[] in) {
         Objects.requireNonNull(in, "in is null");
         initForDecryption();
+        final var operation = operationStarted(false);
         final var out = new byte[cipher.getOutputSize(in.length)];
         try {
             final var outlen = JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(
@@ -80,57 +133,142 @@ public class JinahyaBufferedBlockCipherCrypto
                     out,
                     0
             );
+            operationCompleted(operation, in.length, outlen);
             return Arrays.copyOf(out, outlen);
         } catch (final InvalidCipherTextException icte) {
-            throw JinahyaCryptoException.ofDecryptionFailure(icte);
+            final var exception = JinahyaCryptoException.ofDecryptionFailure(icte);
+            operationFailed(operation, exception);
+            throw exception;
+        } catch (final RuntimeException re) {
+            operationFailed(operation, re);
+            throw re;
         }
     }
 
     @Override
     public int decrypt(final ByteBuffer input, final ByteBuffer output) {
         initForDecryption();
+        final var operation = operationStarted(false);
+        final var inlen = Objects.requireNonNull(input, "input is null").remaining();
         try {
-            return JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(
+            final var outlen = JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(
                     cipher,
                     input,
                     output
             );
+            operationCompleted(operation, inlen, outlen);
+            return outlen;
         } catch (final InvalidCipherTextException icte) {
-            throw JinahyaCryptoException.ofEncryptionFailure(icte);
+            final var exception = JinahyaCryptoException.ofDecryptionFailure(icte);
+            operationFailed(operation, exception);
+            throw exception;
+        } catch (final RuntimeException re) {
+            operationFailed(operation, re);
+            throw re;
         }
     }
-
     // -----------------------------------------------------------------------------------------------------------------
     @Override
     public long encrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
         initForEncryption();
+        final var operation = operationStarted(true);
         try {
-            return JinahyaBufferedBlockCipherUtils.processAllBytesAndDoFinal(
+            final var bytes = JinahyaBufferedBlockCipherUtils.processAllBytesAndDoFinal(
                     cipher,
                     in,
                     out,
                     inbuf,
                     null
             );
+            operationCompleted(operation, -1L, bytes);
+            return bytes;
         } catch (final InvalidCipherTextException icte) {
-            throw JinahyaCryptoException.ofEncryptionFailure(icte);
+            final var exception = JinahyaCryptoException.ofEncryptionFailure(icte);
+            operationFailed(operation, exception);
+            throw exception;
+        } catch (final IOException | RuntimeException e) {
+            operationFailed(operation, e);
+            throw e;
         }
     }
-
     // -----------------------------------------------------------------------------------------------------------------
     @Override
     public long decrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
         initForDecryption();
+        final var operation = operationStarted(false);
         try {
-            return JinahyaBufferedBlockCipherUtils.processAllBytesAndDoFinal(
+            final var bytes = JinahyaBufferedBlockCipherUtils.processAllBytesAndDoFinal(
                     cipher,
                     in,
                     out,
                     inbuf,
                     null
             );
+            operationCompleted(operation, -1L, bytes);
+            return bytes;
+        } catch (final InvalidCipherTextException icte) {
+            final var exception = JinahyaCryptoException.ofDecryptionFailure(icte);
+            operationFailed(operation, exception);
+            throw exception;
+        } catch (final IOException | RuntimeException e) {
+            operationFailed(operation, e);
+            throw e;
+        }
+    }
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public long encrypt(final FileChannel input, final FileChannel output) throws IOException {
+        initForEncryption();
+        final var operation = operationStarted(true);
+        final var inlen = Objects.requireNonNull(input, "input is null").size() - input.position();
+        final var inbuf = JinahyaBufferPool.getDefault().acquire(FILE_BUFFER_SIZE);
+        try {
+            final var bytes = JinahyaBufferedBlockCipherUtils.processAllBytesAndDoFinal(
+                    cipher,
+                    input,
+                    output,
+                    inbuf,
+                    null
+            );
+            operationCompleted(operation, inlen, bytes);
+            return bytes;
+        } catch (final InvalidCipherTextException icte) {
+            final var exception = JinahyaCryptoException.ofEncryptionFailure(icte);
+            operationFailed(operation, exception);
+            throw exception;
+        } catch (final IOException | RuntimeException e) {
+            operationFailed(operation, e);
+            throw e;
+        } finally {
+            JinahyaBufferPool.getDefault().release(inbuf);
+        }
+    }
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public long decrypt(final FileChannel input, final FileChannel output) throws IOException {
+        initForDecryption();
+        final var operation = operationStarted(false);
+        final var inlen = Objects.requireNonNull(input, "input is null").size() - input.position();
+        final var inbuf = JinahyaBufferPool.getDefault().acquire(FILE_BUFFER_SIZE);
+        try {
+            final var bytes = JinahyaBufferedBlockCipherUtils.processAllBytesAndDoFinal(
+                    cipher,
+                    input,
+                    output,
+                    inbuf,
+                    null
+            );
+            operationCompleted(operation, inlen, bytes);
+            return bytes;
         } catch (final InvalidCipherTextException icte) {
-            throw JinahyaCryptoException.ofDecryptionFailure(icte);
+            final var exception = JinahyaCryptoException.ofDecryptionFailure(icte);
+            operationFailed(operation, exception);
+            throw exception;
+        } catch (final IOException | RuntimeException e) {
+            operationFailed(operation, e);
+            throw e;
+        } finally {
+            JinahyaBufferPool.getDefault().release(inbuf);
         }
     }
 }
@@ -0,0 +1,71 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+
+import java.util.Objects;
+
+/**
+ * A processor for a {@link BufferedBlockCipher}.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaBufferedBlockCipherCrypto
+ */
+public class JinahyaBufferedBlockCipherProcessor
+        extends JinahyaCipherProcessor {
+
+    /**
+     * Creates a new instance with the {@link #DEFAULT_BUFFER_SIZE} and the {@link #DEFAULT_BUFFER_COUNT}.
+     *
+     * @param cipher     the cipher.
+     * @param params     the cipher parameters.
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     */
+    public JinahyaBufferedBlockCipherProcessor(final BufferedBlockCipher cipher, final CipherParameters params,
+                                               final boolean encryption) {
+        this(cipher, params, encryption, DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_COUNT);
+    }
+
+    /**
+     * Creates a new instance with specified arguments.
+     *
+     * @param cipher      the cipher.
+     * @param params      the cipher parameters.
+     * @param encryption  {@code true} for encryption; {@code false} for decryption.
+     * @param bufferSize  the size of published buffers.
+     * @param bufferCount the number of published buffers in the ring.
+     */
+    public JinahyaBufferedBlockCipherProcessor(final BufferedBlockCipher cipher, final CipherParameters params,
+                                               final boolean encryption, final int bufferSize,
+                                               final int bufferCount) {
+        super(bufferSize, bufferCount);
+        this.cipher = Objects.requireNonNull(cipher, "cipher is null");
+        this.cipher.init(encryption, Objects.requireNonNull(params, "params is null"));
+    }
+
+    // ---------------------------------------------------------------------------------------------------------- cipher
+    @Override
+    protected int getUpdateOutputSize(final int len) {
+        return cipher.getUpdateOutputSize(len);
+    }
+
+    @Override
+    protected int getFinalOutputSize() {
+        return cipher.getOutputSize(0);
+    }
+
+    @Override
+    protected int processBytes(final byte[] in, final int inoff, final int inlen, final byte[] out,
+                               final int outoff) {
+        return cipher.processBytes(in, inoff, inlen, out, outoff);
+    }
+
+    @Override
+    protected int doFinal(final byte[] out, final int outoff) throws InvalidCipherTextException {
+        return cipher.doFinal(out, outoff);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final BufferedBlockCipher cipher;
+}
@@ -2,11 +2,13 @@ package io.github.jinahya.bouncycastle.crypto;
 
 import org.bouncycastle.crypto.BufferedBlockCipher;
 import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.OutputLengthException;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
 import java.util.Objects;
 
@@ -18,6 +20,16 @@ import java.util.Objects;
  */
 public final class JinahyaBufferedBlockCipherUtils {
 
+    /**
+     * The maximum size of the staging window, in bytes, for processing buffers not backed by accessible arrays.
+     */
+    public static final int STAGING_WINDOW_SIZE = 8192;
+
+    /**
+     * The maximum size of each mapped window, in bytes, for processing file channels.
+     */
+    public static final int MAPPING_WINDOW_SIZE = 67108864;
+
     // -----------------------------------------------------------------------------------------------------------------
 
     /**
@@ -58,7 +70,7 @@ public final class JinahyaBufferedBlockCipherUtils {
             throw new IllegalArgumentException("outoff(" + outoff + ") > out.length(" + out.length + ")");
         }
         var outlen = cipher.processBytes(in, inoff, inlen, out, outoff); // DataLengthException
-        outlen += cipher.doFinal(out, outlen); // InvalidCipherTextException
+        outlen += cipher.doFinal(out, outoff + outlen); // InvalidCipherTextException
         return outlen;
     }
 
@@ -71,7 +83,10 @@ public final class JinahyaBufferedBlockCipherUtils {
      * @param output the output buffer onto which processed bytes are put.
      * @return the number of bytes put on the output buffer.
      * @throws InvalidCipherTextException if padding is expected and not found.
+     * @implNote When either of the buffers is not backed by an accessible array, this method streams through a
+     * staging window of at most {@value #STAGING_WINDOW_SIZE} bytes, regardless of the number of remaining bytes.
      * @see #processBytesAndDoFinal(BufferedBlockCipher, byte[], int, int, byte[], int)
+     * @see #processBytesAndDoFinal(BufferedBlockCipher, ByteBuffer, ByteBuffer, byte[], byte[])
      */
     public static int processBytesAndDoFinal(final BufferedBlockCipher cipher, final ByteBuffer input,
                                              final ByteBuffer output)
@@ -79,39 +94,111 @@ public final class JinahyaBufferedBlockCipherUtils {
         Objects.requireNonNull(cipher, "cipher is null");
         Objects.requireNonNull(input, "input is null");
         Objects.requireNonNull(output, "output is null");
-        final byte[] in;
-        final int inoff;
-        final int inlen = input.remaining();
-        if (input.hasArray()) {
-            in = input.array();
-            inoff = input.arrayOffset() + input.position();
-        } else {
-            in = new byte[inlen];
-//            input.get(0, in); // Java 13
-            for (int p = input.position(), i = 0; i < in.length; p++, i++) {
-                in[i] = input.get(p);
+        if (!input.hasArray() || !output.hasArray()) {
+            final var inbuf = JinahyaBufferPool.getDefault().acquire(
+                    Math.max(Math.min(input.remaining(), STAGING_WINDOW_SIZE), 1));
+            try {
+                return processBytesAndDoFinal(cipher, input, output, inbuf, null);
+            } finally {
+                JinahyaBufferPool.getDefault().release(inbuf);
             }
-            inoff = 0;
-        }
-        final byte[] out;
-        final int outoff;
-        if (output.hasArray()) {
-            out = output.array();
-            outoff = output.arrayOffset() + output.position();
-        } else {
-            out = new byte[output.remaining()];
-            outoff = 0;
         }
+        final var in = input.array();
+        final var inoff = input.arrayOffset() + input.position();
+        final var inlen = input.remaining();
+        final var out = output.array();
+        final var outoff = output.arrayOffset() + output.position();
         final var outlen = processBytesAndDoFinal(cipher, in, inoff, inlen, out, outoff);
         input.position(input.position() + inlen);
-        if (output.hasArray()) {
-            output.position(output.position() + outlen);
-        } else {
-            output.put(out, outoff, outlen);
-        }
+        output.position(output.position() + outlen);
         return outlen;
     }
 
+    /**
+     * Processes and finalizes, using specified cipher, all remaining bytes of specified input buffer, and put processed
+     * bytes to specified output buffer, streaming through specified staging buffers.
+     * <p>
+     * The {@code inbuf} is used as a window for bulk-getting bytes from the {@code input} when the {@code input} is not
+     * backed by an accessible array, and its length, aligned to the {@link BufferedBlockCipher#getBlockSize() block
+     * size}, limits the number of bytes processed at once. The {@code outbuf} is used as a window for bulk-putting
+     * processed bytes to the {@code output}; an array is acquired from the
+     * {@link JinahyaBufferPool#getDefault() default pool} when it is {@code null} or too short. A given
+     * {@code outbuf} is wiped before this method returns.
+     *
+     * @param cipher the cipher.
+     * @param input  the input buffer whose remaining bytes are processed.
+     * @param output the output buffer onto which processed bytes are put.
+     * @param inbuf  a staging buffer for unprocessed bytes.
+     * @param outbuf a staging buffer for processed bytes; may be {@code null}.
+     * @return the number of bytes put on the output buffer.
+     * @throws InvalidCipherTextException if padding is expected and not found.
+     * @throws OutputLengthException      if the {@code output} has not enough remaining for processed bytes.
+     */
+    public static int processBytesAndDoFinal(final BufferedBlockCipher cipher, final ByteBuffer input,
+                                             final ByteBuffer output, final byte[] inbuf, byte[] outbuf)
+            throws InvalidCipherTextException {
+        Objects.requireNonNull(cipher, "cipher is null");
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        if (Objects.requireNonNull(inbuf, "inbuf is null").length == 0) {
+            throw new IllegalArgumentException("inbuf.length is zero");
+        }
+        final var blockSize = cipher.getBlockSize();
+        final var window = inbuf.length < blockSize ? inbuf.length : inbuf.length - inbuf.length % blockSize;
+        final var given = outbuf;
+        if (outbuf == null || outbuf.length == 0) {
+            outbuf = JinahyaBufferPool.getDefault().acquire(Math.max(cipher.getUpdateOutputSize(window), 1));
+        }
+        try {
+            var outlen = 0;
+            for (int n; input.hasRemaining(); outlen += n) {
+                final var inlen = Math.min(input.remaining(), window);
+                final byte[] in;
+                final int inoff;
+                if (input.hasArray()) {
+                    in = input.array();
+                    inoff = input.arrayOffset() + input.position();
+                    input.position(input.position() + inlen);
+                } else {
+                    input.get(inbuf, 0, inlen);
+                    in = inbuf;
+                    inoff = 0;
+                }
+                if (output.hasArray()) {
+                    if (cipher.getUpdateOutputSize(inlen) > output.remaining()) {
+                        throw new OutputLengthException("output buffer too short");
+                    }
+                    n = cipher.processBytes(in, inoff, inlen, output.array(), output.arrayOffset() + output.position());
+                    output.position(output.position() + n);
+                    continue;
+                }
+                for (final var uos = cipher.getUpdateOutputSize(inlen); outbuf.length < uos; ) {
+                    outbuf = reallocate(cipher, outbuf, uos, given);
+                }
+                n = cipher.processBytes(in, inoff, inlen, outbuf, 0);
+                if (n > output.remaining()) {
+                    throw new OutputLengthException("output buffer too short");
+                }
+                output.put(outbuf, 0, n);
+            }
+            for (final var os = cipher.getOutputSize(0); outbuf.length < os; ) {
+                outbuf = reallocate(cipher, outbuf, os, given);
+            }
+            final var n = cipher.doFinal(outbuf, 0); // InvalidCipherTextException
+            if (n > output.remaining()) {
+                throw new OutputLengthException("output buffer too short");
+            }
+            output.put(outbuf, 0, n);
+            return outlen + n;
+        } finally {
+            if (outbuf == given) {
+                Arrays.fill(outbuf, (byte) 0);
+            } else {
+                JinahyaBufferPool.getDefault().release(outbuf);
+            }
+        }
+    }
+
     // -----------------------------------------------------------------------------------------------------------------
 
     /**
@@ -138,33 +225,123 @@ public final class JinahyaBufferedBlockCipherUtils {
         if (Objects.requireNonNull(inbuf, "inbuf is null").length == 0) {
             throw new IllegalArgumentException("inbuf.length is zero");
         }
+        final var given = outbuf;
         if (outbuf == null || outbuf.length == 0) {
-            outbuf = new byte[cipher.getOutputSize(inbuf.length)];
-        }
-        var bytes = 0L;
-        int outlen;
-        for (int r; (r = in.read(inbuf)) != -1; ) {
-            for (final var uos = cipher.getUpdateOutputSize(r); outbuf.length < uos; ) {
-                System.err.println(
-                        "re-allocating outbuf(" + outbuf.length +
-                                ") for an intermediate update-output-size(" + uos + ")"
-                );
-                Arrays.fill(outbuf, (byte) 0);
-                outbuf = new byte[uos];
+            outbuf = JinahyaBufferPool.getDefault().acquire(cipher.getOutputSize(inbuf.length));
+        }
+        try {
+            var bytes = 0L;
+            int outlen;
+            for (int r; (r = in.read(inbuf)) != -1; ) {
+                for (final var uos = cipher.getUpdateOutputSize(r); outbuf.length < uos; ) {
+                    outbuf = reallocate(cipher, outbuf, uos, given);
+                }
+                outlen = cipher.processBytes(inbuf, 0, r, outbuf, 0);
+                out.write(outbuf, 0, outlen);
+                bytes += outlen;
+            }
+            for (final var os = cipher.getOutputSize(0); outbuf.length < os; ) {
+                outbuf = reallocate(cipher, outbuf, os, given);
             }
-            outlen = cipher.processBytes(inbuf, 0, r, outbuf, 0);
+            outlen = cipher.doFinal(outbuf, 0);
             out.write(outbuf, 0, outlen);
             bytes += outlen;
+            return bytes;
+        } finally {
+            if (outbuf != given) {
+                JinahyaBufferPool.getDefault().release(outbuf);
+            }
+        }
+    }
+
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Processes and finalizes, using specified cipher, all bytes of specified input channel, from its current position,
+     * and writes processed bytes to specified output channel, from its current position.
+     * <p>
+     * The {@code input} is read through read-only mapped windows of at most {@value #MAPPING_WINDOW_SIZE} bytes,
+     * and processed bytes are written with positional writes; the {@code output} grows only by the bytes actually
+     * written. Positions of both channels are advanced.
+     *
+     * @param cipher the cipher.
+     * @param input  the input channel.
+     * @param output the output channel.
+     * @param inbuf  a buffer for staging bytes of mapped windows.
+     * @param outbuf a buffer for processed bytes; may be {@code null}.
+     * @return the number of bytes written to the {@code output}.
+     * @throws IOException                if an I/O error occurs.
+     * @throws InvalidCipherTextException if padding is expected and not found.
+     */
+    public static long processAllBytesAndDoFinal(final BufferedBlockCipher cipher, final FileChannel input,
+                                                 final FileChannel output, final byte[] inbuf, byte[] outbuf)
+            throws IOException, InvalidCipherTextException {
+        Objects.requireNonNull(cipher, "cipher is null");
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        if (Objects.requireNonNull(inbuf, "inbuf is null").length == 0) {
+            throw new IllegalArgumentException("inbuf.length is zero");
+        }
+        final var given = outbuf;
+        if (outbuf == null || outbuf.length == 0) {
+            outbuf = JinahyaBufferPool.getDefault().acquire(
+                    Math.max(cipher.getUpdateOutputSize(inbuf.length), Math.max(cipher.getOutputSize(0), 1)));
+        }
+        try {
+            final var size = input.size();
+            final var outpos = output.position();
+            var bytes = 0L;
+            for (var position = input.position(); position < size; ) {
+                final var mapped = input.map(FileChannel.MapMode.READ_ONLY, position,
+                                             Math.min(size - position, MAPPING_WINDOW_SIZE));
+                position += mapped.remaining();
+                while (mapped.hasRemaining()) {
+                    final var r = Math.min(mapped.remaining(), inbuf.length);
+                    mapped.get(inbuf, 0, r);
+                    for (final var uos = cipher.getUpdateOutputSize(r); outbuf.length < uos; ) {
+                        outbuf = reallocate(cipher, outbuf, uos, given);
+                    }
+                    bytes += write(output, outbuf, cipher.processBytes(inbuf, 0, r, outbuf, 0), outpos + bytes);
+                }
+            }
+            for (final var os = cipher.getOutputSize(0); outbuf.length < os; ) {
+                outbuf = reallocate(cipher, outbuf, os, given);
+            }
+            bytes += write(output, outbuf, cipher.doFinal(outbuf, 0), outpos + bytes);
+            input.position(size);
+            output.position(outpos + bytes);
+            return bytes;
+        } finally {
+            if (outbuf != given) {
+                JinahyaBufferPool.getDefault().release(outbuf);
+            }
         }
-        for (final var os = cipher.getOutputSize(0); outbuf.length < os; ) {
-            System.err.println("re-allocating outbuf(" + outbuf.length + ") for the final output-size(" + os + ")");
+    }
+
+    private static int write(final FileChannel channel, final byte[] buf, final int len, final long position)
+            throws IOException {
+        final var src = ByteBuffer.wrap(buf, 0, len);
+        while (src.hasRemaining()) {
+            channel.write(src, position + src.position());
+        }
+        return len;
+    }
+
+    /**
+     * Replaces specified output buffer with a pooled one of specified size; the old one is released unless it is the
+     * {@code given} one, which is just wiped.
+     */
+    private static byte[] reallocate(final BufferedBlockCipher cipher, final byte[] outbuf, final int size,
+                                     final byte[] given) {
+        JinahyaCryptoInstrumentationUtils.get().bufferReallocated(
+                cipher.getUnderlyingCipher().getAlgorithmName(), outbuf.length, size);
+        if (outbuf == given) {
             Arrays.fill(outbuf, (byte) 0);
-            outbuf = new byte[os];
+        } else {
+            JinahyaBufferPool.getDefault().release(outbuf);
         }
-        outlen = cipher.doFinal(outbuf, 0);
-        out.write(outbuf, 0, outlen);
-        bytes += outlen;
-        return bytes;
+        return JinahyaBufferPool.getDefault().acquire(size);
     }
 
     // -----------------------------------------------------------------------------------------------------------------
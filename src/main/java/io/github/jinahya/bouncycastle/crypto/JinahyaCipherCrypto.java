@@ -2,10 +2,20 @@ package io.github.jinahya.bouncycastle.crypto;
 
 import org.bouncycastle.crypto.CipherParameters;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 
 /**
  * An abstract crypto clas for a specified type of cipher.
+ * <p>
+ * A crypto owns its {@link #cipher}; once the {@link #cipher} is initialized for a direction, subsequent operations in
+ * the same direction {@link #reinitFor(boolean) re-initialize} it without re-running the key schedule. Hence, the
+ * {@link #cipher} should not be initialized by others while it is used by a crypto. Instances of this class are not
+ * thread-safe; see {@link JinahyaPooledCrypto} for sharing a crypto among threads.
+ * <p>
+ * Initializations and operations are reported to the {@link JinahyaCryptoInstrumentationUtils#get() current}
+ * {@link JinahyaCryptoInstrumentation instrumentation}.
  *
  * @param <CIPHER> cipher type parameter
  * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
@@ -39,18 +49,248 @@ public abstract class JinahyaCipherCrypto<CIPHER>
      */
     protected abstract void initFor(final boolean encryption);
 
+    /**
+     * Re-initialize the {@link #cipher}, which has already been initialized, with the {@link #params}, for the same
+     * direction, without re-running the key schedule.
+     *
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     * @implSpec The default implementation just invokes {@link #initFor(boolean)} with {@code encryption}.
+     */
+    protected void reinitFor(final boolean encryption) {
+        initFor(encryption);
+    }
+
+    private void init(final boolean encryption) {
+        final var rekeyed = initializedFor == null || initializedFor != encryption;
+        if (rekeyed) {
+            initializedFor = null;
+            initFor(encryption);
+            initializedFor = encryption;
+        } else {
+            reinitFor(encryption);
+        }
+        final var instrumentation = JinahyaCryptoInstrumentationUtils.get();
+        if (instrumentation != JinahyaCryptoInstrumentation.NOOP) {
+            instrumentation.cipherInitialized(getAlgorithmName(), encryption, rekeyed);
+        }
+    }
+
+    /**
+     * Notifies that the {@link #cipher} has been initialized with parameters other than the {@link #params}, so that the
+     * next {@link #initForEncryption()}, or {@link #initForDecryption()}, fully {@link #initFor(boolean) initializes}
+     * it.
+     */
+    protected final void initializedOtherwise() {
+        initializedFor = null;
+    }
+
     /**
      * Initialize the {@link #cipher} for encryption.
      */
     protected void initForEncryption() {
-        initFor(true);
+        init(true);
     }
 
     /**
      * Initialize the {@link #cipher} for decryption.
      */
     protected void initForDecryption() {
-        initFor(false);
+        init(false);
+    }
+
+    /**
+     * Returns the name of the algorithm of the {@link #cipher}, reported to instrumentations.
+     *
+     * @return the name of the algorithm of the {@link #cipher}.
+     * @implSpec The default implementation returns the simple name of the class of the {@link #cipher}.
+     */
+    protected String getAlgorithmName() {
+        return cipher.getClass().getSimpleName();
+    }
+
+    // ------------------------------------------------------------------------------------------------- instrumentation
+
+    /**
+     * Notifies the current instrumentation that an operation has started.
+     *
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     * @return an operation to pass to {@link #operationCompleted(JinahyaCryptoInstrumentation.Operation, long, long)}
+     * or {@link #operationFailed(JinahyaCryptoInstrumentation.Operation, Throwable)}; {@code null} when no
+     * instrumentation is interested.
+     */
+    protected final JinahyaCryptoInstrumentation.Operation operationStarted(final boolean encryption) {
+        final var instrumentation = JinahyaCryptoInstrumentationUtils.get();
+        if (instrumentation == JinahyaCryptoInstrumentation.NOOP) {
+            return null;
+        }
+        return instrumentation.operationStarted(getAlgorithmName(), encryption);
+    }
+
+    /**
+     * Notifies specified operation that it has completed.
+     *
+     * @param operation   the operation; may be {@code null}.
+     * @param inputBytes  the number of bytes consumed; {@code -1L} when unknown.
+     * @param outputBytes the number of bytes produced.
+     */
+    protected static void operationCompleted(final JinahyaCryptoInstrumentation.Operation operation,
+                                             final long inputBytes, final long outputBytes) {
+        if (operation != null) {
+            operation.completed(inputBytes, outputBytes);
+        }
+    }
+
+    /**
+     * Notifies specified operation that it has failed.
+     *
+     * @param operation the operation; may be {@code null}.
+     * @param cause     the cause.
+     */
+    protected static void operationFailed(final JinahyaCryptoInstrumentation.Operation operation,
+                                          final Throwable cause) {
+        if (operation != null) {
+            operation.failed(cause);
+        }
+    }
+
+    /**
+     * Notifies the current instrumentation that an authenticated decryption has failed, and notifies specified
+     * operation that it has failed.
+     *
+     * @param operation the operation; may be {@code null}.
+     * @param cause     the cause.
+     * @return a new exception for the decryption failure.
+     */
+    protected final JinahyaCryptoException authenticationFailed(final JinahyaCryptoInstrumentation.Operation operation,
+                                                                final Throwable cause) {
+        final var instrumentation = JinahyaCryptoInstrumentationUtils.get();
+        if (instrumentation != JinahyaCryptoInstrumentation.NOOP) {
+            instrumentation.authenticationFailed(getAlgorithmName());
+        }
+        final var exception = JinahyaCryptoException.ofDecryptionFailure(cause);
+        operationFailed(operation, exception);
+        return exception;
+    }
+
+    // ----------------------------------------------------------------------------------------------------------- batch
+
+    /**
+     * Processes a single message of a batch, and stores the result to specified arena, from its
+     * {@link JinahyaCryptoArena#reserve(int) reserved} offset, without appending it.
+     *
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     * @param in         the input array.
+     * @param inoff      the offset of the message in the {@code in}.
+     * @param inlen      the length of the message.
+     * @param arena      the arena.
+     * @return the number of bytes stored to the {@code arena}.
+     * @implSpec The default implementation invokes {@link #encrypt(byte[])}, or {@link #decrypt(byte[])}, with a copy
+     * of the message, and copies the result to the {@code arena}. Subclasses should override this method to process
+     * the message in place, after re-initializing the {@link #cipher}.
+     */
+    protected int processMessage(final boolean encryption, final byte[] in, final int inoff, final int inlen,
+                                 final JinahyaCryptoArena arena) {
+        final var message = Arrays.copyOfRange(in, inoff, inoff + inlen);
+        final var out = encryption ? encrypt(message) : decrypt(message);
+        final var outoff = arena.reserve(out.length);
+        System.arraycopy(out, 0, arena.array(), outoff, out.length);
+        return out.length;
+    }
+
+    private JinahyaCryptoArena processAll(final boolean encryption, final List<byte[]> messages,
+                                          final JinahyaCryptoArena arena) {
+        Objects.requireNonNull(messages, "messages is null");
+        Objects.requireNonNull(arena, "arena is null");
+        final var operation = operationStarted(encryption);
+        final var size = arena.size();
+        var inlen = 0L;
+        try {
+            for (final var message : messages) {
+                arena.append(processMessage(encryption, message, 0, message.length, arena));
+                inlen += message.length;
+            }
+        } catch (final RuntimeException re) {
+            operationFailed(operation, re);
+            throw re;
+        }
+        operationCompleted(operation, inlen, arena.size() - size);
+        return arena;
+    }
+
+    private JinahyaCryptoArena processAll(final boolean encryption, final byte[] in, final int[] offsets,
+                                          final JinahyaCryptoArena arena) {
+        JinahyaCryptoArena.requireValidOffsets(in, offsets);
+        Objects.requireNonNull(arena, "arena is null");
+        final var operation = operationStarted(encryption);
+        final var size = arena.size();
+        try {
+            for (int i = 1; i < offsets.length; i++) {
+                arena.append(processMessage(encryption, in, offsets[i - 1], offsets[i] - offsets[i - 1], arena));
+            }
+        } catch (final RuntimeException re) {
+            operationFailed(operation, re);
+            throw re;
+        }
+        operationCompleted(operation, offsets[offsets.length - 1] - offsets[0], arena.size() - size);
+        return arena;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param messages {@inheritDoc}
+     * @param arena    {@inheritDoc}
+     * @return {@inheritDoc}
+     * @implSpec This implementation processes each message with
+     * {@link #processMessage(boolean, byte[], int, int, JinahyaCryptoArena)}.
+     */
+    @Override
+    public JinahyaCryptoArena encryptAll(final List<byte[]> messages, final JinahyaCryptoArena arena) {
+        return processAll(true, messages, arena);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param in      {@inheritDoc}
+     * @param offsets {@inheritDoc}
+     * @param arena   {@inheritDoc}
+     * @return {@inheritDoc}
+     * @implSpec This implementation processes each message with
+     * {@link #processMessage(boolean, byte[], int, int, JinahyaCryptoArena)}.
+     */
+    @Override
+    public JinahyaCryptoArena encryptAll(final byte[] in, final int[] offsets, final JinahyaCryptoArena arena) {
+        return processAll(true, in, offsets, arena);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param messages {@inheritDoc}
+     * @param arena    {@inheritDoc}
+     * @return {@inheritDoc}
+     * @implSpec This implementation processes each message with
+     * {@link #processMessage(boolean, byte[], int, int, JinahyaCryptoArena)}.
+     */
+    @Override
+    public JinahyaCryptoArena decryptAll(final List<byte[]> messages, final JinahyaCryptoArena arena) {
+        return processAll(false, messages, arena);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param in      {@inheritDoc}
+     * @param offsets {@inheritDoc}
+     * @param arena   {@inheritDoc}
+     * @return {@inheritDoc}
+     * @implSpec This implementation processes each message with
+     * {@link #processMessage(boolean, byte[], int, int, JinahyaCryptoArena)}.
+     */
+    @Override
+    public JinahyaCryptoArena decryptAll(final byte[] in, final int[] offsets, final JinahyaCryptoArena arena) {
+        return processAll(false, in, offsets, arena);
     }
 
     // -----------------------------------------------------------------------------------------------------------------
@@ -64,4 +304,9 @@ public abstract class JinahyaCipherCrypto<CIPHER>
      * a cipher parameters for initializing {@link #cipher}.
      */
     protected final CipherParameters params;
+
+    /**
+     * the direction for which the {@link #cipher} has been initialized; {@code null} for none.
+     */
+    private Boolean initializedFor;
 }
@@ -0,0 +1,291 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.io.InvalidCipherTextIOException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * An abstract pipeline which encrypts, or decrypts, a whole file while overlapping reads, cipher work, and writes.
+ * <p>
+ * The input file is read ahead, in chunks of {@code bufferSize} bytes, into a ring of {@code bufferCount} buffers;
+ * each chunk is processed by the calling thread as soon as it arrives, and its output is written behind while
+ * subsequent chunks are processed. Hence, the throughput approaches the slower of the I/O and the cipher, rather than
+ * their sum.
+ * <p>
+ * A pipeline is initialized for a single direction, and processes a single file. Buffers are acquired from the
+ * {@link JinahyaBufferPool#getDefault() default pool}, and are released when the processing ends.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaCrypto#encrypt(Path, Path)
+ */
+public abstract class JinahyaCipherFilePipeline {
+
+    /**
+     * The default size of chunks in which the input file is read.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 65536;
+
+    /**
+     * The default number of buffers in the ring.
+     */
+    public static final int DEFAULT_BUFFER_COUNT = 4;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance with specified size, and number, of buffers.
+     *
+     * @param bufferSize  the size of chunks in which the input file is read; must be positive.
+     * @param bufferCount the number of buffers in the ring; must be positive.
+     */
+    protected JinahyaCipherFilePipeline(final int bufferSize, final int bufferCount) {
+        super();
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize(" + bufferSize + ") is not positive");
+        }
+        if (bufferCount <= 0) {
+            throw new IllegalArgumentException("bufferCount(" + bufferCount + ") is not positive");
+        }
+        this.bufferSize = bufferSize;
+        this.bufferCount = bufferCount;
+    }
+
+    // ---------------------------------------------------------------------------------------------------------- cipher
+
+    /**
+     * Returns the number of bytes {@link #processBytes(byte[], int, int, byte[], int)} may produce for specified
+     * number of input bytes.
+     *
+     * @param len the number of input bytes.
+     * @return the maximum number of output bytes.
+     */
+    protected abstract int getUpdateOutputSize(int len);
+
+    /**
+     * Returns the number of bytes {@link #doFinal(byte[], int)} may produce.
+     *
+     * @return the maximum number of final output bytes.
+     */
+    protected abstract int getFinalOutputSize();
+
+    /**
+     * Processes specified range of an input array.
+     *
+     * @param in     the input array.
+     * @param inoff  the offset of the {@code in}.
+     * @param inlen  the number of bytes to process.
+     * @param out    the output array.
+     * @param outoff the offset of the {@code out}.
+     * @return the number of bytes stored to the {@code out}.
+     */
+    protected abstract int processBytes(byte[] in, int inoff, int inlen, byte[] out, int outoff);
+
+    /**
+     * Finalizes the processing.
+     *
+     * @param out    the output array.
+     * @param outoff the offset of the {@code out}.
+     * @return the number of bytes stored to the {@code out}.
+     * @throws InvalidCipherTextException if the input is not valid.
+     */
+    protected abstract int doFinal(byte[] out, int outoff) throws InvalidCipherTextException;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Processes all bytes of specified input file, and writes processed bytes to specified output file, which is
+     * created or truncated. The {@code output} is left empty when the processed bytes are not valid.
+     *
+     * @param input  the input file.
+     * @param output the output file.
+     * @return the number of bytes written to the {@code output}.
+     * @throws InvalidCipherTextIOException if the processed bytes are not valid.
+     * @throws IOException                  if an I/O error occurs.
+     */
+    public long process(final Path input, final Path output) throws IOException {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        try (var in = AsynchronousFileChannel.open(input, StandardOpenOption.READ);
+             var out = AsynchronousFileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            return process(in, out);
+        }
+    }
+
+    /**
+     * Processes all bytes of specified input channel, from position {@code 0} to its current size, and writes
+     * processed bytes to specified output channel, from position {@code 0}. Since chunks are written behind before
+     * the input is finally verified, e.g., by the tag of an AEAD cipher, the {@code output} is truncated to zero when
+     * the processed bytes are not valid.
+     *
+     * @param input  the input channel.
+     * @param output the output channel.
+     * @return the number of bytes written to the {@code output}.
+     * @throws InvalidCipherTextIOException if the processed bytes are not valid.
+     * @throws IOException                  if an I/O error occurs.
+     * @throws IllegalStateException        if this pipeline has already been used.
+     */
+    public long process(final AsynchronousFileChannel input, final AsynchronousFileChannel output)
+            throws IOException {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        if (used) {
+            throw new IllegalStateException("already used");
+        }
+        used = true;
+        final var size = input.size();
+        final var pool = JinahyaBufferPool.getDefault();
+        final var inbufs = new ByteBuffer[bufferCount];
+        final var outbufs = new ByteBuffer[bufferCount];
+        final var reads = new Future<?>[bufferCount];
+        final var writes = new Future<?>[bufferCount];
+        final var writePositions = new long[bufferCount];
+        for (int i = 0; i < bufferCount; i++) {
+            inbufs[i] = ByteBuffer.wrap(pool.acquire(bufferSize), 0, 0);
+            outbufs[i] = ByteBuffer.wrap(pool.acquire(getUpdateOutputSize(bufferSize)), 0, 0);
+        }
+        try {
+            final var chunks = (size + bufferSize - 1) / bufferSize;
+            for (long k = 0; k < Math.min(chunks, bufferCount); k++) {
+                reads[(int) k] = read(input, inbufs[(int) k], k * bufferSize, size);
+            }
+            var written = 0L;
+            for (long k = 0; k < chunks; k++) {
+                final var slot = (int) (k % bufferCount);
+                final var inbuf = inbufs[slot];
+                awaitRead(input, reads[slot], inbuf, k * bufferSize);
+                reads[slot] = null;
+                awaitWrite(output, writes[slot], outbufs[slot], writePositions[slot]);
+                writes[slot] = null;
+                final var outlen = getUpdateOutputSize(inbuf.limit());
+                if (outbufs[slot].capacity() < outlen) {
+                    pool.release(outbufs[slot].array());
+                    outbufs[slot] = ByteBuffer.wrap(pool.acquire(outlen), 0, 0);
+                }
+                final var outbuf = outbufs[slot];
+                outbuf.clear().limit(processBytes(inbuf.array(), 0, inbuf.limit(), outbuf.array(), 0));
+                if (k + bufferCount < chunks) { // the inbuf has been consumed
+                    reads[slot] = read(input, inbuf, (k + bufferCount) * bufferSize, size);
+                }
+                writePositions[slot] = written;
+                written += outbuf.limit();
+                writes[slot] = output.write(outbuf, writePositions[slot]);
+            }
+            for (int i = 0; i < bufferCount; i++) {
+                awaitWrite(output, writes[i], outbufs[i], writePositions[i]);
+                writes[i] = null;
+            }
+            final var finalbuf = pool.acquire(getFinalOutputSize());
+            try {
+                final int outlen;
+                try {
+                    outlen = doFinal(finalbuf, 0);
+                } catch (final InvalidCipherTextException icte) {
+                    output.truncate(0L); // no unauthenticated, or unpadded, output is left
+                    throw new InvalidCipherTextIOException("failed to finalize", icte);
+                }
+                final var buffer = ByteBuffer.wrap(finalbuf, 0, outlen);
+                awaitWrite(output, output.write(buffer, written), buffer, written);
+                written += outlen;
+            } finally {
+                pool.release(finalbuf);
+            }
+            return written;
+        } finally {
+            for (int i = 0; i < bufferCount; i++) { // buffers should not be released while in flight
+                settle(reads[i]);
+                settle(writes[i]);
+                pool.release(inbufs[i].array());
+                pool.release(outbufs[i].array());
+            }
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private Future<Integer> read(final AsynchronousFileChannel input, final ByteBuffer inbuf, final long position,
+                                 final long size) {
+        inbuf.clear().limit((int) Math.min(bufferSize, size - position));
+        return input.read(inbuf, position);
+    }
+
+    /**
+     * Awaits specified read, and reads the rest of the chunk, if any, synchronously; the {@code inbuf} is flipped.
+     */
+    private static void awaitRead(final AsynchronousFileChannel input, final Future<?> read, final ByteBuffer inbuf,
+                                  final long position)
+            throws IOException {
+        await(read);
+        while (inbuf.hasRemaining()) {
+            if (await(input.read(inbuf, position + inbuf.position())) == -1) {
+                break; // the file has been truncated
+            }
+        }
+        inbuf.flip();
+    }
+
+    /**
+     * Awaits specified write, if any, and writes the rest of the {@code outbuf}, if any, synchronously.
+     */
+    private static void awaitWrite(final AsynchronousFileChannel output, final Future<?> write,
+                                   final ByteBuffer outbuf, final long position)
+            throws IOException {
+        if (write == null) {
+            return;
+        }
+        await(write);
+        while (outbuf.hasRemaining()) {
+            await(output.write(outbuf, position + outbuf.position()));
+        }
+    }
+
+    private static int await(final Future<?> future) throws IOException {
+        try {
+            return (Integer) future.get();
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while awaiting an I/O");
+        } catch (final ExecutionException ee) {
+            final var cause = ee.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static void settle(final Future<?> future) {
+        if (future == null) {
+            return;
+        }
+        var interrupted = false;
+        while (true) {
+            try {
+                future.get();
+                break;
+            } catch (final InterruptedException ie) {
+                interrupted = true;
+            } catch (final ExecutionException ee) {
+                break;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final int bufferSize;
+
+    private final int bufferCount;
+
+    private boolean used;
+}
@@ -0,0 +1,299 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.io.InvalidCipherTextIOException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Objects;
+
+/**
+ * An abstract input stream which encrypts, or decrypts, bytes read from an underlying input stream, on demand.
+ * <p>
+ * Bytes are read from the underlying input stream in chunks of a block-aligned buffer, only when the processed bytes
+ * have been consumed. Hence, the final output, e.g., the last padded block, or the authentication tag, is processed
+ * only when the underlying input stream reaches its end; when an authenticated decryption fails, an
+ * {@link InvalidCipherTextIOException} is thrown by the read which reaches the end.
+ * <p>
+ * Buffers are acquired from the {@link JinahyaBufferPool#getDefault() default pool}; closing this stream releases them,
+ * and closes the underlying input stream.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaCipherOutputStream
+ */
+public abstract class JinahyaCipherInputStream
+        extends FilterInputStream {
+
+    /**
+     * The default size of the buffer for reading bytes from the underlying input stream.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance.
+     *
+     * @param in         the underlying input stream.
+     * @param bufferSize the size of the buffer for reading bytes from the {@code in}; must be positive, and is
+     *                   rounded down to a multiple of the {@code blockSize}.
+     * @param blockSize  the block size of the cipher; {@code 1} for stream ciphers.
+     */
+    protected JinahyaCipherInputStream(final InputStream in, final int bufferSize, final int blockSize) {
+        super(Objects.requireNonNull(in, "in is null"));
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize(" + bufferSize + ") is not positive");
+        }
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize(" + blockSize + ") is not positive");
+        }
+        window = Math.max(bufferSize - bufferSize % blockSize, blockSize);
+        inbuf = JinahyaBufferPool.getDefault().acquire(window);
+    }
+
+    // ---------------------------------------------------------------------------------------------------------- cipher
+
+    /**
+     * Returns the number of bytes {@link #processBytes(byte[], int, int, byte[], int)} may produce for specified
+     * number of input bytes.
+     *
+     * @param len the number of input bytes.
+     * @return the maximum number of output bytes.
+     */
+    protected abstract int getUpdateOutputSize(int len);
+
+    /**
+     * Returns the number of bytes {@link #doFinal(byte[], int)} may produce.
+     *
+     * @return the maximum number of final output bytes.
+     */
+    protected abstract int getFinalOutputSize();
+
+    /**
+     * Processes specified range of an input array.
+     *
+     * @param in     the input array.
+     * @param inoff  the offset of the {@code in}.
+     * @param inlen  the number of bytes to process.
+     * @param out    the output array.
+     * @param outoff the offset of the {@code out}.
+     * @return the number of bytes stored to the {@code out}.
+     */
+    protected abstract int processBytes(byte[] in, int inoff, int inlen, byte[] out, int outoff);
+
+    /**
+     * Finalizes the processing.
+     *
+     * @param out    the output array.
+     * @param outoff the offset of the {@code out}.
+     * @return the number of bytes stored to the {@code out}.
+     * @throws InvalidCipherTextException if the input is not valid.
+     */
+    protected abstract int doFinal(byte[] out, int outoff) throws InvalidCipherTextException;
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public int read() throws IOException {
+        ensureOpen();
+        if (outpos == outlim && !fill()) {
+            return -1;
+        }
+        return outbuf[outpos++] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, Objects.requireNonNull(b, "b is null").length);
+        ensureOpen();
+        if (len == 0) {
+            return 0;
+        }
+        while (outpos == outlim) {
+            if (finalized) {
+                return -1;
+            }
+            final var r = readInput();
+            if (r != -1 && getUpdateOutputSize(r) <= len) { // processes directly into the b
+                final var outlen = processBytes(inbuf, 0, r, b, off);
+                if (outlen > 0) {
+                    return outlen;
+                }
+                continue;
+            }
+            process(r);
+        }
+        final var n = Math.min(outlim - outpos, len);
+        System.arraycopy(outbuf, outpos, b, off, n);
+        outpos += n;
+        return n;
+    }
+
+    /**
+     * Skips specified number of processed bytes. Note that bytes to skip should still be processed.
+     *
+     * @param n the number of bytes to skip.
+     * @return the actual number of bytes skipped.
+     * @throws IOException if an I/O error occurs.
+     */
+    @Override
+    public long skip(final long n) throws IOException {
+        ensureOpen();
+        var skipped = 0L;
+        while (skipped < n && (outpos < outlim || fill())) {
+            final var s = (int) Math.min(outlim - outpos, n - skipped);
+            outpos += s;
+            skipped += s;
+        }
+        return skipped;
+    }
+
+    /**
+     * Returns the number of processed bytes which can be read without reading the underlying input stream.
+     *
+     * @return the number of processed bytes which can be read without blocking.
+     * @throws IOException if this stream has been closed.
+     */
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        return outlim - outpos;
+    }
+
+    /**
+     * Transfers all remaining processed bytes to specified output stream, straight from the internal buffer.
+     *
+     * @param out the output stream.
+     * @return the number of bytes transferred.
+     * @throws IOException if an I/O error occurs.
+     */
+    @Override
+    public long transferTo(final OutputStream out) throws IOException {
+        Objects.requireNonNull(out, "out is null");
+        ensureOpen();
+        var transferred = 0L;
+        while (outpos < outlim || fill()) {
+            out.write(outbuf, outpos, outlim - outpos);
+            transferred += outlim - outpos;
+            outpos = outlim;
+        }
+        return transferred;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(final int readlimit) {
+        // does nothing
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Closes this stream, and the underlying input stream, after wiping buffers. Note that an authenticated decryption
+     * is not verified unless this stream has been read to its end.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        finalized = true;
+        JinahyaBufferPool.getDefault().release(inbuf);
+        JinahyaBufferPool.getDefault().release(outbuf);
+        outbuf = EMPTY;
+        outpos = outlim = 0;
+        super.close();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("closed");
+        }
+    }
+
+    /**
+     * Reads bytes from the underlying input stream into the {@link #inbuf}.
+     *
+     * @return the number of bytes read; {@code -1} for the end of the underlying input stream.
+     */
+    private int readInput() throws IOException {
+        for (int r; ; ) {
+            if ((r = in.read(inbuf, 0, window)) != 0) {
+                return r;
+            }
+        }
+    }
+
+    /**
+     * Processes specified number of bytes in the {@link #inbuf}, or finalizes when {@code r} is {@code -1}, into the
+     * {@link #outbuf}.
+     */
+    private void process(final int r) throws IOException {
+        final int size;
+        if (r == -1) {
+            size = getFinalOutputSize();
+        } else {
+            size = getUpdateOutputSize(r);
+        }
+        if (outbuf.length < size) {
+            JinahyaBufferPool.getDefault().release(outbuf);
+            outbuf = JinahyaBufferPool.getDefault().acquire(size);
+        }
+        outpos = 0;
+        if (r != -1) {
+            outlim = processBytes(inbuf, 0, r, outbuf, 0);
+            return;
+        }
+        finalized = true;
+        try {
+            outlim = doFinal(outbuf, 0);
+        } catch (final InvalidCipherTextException icte) {
+            outlim = 0;
+            throw new InvalidCipherTextIOException("failed to finalize", icte);
+        }
+    }
+
+    /**
+     * Fills the {@link #outbuf} with at least one processed byte.
+     *
+     * @return {@code true} if filled; {@code false} if no more bytes are available.
+     */
+    private boolean fill() throws IOException {
+        while (outpos == outlim) {
+            if (finalized) {
+                return false;
+            }
+            process(readInput());
+        }
+        return true;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final int window;
+
+    private final byte[] inbuf;
+
+    private byte[] outbuf = EMPTY;
+
+    private int outpos;
+
+    private int outlim;
+
+    private boolean finalized;
+
+    private boolean closed;
+}
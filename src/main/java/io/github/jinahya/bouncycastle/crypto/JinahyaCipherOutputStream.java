@@ -0,0 +1,172 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.io.InvalidCipherTextIOException;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+
+/**
+ * An abstract output stream which encrypts, or decrypts, bytes written to it, and writes processed bytes to an
+ * underlying output stream.
+ * <p>
+ * Written bytes are processed in block-aligned chunks, hence the output buffer never grows beyond what a single chunk
+ * requires. The final output, e.g., the last padded block, or the authentication tag, is written when this stream is
+ * {@link #close() closed}; when an authenticated decryption fails, an {@link InvalidCipherTextIOException} is thrown
+ * by the {@link #close()}. Note that {@link #flush()} does not flush bytes buffered by the cipher.
+ * <p>
+ * The output buffer is acquired from the {@link JinahyaBufferPool#getDefault() default pool}, and is released when
+ * this stream is closed.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaCipherInputStream
+ */
+public abstract class JinahyaCipherOutputStream
+        extends FilterOutputStream {
+
+    /**
+     * The default size of chunks in which written bytes are processed.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance.
+     *
+     * @param out        the underlying output stream.
+     * @param bufferSize the size of chunks in which written bytes are processed; must be positive, and is rounded down
+     *                   to a multiple of the {@code blockSize}.
+     * @param blockSize  the block size of the cipher; {@code 1} for stream ciphers.
+     */
+    protected JinahyaCipherOutputStream(final OutputStream out, final int bufferSize, final int blockSize) {
+        super(Objects.requireNonNull(out, "out is null"));
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize(" + bufferSize + ") is not positive");
+        }
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize(" + blockSize + ") is not positive");
+        }
+        chunkSize = Math.max(bufferSize - bufferSize % blockSize, blockSize);
+    }
+
+    // ---------------------------------------------------------------------------------------------------------- cipher
+
+    /**
+     * Returns the number of bytes {@link #processBytes(byte[], int, int, byte[], int)} may produce for specified
+     * number of input bytes.
+     *
+     * @param len the number of input bytes.
+     * @return the maximum number of output bytes.
+     */
+    protected abstract int getUpdateOutputSize(int len);
+
+    /**
+     * Returns the number of bytes {@link #doFinal(byte[], int)} may produce.
+     *
+     * @return the maximum number of final output bytes.
+     */
+    protected abstract int getFinalOutputSize();
+
+    /**
+     * Processes specified range of an input array.
+     *
+     * @param in     the input array.
+     * @param inoff  the offset of the {@code in}.
+     * @param inlen  the number of bytes to process.
+     * @param out    the output array.
+     * @param outoff the offset of the {@code out}.
+     * @return the number of bytes stored to the {@code out}.
+     */
+    protected abstract int processBytes(byte[] in, int inoff, int inlen, byte[] out, int outoff);
+
+    /**
+     * Finalizes the processing.
+     *
+     * @param out    the output array.
+     * @param outoff the offset of the {@code out}.
+     * @return the number of bytes stored to the {@code out}.
+     * @throws InvalidCipherTextException if the input is not valid.
+     */
+    protected abstract int doFinal(byte[] out, int outoff) throws InvalidCipherTextException;
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public void write(final int b) throws IOException {
+        single[0] = (byte) b;
+        write(single, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, Objects.requireNonNull(b, "b is null").length);
+        ensureOpen();
+        for (int o = off, l = len; l > 0; ) {
+            final var n = Math.min(l, chunkSize);
+            ensureOutbuf(getUpdateOutputSize(n));
+            final var outlen = processBytes(b, o, n, outbuf, 0);
+            if (outlen > 0) {
+                out.write(outbuf, 0, outlen);
+            }
+            o += n;
+            l -= n;
+        }
+    }
+
+    /**
+     * Finalizes the processing, writes the final output, and closes the underlying output stream, after wiping
+     * buffers.
+     *
+     * @throws InvalidCipherTextIOException if the processed bytes are not valid.
+     * @throws IOException                  if an I/O error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        final var underlying = out;
+        try (underlying) {
+            ensureOutbuf(getFinalOutputSize());
+            final int outlen;
+            try {
+                outlen = doFinal(outbuf, 0);
+            } catch (final InvalidCipherTextException icte) {
+                throw new InvalidCipherTextIOException("failed to finalize", icte);
+            }
+            out.write(outbuf, 0, outlen);
+            out.flush();
+        } finally {
+            JinahyaBufferPool.getDefault().release(outbuf);
+            outbuf = EMPTY;
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("closed");
+        }
+    }
+
+    private void ensureOutbuf(final int size) {
+        if (outbuf.length < size) {
+            JinahyaBufferPool.getDefault().release(outbuf);
+            outbuf = JinahyaBufferPool.getDefault().acquire(size);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final int chunkSize;
+
+    private final byte[] single = new byte[1];
+
+    private byte[] outbuf = EMPTY;
+
+    private boolean closed;
+}
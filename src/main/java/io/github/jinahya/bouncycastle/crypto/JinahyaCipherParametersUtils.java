@@ -8,6 +8,7 @@ import org.bouncycastle.crypto.params.AEADParameters;
 import org.bouncycastle.crypto.params.KeyParameter;
 import org.bouncycastle.crypto.params.ParametersWithIV;
 
+import java.util.Arrays;
 import java.util.Objects;
 
 public class JinahyaCipherParametersUtils {
@@ -35,6 +36,70 @@ public class JinahyaCipherParametersUtils {
         throw new IllegalArgumentException("failed to get iv from " + params);
     }
 
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns a deep copy of specified cipher parameters. The result holds its own copies of the key and the iv/nonce.
+     *
+     * @param params the cipher parameters to copy; an instance of {@link KeyParameter}, {@link ParametersWithIV}, or
+     *               {@link AEADParameters}.
+     * @return a deep copy of {@code params}.
+     * @see #wipe(CipherParameters)
+     */
+    public static CipherParameters copyOf(final CipherParameters params) {
+        Objects.requireNonNull(params, "params is null");
+        if (params instanceof ParametersWithIV) {
+            final var p = (ParametersWithIV) params;
+            final var parameters = p.getParameters();
+            return new ParametersWithIV(parameters == null ? null : copyOf(parameters), p.getIV().clone());
+        }
+        if (params instanceof KeyParameter) {
+            return new KeyParameter(((KeyParameter) params).getKey().clone());
+        }
+        if (params instanceof AEADParameters) {
+            final var p = (AEADParameters) params;
+            final var key = p.getKey();
+            return new AEADParameters(
+                    key == null ? null : (KeyParameter) copyOf(key),
+                    p.getMacSize(),
+                    p.getNonce(),
+                    p.getAssociatedText()
+            );
+        }
+        throw new IllegalArgumentException("failed to copy " + params);
+    }
+
+    /**
+     * Fills the key, and the iv, of specified cipher parameters with zeros. Use this method only with cipher
+     * parameters owned by the caller, such as those {@link #copyOf(CipherParameters) copied}.
+     *
+     * @param params the cipher parameters to wipe; an instance of {@link KeyParameter}, {@link ParametersWithIV}, or
+     *               {@link AEADParameters}.
+     */
+    public static void wipe(final CipherParameters params) {
+        Objects.requireNonNull(params, "params is null");
+        if (params instanceof ParametersWithIV) {
+            final var p = (ParametersWithIV) params;
+            Arrays.fill(p.getIV(), (byte) 0);
+            if (p.getParameters() != null) {
+                wipe(p.getParameters());
+            }
+            return;
+        }
+        if (params instanceof KeyParameter) {
+            Arrays.fill(((KeyParameter) params).getKey(), (byte) 0);
+            return;
+        }
+        if (params instanceof AEADParameters) {
+            final var key = ((AEADParameters) params).getKey();
+            if (key != null) {
+                wipe(key);
+            }
+            return;
+        }
+        throw new IllegalArgumentException("failed to wipe " + params);
+    }
+
     // -----------------------------------------------------------------------------------------------------------------
     private JinahyaCipherParametersUtils() {
         throw new AssertionError("instantiation is not allowed");
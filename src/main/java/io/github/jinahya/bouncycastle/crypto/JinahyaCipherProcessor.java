@@ -0,0 +1,340 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import org.bouncycastle.crypto.InvalidCipherTextException;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An abstract processor which encrypts, or decrypts, published buffers with a cipher.
+ * <p>
+ * A processor is initialized for a single direction, and serves a single stream; the final output, e.g., the last
+ * padded block, or the authentication tag, is published when the upstream completes. Items are requested from the
+ * upstream, one by one, only while the downstream has outstanding demand, and each published buffer holds at most
+ * {@code bufferSize} bytes.
+ * <p>
+ * Published buffers are taken from a ring of {@code bufferCount} buffers; a buffer passed to
+ * {@link Flow.Subscriber#onNext(Object) onNext} is reused once {@code bufferCount} more buffers have been published.
+ * Hence, a subscriber which retains bytes beyond that should copy them. Published buffers, including those still
+ * being held when the processor terminates, are never wiped by the processor; a subscriber which cares should wipe
+ * them, once done, by itself.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ */
+public abstract class JinahyaCipherProcessor
+        implements Flow.Processor<ByteBuffer, ByteBuffer> {
+
+    /**
+     * The default size of published buffers, in bytes.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /**
+     * The default number of published buffers in the ring.
+     */
+    public static final int DEFAULT_BUFFER_COUNT = 4;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance with specified size, and number, of published buffers.
+     *
+     * @param bufferSize  the size of published buffers; must be positive.
+     * @param bufferCount the number of published buffers in the ring; must be positive.
+     */
+    protected JinahyaCipherProcessor(final int bufferSize, final int bufferCount) {
+        super();
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize(" + bufferSize + ") is not positive");
+        }
+        if (bufferCount <= 0) {
+            throw new IllegalArgumentException("bufferCount(" + bufferCount + ") is not positive");
+        }
+        this.bufferSize = bufferSize;
+        buffers = new ByteBuffer[bufferCount];
+        inbuf = JinahyaBufferPool.getDefault().acquire(bufferSize);
+    }
+
+    // ---------------------------------------------------------------------------------------------------------- cipher
+
+    /**
+     * Returns the number of bytes {@link #processBytes(byte[], int, int, byte[], int)} may produce for specified
+     * number of input bytes.
+     *
+     * @param len the number of input bytes.
+     * @return the maximum number of output bytes.
+     */
+    protected abstract int getUpdateOutputSize(int len);
+
+    /**
+     * Returns the number of bytes {@link #doFinal(byte[], int)} may produce.
+     *
+     * @return the maximum number of final output bytes.
+     */
+    protected abstract int getFinalOutputSize();
+
+    /**
+     * Processes specified range of an input array.
+     *
+     * @param in     the input array.
+     * @param inoff  the offset of the {@code in}.
+     * @param inlen  the number of bytes to process.
+     * @param out    the output array.
+     * @param outoff the offset of the {@code out}.
+     * @return the number of bytes stored to the {@code out}.
+     */
+    protected abstract int processBytes(byte[] in, int inoff, int inlen, byte[] out, int outoff);
+
+    /**
+     * Finalizes the processing.
+     *
+     * @param out    the output array.
+     * @param outoff the offset of the {@code out}.
+     * @return the number of bytes stored to the {@code out}.
+     * @throws InvalidCipherTextException if the input is not valid.
+     */
+    protected abstract int doFinal(byte[] out, int outoff) throws InvalidCipherTextException;
+
+    // ------------------------------------------------------------------------------------------------------- publisher
+    @Override
+    public void subscribe(final Flow.Subscriber<? super ByteBuffer> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber is null");
+        if (!downstream.compareAndSet(null, subscriber)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(final long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("already subscribed"));
+            return;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(final long n) {
+                if (n <= 0L) {
+                    error = new IllegalArgumentException("n(" + n + ") is not positive");
+                    done = true;
+                    cancelUpstream();
+                } else {
+                    demand.getAndUpdate(d -> d + n < 0L ? Long.MAX_VALUE : d + n);
+                }
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+                cancelUpstream();
+                drain();
+            }
+        });
+        drain();
+    }
+
+    // ------------------------------------------------------------------------------------------------------ subscriber
+    @Override
+    public void onSubscribe(final Flow.Subscription subscription) {
+        Objects.requireNonNull(subscription, "subscription is null");
+        if (!upstream.compareAndSet(null, subscription)) {
+            subscription.cancel();
+            return;
+        }
+        drain();
+    }
+
+    @Override
+    public void onNext(final ByteBuffer item) {
+        inputs.offer(Objects.requireNonNull(item, "item is null"));
+        drain();
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+        error = Objects.requireNonNull(throwable, "throwable is null");
+        done = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        done = true;
+        drain();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private void cancelUpstream() {
+        final var subscription = upstream.get();
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        for (var missed = 1; missed != 0; missed = wip.addAndGet(-missed)) {
+            if (!terminated) {
+                try {
+                    drainLoop();
+                } catch (final InvalidCipherTextException | RuntimeException e) {
+                    cancelUpstream();
+                    terminate();
+                    downstream.get().onError(e);
+                }
+            }
+        }
+    }
+
+    private void drainLoop() throws InvalidCipherTextException {
+        final var subscriber = downstream.get();
+        if (subscriber == null) {
+            return;
+        }
+        while (!terminated) {
+            if (cancelled) {
+                terminate();
+                return;
+            }
+            if (error != null) {
+                terminate();
+                subscriber.onError(error);
+                return;
+            }
+            if (outlen > 0) { // publishes pending output
+                if (demand.get() == 0L) {
+                    return;
+                }
+                final var buffer = nextBuffer();
+                final var n = Math.min(outlen, bufferSize);
+                buffer.put(outbuf, outoff, n).flip();
+                outoff += n;
+                outlen -= n;
+                demand.decrementAndGet();
+                subscriber.onNext(buffer);
+                continue;
+            }
+            if (current == null) {
+                current = inputs.poll();
+                if (current != null) {
+                    upstreamRequested = false;
+                }
+            }
+            if (current != null) {
+                if (!current.hasRemaining()) {
+                    current = null;
+                    continue;
+                }
+                final var n = Math.min(current.remaining(), bufferSize);
+                ensureOutbuf(getUpdateOutputSize(n));
+                if (current.hasArray()) {
+                    outlen = processBytes(current.array(), current.arrayOffset() + current.position(), n, outbuf, 0);
+                    current.position(current.position() + n);
+                } else {
+                    current.get(inbuf, 0, n);
+                    outlen = processBytes(inbuf, 0, n, outbuf, 0);
+                }
+                outoff = 0;
+                continue;
+            }
+            if (done) {
+                if (finalized) {
+                    terminate();
+                    subscriber.onComplete();
+                    return;
+                }
+                ensureOutbuf(getFinalOutputSize());
+                outlen = doFinal(outbuf, 0);
+                outoff = 0;
+                finalized = true;
+                continue;
+            }
+            if (!upstreamRequested && demand.get() > 0L) {
+                final var subscription = upstream.get();
+                if (subscription != null) {
+                    upstreamRequested = true;
+                    subscription.request(1L);
+                    continue;
+                }
+            }
+            return;
+        }
+    }
+
+    private void ensureOutbuf(final int size) {
+        if (outbuf.length < size) {
+            JinahyaBufferPool.getDefault().release(outbuf);
+            outbuf = JinahyaBufferPool.getDefault().acquire(size);
+        }
+    }
+
+    private ByteBuffer nextBuffer() {
+        final var index = next;
+        next = (next + 1) % buffers.length;
+        if (buffers[index] == null) {
+            buffers[index] = ByteBuffer.allocate(bufferSize);
+        }
+        return buffers[index].clear();
+    }
+
+    private void terminate() {
+        terminated = true;
+        current = null;
+        inputs.clear();
+        JinahyaBufferPool.getDefault().release(inbuf);
+        JinahyaBufferPool.getDefault().release(outbuf);
+        outbuf = new byte[0];
+        // the published buffers are the subscriber's, which may still be reading them
+        Arrays.fill(buffers, null);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final int bufferSize;
+
+    private final ByteBuffer[] buffers;
+
+    private int next;
+
+    private final byte[] inbuf;
+
+    private byte[] outbuf = new byte[0];
+
+    private int outoff;
+
+    private int outlen;
+
+    private final AtomicReference<Flow.Subscriber<? super ByteBuffer>> downstream = new AtomicReference<>();
+
+    private final AtomicReference<Flow.Subscription> upstream = new AtomicReference<>();
+
+    private final Queue<ByteBuffer> inputs = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong demand = new AtomicLong();
+
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private ByteBuffer current;
+
+    private boolean upstreamRequested;
+
+    private boolean finalized;
+
+    private boolean terminated;
+
+    private volatile boolean done;
+
+    private volatile boolean cancelled;
+
+    private volatile Throwable error;
+}
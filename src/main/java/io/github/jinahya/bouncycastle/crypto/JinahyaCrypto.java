@@ -4,9 +4,21 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
 
 public interface JinahyaCrypto {
 
+    /**
+     * The default size of buffers, in bytes, for processing file channels.
+     */
+    int FILE_BUFFER_SIZE = 65536;
+
     /**
      * Encrypts specified input bytes, and returns the result.
      *
@@ -68,4 +80,174 @@ public interface JinahyaCrypto {
      * @throws IOException if an I/O error occurs.
      */
     long decrypt(InputStream in, OutputStream out, byte[] inbuf) throws IOException;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Encrypts all bytes of specified input channel, from its current position, and writes encrypted bytes to
+     * specified output channel, from its current position. Positions of both channels are advanced.
+     *
+     * @param input  the input channel from which plain bytes are read.
+     * @param output the output channel to which encrypted bytes are written.
+     * @return the number of bytes written to the {@code output}.
+     * @throws IOException if an I/O error occurs.
+     * @implSpec The default implementation invokes {@link #encrypt(InputStream, OutputStream, byte[])} with streams of
+     * specified channels, and a buffer acquired from the {@link JinahyaBufferPool#getDefault() default pool}.
+     */
+    default long encrypt(final FileChannel input, final FileChannel output) throws IOException {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        final var inbuf = JinahyaBufferPool.getDefault().acquire(FILE_BUFFER_SIZE);
+        try {
+            return encrypt(Channels.newInputStream(input), Channels.newOutputStream(output), inbuf);
+        } finally {
+            JinahyaBufferPool.getDefault().release(inbuf);
+        }
+    }
+
+    /**
+     * Decrypts all bytes of specified input channel, from its current position, and writes decrypted bytes to
+     * specified output channel, from its current position. Positions of both channels are advanced.
+     *
+     * @param input  the input channel from which encrypted bytes are read.
+     * @param output the output channel to which decrypted bytes are written.
+     * @return the number of bytes written to the {@code output}.
+     * @throws IOException if an I/O error occurs.
+     * @implSpec The default implementation invokes {@link #decrypt(InputStream, OutputStream, byte[])} with streams of
+     * specified channels, and a buffer acquired from the {@link JinahyaBufferPool#getDefault() default pool}.
+     */
+    default long decrypt(final FileChannel input, final FileChannel output) throws IOException {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        final var inbuf = JinahyaBufferPool.getDefault().acquire(FILE_BUFFER_SIZE);
+        try {
+            return decrypt(Channels.newInputStream(input), Channels.newOutputStream(output), inbuf);
+        } finally {
+            JinahyaBufferPool.getDefault().release(inbuf);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Encrypts all bytes of specified input file, and writes encrypted bytes to specified output file, which is
+     * created or truncated.
+     *
+     * @param input  the input file.
+     * @param output the output file.
+     * @return the number of bytes written to the {@code output}.
+     * @throws IOException if an I/O error occurs.
+     * @see #encrypt(FileChannel, FileChannel)
+     */
+    default long encrypt(final Path input, final Path output) throws IOException {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        try (var in = FileChannel.open(input, StandardOpenOption.READ);
+             var out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                        StandardOpenOption.TRUNCATE_EXISTING)) {
+            return encrypt(in, out);
+        }
+    }
+
+    /**
+     * Decrypts all bytes of specified input file, and writes decrypted bytes to specified output file, which is
+     * created or truncated.
+     *
+     * @param input  the input file.
+     * @param output the output file.
+     * @return the number of bytes written to the {@code output}.
+     * @throws IOException if an I/O error occurs.
+     * @see #decrypt(FileChannel, FileChannel)
+     */
+    default long decrypt(final Path input, final Path output) throws IOException {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        try (var in = FileChannel.open(input, StandardOpenOption.READ);
+             var out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                        StandardOpenOption.TRUNCATE_EXISTING)) {
+            return decrypt(in, out);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Encrypts each of specified messages, as if by {@link #encrypt(byte[])}, and appends the results to specified
+     * arena, in order.
+     *
+     * @param messages the messages to encrypt.
+     * @param arena    the arena to which encrypted messages are appended.
+     * @return given {@code arena}.
+     * @implSpec The default implementation invokes {@link #encrypt(byte[])} with each message.
+     */
+    default JinahyaCryptoArena encryptAll(final List<byte[]> messages, final JinahyaCryptoArena arena) {
+        Objects.requireNonNull(messages, "messages is null");
+        Objects.requireNonNull(arena, "arena is null");
+        for (final var message : messages) {
+            final var encrypted = encrypt(message);
+            arena.append(encrypted, 0, encrypted.length);
+        }
+        return arena;
+    }
+
+    /**
+     * Encrypts each message in specified input array, as if by {@link #encrypt(byte[])}, and appends the results to
+     * specified arena, in order. The {@code i}-th message spans from {@code offsets[i]}, inclusive, to
+     * {@code offsets[i + 1]}, exclusive; hence {@code offsets.length - 1} messages are encrypted.
+     *
+     * @param in      the input array.
+     * @param offsets the offsets of messages, followed by the end of the last message; must be non-decreasing.
+     * @param arena   the arena to which encrypted messages are appended.
+     * @return given {@code arena}.
+     * @implSpec The default implementation invokes {@link #encrypt(byte[])} with a copy of each message.
+     */
+    default JinahyaCryptoArena encryptAll(final byte[] in, final int[] offsets, final JinahyaCryptoArena arena) {
+        JinahyaCryptoArena.requireValidOffsets(in, offsets);
+        Objects.requireNonNull(arena, "arena is null");
+        for (int i = 1; i < offsets.length; i++) {
+            final var encrypted = encrypt(Arrays.copyOfRange(in, offsets[i - 1], offsets[i]));
+            arena.append(encrypted, 0, encrypted.length);
+        }
+        return arena;
+    }
+
+    /**
+     * Decrypts each of specified messages, as if by {@link #decrypt(byte[])}, and appends the results to specified
+     * arena, in order.
+     *
+     * @param messages the messages to decrypt.
+     * @param arena    the arena to which decrypted messages are appended.
+     * @return given {@code arena}.
+     * @implSpec The default implementation invokes {@link #decrypt(byte[])} with each message.
+     */
+    default JinahyaCryptoArena decryptAll(final List<byte[]> messages, final JinahyaCryptoArena arena) {
+        Objects.requireNonNull(messages, "messages is null");
+        Objects.requireNonNull(arena, "arena is null");
+        for (final var message : messages) {
+            final var decrypted = decrypt(message);
+            arena.append(decrypted, 0, decrypted.length);
+        }
+        return arena;
+    }
+
+    /**
+     * Decrypts each message in specified input array, as if by {@link #decrypt(byte[])}, and appends the results to
+     * specified arena, in order.
+     *
+     * @param in      the input array.
+     * @param offsets the offsets of messages, followed by the end of the last message; must be non-decreasing.
+     * @param arena   the arena to which decrypted messages are appended.
+     * @return given {@code arena}.
+     * @implSpec The default implementation invokes {@link #decrypt(byte[])} with a copy of each message.
+     * @see #encryptAll(byte[], int[], JinahyaCryptoArena)
+     */
+    default JinahyaCryptoArena decryptAll(final byte[] in, final int[] offsets, final JinahyaCryptoArena arena) {
+        JinahyaCryptoArena.requireValidOffsets(in, offsets);
+        Objects.requireNonNull(arena, "arena is null");
+        for (int i = 1; i < offsets.length; i++) {
+            final var decrypted = decrypt(Arrays.copyOfRange(in, offsets[i - 1], offsets[i]));
+            arena.append(decrypted, 0, decrypted.length);
+        }
+        return arena;
+    }
 }
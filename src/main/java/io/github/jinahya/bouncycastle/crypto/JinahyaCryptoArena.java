@@ -0,0 +1,226 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A contiguous, growable, array of messages, indexed by offsets and lengths, into which batch operations store their
+ * results.
+ * <p>
+ * An arena is meant to be reused, by {@link #clear() clearing} it between batches; once it has grown enough, batches
+ * of similar sizes allocate nothing. Instances of this class are not thread-safe.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaCrypto#encryptAll(byte[], int[], JinahyaCryptoArena)
+ * @see JinahyaCrypto#decryptAll(byte[], int[], JinahyaCryptoArena)
+ */
+public final class JinahyaCryptoArena {
+
+    /**
+     * Creates a new instance with specified initial capacities.
+     *
+     * @param capacity the initial number of bytes.
+     * @param count    the initial number of messages.
+     */
+    public JinahyaCryptoArena(final int capacity, final int count) {
+        super();
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity(" + capacity + ") is negative");
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("count(" + count + ") is negative");
+        }
+        array = new byte[capacity];
+        offsets = new int[count];
+        lengths = new int[count];
+    }
+
+    /**
+     * Creates a new, empty, instance.
+     */
+    public JinahyaCryptoArena() {
+        this(0, 0);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the number of messages.
+     *
+     * @return the number of messages.
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Returns the number of bytes of all messages.
+     *
+     * @return the number of bytes of all messages.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the backing array of this arena. The array may be replaced when this arena grows.
+     *
+     * @return the backing array.
+     * @see #offset(int)
+     * @see #length(int)
+     */
+    public byte[] array() {
+        return array;
+    }
+
+    /**
+     * Returns the offset, in the {@link #array()}, of the message at specified index.
+     *
+     * @param index the index of the message.
+     * @return the offset of the message.
+     */
+    public int offset(final int index) {
+        return offsets[Objects.checkIndex(index, count)];
+    }
+
+    /**
+     * Returns the length of the message at specified index.
+     *
+     * @param index the index of the message.
+     * @return the length of the message.
+     */
+    public int length(final int index) {
+        return lengths[Objects.checkIndex(index, count)];
+    }
+
+    /**
+     * Returns a new array of the message at specified index.
+     *
+     * @param index the index of the message.
+     * @return a new array of the message.
+     */
+    public byte[] copyOf(final int index) {
+        final var offset = offset(index);
+        return Arrays.copyOfRange(array, offset, offset + lengths[index]);
+    }
+
+    /**
+     * Returns a new buffer wrapping the message at specified index.
+     *
+     * @param index the index of the message.
+     * @return a new buffer wrapping the message.
+     */
+    public ByteBuffer buffer(final int index) {
+        return ByteBuffer.wrap(array, offset(index), lengths[index]).slice();
+    }
+
+    /**
+     * Wipes, and removes, all messages.
+     *
+     * @return this arena.
+     */
+    public JinahyaCryptoArena clear() {
+        Arrays.fill(array, 0, size, (byte) 0);
+        size = 0;
+        count = 0;
+        return this;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Ensures that specified number of bytes can be stored, from the {@link #size()}, to the {@link #array()}, and
+     * returns the offset at which the next message starts.
+     *
+     * @param length the number of bytes to store.
+     * @return the offset of the next message; always the {@link #size()}.
+     */
+    public int reserve(final int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("length(" + length + ") is negative");
+        }
+        final var required = Math.addExact(size, length);
+        if (required > array.length) {
+            final var grown = Arrays.copyOf(array, Math.max(required, array.length + (array.length >> 1)));
+            Arrays.fill(array, (byte) 0);
+            array = grown;
+        }
+        return size;
+    }
+
+    /**
+     * Appends a message of specified length, which has been stored at the {@link #size()} of the {@link #array()}
+     * after {@link #reserve(int) reserving}.
+     *
+     * @param length the length of the message.
+     * @return the index of the message.
+     */
+    public int append(final int length) {
+        if (length < 0 || length > array.length - size) {
+            throw new IllegalArgumentException("length(" + length + ") is not reserved");
+        }
+        if (count == offsets.length) {
+            final var capacity = Math.max(count + 1, count + (count >> 1));
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        offsets[count] = size;
+        lengths[count] = length;
+        size += length;
+        return count++;
+    }
+
+    /**
+     * Appends specified range of an array as a message.
+     *
+     * @param b   the array.
+     * @param off the offset of the {@code b}.
+     * @param len the number of bytes to append.
+     * @return the index of the message.
+     */
+    public int append(final byte[] b, final int off, final int len) {
+        Objects.checkFromIndexSize(off, len, Objects.requireNonNull(b, "b is null").length);
+        final var offset = reserve(len);
+        System.arraycopy(b, off, array, offset, len);
+        return append(len);
+    }
+
+    /**
+     * Checks specified offsets of messages in specified input array.
+     *
+     * @param in      the input array.
+     * @param offsets the offsets of messages, followed by the end of the last message.
+     */
+    static void requireValidOffsets(final byte[] in, final int[] offsets) {
+        Objects.requireNonNull(in, "in is null");
+        if (Objects.requireNonNull(offsets, "offsets is null").length == 0) {
+            throw new IllegalArgumentException("offsets.length is zero");
+        }
+        if (offsets[0] < 0) {
+            throw new IllegalArgumentException("offsets[0](" + offsets[0] + ") is negative");
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i] < offsets[i - 1]) {
+                throw new IllegalArgumentException(
+                        "offsets[" + i + "](" + offsets[i] + ") < offsets[" + (i - 1) + "](" + offsets[i - 1] + ")");
+            }
+        }
+        if (offsets[offsets.length - 1] > in.length) {
+            throw new IllegalArgumentException(
+                    "offsets[" + (offsets.length - 1) + "](" + offsets[offsets.length - 1] + ") > in.length("
+                    + in.length + ")");
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private byte[] array;
+
+    private int[] offsets;
+
+    private int[] lengths;
+
+    private int size;
+
+    private int count;
+}
@@ -0,0 +1,659 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherCrypto;
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.modes.AEADCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * A cache of keyed ciphers, for many keys, bounded by weight, with a second-chance approximation of
+ * least-recently-used eviction.
+ * <p>
+ * Each entry is keyed by a keyed hash, under a random key of the cache, of the key only, so that cipher parameters
+ * which differ only in their ivs/nonces share an entry. An entry holds the cache's own copy of the key, and pools,
+ * per direction, ciphers already keyed for the direction; each operation borrows one, and re-initializes it with the
+ * iv/nonce of its parameters, without re-running the key schedule. Once an entry is evicted, and no operation is in
+ * progress on it, the copied key is wiped, and its ciphers are dropped.
+ * <p>
+ * The {@link #get(CipherParameters)} method returns a view which looks up its entry for each operation, hence a view
+ * remains valid, re-creating its entry, after the entry has been evicted.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaPooledCrypto
+ */
+public class JinahyaCryptoCache {
+
+    /**
+     * Creates a new instance whose entries pool {@link BufferedBlockCipher}s.
+     *
+     * @param cipherSupplier a supplier for new ciphers.
+     * @param poolCapacity   the pool capacity, per direction, of each entry.
+     * @param maximumSize    the maximum number of entries.
+     * @return a new instance.
+     */
+    public static JinahyaCryptoCache ofBufferedBlockCipher(final Supplier<? extends BufferedBlockCipher> cipherSupplier,
+                                                           final int poolCapacity, final long maximumSize) {
+        return new JinahyaCryptoCache(
+                cipherSupplier,
+                JinahyaBufferedBlockCipherCrypto::new,
+                poolCapacity,
+                maximumSize,
+                p -> 1L
+        );
+    }
+
+    /**
+     * Creates a new instance whose entries pool {@link StreamCipher}s.
+     *
+     * @param cipherSupplier a supplier for new ciphers.
+     * @param poolCapacity   the pool capacity, per direction, of each entry.
+     * @param maximumSize    the maximum number of entries.
+     * @return a new instance.
+     */
+    public static JinahyaCryptoCache ofStreamCipher(final Supplier<? extends StreamCipher> cipherSupplier,
+                                                    final int poolCapacity, final long maximumSize) {
+        return new JinahyaCryptoCache(
+                cipherSupplier,
+                JinahyaStreamCipherCrypto::new,
+                poolCapacity,
+                maximumSize,
+                p -> 1L
+        );
+    }
+
+    /**
+     * Creates a new decrypt-only instance whose entries pool {@link AEADCipher}s.
+     * <p>
+     * Since a view is bound to the nonce of its parameters, encrypting with it twice would reuse the nonce; hence,
+     * encrypting methods of views of the returned instance throw an {@link UnsupportedOperationException}.
+     *
+     * @param cipherSupplier a supplier for new ciphers.
+     * @param poolCapacity   the pool capacity of each entry.
+     * @param maximumSize    the maximum number of entries.
+     * @return a new decrypt-only instance.
+     * @see JinahyaPooledCrypto#ofAEADCipher(Supplier, CipherParameters, int)
+     */
+    public static JinahyaCryptoCache ofAEADCipher(final Supplier<? extends AEADCipher> cipherSupplier,
+                                                  final int poolCapacity, final long maximumSize) {
+        return new JinahyaCryptoCache(
+                cipherSupplier,
+                JinahyaAEADCipherCrypto::new,
+                poolCapacity,
+                maximumSize,
+                p -> 1L,
+                false
+        );
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * The size, in bytes, of the random key of fingerprints.
+     */
+    private static final int FINGERPRINT_KEY_BYTES = 32;
+
+    /**
+     * Returns the key parameter of specified cipher parameters.
+     *
+     * @param params the cipher parameters.
+     * @return the key parameter of {@code params}.
+     * @throws IllegalArgumentException if {@code params} does not hold a key parameter.
+     */
+    private static KeyParameter key(final CipherParameters params) {
+        final CipherParameters key;
+        if (params instanceof ParametersWithIV) {
+            key = ((ParametersWithIV) params).getParameters();
+        } else if (params instanceof AEADParameters) {
+            key = ((AEADParameters) params).getKey();
+        } else {
+            key = params;
+        }
+        if (!(key instanceof KeyParameter)) {
+            throw new IllegalArgumentException("no key parameter in " + params);
+        }
+        return (KeyParameter) key;
+    }
+
+    /**
+     * Returns cipher parameters of specified key, and of the iv/nonce of specified cipher parameters.
+     *
+     * @param params the cipher parameters.
+     * @param key    the key.
+     * @param keyed  {@code true} for re-using the key of an already keyed cipher, which is possible only with an
+     *               iv/nonce; parameters of no iv/nonce are always of the {@code key}.
+     * @return cipher parameters of {@code key}, or of no key, and of the iv/nonce of {@code params}.
+     */
+    private static CipherParameters rekey(final CipherParameters params, final KeyParameter key,
+                                          final boolean keyed) {
+        if (params instanceof ParametersWithIV) {
+            return new ParametersWithIV(keyed ? null : key, ((ParametersWithIV) params).getIV());
+        }
+        if (params instanceof AEADParameters) {
+            final var p = (AEADParameters) params;
+            return new AEADParameters(keyed ? null : key, p.getMacSize(), p.getNonce(), p.getAssociatedText());
+        }
+        return key;
+    }
+
+    /**
+     * A keyed hash of a key.
+     */
+    private static final class Fingerprint {
+
+        private Fingerprint(final byte[] hash) {
+            super();
+            this.hash = hash;
+            this.hashCode = Arrays.hashCode(hash);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Fingerprint)) {
+                return false;
+            }
+            final var that = (Fingerprint) obj;
+            return hashCode == that.hashCode && MessageDigest.isEqual(hash, that.hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        private final byte[] hash;
+
+        private final int hashCode;
+    }
+
+    /**
+     * An entry of a key, and of ciphers keyed with it.
+     */
+    private static final class Entry {
+
+        private Entry(final Fingerprint fingerprint, final KeyParameter key, final int poolCapacity,
+                      final boolean encryption, final long weight) {
+            super();
+            this.fingerprint = fingerprint;
+            this.key = key;
+            encryptors = encryption ? new AtomicReferenceArray<>(poolCapacity) : null;
+            decryptors = new AtomicReferenceArray<>(poolCapacity);
+            this.weight = weight;
+        }
+
+        /**
+         * Retains this entry for an operation.
+         *
+         * @return {@code true} if retained; {@code false} if this entry has already been wiped.
+         */
+        private boolean retain() {
+            for (int u; (u = users.get()) >= 0; ) {
+                if (users.compareAndSet(u, u + 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void release() {
+            if (users.decrementAndGet() == 0 && evicted) {
+                wipeIfUnused();
+            }
+        }
+
+        private void evict() {
+            evicted = true;
+            wipeIfUnused();
+        }
+
+        private void wipeIfUnused() {
+            if (users.compareAndSet(0, -1)) {
+                JinahyaCipherParametersUtils.wipe(key);
+                for (int i = 0; i < decryptors.length(); i++) {
+                    decryptors.set(i, null);
+                    if (encryptors != null) {
+                        encryptors.set(i, null);
+                    }
+                }
+            }
+        }
+
+        private AtomicReferenceArray<Object> ciphers(final boolean encryption) {
+            if (!encryption) {
+                return decryptors;
+            }
+            if (encryptors == null) {
+                throw new UnsupportedOperationException("encryption is not supported by a decrypt-only cache");
+            }
+            return encryptors;
+        }
+
+        private static int stripe(final int length) {
+            final var h = (int) Thread.currentThread().getId() * 0x9E3779B9;
+            return Math.floorMod(h ^ (h >>> 16), length);
+        }
+
+        /**
+         * Borrows a cipher keyed for specified direction.
+         *
+         * @return a keyed cipher; {@code null} if none is idle.
+         */
+        private Object borrow(final boolean encryption) {
+            final var ciphers = ciphers(encryption);
+            final var length = ciphers.length();
+            for (int i = 0, s = stripe(length); i < length; i++, s = s + 1 == length ? 0 : s + 1) {
+                if (ciphers.get(s) != null) {
+                    final var cipher = ciphers.getAndSet(s, null);
+                    if (cipher != null) {
+                        return cipher;
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns specified cipher, keyed for specified direction; the cipher is discarded if the pool is full.
+         */
+        private void giveBack(final boolean encryption, final Object cipher) {
+            final var ciphers = ciphers(encryption);
+            final var length = ciphers.length();
+            for (int i = 0, s = stripe(length); i < length; i++, s = s + 1 == length ? 0 : s + 1) {
+                if (ciphers.get(s) == null && ciphers.compareAndSet(s, null, cipher)) {
+                    return;
+                }
+            }
+        }
+
+        private final Fingerprint fingerprint;
+
+        private final KeyParameter key;
+
+        /**
+         * Ciphers keyed for encryption; {@code null} for a decrypt-only cache.
+         */
+        private final AtomicReferenceArray<Object> encryptors;
+
+        private final AtomicReferenceArray<Object> decryptors;
+
+        private final long weight;
+
+        /**
+         * Whether this entry has been accessed since the eviction scan last passed it.
+         */
+        private volatile boolean referenced;
+
+        private volatile boolean evicted;
+
+        private final AtomicInteger users = new AtomicInteger();
+    }
+
+    /**
+     * An operation with a crypto.
+     *
+     * @param <R> result type parameter
+     * @param <X> exception type parameter
+     */
+    @FunctionalInterface
+    private interface Operation<R, X extends Exception> {
+
+        R apply(JinahyaCrypto crypto) throws X;
+    }
+
+    /**
+     * A view of an entry.
+     */
+    private final class View
+            implements JinahyaCrypto {
+
+        private View(final CipherParameters params) {
+            super();
+            this.params = params;
+            this.fingerprint = fingerprint(key(params));
+            this.weight = weigher.applyAsLong(params);
+        }
+
+        private <R, X extends Exception> R apply(final boolean encryption, final Operation<R, X> operation)
+                throws X {
+            final var entry = acquire(fingerprint, params, weight);
+            try {
+                var cipher = entry.borrow(encryption);
+                final var keyed = cipher != null;
+                if (!keyed) {
+                    cipher = Objects.requireNonNull(cipherSupplier.get(), "null supplied from " + cipherSupplier);
+                }
+                final var crypto = Objects.requireNonNull(
+                        cryptoFactory.apply(cipher, rekey(params, entry.key, keyed)),
+                        "null crypto created"
+                );
+                final var result = operation.apply(crypto);
+                entry.giveBack(encryption, cipher); // only when succeeded
+                return result;
+            } finally {
+                entry.release();
+            }
+        }
+
+        @Override
+        public byte[] encrypt(final byte[] in) {
+            return apply(true, c -> c.encrypt(in));
+        }
+
+        @Override
+        public int encrypt(final ByteBuffer input, final ByteBuffer output) {
+            return apply(true, c -> c.encrypt(input, output));
+        }
+
+        @Override
+        public byte[] decrypt(final byte[] in) {
+            return apply(false, c -> c.decrypt(in));
+        }
+
+        @Override
+        public int decrypt(final ByteBuffer input, final ByteBuffer output) {
+            return apply(false, c -> c.decrypt(input, output));
+        }
+
+        @Override
+        public long encrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
+            return apply(true, c -> c.encrypt(in, out, inbuf));
+        }
+
+        @Override
+        public long decrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
+            return apply(false, c -> c.decrypt(in, out, inbuf));
+        }
+
+        @Override
+        public long encrypt(final FileChannel input, final FileChannel output) throws IOException {
+            return apply(true, c -> c.encrypt(input, output));
+        }
+
+        @Override
+        public long decrypt(final FileChannel input, final FileChannel output) throws IOException {
+            return apply(false, c -> c.decrypt(input, output));
+        }
+
+        @Override
+        public JinahyaCryptoArena encryptAll(final List<byte[]> messages, final JinahyaCryptoArena arena) {
+            return apply(true, c -> c.encryptAll(messages, arena));
+        }
+
+        @Override
+        public JinahyaCryptoArena encryptAll(final byte[] in, final int[] offsets, final JinahyaCryptoArena arena) {
+            return apply(true, c -> c.encryptAll(in, offsets, arena));
+        }
+
+        @Override
+        public JinahyaCryptoArena decryptAll(final List<byte[]> messages, final JinahyaCryptoArena arena) {
+            return apply(false, c -> c.decryptAll(messages, arena));
+        }
+
+        @Override
+        public JinahyaCryptoArena decryptAll(final byte[] in, final int[] offsets, final JinahyaCryptoArena arena) {
+            return apply(false, c -> c.decryptAll(in, offsets, arena));
+        }
+
+        private final CipherParameters params;
+
+        private final Fingerprint fingerprint;
+
+        private final long weight;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance bounded by the total weight of entries.
+     *
+     * @param cipherSupplier a supplier for new ciphers.
+     * @param cryptoFactory  a function for creating a crypto of a cipher, and cipher parameters whose key is
+     *                       {@code null} when the cipher has already been keyed for the direction, and the parameters
+     *                       carry an iv/nonce.
+     * @param poolCapacity   the pool capacity, per direction, of each entry.
+     * @param maximumWeight  the maximum total weight of entries.
+     * @param weigher        a function for computing the weight of an entry from its cipher parameters.
+     * @param <CIPHER>       cipher type parameter
+     */
+    public <CIPHER> JinahyaCryptoCache(
+            final Supplier<? extends CIPHER> cipherSupplier,
+            final BiFunction<? super CIPHER, ? super CipherParameters, ? extends JinahyaCrypto> cryptoFactory,
+            final int poolCapacity, final long maximumWeight,
+            final ToLongFunction<? super CipherParameters> weigher) {
+        this(cipherSupplier, cryptoFactory, poolCapacity, maximumWeight, weigher, true);
+    }
+
+    @SuppressWarnings({"unchecked"})
+    private <CIPHER> JinahyaCryptoCache(
+            final Supplier<? extends CIPHER> cipherSupplier,
+            final BiFunction<? super CIPHER, ? super CipherParameters, ? extends JinahyaCrypto> cryptoFactory,
+            final int poolCapacity, final long maximumWeight,
+            final ToLongFunction<? super CipherParameters> weigher, final boolean encryption) {
+        super();
+        this.cipherSupplier = Objects.requireNonNull(cipherSupplier, "cipherSupplier is null");
+        this.cryptoFactory = (BiFunction<Object, CipherParameters, JinahyaCrypto>)
+                Objects.requireNonNull(cryptoFactory, "cryptoFactory is null");
+        if (poolCapacity <= 0) {
+            throw new IllegalArgumentException("poolCapacity(" + poolCapacity + ") is not positive");
+        }
+        this.poolCapacity = poolCapacity;
+        if (maximumWeight <= 0L) {
+            throw new IllegalArgumentException("maximumWeight(" + maximumWeight + ") is not positive");
+        }
+        this.maximumWeight = maximumWeight;
+        this.weigher = Objects.requireNonNull(weigher, "weigher is null");
+        this.encryption = encryption;
+        final var key = new byte[FINGERPRINT_KEY_BYTES];
+        new SecureRandom().nextBytes(key);
+        fingerprintKey = new KeyParameter(key);
+        Arrays.fill(key, (byte) 0);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns a thread-safe crypto for specified cipher parameters. The result looks up, or creates, the entry of
+     * the key of {@code params} for each operation.
+     *
+     * @param params the cipher parameters; an instance of {@link KeyParameter}, {@link ParametersWithIV}, or
+     *               {@link AEADParameters}.
+     * @return a crypto for {@code params}.
+     */
+    public JinahyaCrypto get(final CipherParameters params) {
+        Objects.requireNonNull(params, "params is null");
+        return new View(params);
+    }
+
+    /**
+     * Evicts all entries.
+     */
+    public void invalidateAll() {
+        for (final var entry : entries.values()) {
+            remove(entry);
+        }
+        clock.removeIf(e -> e.evicted);
+    }
+
+    private Fingerprint fingerprint(final KeyParameter key) {
+        final var mac = new HMac(SHA256Digest.newInstance());
+        mac.init(fingerprintKey);
+        final var bytes = key.getKey();
+        mac.update(bytes, 0, bytes.length);
+        final var hash = new byte[mac.getMacSize()];
+        mac.doFinal(hash, 0);
+        return new Fingerprint(hash);
+    }
+
+    private Entry acquire(final Fingerprint fingerprint, final CipherParameters params, final long weight) {
+        while (true) {
+            final var entry = entries.get(fingerprint);
+            if (entry != null) {
+                if (entry.retain()) {
+                    if (!entry.referenced) {
+                        entry.referenced = true;
+                    }
+                    hitCount.increment();
+                    return entry;
+                }
+                continue; // evicted and wiped; retry
+            }
+            missCount.increment();
+            final var created = new Entry(
+                    fingerprint,
+                    new KeyParameter(key(params).getKey()), // copies
+                    poolCapacity,
+                    encryption,
+                    weight
+            );
+            created.retain();
+            final var existing = entries.putIfAbsent(fingerprint, created);
+            if (existing != null) {
+                created.release();
+                created.evict();
+                continue;
+            }
+            this.weight.addAndGet(weight);
+            clock.offer(created);
+            evict(created);
+            return created;
+        }
+    }
+
+    private void remove(final Entry entry) {
+        if (entries.remove(entry.fingerprint, entry)) {
+            weight.addAndGet(-entry.weight);
+            entry.evict();
+            evictionCount.increment();
+        }
+    }
+
+    /**
+     * Evicts entries, except specified entry, until the total weight fits. The eviction scan gives each referenced
+     * entry a second chance, hence it takes amortized constant time, and no lock.
+     *
+     * @param retained the entry not to evict.
+     */
+    private void evict(final Entry retained) {
+        while (weight.get() > maximumWeight && entries.size() > 1) {
+            final var entry = clock.poll();
+            if (entry == null) {
+                return;
+            }
+            if (entry.evicted) { // already invalidated
+                continue;
+            }
+            if (entry == retained || entry.referenced) {
+                entry.referenced = false;
+                clock.offer(entry);
+                continue;
+            }
+            remove(entry);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the number of entries currently cached.
+     *
+     * @return the number of entries.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of operations which found their entries.
+     *
+     * @return the number of hits.
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Returns the number of operations which created their entries.
+     *
+     * @return the number of misses.
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Returns the number of evicted entries.
+     *
+     * @return the number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final Supplier<?> cipherSupplier;
+
+    private final BiFunction<Object, CipherParameters, JinahyaCrypto> cryptoFactory;
+
+    private final int poolCapacity;
+
+    private final long maximumWeight;
+
+    private final ToLongFunction<? super CipherParameters> weigher;
+
+    /**
+     * Whether entries support encryption; {@code false} for a decrypt-only cache.
+     */
+    private final boolean encryption;
+
+    /**
+     * The key of fingerprints, which is random for each cache.
+     */
+    private final KeyParameter fingerprintKey;
+
+    private final ConcurrentHashMap<Fingerprint, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Entries, in insertion order, scanned for eviction.
+     */
+    private final Queue<Entry> clock = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The total weight of {@link #entries}.
+     */
+    private final AtomicLong weight = new AtomicLong();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+}
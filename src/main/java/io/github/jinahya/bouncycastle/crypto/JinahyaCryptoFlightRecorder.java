@@ -0,0 +1,204 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * An instrumentation emitting JDK Flight Recorder events.
+ * <p>
+ * Operations are recorded as {@value #OPERATION_EVENT_NAME} events, with a default threshold of
+ * {@value #OPERATION_THRESHOLD}, which can be overridden by recording settings, e.g.,
+ * {@code jfr configure io.github.jinahya.bouncycastle.crypto.Operation#threshold=0ms}. Events cost nothing more
+ * than an allocation when no recording is running.
+ * <pre>{@code
+ * JinahyaCryptoInstrumentationUtils.set(new JinahyaCryptoFlightRecorder());
+ * }</pre>
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ */
+public class JinahyaCryptoFlightRecorder
+        implements JinahyaCryptoInstrumentation {
+
+    /**
+     * The name of events for operations.
+     */
+    public static final String OPERATION_EVENT_NAME = "io.github.jinahya.bouncycastle.crypto.Operation";
+
+    /**
+     * The name of events for cipher initializations.
+     */
+    public static final String CIPHER_INITIALIZATION_EVENT_NAME =
+            "io.github.jinahya.bouncycastle.crypto.CipherInitialization";
+
+    /**
+     * The name of events for buffer re-allocations.
+     */
+    public static final String BUFFER_REALLOCATION_EVENT_NAME =
+            "io.github.jinahya.bouncycastle.crypto.BufferReallocation";
+
+    /**
+     * The name of events for authentication failures.
+     */
+    public static final String AUTHENTICATION_FAILURE_EVENT_NAME =
+            "io.github.jinahya.bouncycastle.crypto.AuthenticationFailure";
+
+    /**
+     * The default threshold of {@value #OPERATION_EVENT_NAME} events.
+     */
+    public static final String OPERATION_THRESHOLD = "1 ms";
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Name(OPERATION_EVENT_NAME)
+    @Label("Crypto Operation")
+    @Category({"Jinahya", "Crypto"})
+    @Threshold(OPERATION_THRESHOLD)
+    @StackTrace(false)
+    static class OperationEvent
+            extends Event
+            implements Operation {
+
+        @Override
+        public void completed(final long inputBytes, final long outputBytes) {
+            end();
+            if (shouldCommit()) {
+                this.inputBytes = inputBytes;
+                this.outputBytes = outputBytes;
+                commit();
+            }
+        }
+
+        @Override
+        public void failed(final Throwable cause) {
+            end();
+            if (shouldCommit()) {
+                inputBytes = -1L;
+                outputBytes = -1L;
+                failure = cause.getClass().getName();
+                commit();
+            }
+        }
+
+        @Label("Algorithm")
+        String algorithm;
+
+        @Label("Encryption")
+        boolean encryption;
+
+        @Label("Input Bytes")
+        @DataAmount
+        long inputBytes;
+
+        @Label("Output Bytes")
+        @DataAmount
+        long outputBytes;
+
+        @Label("Failure")
+        @Description("The class of the failure; null for a success")
+        String failure;
+    }
+
+    @Name(CIPHER_INITIALIZATION_EVENT_NAME)
+    @Label("Cipher Initialization")
+    @Category({"Jinahya", "Crypto"})
+    @StackTrace(false)
+    static class CipherInitializationEvent
+            extends Event {
+
+        @Label("Algorithm")
+        String algorithm;
+
+        @Label("Encryption")
+        boolean encryption;
+
+        @Label("Rekeyed")
+        @Description("Whether the key schedule has been run")
+        boolean rekeyed;
+    }
+
+    @Name(BUFFER_REALLOCATION_EVENT_NAME)
+    @Label("Buffer Reallocation")
+    @Category({"Jinahya", "Crypto"})
+    static class BufferReallocationEvent
+            extends Event {
+
+        @Label("Algorithm")
+        String algorithm;
+
+        @Label("Size")
+        @DataAmount
+        int size;
+
+        @Label("New Size")
+        @DataAmount
+        int newSize;
+    }
+
+    @Name(AUTHENTICATION_FAILURE_EVENT_NAME)
+    @Label("Authentication Failure")
+    @Category({"Jinahya", "Crypto"})
+    static class AuthenticationFailureEvent
+            extends Event {
+
+        @Label("Algorithm")
+        String algorithm;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance.
+     */
+    public JinahyaCryptoFlightRecorder() {
+        super();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public Operation operationStarted(final String algorithm, final boolean encryption) {
+        final var event = new OperationEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.algorithm = algorithm;
+        event.encryption = encryption;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void cipherInitialized(final String algorithm, final boolean encryption, final boolean rekeyed) {
+        final var event = new CipherInitializationEvent();
+        if (event.isEnabled()) {
+            event.algorithm = algorithm;
+            event.encryption = encryption;
+            event.rekeyed = rekeyed;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void bufferReallocated(final String algorithm, final int size, final int newSize) {
+        final var event = new BufferReallocationEvent();
+        if (event.isEnabled()) {
+            event.algorithm = algorithm;
+            event.size = size;
+            event.newSize = newSize;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void authenticationFailed(final String algorithm) {
+        final var event = new AuthenticationFailureEvent();
+        if (event.isEnabled()) {
+            event.algorithm = algorithm;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+/**
+ * A service provider interface for observing crypto operations.
+ * <p>
+ * All methods have no-op defaults; an implementation overrides only what it needs. Methods are invoked on the
+ * threads performing operations, hence implementations should be thread-safe and should return quickly. An
+ * implementation is installed with {@link JinahyaCryptoInstrumentationUtils#set(JinahyaCryptoInstrumentation)}, or
+ * discovered, once, via {@link java.util.ServiceLoader}.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaCryptoInstrumentationUtils
+ * @see JinahyaCryptoFlightRecorder
+ */
+public interface JinahyaCryptoInstrumentation {
+
+    /**
+     * An instrumentation does nothing.
+     */
+    JinahyaCryptoInstrumentation NOOP = new JinahyaCryptoInstrumentation() {
+    };
+
+    /**
+     * An operation in progress.
+     */
+    interface Operation {
+
+        /**
+         * Notifies that the operation has completed.
+         *
+         * @param inputBytes  the number of bytes consumed; {@code -1L} when unknown.
+         * @param outputBytes the number of bytes produced.
+         */
+        void completed(long inputBytes, long outputBytes);
+
+        /**
+         * Notifies that the operation has failed.
+         *
+         * @param cause the cause of the failure.
+         */
+        void failed(Throwable cause);
+    }
+
+    /**
+     * Notifies that an operation has started.
+     *
+     * @param algorithm  the name of the algorithm, e.g., {@code AES/CBC}.
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     * @return an operation to be notified of the end; {@code null} for not interested.
+     * @implSpec The default implementation returns {@code null}.
+     */
+    default Operation operationStarted(final String algorithm, final boolean encryption) {
+        return null;
+    }
+
+    /**
+     * Notifies that a cipher has been initialized.
+     *
+     * @param algorithm  the name of the algorithm.
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     * @param rekeyed    {@code true} when the key schedule has been run; {@code false} for a re-initialization with
+     *                   the same key.
+     */
+    default void cipherInitialized(final String algorithm, final boolean encryption, final boolean rekeyed) {
+        // does nothing
+    }
+
+    /**
+     * Notifies that a processing buffer has been re-allocated since it was too short.
+     *
+     * @param algorithm the name of the algorithm.
+     * @param size      the size of the buffer.
+     * @param newSize   the size of the re-allocated buffer.
+     */
+    default void bufferReallocated(final String algorithm, final int size, final int newSize) {
+        // does nothing
+    }
+
+    /**
+     * Notifies that an authenticated decryption has failed to verify its input.
+     *
+     * @param algorithm the name of the algorithm.
+     */
+    default void authenticationFailed(final String algorithm) {
+        // does nothing
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import java.util.Objects;
+import java.util.ServiceLoader;
+
+/**
+ * Utilities for the current {@link JinahyaCryptoInstrumentation}.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ */
+public final class JinahyaCryptoInstrumentationUtils {
+
+    private static volatile JinahyaCryptoInstrumentation instrumentation =
+            ServiceLoader.load(JinahyaCryptoInstrumentation.class)
+                    .findFirst()
+                    .orElse(JinahyaCryptoInstrumentation.NOOP);
+
+    /**
+     * Returns the current instrumentation.
+     *
+     * @return the current instrumentation; {@link JinahyaCryptoInstrumentation#NOOP} when none installed.
+     */
+    public static JinahyaCryptoInstrumentation get() {
+        return instrumentation;
+    }
+
+    /**
+     * Installs specified instrumentation.
+     *
+     * @param instrumentation the instrumentation; {@link JinahyaCryptoInstrumentation#NOOP} for none.
+     * @return the previous instrumentation.
+     */
+    public static JinahyaCryptoInstrumentation set(final JinahyaCryptoInstrumentation instrumentation) {
+        Objects.requireNonNull(instrumentation, "instrumentation is null");
+        final var previous = JinahyaCryptoInstrumentationUtils.instrumentation;
+        JinahyaCryptoInstrumentationUtils.instrumentation = instrumentation;
+        return previous;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private JinahyaCryptoInstrumentationUtils() {
+        throw new AssertionError("instantiation is not allowed");
+    }
+}
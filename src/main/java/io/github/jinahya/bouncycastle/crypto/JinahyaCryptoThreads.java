@@ -0,0 +1,54 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-related utilities which differ by runtime versions; see {@code src/main/java21} for the version for Java 21
+ * and later.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ */
+final class JinahyaCryptoThreads {
+
+    /**
+     * Checks whether specified thread is a virtual thread.
+     *
+     * @param thread the thread to check.
+     * @return {@code false}, always, on this version.
+     */
+    static boolean isVirtual(final Thread thread) {
+        return false;
+    }
+
+    /**
+     * Creates a new executor for asynchronous operations.
+     *
+     * @return a new, bounded, pool of daemon platform threads, one for each available processor.
+     */
+    static ExecutorService newExecutor() {
+        final var threads = Runtime.getRuntime().availableProcessors();
+        final var sequence = new AtomicInteger();
+        final var executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    final var thread = new Thread(r, "jinahya-crypto-" + sequence.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private JinahyaCryptoThreads() {
+        throw new AssertionError("instantiation is not allowed");
+    }
+}
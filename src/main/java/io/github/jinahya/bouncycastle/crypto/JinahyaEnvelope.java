@@ -0,0 +1,400 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.engines.ARIAEngine;
+import org.bouncycastle.crypto.engines.SEEDEngine;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A flyweight view of a self-describing ciphertext envelope in a buffer.
+ * <p>
+ * An envelope consists of a header followed by the ciphertext; all multi-byte fields are big-endian.
+ * <pre>
+ * offset  size  field
+ * ------  ----  -----------------------------------------------------
+ *      0     1  version; {@link #VERSION}
+ *      1     1  algorithm; {@link Algorithm#getId()}
+ *      2     1  mode, which implies the padding; {@link Mode#getId()}
+ *      3     1  tag length, in bytes; {@code 0} for non-AEAD modes
+ *      4     4  key id
+ *      8     1  iv (nonce) length, n
+ *      9     n  iv (nonce)
+ *    9+n     *  ciphertext, including the tag, if any
+ * </pre>
+ * An instance is {@link #wrap(ByteBuffer) wrapped} around a buffer, and reads fields straight from it, without
+ * copying or changing its position or its byte order; hence an instance can be reused for many envelopes, but is not
+ * thread-safe.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaEnvelopeCrypto
+ */
+public final class JinahyaEnvelope {
+
+    /**
+     * The current version of the format.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The number of bytes of the header preceding the iv.
+     */
+    public static final int FIXED_HEADER_BYTES = 9;
+
+    /**
+     * The maximum length of the iv.
+     */
+    public static final int MAX_IV_LENGTH = 255;
+
+    /**
+     * Algorithms of envelopes.
+     */
+    public enum Algorithm {
+
+        /**
+         * The AES.
+         */
+        AES(1, AESEngine::newInstance),
+
+        /**
+         * The ARIA.
+         */
+        ARIA(2, ARIAEngine::new),
+
+        /**
+         * The SEED.
+         */
+        SEED(3, SEEDEngine::new);
+
+        private static final Algorithm[] BY_ID = new Algorithm[256];
+
+        static {
+            for (final var value : values()) {
+                BY_ID[value.id] = value;
+            }
+        }
+
+        /**
+         * Returns the value of specified id.
+         *
+         * @param id the id.
+         * @return the value of the {@code id}.
+         * @throws IllegalArgumentException if no value is identified by the {@code id}.
+         */
+        public static Algorithm valueOfId(final int id) {
+            final var value = id >= 0 && id < BY_ID.length ? BY_ID[id] : null;
+            if (value == null) {
+                throw new IllegalArgumentException("unknown algorithm id: " + id);
+            }
+            return value;
+        }
+
+        Algorithm(final int id, final Supplier<? extends BlockCipher> engineSupplier) {
+            this.id = id;
+            this.engineSupplier = engineSupplier;
+        }
+
+        /**
+         * Returns the id of this algorithm.
+         *
+         * @return the id of this algorithm.
+         */
+        public int getId() {
+            return id;
+        }
+
+        BlockCipher newEngine() {
+            return engineSupplier.get();
+        }
+
+        private final int id;
+
+        private final Supplier<? extends BlockCipher> engineSupplier;
+    }
+
+    /**
+     * Modes of envelopes.
+     */
+    public enum Mode {
+
+        /**
+         * The CBC mode with the PKCS#7 padding.
+         */
+        CBC_PKCS7(1, false),
+
+        /**
+         * The CTR(SIC) mode.
+         */
+        CTR(2, false),
+
+        /**
+         * The GCM.
+         */
+        GCM(3, true),
+
+        /**
+         * The CCM.
+         */
+        CCM(4, true);
+
+        private static final Mode[] BY_ID = new Mode[256];
+
+        static {
+            for (final var value : values()) {
+                BY_ID[value.id] = value;
+            }
+        }
+
+        /**
+         * Returns the value of specified id.
+         *
+         * @param id the id.
+         * @return the value of the {@code id}.
+         * @throws IllegalArgumentException if no value is identified by the {@code id}.
+         */
+        public static Mode valueOfId(final int id) {
+            final var value = id >= 0 && id < BY_ID.length ? BY_ID[id] : null;
+            if (value == null) {
+                throw new IllegalArgumentException("unknown mode id: " + id);
+            }
+            return value;
+        }
+
+        Mode(final int id, final boolean authenticated) {
+            this.id = id;
+            this.authenticated = authenticated;
+        }
+
+        /**
+         * Returns the id of this mode.
+         *
+         * @return the id of this mode.
+         */
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * Indicates whether this mode is an authenticated one, whose envelopes carry tags.
+         *
+         * @return {@code true} if this mode is authenticated; {@code false} otherwise.
+         */
+        public boolean isAuthenticated() {
+            return authenticated;
+        }
+
+        private final int id;
+
+        private final boolean authenticated;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the number of bytes of a header with an iv of specified length.
+     *
+     * @param ivLength the length of the iv.
+     * @return the number of bytes of the header.
+     */
+    public static int getHeaderSize(final int ivLength) {
+        return FIXED_HEADER_BYTES + ivLength;
+    }
+
+    /**
+     * Writes a header with specified fields to specified array.
+     *
+     * @param algorithm the algorithm.
+     * @param mode      the mode.
+     * @param tagLength the tag length, in bytes; must be {@code 0} unless the {@code mode} is authenticated.
+     * @param keyId     the key id.
+     * @param iv        the iv.
+     * @param out       the output array.
+     * @param outoff    the offset of the {@code out}.
+     * @return the number of bytes written.
+     */
+    static int writeHeader(final Algorithm algorithm, final Mode mode, final int tagLength, final int keyId,
+                           final byte[] iv, final byte[] out, final int outoff) {
+        out[outoff] = VERSION;
+        out[outoff + 1] = (byte) algorithm.id;
+        out[outoff + 2] = (byte) mode.id;
+        out[outoff + 3] = (byte) tagLength;
+        out[outoff + 4] = (byte) (keyId >> 24);
+        out[outoff + 5] = (byte) (keyId >> 16);
+        out[outoff + 6] = (byte) (keyId >> 8);
+        out[outoff + 7] = (byte) keyId;
+        out[outoff + 8] = (byte) iv.length;
+        System.arraycopy(iv, 0, out, outoff + FIXED_HEADER_BYTES, iv.length);
+        return getHeaderSize(iv.length);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance, which should be {@link #wrap(ByteBuffer) wrapped} before use.
+     */
+    public JinahyaEnvelope() {
+        super();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Wraps this view around the envelope at the current position of specified buffer, and validates its header. The
+     * envelope spans to the limit of the buffer.
+     *
+     * @param buffer the buffer.
+     * @return this view.
+     * @throws IllegalArgumentException if the header is not valid.
+     */
+    public JinahyaEnvelope wrap(final ByteBuffer buffer) {
+        Objects.requireNonNull(buffer, "buffer is null");
+        final var offset = buffer.position();
+        final var remaining = buffer.remaining();
+        if (remaining < FIXED_HEADER_BYTES) {
+            throw new IllegalArgumentException("remaining(" + remaining + ") < " + FIXED_HEADER_BYTES);
+        }
+        final var version = buffer.get(offset) & 0xFF;
+        if (version != VERSION) {
+            throw new IllegalArgumentException("unsupported version: " + version);
+        }
+        final var algorithm = Algorithm.valueOfId(buffer.get(offset + 1) & 0xFF);
+        final var mode = Mode.valueOfId(buffer.get(offset + 2) & 0xFF);
+        final var tagLength = buffer.get(offset + 3) & 0xFF;
+        if (mode.authenticated == (tagLength == 0)) {
+            throw new IllegalArgumentException("invalid tag length(" + tagLength + ") for " + mode);
+        }
+        final var ivLength = buffer.get(offset + 8) & 0xFF;
+        final var minimum = getHeaderSize(ivLength) + tagLength;
+        if (remaining < minimum) {
+            throw new IllegalArgumentException("remaining(" + remaining + ") < " + minimum);
+        }
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = remaining;
+        this.algorithm = algorithm;
+        this.mode = mode;
+        return this;
+    }
+
+    private ByteBuffer buffer() {
+        if (buffer == null) {
+            throw new IllegalStateException("not wrapped");
+        }
+        return buffer;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the algorithm of the wrapped envelope.
+     *
+     * @return the algorithm.
+     */
+    public Algorithm getAlgorithm() {
+        buffer();
+        return algorithm;
+    }
+
+    /**
+     * Returns the mode of the wrapped envelope.
+     *
+     * @return the mode.
+     */
+    public Mode getMode() {
+        buffer();
+        return mode;
+    }
+
+    /**
+     * Returns the tag length of the wrapped envelope.
+     *
+     * @return the tag length, in bytes.
+     */
+    public int getTagLength() {
+        return buffer().get(offset + 3) & 0xFF;
+    }
+
+    /**
+     * Returns the key id of the wrapped envelope.
+     *
+     * @return the key id.
+     */
+    public int getKeyId() {
+        final var b = buffer();
+        return (b.get(offset + 4) << 24)
+               | ((b.get(offset + 5) & 0xFF) << 16)
+               | ((b.get(offset + 6) & 0xFF) << 8)
+               | (b.get(offset + 7) & 0xFF);
+    }
+
+    /**
+     * Returns the length of the iv of the wrapped envelope.
+     *
+     * @return the length of the iv.
+     */
+    public int getIvLength() {
+        return buffer().get(offset + 8) & 0xFF;
+    }
+
+    /**
+     * Copies the iv of the wrapped envelope to a new array.
+     *
+     * @return a new array of the iv.
+     */
+    public byte[] getIv() {
+        final var iv = new byte[getIvLength()];
+        buffer.duplicate().position(offset + FIXED_HEADER_BYTES).get(iv);
+        return iv;
+    }
+
+    /**
+     * Returns the number of bytes of the header of the wrapped envelope.
+     *
+     * @return the number of bytes of the header.
+     */
+    public int getHeaderSize() {
+        return getHeaderSize(getIvLength());
+    }
+
+    /**
+     * Returns the absolute index, in the wrapped buffer, of the ciphertext.
+     *
+     * @return the index of the ciphertext.
+     */
+    public int getCiphertextIndex() {
+        return offset + getHeaderSize();
+    }
+
+    /**
+     * Returns the number of bytes of the ciphertext, including the tag, if any.
+     *
+     * @return the number of bytes of the ciphertext.
+     */
+    public int getCiphertextLength() {
+        return length - getHeaderSize();
+    }
+
+    /**
+     * Returns a new buffer sharing the ciphertext of the wrapped envelope.
+     *
+     * @return a new buffer of the ciphertext.
+     */
+    public ByteBuffer getCiphertext() {
+        final var index = getCiphertextIndex();
+        return buffer.duplicate().limit(index + getCiphertextLength()).position(index).slice();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private ByteBuffer buffer;
+
+    private int offset;
+
+    private int length;
+
+    private Algorithm algorithm;
+
+    private Mode mode;
+}
@@ -0,0 +1,401 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.modes.AEADCipher;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.CCMBlockCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.paddings.PKCS7Padding;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntFunction;
+
+/**
+ * A thread-safe crypto which encrypts messages into {@link JinahyaEnvelope envelopes}, and decrypts envelopes by
+ * their key ids and ivs.
+ * <p>
+ * The header is written to the output array before the ciphertext, in the same pass, so that no copy is made. Each
+ * thread keeps a cipher for each pair of an algorithm and a mode, which is re-initialized for each envelope with the
+ * key resolved from the envelope's key id.
+ * <p>
+ * The header is not trusted for choosing how to decrypt; an envelope whose algorithm, mode, or tag length differs from
+ * those of this crypto is rejected. For authenticated modes, the whole header is bound to the ciphertext as the
+ * associated text, hence any change of the header fails the tag check.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaEnvelope
+ */
+public class JinahyaEnvelopeCrypto {
+
+    /**
+     * A cipher of a family, re-initialized for each message.
+     */
+    private abstract static class Slot {
+
+        abstract void init(boolean encryption, KeyParameter key, byte[] iv, int tagLength);
+
+        void processAADBytes(final byte[] in, final int inoff, final int len) {
+            // no associated text for unauthenticated modes
+        }
+
+        abstract int getOutputSize(int len);
+
+        abstract int process(byte[] in, int inoff, int inlen, byte[] out, int outoff)
+                throws InvalidCipherTextException;
+    }
+
+    private static final class BufferedBlockCipherSlot
+            extends Slot {
+
+        private BufferedBlockCipherSlot(final BufferedBlockCipher cipher) {
+            super();
+            this.cipher = cipher;
+        }
+
+        @Override
+        void init(final boolean encryption, final KeyParameter key, final byte[] iv, final int tagLength) {
+            cipher.init(encryption, new ParametersWithIV(key, iv));
+        }
+
+        @Override
+        int getOutputSize(final int len) {
+            return cipher.getOutputSize(len);
+        }
+
+        @Override
+        int process(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff)
+                throws InvalidCipherTextException {
+            final var outlen = cipher.processBytes(in, inoff, inlen, out, outoff);
+            return outlen + cipher.doFinal(out, outoff + outlen);
+        }
+
+        private final BufferedBlockCipher cipher;
+    }
+
+    private static final class StreamCipherSlot
+            extends Slot {
+
+        private StreamCipherSlot(final StreamCipher cipher) {
+            super();
+            this.cipher = cipher;
+        }
+
+        @Override
+        void init(final boolean encryption, final KeyParameter key, final byte[] iv, final int tagLength) {
+            cipher.init(encryption, new ParametersWithIV(key, iv));
+        }
+
+        @Override
+        int getOutputSize(final int len) {
+            return len;
+        }
+
+        @Override
+        int process(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+            return cipher.processBytes(in, inoff, inlen, out, outoff);
+        }
+
+        private final StreamCipher cipher;
+    }
+
+    private static final class AEADCipherSlot
+            extends Slot {
+
+        private AEADCipherSlot(final AEADCipher cipher) {
+            super();
+            this.cipher = cipher;
+        }
+
+        @Override
+        void init(final boolean encryption, final KeyParameter key, final byte[] iv, final int tagLength) {
+            cipher.init(encryption, new AEADParameters(key, tagLength << 3, iv));
+        }
+
+        @Override
+        void processAADBytes(final byte[] in, final int inoff, final int len) {
+            cipher.processAADBytes(in, inoff, len);
+        }
+
+        @Override
+        int getOutputSize(final int len) {
+            return cipher.getOutputSize(len);
+        }
+
+        @Override
+        int process(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff)
+                throws InvalidCipherTextException {
+            final var outlen = cipher.processBytes(in, inoff, inlen, out, outoff);
+            return outlen + cipher.doFinal(out, outoff + outlen);
+        }
+
+        private final AEADCipher cipher;
+    }
+
+    private static Slot newSlot(final JinahyaEnvelope.Algorithm algorithm, final JinahyaEnvelope.Mode mode) {
+        switch (mode) {
+            case CBC_PKCS7:
+                return new BufferedBlockCipherSlot(
+                        new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(algorithm.newEngine()),
+                                                      new PKCS7Padding()));
+            case CTR:
+                return new StreamCipherSlot(SICBlockCipher.newInstance(algorithm.newEngine()));
+            case GCM:
+                return new AEADCipherSlot(GCMBlockCipher.newInstance(algorithm.newEngine()));
+            case CCM:
+                return new AEADCipherSlot(CCMBlockCipher.newInstance(algorithm.newEngine()));
+            default:
+                throw new AssertionError("unknown mode: " + mode);
+        }
+    }
+
+    /**
+     * Slots of the current thread, by algorithm and mode ids.
+     */
+    private static final ThreadLocal<Map<Integer, Slot>> SLOTS = ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * A reusable envelope view of the current thread.
+     */
+    private static final ThreadLocal<JinahyaEnvelope> ENVELOPES = ThreadLocal.withInitial(JinahyaEnvelope::new);
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance.
+     *
+     * @param algorithm   the algorithm of envelopes to encrypt, and to decrypt.
+     * @param mode        the mode of envelopes to encrypt, and to decrypt.
+     * @param tagLength   the tag length, in bytes, of envelopes to encrypt, and to decrypt; must be {@code 0} unless the
+     *                    {@code mode} is authenticated.
+     * @param keyResolver a function resolving keys by key ids; may return {@code null} for unknown key ids.
+     */
+    public JinahyaEnvelopeCrypto(final JinahyaEnvelope.Algorithm algorithm, final JinahyaEnvelope.Mode mode,
+                                 final int tagLength, final IntFunction<? extends KeyParameter> keyResolver) {
+        super();
+        this.algorithm = Objects.requireNonNull(algorithm, "algorithm is null");
+        this.mode = Objects.requireNonNull(mode, "mode is null");
+        if (tagLength < 0 || tagLength > 255 || mode.isAuthenticated() == (tagLength == 0)) {
+            throw new IllegalArgumentException("invalid tagLength(" + tagLength + ") for " + mode);
+        }
+        this.tagLength = tagLength;
+        this.keyResolver = Objects.requireNonNull(keyResolver, "keyResolver is null");
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Encrypts specified input bytes into a new envelope.
+     *
+     * @param keyId the id of the key to encrypt with.
+     * @param iv    the iv (nonce), which should be unique for the key.
+     * @param in    the input bytes to encrypt.
+     * @return a new array of the envelope.
+     */
+    public byte[] encrypt(final int keyId, final byte[] iv, final byte[] in) {
+        Objects.requireNonNull(in, "in is null");
+        final var slot = init(true, algorithm, mode, tagLength, keyId, iv);
+        final var headerSize = JinahyaEnvelope.getHeaderSize(iv.length);
+        final var out = new byte[headerSize + slot.getOutputSize(in.length)];
+        JinahyaEnvelope.writeHeader(algorithm, mode, tagLength, keyId, iv, out, 0);
+        slot.processAADBytes(out, 0, headerSize);
+        final int outlen;
+        try {
+            outlen = slot.process(in, 0, in.length, out, headerSize);
+        } catch (final InvalidCipherTextException icte) {
+            throw JinahyaCryptoException.ofEncryptionFailure(icte);
+        }
+        return headerSize + outlen == out.length ? out : Arrays.copyOf(out, headerSize + outlen);
+    }
+
+    /**
+     * Encrypts all remaining bytes of specified input buffer into an envelope put on specified output buffer.
+     *
+     * @param keyId  the id of the key to encrypt with.
+     * @param iv     the iv (nonce), which should be unique for the key.
+     * @param input  the input buffer.
+     * @param output the output buffer.
+     * @return the number of bytes put on the {@code output}.
+     */
+    public int encrypt(final int keyId, final byte[] iv, final ByteBuffer input, final ByteBuffer output) {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        final var slot = init(true, algorithm, mode, tagLength, keyId, iv);
+        final var headerSize = JinahyaEnvelope.getHeaderSize(iv.length);
+        final var size = headerSize + slot.getOutputSize(input.remaining());
+        if (output.remaining() < size) {
+            throw new IllegalArgumentException("output.remaining(" + output.remaining() + ") < " + size);
+        }
+        final var pool = JinahyaBufferPool.getDefault();
+        final var in = input.hasArray() ? null : pool.acquire(input.remaining());
+        final var out = output.hasArray() ? null : pool.acquire(size);
+        try {
+            final var inlen = input.remaining();
+            final byte[] inarr;
+            final int inoff;
+            if (in == null) {
+                inarr = input.array();
+                inoff = input.arrayOffset() + input.position();
+            } else {
+                input.duplicate().get(in, 0, inlen);
+                inarr = in;
+                inoff = 0;
+            }
+            final var outarr = out == null ? output.array() : out;
+            final var outoff = out == null ? output.arrayOffset() + output.position() : 0;
+            JinahyaEnvelope.writeHeader(algorithm, mode, tagLength, keyId, iv, outarr, outoff);
+            slot.processAADBytes(outarr, outoff, headerSize);
+            final int outlen;
+            try {
+                outlen = headerSize + slot.process(inarr, inoff, inlen, outarr, outoff + headerSize);
+            } catch (final InvalidCipherTextException icte) {
+                throw JinahyaCryptoException.ofEncryptionFailure(icte);
+            }
+            input.position(input.limit());
+            if (out == null) {
+                output.position(output.position() + outlen);
+            } else {
+                output.put(out, 0, outlen);
+            }
+            return outlen;
+        } finally {
+            if (in != null) {
+                pool.release(in);
+            }
+            if (out != null) {
+                pool.release(out);
+            }
+        }
+    }
+
+    /**
+     * Decrypts specified envelope.
+     *
+     * @param in the envelope to decrypt.
+     * @return a new array of decrypted bytes.
+     * @throws IllegalArgumentException if the header of the {@code in} is not valid, does not match this crypto, or
+     *                                  its key id is unknown.
+     */
+    public byte[] decrypt(final byte[] in) {
+        Objects.requireNonNull(in, "in is null");
+        final var envelope = ENVELOPES.get().wrap(ByteBuffer.wrap(in));
+        final var slot = init(envelope);
+        final var index = envelope.getCiphertextIndex();
+        slot.processAADBytes(in, 0, envelope.getHeaderSize());
+        final var out = new byte[slot.getOutputSize(envelope.getCiphertextLength())];
+        final int outlen;
+        try {
+            outlen = slot.process(in, index, envelope.getCiphertextLength(), out, 0);
+        } catch (final InvalidCipherTextException icte) {
+            throw JinahyaCryptoException.ofDecryptionFailure(icte);
+        }
+        return outlen == out.length ? out : Arrays.copyOf(out, outlen);
+    }
+
+    /**
+     * Decrypts the envelope of all remaining bytes of specified input buffer, and puts decrypted bytes on specified
+     * output buffer.
+     *
+     * @param input  the input buffer.
+     * @param output the output buffer.
+     * @return the number of bytes put on the {@code output}.
+     * @throws IllegalArgumentException if the header of the {@code input} is not valid, does not match this crypto,
+     *                                  or its key id is unknown.
+     */
+    public int decrypt(final ByteBuffer input, final ByteBuffer output) {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        final var envelope = ENVELOPES.get().wrap(input);
+        final var slot = init(envelope);
+        final var headerSize = envelope.getHeaderSize();
+        final var inlen = envelope.getCiphertextLength();
+        final var size = slot.getOutputSize(inlen);
+        if (output.remaining() < size) {
+            throw new IllegalArgumentException("output.remaining(" + output.remaining() + ") < " + size);
+        }
+        final var pool = JinahyaBufferPool.getDefault();
+        final var in = input.hasArray() ? null : pool.acquire(headerSize + inlen);
+        final var out = output.hasArray() ? null : pool.acquire(size);
+        try {
+            final byte[] inarr;
+            final int inoff;
+            if (in == null) {
+                inarr = input.array();
+                inoff = input.arrayOffset() + input.position();
+            } else {
+                input.duplicate().get(in, 0, headerSize + inlen);
+                inarr = in;
+                inoff = 0;
+            }
+            slot.processAADBytes(inarr, inoff, headerSize);
+            final var outarr = out == null ? output.array() : out;
+            final var outoff = out == null ? output.arrayOffset() + output.position() : 0;
+            final int outlen;
+            try {
+                outlen = slot.process(inarr, inoff + headerSize, inlen, outarr, outoff);
+            } catch (final InvalidCipherTextException icte) {
+                throw JinahyaCryptoException.ofDecryptionFailure(icte);
+            }
+            input.position(input.limit());
+            if (out == null) {
+                output.position(output.position() + outlen);
+            } else {
+                output.put(out, 0, outlen);
+            }
+            return outlen;
+        } finally {
+            if (in != null) {
+                pool.release(in);
+            }
+            if (out != null) {
+                pool.release(out);
+            }
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private Slot init(final JinahyaEnvelope envelope) {
+        if (envelope.getAlgorithm() != algorithm || envelope.getMode() != mode
+            || envelope.getTagLength() != tagLength) {
+            throw new IllegalArgumentException(
+                    "envelope(" + envelope.getAlgorithm() + ", " + envelope.getMode() + ", " + envelope.getTagLength()
+                    + ") does not match (" + algorithm + ", " + mode + ", " + tagLength + ")");
+        }
+        return init(false, algorithm, mode, tagLength, envelope.getKeyId(), envelope.getIv());
+    }
+
+    private Slot init(final boolean encryption, final JinahyaEnvelope.Algorithm algorithm,
+                      final JinahyaEnvelope.Mode mode, final int tagLength, final int keyId, final byte[] iv) {
+        Objects.requireNonNull(iv, "iv is null");
+        if (iv.length > JinahyaEnvelope.MAX_IV_LENGTH) {
+            throw new IllegalArgumentException("iv.length(" + iv.length + ") > " + JinahyaEnvelope.MAX_IV_LENGTH);
+        }
+        final var key = keyResolver.apply(keyId);
+        if (key == null) {
+            throw new IllegalArgumentException("unknown keyId: " + keyId);
+        }
+        final var slot = SLOTS.get().computeIfAbsent((algorithm.getId() << 8) | mode.getId(),
+                                                     k -> newSlot(algorithm, mode));
+        slot.init(encryption, key, iv, tagLength);
+        return slot;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final JinahyaEnvelope.Algorithm algorithm;
+
+    private final JinahyaEnvelope.Mode mode;
+
+    private final int tagLength;
+
+    private final IntFunction<? extends KeyParameter> keyResolver;
+}
@@ -0,0 +1,433 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.DefaultBufferedBlockCipher;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.CFBBlockCipher;
+import org.bouncycastle.crypto.modes.OFBBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * A runner of known-answer tests, in the format of NIST CAVP response ({@code .rsp}) files, in a zip archive, such as
+ * {@code KAT_AES.zip}, against {@link JinahyaBufferedBlockCipherCrypto}s of a block cipher engine.
+ * <p>
+ * Entries are streamed out of the archive, and parsed, byte by byte, on the calling thread, while vectors of parsed
+ * entries run, in parallel, on an executor. Entries are recognized by their name prefixes, i.e., {@code ECB},
+ * {@code CBC}, {@code OFB}, {@code CFB8}, and {@code CFB128}; other entries, e.g., of the bit-oriented {@code CFB1},
+ * are skipped.
+ * <p>
+ * A run is bounded by a timeout, hence it can be used as a power-on self-test.
+ *
+ * <pre>{@code
+ * try (var zip = Files.newInputStream(path)) {
+ *     final var result = new JinahyaKnownAnswerTestRunner(AESEngine::newInstance).run(zip, Duration.ofSeconds(1L));
+ *     if (!result.isPassed()) {
+ *         throw new IllegalStateException("self-test failed: " + result.getFailures());
+ *     }
+ * }
+ * }</pre>
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ */
+public class JinahyaKnownAnswerTestRunner {
+
+    private static final String SUFFIX = ".rsp";
+
+    /**
+     * Modes recognized by name prefixes of entries; {@code CFB1} entries match none of them.
+     */
+    private enum Mode {
+
+        ECB(e -> new DefaultBufferedBlockCipher(e)),
+
+        CBC(e -> new DefaultBufferedBlockCipher(CBCBlockCipher.newInstance(e))),
+
+        OFB(e -> new DefaultBufferedBlockCipher(new OFBBlockCipher(e, e.getBlockSize() << 3))),
+
+        CFB128(e -> new DefaultBufferedBlockCipher(CFBBlockCipher.newInstance(e, 128))),
+
+        CFB8(e -> new DefaultBufferedBlockCipher(CFBBlockCipher.newInstance(e, 8)));
+
+        private static Mode of(final String name) {
+            if (!name.endsWith(SUFFIX)) {
+                return null;
+            }
+            for (final var value : values()) {
+                if (name.startsWith(value.name())) {
+                    return value;
+                }
+            }
+            return null;
+        }
+
+        Mode(final Function<BlockCipher, BufferedBlockCipher> function) {
+            this.function = function;
+        }
+
+        private final Function<BlockCipher, BufferedBlockCipher> function;
+    }
+
+    /**
+     * A single vector of an entry.
+     */
+    private static final class Vector {
+
+        private Vector(final boolean encryption, final int count) {
+            super();
+            this.encryption = encryption;
+            this.count = count;
+        }
+
+        private final boolean encryption;
+
+        private final int count;
+
+        private byte[] key;
+
+        private byte[] iv;
+
+        private byte[] plaintext;
+
+        private byte[] ciphertext;
+    }
+
+    /**
+     * The result of a run.
+     */
+    public static final class Result {
+
+        private Result(final int entries, final List<String> skippedEntries, final long vectors,
+                       final List<String> failures, final long elapsedNanos) {
+            super();
+            this.entries = entries;
+            this.skippedEntries = Collections.unmodifiableList(skippedEntries);
+            this.vectors = vectors;
+            this.failures = Collections.unmodifiableList(failures);
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return super.toString() + '{' +
+                   "entries=" + entries +
+                   ",skippedEntries=" + skippedEntries.size() +
+                   ",vectors=" + vectors +
+                   ",failures=" + failures.size() +
+                   ",elapsedNanos=" + elapsedNanos +
+                   '}';
+        }
+
+        /**
+         * Checks whether all vectors passed. A run which ran no entry, or no vector, is not passed.
+         *
+         * @return {@code true} if at least one vector of at least one entry ran, and no vector failed; {@code false}
+         * otherwise.
+         */
+        public boolean isPassed() {
+            return entries > 0 && vectors > 0L && failures.isEmpty();
+        }
+
+        /**
+         * Returns the number of entries run.
+         *
+         * @return the number of entries run.
+         */
+        public int getEntries() {
+            return entries;
+        }
+
+        /**
+         * Returns names of entries skipped.
+         *
+         * @return an unmodifiable list of names of skipped entries.
+         */
+        public List<String> getSkippedEntries() {
+            return skippedEntries;
+        }
+
+        /**
+         * Returns the number of vectors run.
+         *
+         * @return the number of vectors run.
+         */
+        public long getVectors() {
+            return vectors;
+        }
+
+        /**
+         * Returns descriptions of failed vectors, e.g., {@code CBCVarKey128.rsp ENCRYPT COUNT = 3}. A vector missing
+         * any of its {@code KEY}, {@code PLAINTEXT}, and {@code CIPHERTEXT} is counted as failed.
+         *
+         * @return an unmodifiable list of descriptions of failed vectors.
+         */
+        public List<String> getFailures() {
+            return failures;
+        }
+
+        /**
+         * Returns the time elapsed by the run.
+         *
+         * @return the elapsed time.
+         */
+        public Duration getElapsed() {
+            return Duration.ofNanos(elapsedNanos);
+        }
+
+        private final int entries;
+
+        private final List<String> skippedEntries;
+
+        private final long vectors;
+
+        private final List<String> failures;
+
+        private final long elapsedNanos;
+    }
+
+    // ------------------------------------------------------------------------------------------------------------ rsp
+    private static final byte[] COUNT = "COUNT".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] KEY = "KEY".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] IV = "IV".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] PLAINTEXT = "PLAINTEXT".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] CIPHERTEXT = "CIPHERTEXT".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] DECRYPT = "[DECRYPT]".getBytes(StandardCharsets.US_ASCII);
+
+    private static boolean equals(final byte[] b, final int from, final int to, final byte[] name) {
+        return Arrays.equals(b, from, to, name, 0, name.length);
+    }
+
+    private static int nibble(final byte c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        throw new IllegalArgumentException("not a hex digit: " + (char) c);
+    }
+
+    private static byte[] hex(final byte[] b, final int from, final int to) {
+        if (((to - from) & 1) != 0) {
+            throw new IllegalArgumentException("odd number of hex digits: " + (to - from));
+        }
+        final var bytes = new byte[(to - from) >> 1];
+        for (int i = 0, j = from; i < bytes.length; i++, j += 2) {
+            bytes[i] = (byte) ((nibble(b[j]) << 4) | nibble(b[j + 1]));
+        }
+        return bytes;
+    }
+
+    private static int decimal(final byte[] b, final int from, final int to) {
+        var value = 0;
+        for (int i = from; i < to; i++) {
+            value = value * 10 + (b[i] - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Parses vectors of an entry, of specified length, in specified array.
+     */
+    private static List<Vector> parse(final byte[] b, final int length) {
+        final var vectors = new ArrayList<Vector>();
+        var encryption = true;
+        Vector vector = null;
+        for (int i = 0, e; i < length; i = e + 1) {
+            e = i;
+            while (e < length && b[e] != '\n') {
+                e++;
+            }
+            var end = e;
+            while (end > i && (b[end - 1] == '\r' || b[end - 1] == ' ')) {
+                end--;
+            }
+            if (end == i || b[i] == '#') {
+                continue;
+            }
+            if (b[i] == '[') {
+                encryption = !equals(b, i, end, DECRYPT);
+                continue;
+            }
+            var eq = i;
+            while (eq < end && b[eq] != '=') {
+                eq++;
+            }
+            if (eq == end) {
+                continue;
+            }
+            var nameEnd = eq;
+            while (nameEnd > i && b[nameEnd - 1] == ' ') {
+                nameEnd--;
+            }
+            var valueStart = eq + 1;
+            while (valueStart < end && b[valueStart] == ' ') {
+                valueStart++;
+            }
+            if (equals(b, i, nameEnd, COUNT)) {
+                vector = new Vector(encryption, decimal(b, valueStart, end));
+                vectors.add(vector);
+            } else if (vector == null) {
+                continue;
+            } else if (equals(b, i, nameEnd, KEY)) {
+                vector.key = hex(b, valueStart, end);
+            } else if (equals(b, i, nameEnd, IV)) {
+                vector.iv = hex(b, valueStart, end);
+            } else if (equals(b, i, nameEnd, PLAINTEXT)) {
+                vector.plaintext = hex(b, valueStart, end);
+            } else if (equals(b, i, nameEnd, CIPHERTEXT)) {
+                vector.ciphertext = hex(b, valueStart, end);
+            }
+        }
+        return vectors;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance with specified engine supplier, which runs vectors on the
+     * {@link ForkJoinPool#commonPool() common pool}.
+     *
+     * @param engineSupplier a supplier for new block cipher engines, e.g., {@code AESEngine::newInstance}.
+     */
+    public JinahyaKnownAnswerTestRunner(final Supplier<? extends BlockCipher> engineSupplier) {
+        this(engineSupplier, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new instance with specified arguments.
+     *
+     * @param engineSupplier a supplier for new block cipher engines, e.g., {@code AESEngine::newInstance}.
+     * @param executor       an executor on which vectors of each entry run.
+     */
+    public JinahyaKnownAnswerTestRunner(final Supplier<? extends BlockCipher> engineSupplier,
+                                        final Executor executor) {
+        super();
+        this.engineSupplier = Objects.requireNonNull(engineSupplier, "engineSupplier is null");
+        this.executor = Objects.requireNonNull(executor, "executor is null");
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Runs all recognized entries of specified zip archive stream, within specified timeout.
+     *
+     * @param zip     an input stream of the zip archive; not closed by this method.
+     * @param timeout the timeout for the whole run, including reading the {@code zip}.
+     * @return the result of the run.
+     * @throws IOException          if an I/O error occurs.
+     * @throws TimeoutException     if the run does not complete within the {@code timeout}.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public Result run(final InputStream zip, final Duration timeout)
+            throws IOException, TimeoutException, InterruptedException {
+        Objects.requireNonNull(zip, "zip is null");
+        Objects.requireNonNull(timeout, "timeout is null");
+        final var started = System.nanoTime();
+        final var deadline = started + timeout.toNanos();
+        final var skipped = new ArrayList<String>();
+        final var failures = new ConcurrentLinkedQueue<String>();
+        final var vectors = new AtomicLong();
+        final var futures = new ArrayList<CompletableFuture<Void>>();
+        var buffer = new byte[8192];
+        try {
+            final var stream = new ZipInputStream(zip); // not closed, so as the zip
+            for (ZipEntry entry; (entry = stream.getNextEntry()) != null; ) {
+                if (System.nanoTime() - deadline >= 0L) {
+                    throw new TimeoutException("timed out while reading entries");
+                }
+                final var name = entry.getName();
+                final var mode = entry.isDirectory() ? null : Mode.of(name.substring(name.lastIndexOf('/') + 1));
+                if (mode == null) {
+                    skipped.add(name);
+                    continue;
+                }
+                var length = 0;
+                for (int r; (r = stream.read(buffer, length, buffer.length - length)) != -1; ) {
+                    length += r;
+                    if (length == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, buffer.length << 1);
+                    }
+                }
+                final var parsed = parse(buffer, length);
+                futures.add(CompletableFuture.runAsync(() -> {
+                    run(name, mode, parsed, failures);
+                    vectors.addAndGet(parsed.size());
+                }, executor));
+            }
+            final var remaining = deadline - System.nanoTime();
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                    .get(Math.max(remaining, 0L), TimeUnit.NANOSECONDS);
+        } catch (final ExecutionException ee) {
+            throw new IllegalStateException("failed to run vectors", ee.getCause());
+        } catch (final TimeoutException | InterruptedException e) {
+            futures.forEach(f -> f.cancel(false));
+            throw e;
+        }
+        return new Result(futures.size(), skipped, vectors.get(), new ArrayList<>(failures),
+                          System.nanoTime() - started);
+    }
+
+    private void run(final String name, final Mode mode, final List<Vector> vectors,
+                     final ConcurrentLinkedQueue<String> failures) {
+        final var cipher = mode.function.apply(engineSupplier.get());
+        for (final var vector : vectors) {
+            if (vector.key == null || vector.plaintext == null || vector.ciphertext == null) {
+                failures.add(name + (vector.encryption ? " ENCRYPT" : " DECRYPT") + " COUNT = " + vector.count
+                             + " (incomplete)");
+                continue;
+            }
+            try {
+                final var params = vector.iv == null
+                                   ? new KeyParameter(vector.key)
+                                   : new ParametersWithIV(new KeyParameter(vector.key), vector.iv);
+                final var crypto = new JinahyaBufferedBlockCipherCrypto(cipher, params);
+                final var passed = vector.encryption
+                                   ? Arrays.equals(crypto.encrypt(vector.plaintext), vector.ciphertext)
+                                   : Arrays.equals(crypto.decrypt(vector.ciphertext), vector.plaintext);
+                if (passed) {
+                    continue;
+                }
+            } catch (final RuntimeException re) {
+                // fails below
+            }
+            failures.add(name + (vector.encryption ? " ENCRYPT" : " DECRYPT") + " COUNT = " + vector.count);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final Supplier<? extends BlockCipher> engineSupplier;
+
+    private final Executor executor;
+}
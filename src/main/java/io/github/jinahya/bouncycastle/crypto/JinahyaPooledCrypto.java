@@ -0,0 +1,288 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherCrypto;
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.modes.AEADCipher;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * A thread-safe crypto which delegates each operation to a crypto borrowed from a bounded pool.
+ * <p>
+ * Cryptos for encryption and cryptos for decryption are pooled separately, so that each pooled crypto, once keyed, is
+ * always re-initialized for the same direction without re-running the key schedule. The pool never blocks; when no
+ * idle crypto is available, a new one is created, and when the pool is full, a returned crypto is discarded. Hence,
+ * the {@code capacity} bounds the number of idle cryptos retained, not the number of concurrent operations. Slots are
+ * striped by the current thread's identifier, and no thread-local state is used, which makes an instance suitable for
+ * virtual threads as well as for platform threads.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaCipherCrypto
+ */
+public class JinahyaPooledCrypto
+        implements JinahyaCrypto {
+
+    /**
+     * Creates a new instance pooling {@link JinahyaBufferedBlockCipherCrypto}s.
+     *
+     * @param cipherSupplier a supplier for new ciphers.
+     * @param params         the cipher parameters for initializing each cipher.
+     * @param capacity       the maximum number of idle cryptos retained, per direction.
+     * @return a new instance.
+     */
+    public static JinahyaPooledCrypto ofBufferedBlockCipher(
+            final Supplier<? extends BufferedBlockCipher> cipherSupplier, final CipherParameters params,
+            final int capacity) {
+        Objects.requireNonNull(cipherSupplier, "cipherSupplier is null");
+        Objects.requireNonNull(params, "params is null");
+        return new JinahyaPooledCrypto(
+                () -> new JinahyaBufferedBlockCipherCrypto(cipherSupplier.get(), params),
+                capacity
+        );
+    }
+
+    /**
+     * Creates a new instance pooling {@link JinahyaStreamCipherCrypto}s.
+     *
+     * @param cipherSupplier a supplier for new ciphers.
+     * @param params         the cipher parameters for initializing each cipher.
+     * @param capacity       the maximum number of idle cryptos retained, per direction.
+     * @return a new instance.
+     */
+    public static JinahyaPooledCrypto ofStreamCipher(final Supplier<? extends StreamCipher> cipherSupplier,
+                                                     final CipherParameters params, final int capacity) {
+        Objects.requireNonNull(cipherSupplier, "cipherSupplier is null");
+        Objects.requireNonNull(params, "params is null");
+        return new JinahyaPooledCrypto(
+                () -> new JinahyaStreamCipherCrypto(cipherSupplier.get(), params),
+                capacity
+        );
+    }
+
+    /**
+     * Creates a new decrypt-only instance pooling {@link JinahyaAEADCipherCrypto}s.
+     * <p>
+     * Since all pooled cryptos share the nonce of the {@code params}, encrypting with them would reuse the nonce across
+     * cryptos, which no cipher can detect; hence, encrypting methods of the returned instance throw an
+     * {@link UnsupportedOperationException}. Use {@link JinahyaAEADCipherCrypto#encrypt(byte[], byte[], byte[])} with
+     * per-message nonces for encryption.
+     *
+     * @param cipherSupplier a supplier for new ciphers.
+     * @param params         the cipher parameters for initializing each cipher.
+     * @param capacity       the maximum number of idle cryptos retained.
+     * @return a new decrypt-only instance.
+     */
+    public static JinahyaPooledCrypto ofAEADCipher(final Supplier<? extends AEADCipher> cipherSupplier,
+                                                   final CipherParameters params, final int capacity) {
+        Objects.requireNonNull(cipherSupplier, "cipherSupplier is null");
+        Objects.requireNonNull(params, "params is null");
+        return new JinahyaPooledCrypto(
+                () -> new JinahyaAEADCipherCrypto(cipherSupplier.get(), params),
+                capacity,
+                false
+        );
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance with specified crypto supplier and capacity.
+     *
+     * @param cryptoSupplier a supplier for new cryptos; each supplied crypto should own its cipher.
+     * @param capacity       the maximum number of idle cryptos retained, per direction.
+     */
+    public JinahyaPooledCrypto(final Supplier<? extends JinahyaCrypto> cryptoSupplier, final int capacity) {
+        this(cryptoSupplier, capacity, true);
+    }
+
+    private JinahyaPooledCrypto(final Supplier<? extends JinahyaCrypto> cryptoSupplier, final int capacity,
+                                final boolean encryption) {
+        super();
+        this.cryptoSupplier = Objects.requireNonNull(cryptoSupplier, "cryptoSupplier is null");
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity(" + capacity + ") is not positive");
+        }
+        encryptors = encryption ? new AtomicReferenceArray<>(capacity) : null;
+        decryptors = new AtomicReferenceArray<>(capacity);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private static int stripe(final int length) {
+        final var h = (int) Thread.currentThread().getId() * 0x9E3779B9;
+        return Math.floorMod(h ^ (h >>> 16), length);
+    }
+
+    private JinahyaCrypto acquire(final AtomicReferenceArray<JinahyaCrypto> slots) {
+        if (slots == null) {
+            throw new UnsupportedOperationException("encryption is not supported by a decrypt-only pool");
+        }
+        final var length = slots.length();
+        for (int i = 0, s = stripe(length); i < length; i++, s = s + 1 == length ? 0 : s + 1) {
+            if (slots.get(s) == null) {
+                continue;
+            }
+            final var crypto = slots.getAndSet(s, null);
+            if (crypto != null) {
+                return crypto;
+            }
+        }
+        return Objects.requireNonNull(cryptoSupplier.get(), "null supplied from " + cryptoSupplier);
+    }
+
+    private void release(final AtomicReferenceArray<JinahyaCrypto> slots, final JinahyaCrypto crypto) {
+        final var length = slots.length();
+        for (int i = 0, s = stripe(length); i < length; i++, s = s + 1 == length ? 0 : s + 1) {
+            if (slots.get(s) == null && slots.compareAndSet(s, null, crypto)) {
+                return;
+            }
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public byte[] encrypt(final byte[] in) {
+        final var crypto = acquire(encryptors);
+        try {
+            return crypto.encrypt(in);
+        } finally {
+            release(encryptors, crypto);
+        }
+    }
+
+    @Override
+    public int encrypt(final ByteBuffer input, final ByteBuffer output) {
+        final var crypto = acquire(encryptors);
+        try {
+            return crypto.encrypt(input, output);
+        } finally {
+            release(encryptors, crypto);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public byte[] decrypt(final byte[] in) {
+        final var crypto = acquire(decryptors);
+        try {
+            return crypto.decrypt(in);
+        } finally {
+            release(decryptors, crypto);
+        }
+    }
+
+    @Override
+    public int decrypt(final ByteBuffer input, final ByteBuffer output) {
+        final var crypto = acquire(decryptors);
+        try {
+            return crypto.decrypt(input, output);
+        } finally {
+            release(decryptors, crypto);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public long encrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
+        final var crypto = acquire(encryptors);
+        try {
+            return crypto.encrypt(in, out, inbuf);
+        } finally {
+            release(encryptors, crypto);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public long decrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
+        final var crypto = acquire(decryptors);
+        try {
+            return crypto.decrypt(in, out, inbuf);
+        } finally {
+            release(decryptors, crypto);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public long encrypt(final FileChannel input, final FileChannel output) throws IOException {
+        final var crypto = acquire(encryptors);
+        try {
+            return crypto.encrypt(input, output);
+        } finally {
+            release(encryptors, crypto);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public long decrypt(final FileChannel input, final FileChannel output) throws IOException {
+        final var crypto = acquire(decryptors);
+        try {
+            return crypto.decrypt(input, output);
+        } finally {
+            release(decryptors, crypto);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public JinahyaCryptoArena encryptAll(final List<byte[]> messages, final JinahyaCryptoArena arena) {
+        final var crypto = acquire(encryptors);
+        try {
+            return crypto.encryptAll(messages, arena);
+        } finally {
+            release(encryptors, crypto);
+        }
+    }
+
+    @Override
+    public JinahyaCryptoArena encryptAll(final byte[] in, final int[] offsets, final JinahyaCryptoArena arena) {
+        final var crypto = acquire(encryptors);
+        try {
+            return crypto.encryptAll(in, offsets, arena);
+        } finally {
+            release(encryptors, crypto);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public JinahyaCryptoArena decryptAll(final List<byte[]> messages, final JinahyaCryptoArena arena) {
+        final var crypto = acquire(decryptors);
+        try {
+            return crypto.decryptAll(messages, arena);
+        } finally {
+            release(decryptors, crypto);
+        }
+    }
+
+    @Override
+    public JinahyaCryptoArena decryptAll(final byte[] in, final int[] offsets, final JinahyaCryptoArena arena) {
+        final var crypto = acquire(decryptors);
+        try {
+            return crypto.decryptAll(in, offsets, arena);
+        } finally {
+            release(decryptors, crypto);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final Supplier<? extends JinahyaCrypto> cryptoSupplier;
+
+    /**
+     * Slots of cryptos for encryption; {@code null} for a decrypt-only instance.
+     */
+    private final AtomicReferenceArray<JinahyaCrypto> encryptors;
+
+    private final AtomicReferenceArray<JinahyaCrypto> decryptors;
+}
@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Objects;
 
 public class JinahyaStreamCipherCrypto
@@ -22,27 +23,129 @@ public class JinahyaStreamCipherCrypto
         cipher.init(encryption, params);
     }
 
-    // -----------------------------------------------------------------------------------------------------------------
     @Override
-    public byte[] encrypt(final byte[] in) {
-        Objects.requireNonNull(in, "in is null");
-        initForEncryption();
+    protected void reinitFor(final boolean encryption) {
+        cipher.reset();
+    }
+
+    @Override
+    protected String getAlgorithmName() {
+        return cipher.getAlgorithmName();
+    }
+
+    // ----------------------------------------------------------------------------------------------------------- batch
+    @Override
+    protected int processMessage(final boolean encryption, final byte[] in, final int inoff, final int inlen,
+                                 final JinahyaCryptoArena arena) {
+        if (encryption) {
+            initForEncryption();
+        } else {
+            initForDecryption();
+        }
+        final var outoff = arena.reserve(inlen);
         return JinahyaStreamCipherUtils.processBytes(
                 cipher,
                 in,
-                0,
-                in.length
+                inoff,
+                inlen,
+                arena.array(),
+                outoff
         );
     }
 
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public byte[] encrypt(final byte[] in) {
+        Objects.requireNonNull(in, "in is null");
+        initForEncryption();
+        final var operation = operationStarted(true);
+        try {
+            final var out = JinahyaStreamCipherUtils.processBytes(
+                    cipher,
+                    in,
+                    0,
+                    in.length
+            );
+            operationCompleted(operation, in.length, out.length);
+            return out;
+        } catch (final RuntimeException re) {
+            operationFailed(operation, re);
+            throw re;
+        }
+    }
+
     @Override
     public int encrypt(final ByteBuffer input, final ByteBuffer output) {
         initForEncryption();
-        return JinahyaStreamCipherUtils.processBytes(
-                cipher,
-                input,
-                output
-        );
+        final var operation = operationStarted(true);
+        final var inlen = Objects.requireNonNull(input, "input is null").remaining();
+        try {
+            final var outlen = JinahyaStreamCipherUtils.processBytes(
+                    cipher,
+                    input,
+                    output
+            );
+            operationCompleted(operation, inlen, outlen);
+            return outlen;
+        } catch (final RuntimeException re) {
+            operationFailed(operation, re);
+            throw re;
+        }
+    }
+
+    /**
+     * Encrypts specified range of an input array into specified output array, which needs exactly
+     * {@code inlen} bytes from the {@code outoff}. The {@code out} may be the {@code in}, with the same offset.
+     *
+     * @param in     the input array.
+     * @param inoff  the offset of the {@code in}.
+     * @param inlen  the number of bytes to encrypt.
+     * @param out    the output array.
+     * @param outoff the offset of the {@code out}.
+     * @return the number of bytes stored to the {@code out}.
+     * @see JinahyaStreamCipherUtils#processBytes(StreamCipher, byte[], int, int, byte[], int)
+     */
+    public int encrypt(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+        initForEncryption();
+        final var operation = operationStarted(true);
+        try {
+            final var outlen = JinahyaStreamCipherUtils.processBytes(
+                    cipher,
+                    in,
+                    inoff,
+                    inlen,
+                    out,
+                    outoff
+            );
+            operationCompleted(operation, outlen, outlen);
+            return outlen;
+        } catch (final RuntimeException re) {
+            operationFailed(operation, re);
+            throw re;
+        }
+    }
+
+    /**
+     * Encrypts all remaining bytes of specified buffer in place.
+     *
+     * @param buffer the buffer.
+     * @return the number of bytes encrypted.
+     * @see JinahyaStreamCipherUtils#processBytesInPlace(StreamCipher, ByteBuffer)
+     */
+    public int encrypt(final ByteBuffer buffer) {
+        initForEncryption();
+        final var operation = operationStarted(true);
+        try {
+            final var outlen = JinahyaStreamCipherUtils.processBytesInPlace(
+                    cipher,
+                    buffer
+            );
+            operationCompleted(operation, outlen, outlen);
+            return outlen;
+        } catch (final RuntimeException re) {
+            operationFailed(operation, re);
+            throw re;
+        }
     }
 
     // -----------------------------------------------------------------------------------------------------------------
@@ -50,47 +153,185 @@ public class JinahyaStreamCipherCrypto
     public byte[] decrypt(final byte[] in) {
         Objects.requireNonNull(in, "in is null");
         initForDecryption();
-        return JinahyaStreamCipherUtils.processBytes(
-                cipher,
-                in,
-                0,
-                in.length
-        );
+        final var operation = operationStarted(false);
+        try {
+            final var out = JinahyaStreamCipherUtils.processBytes(
+                    cipher,
+                    in,
+                    0,
+                    in.length
+            );
+            operationCompleted(operation, in.length, out.length);
+            return out;
+        } catch (final RuntimeException re) {
+            operationFailed(operation, re);
+            throw re;
+        }
     }
 
     @Override
     public int decrypt(final ByteBuffer input, final ByteBuffer output) {
         initForDecryption();
-        return JinahyaStreamCipherUtils.processBytes(
-                cipher,
-                input,
-                output
-        );
+        final var operation = operationStarted(false);
+        final var inlen = Objects.requireNonNull(input, "input is null").remaining();
+        try {
+            final var outlen = JinahyaStreamCipherUtils.processBytes(
+                    cipher,
+                    input,
+                    output
+            );
+            operationCompleted(operation, inlen, outlen);
+            return outlen;
+        } catch (final RuntimeException re) {
+            operationFailed(operation, re);
+            throw re;
+        }
+    }
+
+    /**
+     * Decrypts specified range of an input array into specified output array, which needs exactly
+     * {@code inlen} bytes from the {@code outoff}. The {@code out} may be the {@code in}, with the same offset.
+     *
+     * @param in     the input array.
+     * @param inoff  the offset of the {@code in}.
+     * @param inlen  the number of bytes to decrypt.
+     * @param out    the output array.
+     * @param outoff the offset of the {@code out}.
+     * @return the number of bytes stored to the {@code out}.
+     * @see JinahyaStreamCipherUtils#processBytes(StreamCipher, byte[], int, int, byte[], int)
+     */
+    public int decrypt(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+        initForDecryption();
+        final var operation = operationStarted(false);
+        try {
+            final var outlen = JinahyaStreamCipherUtils.processBytes(
+                    cipher,
+                    in,
+                    inoff,
+                    inlen,
+                    out,
+                    outoff
+            );
+            operationCompleted(operation, outlen, outlen);
+            return outlen;
+        } catch (final RuntimeException re) {
+            operationFailed(operation, re);
+            throw re;
+        }
+    }
+
+    /**
+     * Decrypts all remaining bytes of specified buffer in place.
+     *
+     * @param buffer the buffer.
+     * @return the number of bytes decrypted.
+     * @see JinahyaStreamCipherUtils#processBytesInPlace(StreamCipher, ByteBuffer)
+     */
+    public int decrypt(final ByteBuffer buffer) {
+        initForDecryption();
+        final var operation = operationStarted(false);
+        try {
+            final var outlen = JinahyaStreamCipherUtils.processBytesInPlace(
+                    cipher,
+                    buffer
+            );
+            operationCompleted(operation, outlen, outlen);
+            return outlen;
+        } catch (final RuntimeException re) {
+            operationFailed(operation, re);
+            throw re;
+        }
     }
 
     // -----------------------------------------------------------------------------------------------------------------
     @Override
     public long encrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
         initForEncryption();
-        return JinahyaStreamCipherUtils.processAllBytes(
-                cipher,
-                in,
-                out,
-                inbuf,
-                null
-        );
+        final var operation = operationStarted(true);
+        try {
+            final var bytes = JinahyaStreamCipherUtils.processAllBytes(
+                    cipher,
+                    in,
+                    out,
+                    inbuf,
+                    null
+            );
+            operationCompleted(operation, -1L, bytes);
+            return bytes;
+        } catch (final IOException | RuntimeException e) {
+            operationFailed(operation, e);
+            throw e;
+        }
     }
 
     // -----------------------------------------------------------------------------------------------------------------
     @Override
     public long decrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
         initForDecryption();
-        return JinahyaStreamCipherUtils.processAllBytes(
-                cipher,
-                in,
-                out,
-                inbuf,
-                null
-        );
+        final var operation = operationStarted(false);
+        try {
+            final var bytes = JinahyaStreamCipherUtils.processAllBytes(
+                    cipher,
+                    in,
+                    out,
+                    inbuf,
+                    null
+            );
+            operationCompleted(operation, -1L, bytes);
+            return bytes;
+        } catch (final IOException | RuntimeException e) {
+            operationFailed(operation, e);
+            throw e;
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public long encrypt(final FileChannel input, final FileChannel output) throws IOException {
+        initForEncryption();
+        final var operation = operationStarted(true);
+        final var inlen = Objects.requireNonNull(input, "input is null").size() - input.position();
+        final var inbuf = JinahyaBufferPool.getDefault().acquire(FILE_BUFFER_SIZE);
+        try {
+            final var bytes = JinahyaStreamCipherUtils.processAllBytes(
+                    cipher,
+                    input,
+                    output,
+                    inbuf,
+                    null
+            );
+            operationCompleted(operation, inlen, bytes);
+            return bytes;
+        } catch (final IOException | RuntimeException e) {
+            operationFailed(operation, e);
+            throw e;
+        } finally {
+            JinahyaBufferPool.getDefault().release(inbuf);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public long decrypt(final FileChannel input, final FileChannel output) throws IOException {
+        initForDecryption();
+        final var operation = operationStarted(false);
+        final var inlen = Objects.requireNonNull(input, "input is null").size() - input.position();
+        final var inbuf = JinahyaBufferPool.getDefault().acquire(FILE_BUFFER_SIZE);
+        try {
+            final var bytes = JinahyaStreamCipherUtils.processAllBytes(
+                    cipher,
+                    input,
+                    output,
+                    inbuf,
+                    null
+            );
+            operationCompleted(operation, inlen, bytes);
+            return bytes;
+        } catch (final IOException | RuntimeException e) {
+            operationFailed(operation, e);
+            throw e;
+        } finally {
+            JinahyaBufferPool.getDefault().release(inbuf);
+        }
     }
 }
@@ -0,0 +1,72 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.StreamCipher;
+
+import java.io.InputStream;
+import java.util.Objects;
+
+/**
+ * An input stream for a {@link StreamCipher}.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaStreamCipherCrypto
+ */
+public class JinahyaStreamCipherInputStream
+        extends JinahyaCipherInputStream {
+
+    /**
+     * Creates a new instance with the {@link #DEFAULT_BUFFER_SIZE}.
+     *
+     * @param in         the underlying input stream.
+     * @param cipher     the cipher.
+     * @param params     the cipher parameters.
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     */
+    public JinahyaStreamCipherInputStream(final InputStream in, final StreamCipher cipher,
+                                          final CipherParameters params, final boolean encryption) {
+        this(in, cipher, params, encryption, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a new instance with specified arguments.
+     *
+     * @param in         the underlying input stream.
+     * @param cipher     the cipher.
+     * @param params     the cipher parameters.
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     * @param bufferSize the size of the buffer for reading bytes from the {@code in}.
+     */
+    public JinahyaStreamCipherInputStream(final InputStream in, final StreamCipher cipher,
+                                          final CipherParameters params, final boolean encryption,
+                                          final int bufferSize) {
+        super(in, bufferSize, 1);
+        this.cipher = Objects.requireNonNull(cipher, "cipher is null");
+        this.cipher.init(encryption, Objects.requireNonNull(params, "params is null"));
+    }
+
+    // ---------------------------------------------------------------------------------------------------------- cipher
+    @Override
+    protected int getUpdateOutputSize(final int len) {
+        return len;
+    }
+
+    @Override
+    protected int getFinalOutputSize() {
+        return 0;
+    }
+
+    @Override
+    protected int processBytes(final byte[] in, final int inoff, final int inlen, final byte[] out,
+                               final int outoff) {
+        return cipher.processBytes(in, inoff, inlen, out, outoff);
+    }
+
+    @Override
+    protected int doFinal(final byte[] out, final int outoff) {
+        return 0;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final StreamCipher cipher;
+}
@@ -0,0 +1,72 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.StreamCipher;
+
+import java.io.OutputStream;
+import java.util.Objects;
+
+/**
+ * An output stream for a {@link StreamCipher}.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaStreamCipherCrypto
+ */
+public class JinahyaStreamCipherOutputStream
+        extends JinahyaCipherOutputStream {
+
+    /**
+     * Creates a new instance with the {@link #DEFAULT_BUFFER_SIZE}.
+     *
+     * @param out         the underlying output stream.
+     * @param cipher     the cipher.
+     * @param params     the cipher parameters.
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     */
+    public JinahyaStreamCipherOutputStream(final OutputStream out, final StreamCipher cipher,
+                                           final CipherParameters params, final boolean encryption) {
+        this(out, cipher, params, encryption, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a new instance with specified arguments.
+     *
+     * @param out         the underlying output stream.
+     * @param cipher     the cipher.
+     * @param params     the cipher parameters.
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     * @param bufferSize the size of chunks in which written bytes are processed.
+     */
+    public JinahyaStreamCipherOutputStream(final OutputStream out, final StreamCipher cipher,
+                                           final CipherParameters params, final boolean encryption,
+                                           final int bufferSize) {
+        super(out, bufferSize, 1);
+        this.cipher = Objects.requireNonNull(cipher, "cipher is null");
+        this.cipher.init(encryption, Objects.requireNonNull(params, "params is null"));
+    }
+
+    // ---------------------------------------------------------------------------------------------------------- cipher
+    @Override
+    protected int getUpdateOutputSize(final int len) {
+        return len;
+    }
+
+    @Override
+    protected int getFinalOutputSize() {
+        return 0;
+    }
+
+    @Override
+    protected int processBytes(final byte[] in, final int inoff, final int inlen, final byte[] out,
+                               final int outoff) {
+        return cipher.processBytes(in, inoff, inlen, out, outoff);
+    }
+
+    @Override
+    protected int doFinal(final byte[] out, final int outoff) {
+        return 0;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final StreamCipher cipher;
+}
@@ -1,13 +1,13 @@
 package io.github.jinahya.bouncycastle.crypto;
 
-import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.OutputLengthException;
 import org.bouncycastle.crypto.StreamCipher;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
-import java.util.Arrays;
+import java.nio.channels.FileChannel;
 import java.util.Objects;
 
 /**
@@ -20,8 +20,35 @@ import java.util.Objects;
  */
 public final class JinahyaStreamCipherUtils {
 
+    /**
+     * The maximum size of each mapped window, in bytes, for processing file channels.
+     */
+    public static final int MAPPING_WINDOW_SIZE = 67108864;
+
+    /**
+     * The maximum size of the staging window, in bytes, for processing buffers not backed by accessible arrays.
+     */
+    public static final int STAGING_WINDOW_SIZE = 8192;
+
     // -----------------------------------------------------------------------------------------------------------------
-    public static byte[] processBytes(final StreamCipher cipher, final byte[] in, final int inoff, final int inlen) {
+
+    /**
+     * Processes, using specified cipher, specified range of an input array, and stores processed bytes to specified
+     * output array. A stream cipher produces exactly as many bytes as it consumes, hence the {@code out} needs exactly
+     * {@code inlen} bytes from the {@code outoff}. The {@code out} may be the {@code in}, with the same offset, for
+     * processing in place.
+     *
+     * @param cipher the cipher.
+     * @param in     the input array.
+     * @param inoff  the offset of the {@code in}.
+     * @param inlen  the number of bytes to process.
+     * @param out    the output array.
+     * @param outoff the offset of the {@code out}.
+     * @return the number of bytes stored to the {@code out}; always {@code inlen}.
+     * @throws OutputLengthException if the {@code out} has less than {@code inlen} bytes from the {@code outoff}.
+     */
+    public static int processBytes(final StreamCipher cipher, final byte[] in, final int inoff, final int inlen,
+                                   final byte[] out, final int outoff) {
         Objects.requireNonNull(cipher, "cipher is null");
         Objects.requireNonNull(in, "in is null");
         if (inoff < 0) {
@@ -34,42 +61,167 @@ public final class JinahyaStreamCipherUtils {
             throw new IllegalArgumentException(
                     "inoff(" + inoff + ") + inlen(" + inlen + ") > in.length(" + in.length + ")");
         }
-        for (var output = new byte[in.length == 0 ? 1 : in.length]; ; ) {
-            try {
-                final var processed = cipher.processBytes(in, inoff, inlen, output, 0);
-                return Arrays.copyOf(output, processed);
-            } catch (final DataLengthException dle) {
-                dle.printStackTrace();
-                System.err.println("doubling up output.length(" + output.length + ")");
-                output = new byte[output.length << 1];
-            }
+        Objects.requireNonNull(out, "out is null");
+        if (outoff < 0) {
+            throw new IllegalArgumentException("outoff(" + outoff + ") is negative");
+        }
+        if (outoff + inlen > out.length) {
+            throw new OutputLengthException("output buffer too short");
+        }
+        if (inlen == 0) {
+            return 0;
+        }
+        return cipher.processBytes(in, inoff, inlen, out, outoff);
+    }
+
+    /**
+     * Processes, using specified cipher, specified range of an array, in place.
+     *
+     * @param cipher the cipher.
+     * @param buf    the array.
+     * @param off    the offset of the {@code buf}.
+     * @param len    the number of bytes to process.
+     * @return the number of bytes processed; always {@code len}.
+     * @see #processBytes(StreamCipher, byte[], int, int, byte[], int)
+     */
+    public static int processBytesInPlace(final StreamCipher cipher, final byte[] buf, final int off,
+                                         final int len) {
+        return processBytes(cipher, buf, off, len, buf, off);
+    }
+
+    /**
+     * Processes, using specified cipher, specified range of an input array, and returns a new array of exactly
+     * {@code inlen} processed bytes.
+     *
+     * @param cipher the cipher.
+     * @param in     the input array.
+     * @param inoff  the offset of the {@code in}.
+     * @param inlen  the number of bytes to process.
+     * @return a new array of processed bytes.
+     */
+    public static byte[] processBytes(final StreamCipher cipher, final byte[] in, final int inoff,
+                                      final int inlen) {
+        if (inlen < 0) {
+            throw new IllegalArgumentException("inlen(" + inlen + ") is negative");
         }
+        final var out = new byte[inlen];
+        processBytes(cipher, in, inoff, inlen, out, 0);
+        return out;
     }
 
+    /**
+     * Processes, using specified cipher, all remaining bytes of specified input buffer, and puts processed bytes to
+     * specified output buffer.
+     *
+     * @param cipher the cipher.
+     * @param input  the input buffer.
+     * @param output the output buffer.
+     * @return the number of bytes put on the {@code output}; always the number of remaining bytes of the
+     * {@code input}.
+     * @throws OutputLengthException if the {@code output} has less remaining than the {@code input}.
+     * @implNote When either of the buffers is not backed by an accessible array, this method stages through a window
+     * of at most {@value #STAGING_WINDOW_SIZE} bytes, acquired from the {@link JinahyaBufferPool#getDefault() default
+     * pool}.
+     */
     public static int processBytes(final StreamCipher cipher, final ByteBuffer input, final ByteBuffer output) {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        if (input.hasArray() && output.hasArray()) {
+            return processBytes(cipher, input, output, null);
+        }
+        final var window = JinahyaBufferPool.getDefault().acquire(
+                Math.max(Math.min(input.remaining(), STAGING_WINDOW_SIZE), 1));
+        try {
+            return processBytes(cipher, input, output, window);
+        } finally {
+            JinahyaBufferPool.getDefault().release(window);
+        }
+    }
+
+    /**
+     * Processes, using specified cipher, all remaining bytes of specified input buffer, and puts processed bytes to
+     * specified output buffer, staging through specified window when either buffer is not backed by an accessible
+     * array. The {@code output} may be the {@code input} for processing in place.
+     *
+     * @param cipher the cipher.
+     * @param input  the input buffer.
+     * @param output the output buffer; may be the {@code input}.
+     * @param window a staging window; may be {@code null} when both buffers are backed by accessible arrays.
+     * @return the number of bytes put on the {@code output}; always the number of remaining bytes of the
+     * {@code input}.
+     * @throws OutputLengthException if the {@code output} has less remaining than the {@code input}.
+     */
+    public static int processBytes(final StreamCipher cipher, final ByteBuffer input, final ByteBuffer output,
+                                   final byte[] window) {
         Objects.requireNonNull(cipher, "cipher is null");
         Objects.requireNonNull(input, "input is null");
         Objects.requireNonNull(output, "output is null");
-        final byte[] in;
-        final int inoff;
-        final int inlen = input.remaining();
-        if (input.hasArray()) {
-            in = input.array();
-            inoff = input.arrayOffset() + input.position();
-        } else {
-            in = new byte[inlen];
-//            input.get(0, in); // Since 13
-            for (int p = input.position(), i = 0; i < in.length; p++, i++) {
-                in[i] = input.get(p);
+        final var inlen = input.remaining();
+        if (output != input && output.remaining() < inlen) {
+            throw new OutputLengthException("output buffer too short");
+        }
+        if (input.hasArray() && output.hasArray()) {
+            cipher.processBytes(input.array(), input.arrayOffset() + input.position(), inlen, output.array(),
+                                output.arrayOffset() + output.position());
+            input.position(input.position() + inlen);
+            if (output != input) {
+                output.position(output.position() + inlen);
+            }
+            return inlen;
+        }
+        if (Objects.requireNonNull(window, "window is null").length == 0) {
+            throw new IllegalArgumentException("window.length is zero");
+        }
+        for (int n; input.hasRemaining(); ) {
+            n = Math.min(input.remaining(), window.length);
+            final var position = input.position();
+            input.get(window, 0, n);
+            cipher.processBytes(window, 0, n, window, 0);
+            if (output == input) {
+                input.position(position);
             }
-            inoff = 0;
+            output.put(window, 0, n);
+        }
+        return inlen;
+    }
+
+    /**
+     * Processes, using specified cipher, all remaining bytes of specified buffer, in place.
+     *
+     * @param cipher the cipher.
+     * @param buffer the buffer.
+     * @return the number of bytes processed.
+     * @see #processBytes(StreamCipher, ByteBuffer, ByteBuffer, byte[])
+     */
+    public static int processBytesInPlace(final StreamCipher cipher, final ByteBuffer buffer) {
+        Objects.requireNonNull(buffer, "buffer is null");
+        if (buffer.hasArray()) {
+            return processBytes(cipher, buffer, buffer, null);
+        }
+        final var window = JinahyaBufferPool.getDefault().acquire(
+                Math.max(Math.min(buffer.remaining(), STAGING_WINDOW_SIZE), 1));
+        try {
+            return processBytes(cipher, buffer, buffer, window);
+        } finally {
+            JinahyaBufferPool.getDefault().release(window);
         }
-        final var out = processBytes(cipher, in, inoff, inlen);
-        output.put(out);
-        return out.length;
     }
 
     // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Processes, using specified cipher, all bytes from specified input stream, and writes processed bytes to
+     * specified output stream.
+     *
+     * @param cipher the cipher.
+     * @param in     the input stream.
+     * @param out    the output stream.
+     * @param inbuf  a buffer for reading bytes from the {@code in}.
+     * @param outbuf a buffer for processed bytes; {@code null} for a buffer acquired from, and released back to, the
+     *               {@link JinahyaBufferPool#getDefault() default pool}.
+     * @return the number of bytes written to the {@code out}.
+     * @throws IOException if an I/O error occurs.
+     */
     public static long processAllBytes(final StreamCipher cipher, final InputStream in, final OutputStream out,
                                        final byte[] inbuf, byte[] outbuf)
             throws IOException {
@@ -79,26 +231,95 @@ public final class JinahyaStreamCipherUtils {
         if (Objects.requireNonNull(inbuf, "inbuf is null").length == 0) {
             throw new IllegalArgumentException("inbuf.length is zero");
         }
-        if (outbuf == null || outbuf.length == 0) {
-            outbuf = new byte[inbuf.length];
+        if (outbuf != null && outbuf.length < inbuf.length) {
+            throw new IllegalArgumentException(
+                    "outbuf.length(" + outbuf.length + ") < inbuf.length(" + inbuf.length + ")");
         }
-        var bytes = 0L;
-        for (int outlen, r; (r = in.read(inbuf)) != -1; ) {
-            while (true) {
-                try {
-                    outlen = cipher.processBytes(inbuf, 0, r, outbuf, 0);
-                    out.write(outbuf, 0, outlen);
+        final var given = outbuf;
+        if (outbuf == null) {
+            outbuf = JinahyaBufferPool.getDefault().acquire(inbuf.length); // never the inbuf; no plaintext left there
+        }
+        try {
+            var bytes = 0L;
+            for (int r; (r = in.read(inbuf)) != -1; ) {
+                if (r == 0) {
+                    continue;
+                }
+                cipher.processBytes(inbuf, 0, r, outbuf, 0);
+                out.write(outbuf, 0, r);
+                bytes += r;
+            }
+            return bytes;
+        } finally {
+            if (outbuf != given) {
+                JinahyaBufferPool.getDefault().release(outbuf);
+            }
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Processes, using specified cipher, all bytes of specified input channel, from its current position, and writes
+     * processed bytes to specified output channel, from its current position.
+     * <p>
+     * The {@code input} is read through read-only mapped windows of at most {@value #MAPPING_WINDOW_SIZE} bytes, and
+     * processed bytes are written with positional writes; the {@code output} grows only by the bytes actually written.
+     * Positions of both channels are advanced.
+     *
+     * @param cipher the cipher.
+     * @param input  the input channel.
+     * @param output the output channel.
+     * @param inbuf  a buffer for staging bytes of mapped windows.
+     * @param outbuf a buffer for processed bytes; {@code null} for a buffer acquired from, and released back to, the
+     *               {@link JinahyaBufferPool#getDefault() default pool}.
+     * @return the number of bytes written to the {@code output}.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static long processAllBytes(final StreamCipher cipher, final FileChannel input, final FileChannel output,
+                                       final byte[] inbuf, byte[] outbuf)
+            throws IOException {
+        Objects.requireNonNull(cipher, "cipher is null");
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        if (Objects.requireNonNull(inbuf, "inbuf is null").length == 0) {
+            throw new IllegalArgumentException("inbuf.length is zero");
+        }
+        if (outbuf != null && outbuf.length < inbuf.length) {
+            throw new IllegalArgumentException(
+                    "outbuf.length(" + outbuf.length + ") < inbuf.length(" + inbuf.length + ")");
+        }
+        final var given = outbuf;
+        if (outbuf == null) {
+            outbuf = JinahyaBufferPool.getDefault().acquire(inbuf.length); // never the inbuf; no plaintext left there
+        }
+        try {
+            final var size = input.size();
+            final var outpos = output.position();
+            var bytes = 0L;
+            for (var position = input.position(); position < size; ) {
+                final var mapped = input.map(FileChannel.MapMode.READ_ONLY, position,
+                                             Math.min(size - position, MAPPING_WINDOW_SIZE));
+                position += mapped.remaining();
+                while (mapped.hasRemaining()) {
+                    final var r = Math.min(mapped.remaining(), inbuf.length);
+                    mapped.get(inbuf, 0, r);
+                    final var outlen = cipher.processBytes(inbuf, 0, r, outbuf, 0);
+                    final var src = ByteBuffer.wrap(outbuf, 0, outlen);
+                    while (src.hasRemaining()) {
+                        output.write(src, outpos + bytes + src.position());
+                    }
                     bytes += outlen;
-                    break;
-                } catch (final DataLengthException dle) {
-                    dle.printStackTrace();
-                    System.err.println("doubling up outbuf.length(" + outbuf.length + ")");
-                    Arrays.fill(outbuf, (byte) 0);
-                    outbuf = new byte[outbuf.length << 1];
                 }
             }
+            input.position(size);
+            output.position(outpos + bytes);
+            return bytes;
+        } finally {
+            if (outbuf != given) {
+                JinahyaBufferPool.getDefault().release(outbuf);
+            }
         }
-        return bytes;
     }
 
     // -----------------------------------------------------------------------------------------------------------------
@@ -0,0 +1,485 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaParallelCTRCrypto;
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaSegmentedAEADCrypto;
+import io.github.jinahya.bouncycastle.crypto.params.JinahyaNonceGenerator;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * A crypto which encrypts, or decrypts, all regular files of a directory tree into a mirrored directory tree, in
+ * parallel, on a {@link ForkJoinPool}.
+ * <p>
+ * Files are scheduled from the largest to the smallest, so that a large file does not start last; files smaller than
+ * the {@code batchBytes} are batched into tasks of about {@code batchBytes} bytes, and idle workers steal tasks from
+ * busy ones. Each file is processed by a crypto of its own as a whole, hence a large file is split across workers only
+ * when the crypto itself splits it, e.g., a {@link JinahyaParallelCTRCrypto} or a {@link JinahyaSegmentedAEADCrypto}
+ * running on the same pool.
+ * <p>
+ * Each file is encrypted under its own random iv/nonce, which is written as the first {@code ivLength} bytes of the
+ * encrypted file, and is read back for decrypting it; hence, no two files share a keystream, or a nonce, even when
+ * the cryptos share a key.
+ * <p>
+ * Each output file is written to a temporary sibling and then moved to its place, and a line is appended to the
+ * {@link #MANIFEST_FILE_NAME manifest} in the target directory when it completes. A subsequent run with the same
+ * target skips files whose size and last-modified time match their manifest lines; hence an interrupted run can be
+ * restarted.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ */
+public class JinahyaTreeCrypto {
+
+    /**
+     * The name of the manifest file in a target directory.
+     */
+    public static final String MANIFEST_FILE_NAME = ".jinahya-manifest";
+
+    /**
+     * The default number of bytes of a batch of small files.
+     */
+    public static final long DEFAULT_BATCH_BYTES = 1048576L;
+
+    private static final String PART_SUFFIX = ".jinahya-part";
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * A listener notified, possibly concurrently, as files are processed.
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * Notifies that a file has been processed.
+         *
+         * @param file        the path of the file, relative to the source directory.
+         * @param inputBytes  the number of bytes of the input file.
+         * @param outputBytes the number of bytes written to the output file.
+         */
+        void fileProcessed(Path file, long inputBytes, long outputBytes);
+    }
+
+    /**
+     * The summary of a run.
+     */
+    public static final class Summary {
+
+        private Summary(final long processedFiles, final long skippedFiles, final long inputBytes,
+                        final long outputBytes) {
+            super();
+            this.processedFiles = processedFiles;
+            this.skippedFiles = skippedFiles;
+            this.inputBytes = inputBytes;
+            this.outputBytes = outputBytes;
+        }
+
+        @Override
+        public String toString() {
+            return super.toString() + '{' +
+                   "processedFiles=" + processedFiles +
+                   ",skippedFiles=" + skippedFiles +
+                   ",inputBytes=" + inputBytes +
+                   ",outputBytes=" + outputBytes +
+                   '}';
+        }
+
+        /**
+         * Returns the number of files processed by the run.
+         *
+         * @return the number of processed files.
+         */
+        public long getProcessedFiles() {
+            return processedFiles;
+        }
+
+        /**
+         * Returns the number of files skipped, by the manifest, by the run.
+         *
+         * @return the number of skipped files.
+         */
+        public long getSkippedFiles() {
+            return skippedFiles;
+        }
+
+        /**
+         * Returns the number of bytes read by the run.
+         *
+         * @return the number of input bytes.
+         */
+        public long getInputBytes() {
+            return inputBytes;
+        }
+
+        /**
+         * Returns the number of bytes written by the run.
+         *
+         * @return the number of output bytes.
+         */
+        public long getOutputBytes() {
+            return outputBytes;
+        }
+
+        private final long processedFiles;
+
+        private final long skippedFiles;
+
+        private final long inputBytes;
+
+        private final long outputBytes;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * A file to process, with its attributes at the time of the walk.
+     */
+    private static final class Entry {
+
+        private Entry(final Path relative, final long size, final long lastModified) {
+            super();
+            this.relative = relative;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        private final Path relative;
+
+        private final long size;
+
+        private final long lastModified;
+    }
+
+    /**
+     * A run over a source and a target.
+     */
+    private final class Run {
+
+        private Run(final Path source, final Path target, final boolean encryption, final Listener listener,
+                    final BufferedWriter manifest) {
+            super();
+            this.source = source;
+            this.target = target;
+            this.encryption = encryption;
+            this.listener = listener;
+            this.manifest = manifest;
+        }
+
+        private void process(final Entry entry) {
+            final var output = target.resolve(entry.relative.toString());
+            final var part = output.resolveSibling(output.getFileName() + PART_SUFFIX);
+            final long written;
+            try {
+                Files.createDirectories(output.getParent());
+                final var input = source.resolve(entry.relative.toString());
+                try (var in = FileChannel.open(input, StandardOpenOption.READ);
+                     var out = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+                    written = encryption ? encrypt(in, out) : decrypt(in, out);
+                }
+                try {
+                    Files.move(part, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (final AtomicMoveNotSupportedException amnse) {
+                    Files.move(part, output, StandardCopyOption.REPLACE_EXISTING);
+                }
+                synchronized (manifest) {
+                    manifest.write(entry.size + "\t" + entry.lastModified + "\t" + written + "\t"
+                                   + manifestPath(entry.relative));
+                    manifest.newLine();
+                    manifest.flush();
+                }
+            } catch (final IOException ioe) {
+                throw new UncheckedIOException("failed to process " + entry.relative, ioe);
+            }
+            processedFiles.incrementAndGet();
+            inputBytes.addAndGet(entry.size);
+            outputBytes.addAndGet(written);
+            listener.fileProcessed(entry.relative, entry.size, written);
+        }
+
+        private long encrypt(final FileChannel in, final FileChannel out) throws IOException {
+            final var iv = ivs.next();
+            for (final var buffer = ByteBuffer.wrap(iv); buffer.hasRemaining(); ) {
+                out.write(buffer);
+            }
+            return iv.length + crypto(iv).encrypt(in, out);
+        }
+
+        private long decrypt(final FileChannel in, final FileChannel out) throws IOException {
+            final var iv = new byte[ivLength];
+            for (final var buffer = ByteBuffer.wrap(iv); buffer.hasRemaining(); ) {
+                if (in.read(buffer) == -1) {
+                    throw JinahyaCryptoException.ofDecryptionFailure(
+                            new InvalidCipherTextException("truncated iv"));
+                }
+            }
+            return crypto(iv).decrypt(in, out);
+        }
+
+        private JinahyaCrypto crypto(final byte[] iv) {
+            return Objects.requireNonNull(cryptoFactory.apply(iv), "null crypto created");
+        }
+
+        private final Path source;
+
+        private final Path target;
+
+        private final boolean encryption;
+
+        private final Listener listener;
+
+        private final BufferedWriter manifest;
+
+        private final AtomicLong processedFiles = new AtomicLong();
+
+        private final AtomicLong inputBytes = new AtomicLong();
+
+        private final AtomicLong outputBytes = new AtomicLong();
+    }
+
+    /**
+     * A task processing a batch of entries.
+     */
+    private static final class Batch
+            extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private Batch(final Run run, final List<Entry> entries) {
+            super();
+            this.run = run;
+            this.entries = entries;
+        }
+
+        @Override
+        protected void compute() {
+            for (final var entry : entries) {
+                run.process(entry);
+            }
+        }
+
+        private final transient Run run;
+
+        private final transient List<Entry> entries;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    private static String manifestPath(final Path relative) {
+        final var names = new ArrayList<String>();
+        relative.forEach(n -> names.add(n.toString()));
+        return String.join("/", names);
+    }
+
+    /**
+     * Reads the manifest of specified target directory, if any.
+     *
+     * @return a map of manifest paths and their {@code size \t lastModified} keys.
+     */
+    private static Map<String, String> readManifest(final Path manifest) throws IOException {
+        final var map = new HashMap<String, String>();
+        if (!Files.isRegularFile(manifest)) {
+            return map;
+        }
+        for (final var line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+            final var fields = line.split("\t", 4);
+            if (fields.length != 4) {
+                continue; // an incomplete line of an interrupted run
+            }
+            map.put(fields[3], fields[0] + '\t' + fields[1]);
+        }
+        return map;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance which runs on the {@link ForkJoinPool#commonPool() common pool} with the
+     * {@link #DEFAULT_BATCH_BYTES}.
+     *
+     * @param cryptoFactory a function for creating a crypto for the iv/nonce of a file, e.g.,
+     *                      {@code iv -> new JinahyaBufferedBlockCipherCrypto(cipher(), new ParametersWithIV(key, iv))}.
+     * @param ivLength      the length of each iv/nonce, in bytes.
+     */
+    public JinahyaTreeCrypto(final Function<? super byte[], ? extends JinahyaCrypto> cryptoFactory,
+                             final int ivLength) {
+        this(cryptoFactory, ivLength, ForkJoinPool.commonPool(), DEFAULT_BATCH_BYTES);
+    }
+
+    /**
+     * Creates a new instance with specified arguments.
+     *
+     * @param cryptoFactory a function for creating a crypto for the iv/nonce of a file; each created crypto is used
+     *                      for a single file.
+     * @param ivLength      the length of each iv/nonce, in bytes; must be positive.
+     * @param pool          the pool on which files are processed.
+     * @param batchBytes    the number of bytes of a batch of small files; files not smaller than this are processed
+     *                      each in its own task; must be positive.
+     */
+    public JinahyaTreeCrypto(final Function<? super byte[], ? extends JinahyaCrypto> cryptoFactory,
+                             final int ivLength, final ForkJoinPool pool, final long batchBytes) {
+        super();
+        this.cryptoFactory = Objects.requireNonNull(cryptoFactory, "cryptoFactory is null");
+        if (ivLength <= 0) {
+            throw new IllegalArgumentException("ivLength(" + ivLength + ") is not positive");
+        }
+        this.ivLength = ivLength;
+        ivs = JinahyaNonceGenerator.ofRandom(ivLength);
+        this.pool = Objects.requireNonNull(pool, "pool is null");
+        if (batchBytes <= 0L) {
+            throw new IllegalArgumentException("batchBytes(" + batchBytes + ") is not positive");
+        }
+        this.batchBytes = batchBytes;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Encrypts all regular files, accepted by specified filter, of specified source directory into specified target
+     * directory.
+     *
+     * @param source   the source directory.
+     * @param target   the target directory; must not be inside the {@code source}.
+     * @param filter   a filter, for paths relative to the {@code source} and their attributes, of files to encrypt.
+     * @param listener a listener notified as files are encrypted.
+     * @return the summary of the run.
+     * @throws IOException if an I/O error occurs.
+     */
+    public Summary encrypt(final Path source, final Path target,
+                           final BiPredicate<? super Path, ? super BasicFileAttributes> filter,
+                           final Listener listener)
+            throws IOException {
+        return process(source, target, filter, listener, true);
+    }
+
+    /**
+     * Decrypts all regular files, accepted by specified filter, of specified source directory into specified target
+     * directory.
+     *
+     * @param source   the source directory.
+     * @param target   the target directory; must not be inside the {@code source}.
+     * @param filter   a filter, for paths relative to the {@code source} and their attributes, of files to decrypt.
+     * @param listener a listener notified as files are decrypted.
+     * @return the summary of the run.
+     * @throws IOException if an I/O error occurs.
+     */
+    public Summary decrypt(final Path source, final Path target,
+                           final BiPredicate<? super Path, ? super BasicFileAttributes> filter,
+                           final Listener listener)
+            throws IOException {
+        return process(source, target, filter, listener, false);
+    }
+
+    private Summary process(final Path source, final Path target,
+                            final BiPredicate<? super Path, ? super BasicFileAttributes> filter,
+                            final Listener listener, final boolean encryption)
+            throws IOException {
+        Objects.requireNonNull(source, "source is null");
+        Objects.requireNonNull(target, "target is null");
+        Objects.requireNonNull(filter, "filter is null");
+        Objects.requireNonNull(listener, "listener is null");
+        if (!Files.isDirectory(source)) {
+            throw new IllegalArgumentException("source(" + source + ") is not a directory");
+        }
+        final var sourceReal = source.toRealPath();
+        Files.createDirectories(target);
+        final var targetReal = target.toRealPath();
+        if (targetReal.startsWith(sourceReal)) {
+            throw new IllegalArgumentException("target(" + target + ") is inside the source(" + source + ")");
+        }
+        final var manifestFile = targetReal.resolve(MANIFEST_FILE_NAME);
+        final var done = readManifest(manifestFile);
+        final var entries = new ArrayList<Entry>();
+        var skipped = 0L;
+        try (var paths = Files.find(sourceReal, Integer.MAX_VALUE, (p, a) -> a.isRegularFile())) {
+            for (final var path : (Iterable<Path>) paths::iterator) {
+                final var attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                final var relative = sourceReal.relativize(path);
+                if (!filter.test(relative, attributes)) {
+                    continue;
+                }
+                final var entry = new Entry(relative, attributes.size(), attributes.lastModifiedTime().toMillis());
+                final var key = done.get(manifestPath(relative));
+                if ((entry.size + "\t" + entry.lastModified).equals(key)
+                    && Files.isRegularFile(targetReal.resolve(relative.toString()))) {
+                    skipped++;
+                    continue;
+                }
+                entries.add(entry);
+            }
+        } catch (final UncheckedIOException uioe) {
+            throw uioe.getCause();
+        }
+        entries.sort(Comparator.comparingLong((Entry e) -> e.size).reversed());
+        try (var manifest = Files.newBufferedWriter(manifestFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.APPEND)) {
+            final var run = new Run(sourceReal, targetReal, encryption, listener, manifest);
+            final var batches = new ArrayList<Batch>();
+            List<Entry> small = new ArrayList<>();
+            var smallBytes = 0L;
+            for (final var entry : entries) {
+                if (entry.size >= batchBytes) {
+                    batches.add(new Batch(run, List.of(entry)));
+                    continue;
+                }
+                small.add(entry);
+                smallBytes += entry.size;
+                if (smallBytes >= batchBytes) {
+                    batches.add(new Batch(run, small));
+                    small = new ArrayList<>();
+                    smallBytes = 0L;
+                }
+            }
+            if (!small.isEmpty()) {
+                batches.add(new Batch(run, small));
+            }
+            try {
+                pool.invoke(new RecursiveAction() {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected void compute() {
+                        ForkJoinTask.invokeAll(batches);
+                    }
+                });
+            } catch (final UncheckedIOException uioe) {
+                throw uioe.getCause();
+            }
+            return new Summary(run.processedFiles.get(), skipped, run.inputBytes.get(), run.outputBytes.get());
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final Function<? super byte[], ? extends JinahyaCrypto> cryptoFactory;
+
+    private final int ivLength;
+
+    private final JinahyaNonceGenerator ivs;
+
+    private final ForkJoinPool pool;
+
+    private final long batchBytes;
+}
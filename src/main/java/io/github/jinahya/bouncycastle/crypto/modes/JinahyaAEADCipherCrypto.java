@@ -1,20 +1,32 @@
 package io.github.jinahya.bouncycastle.crypto.modes;
 
+import io.github.jinahya.bouncycastle.crypto.JinahyaBufferPool;
 import io.github.jinahya.bouncycastle.crypto.JinahyaCipherCrypto;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoArena;
 import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoException;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoInstrumentation;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoInstrumentationUtils;
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.InvalidCipherTextException;
 import org.bouncycastle.crypto.modes.AEADCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.ParametersWithIV;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 
 /**
  * A crypto for {@link AEADCipher}.
+ * <p>
+ * Besides the nonce of the {@link #params}, each message may be processed with its own nonce, and associated text, by
+ * methods taking a {@code nonce}. Those methods initialize the {@link #cipher} with the key of the {@link #params} only
+ * when the direction changes, and re-initialize it, otherwise, only with the nonce.
  *
  * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
  * @see JinahyaAEADCipherUtils
@@ -30,6 +42,353 @@ public class JinahyaAEADCipherCrypto
     @Override
     protected void initFor(final boolean encryption) {
         cipher.init(encryption, params);
+        keyedFor = encryption;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     * @implNote This method fully re-initializes the {@link #cipher} for encryption, in order not to bypass nonce-reuse
+     * checks of certain ciphers, such as GCM.
+     */
+    @Override
+    protected void reinitFor(final boolean encryption) {
+        if (encryption) {
+            initFor(true);
+            return;
+        }
+        cipher.reset();
+    }
+
+    @Override
+    protected String getAlgorithmName() {
+        return cipher.getAlgorithmName();
+    }
+
+    // --------------------------------------------------------------------------------------------------------- message
+
+    /**
+     * Initializes the {@link #cipher} with specified nonce, and the key of the {@link #params} only when the
+     * {@link #cipher} has not been keyed, by this crypto, for the direction.
+     */
+    private void initFor(final boolean encryption, final byte[] nonce) {
+        Objects.requireNonNull(nonce, "nonce is null");
+        final var rekeyed = keyedFor == null || keyedFor != encryption;
+        initializedOtherwise();
+        if (params instanceof AEADParameters) {
+            final var p = (AEADParameters) params;
+            cipher.init(encryption, new AEADParameters(rekeyed ? p.getKey() : null, p.getMacSize(), nonce));
+        } else if (params instanceof ParametersWithIV) {
+            final var p = (ParametersWithIV) params;
+            cipher.init(encryption, new ParametersWithIV(rekeyed ? p.getParameters() : null, nonce));
+        } else {
+            throw new IllegalStateException("no nonce in " + params);
+        }
+        keyedFor = encryption;
+        final var instrumentation = JinahyaCryptoInstrumentationUtils.get();
+        if (instrumentation != JinahyaCryptoInstrumentation.NOOP) {
+            instrumentation.cipherInitialized(getAlgorithmName(), encryption, rekeyed);
+        }
+    }
+
+    private JinahyaCryptoException failed(final boolean encryption,
+                                          final JinahyaCryptoInstrumentation.Operation operation,
+                                          final InvalidCipherTextException cause) {
+        if (encryption) {
+            final var exception = JinahyaCryptoException.ofEncryptionFailure(cause);
+            operationFailed(operation, exception);
+            return exception;
+        }
+        return authenticationFailed(operation, cause);
+    }
+
+    private byte[] process(final boolean encryption, final byte[] nonce, final byte[] aad, final byte[] in) {
+        Objects.requireNonNull(in, "in is null");
+        initFor(encryption, nonce);
+        final var operation = operationStarted(encryption);
+        try {
+            if (aad != null) {
+                cipher.processAADBytes(aad, 0, aad.length);
+            }
+            final var out = new byte[Math.max(cipher.getOutputSize(in.length), 1)];
+            final var outlen = JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, in, 0, in.length, out, 0);
+            operationCompleted(operation, in.length, outlen);
+            return Arrays.copyOf(out, outlen);
+        } catch (final InvalidCipherTextException icte) {
+            throw failed(encryption, operation, icte);
+        } catch (final RuntimeException re) {
+            operationFailed(operation, re);
+            throw re;
+        }
+    }
+
+    private int process(final boolean encryption, final byte[] nonce, final ByteBuffer aad, final ByteBuffer input,
+                        final ByteBuffer output) {
+        final var inlen = Objects.requireNonNull(input, "input is null").remaining();
+        initFor(encryption, nonce);
+        final var operation = operationStarted(encryption);
+        try {
+            if (aad != null) {
+                JinahyaAEADCipherUtils.processAADBytes(cipher, aad);
+            }
+            final var outlen = JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, input, output);
+            operationCompleted(operation, inlen, outlen);
+            return outlen;
+        } catch (final InvalidCipherTextException icte) {
+            throw failed(encryption, operation, icte);
+        } catch (final RuntimeException re) {
+            operationFailed(operation, re);
+            throw re;
+        }
+    }
+
+    private long process(final boolean encryption, final byte[] nonce, final InputStream aad, final InputStream in,
+                         final OutputStream out, final byte[] inbuf)
+            throws IOException {
+        initFor(encryption, nonce);
+        final var operation = operationStarted(encryption);
+        try {
+            if (aad != null) {
+                JinahyaAEADCipherUtils.processAllAADBytes(cipher, aad, inbuf);
+            }
+            final var bytes = JinahyaAEADCipherUtils.processAllBytesAndDoFinal(cipher, in, out, inbuf, null);
+            operationCompleted(operation, -1L, bytes);
+            return bytes;
+        } catch (final InvalidCipherTextException icte) {
+            throw failed(encryption, operation, icte);
+        } catch (final IOException | RuntimeException e) {
+            operationFailed(operation, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Encrypts specified input bytes with specified nonce, and associated text, instead of those of the
+     * {@link #params}.
+     *
+     * @param nonce the nonce, which should be unique for the key.
+     * @param aad   the associated text; may be {@code null}.
+     * @param in    the input bytes to encrypt.
+     * @return a new array of encrypted bytes, followed by the tag.
+     */
+    public byte[] encrypt(final byte[] nonce, final byte[] aad, final byte[] in) {
+        return process(true, nonce, aad, in);
+    }
+
+    /**
+     * Decrypts specified input bytes with specified nonce, and associated text, instead of those of the
+     * {@link #params}.
+     *
+     * @param nonce the nonce.
+     * @param aad   the associated text; may be {@code null}.
+     * @param in    the input bytes to decrypt, followed by the tag.
+     * @return a new array of decrypted bytes.
+     */
+    public byte[] decrypt(final byte[] nonce, final byte[] aad, final byte[] in) {
+        return process(false, nonce, aad, in);
+    }
+
+    /**
+     * Encrypts all remaining bytes of specified input buffer with specified nonce, and all remaining bytes of specified
+     * associated text buffer, instead of those of the {@link #params}.
+     *
+     * @param nonce  the nonce, which should be unique for the key.
+     * @param aad    the associated text buffer; may be {@code null}.
+     * @param input  the input buffer.
+     * @param output the output buffer.
+     * @return the number of bytes put on the {@code output}.
+     */
+    public int encrypt(final byte[] nonce, final ByteBuffer aad, final ByteBuffer input, final ByteBuffer output) {
+        return process(true, nonce, aad, input, output);
+    }
+
+    /**
+     * Decrypts all remaining bytes of specified input buffer with specified nonce, and all remaining bytes of specified
+     * associated text buffer, instead of those of the {@link #params}.
+     *
+     * @param nonce  the nonce.
+     * @param aad    the associated text buffer; may be {@code null}.
+     * @param input  the input buffer.
+     * @param output the output buffer.
+     * @return the number of bytes put on the {@code output}.
+     */
+    public int decrypt(final byte[] nonce, final ByteBuffer aad, final ByteBuffer input, final ByteBuffer output) {
+        return process(false, nonce, aad, input, output);
+    }
+
+    /**
+     * Encrypts all bytes of specified input stream with specified nonce, and all bytes of specified associated text
+     * stream, instead of those of the {@link #params}.
+     *
+     * @param nonce the nonce, which should be unique for the key.
+     * @param aad   the associated text stream, read before the {@code in}; may be {@code null}.
+     * @param in    the input stream.
+     * @param out   the output stream.
+     * @param inbuf a buffer for reading bytes from the {@code aad}, and the {@code in}.
+     * @return the number of bytes written to the {@code out}.
+     * @throws IOException if an I/O error occurs.
+     */
+    public long encrypt(final byte[] nonce, final InputStream aad, final InputStream in, final OutputStream out,
+                        final byte[] inbuf)
+            throws IOException {
+        return process(true, nonce, aad, in, out, inbuf);
+    }
+
+    /**
+     * Decrypts all bytes of specified input stream with specified nonce, and all bytes of specified associated text
+     * stream, instead of those of the {@link #params}.
+     *
+     * @param nonce the nonce.
+     * @param aad   the associated text stream, read before the {@code in}; may be {@code null}.
+     * @param in    the input stream.
+     * @param out   the output stream.
+     * @param inbuf a buffer for reading bytes from the {@code aad}, and the {@code in}.
+     * @return the number of bytes written to the {@code out}.
+     * @throws IOException if an I/O error occurs.
+     */
+    public long decrypt(final byte[] nonce, final InputStream aad, final InputStream in, final OutputStream out,
+                        final byte[] inbuf)
+            throws IOException {
+        return process(false, nonce, aad, in, out, inbuf);
+    }
+
+    // ----------------------------------------------------------------------------------------------------------- batch
+
+    private int processMessage(final boolean encryption, final byte[] in, final int inoff, final int inlen,
+                               final JinahyaCryptoArena arena, final JinahyaCryptoInstrumentation.Operation operation) {
+        final var outoff = arena.reserve(cipher.getOutputSize(inlen));
+        try {
+            return JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, in, inoff, inlen, arena.array(), outoff);
+        } catch (final InvalidCipherTextException icte) {
+            throw failed(encryption, operation, icte);
+        }
+    }
+
+    private JinahyaCryptoArena processAll(final boolean encryption, final List<byte[]> nonces,
+                                          final List<byte[]> messages, final JinahyaCryptoArena arena) {
+        Objects.requireNonNull(nonces, "nonces is null");
+        Objects.requireNonNull(messages, "messages is null");
+        Objects.requireNonNull(arena, "arena is null");
+        if (nonces.size() != messages.size()) {
+            throw new IllegalArgumentException(
+                    "nonces.size(" + nonces.size() + ") != messages.size(" + messages.size() + ")");
+        }
+        final var operation = operationStarted(encryption);
+        final var size = arena.size();
+        var inlen = 0L;
+        try {
+            for (int i = 0; i < messages.size(); i++) {
+                final var message = messages.get(i);
+                initFor(encryption, nonces.get(i));
+                arena.append(processMessage(encryption, message, 0, message.length, arena, operation));
+                inlen += message.length;
+            }
+        } catch (final JinahyaCryptoException jce) {
+            throw jce; // already reported
+        } catch (final RuntimeException re) {
+            operationFailed(operation, re);
+            throw re;
+        }
+        operationCompleted(operation, inlen, arena.size() - size);
+        return arena;
+    }
+
+    /**
+     * Encrypts each of specified messages with the nonce at the same index of specified nonces, and appends the results
+     * to specified arena, in order.
+     *
+     * @param nonces   the nonces, each of which should be unique for the key.
+     * @param messages the messages to encrypt.
+     * @param arena    the arena to which encrypted messages, each followed by its tag, are appended.
+     * @return given {@code arena}.
+     */
+    public JinahyaCryptoArena encryptAll(final List<byte[]> nonces, final List<byte[]> messages,
+                                         final JinahyaCryptoArena arena) {
+        return processAll(true, nonces, messages, arena);
+    }
+
+    /**
+     * Decrypts each of specified messages with the nonce at the same index of specified nonces, and appends the results
+     * to specified arena, in order.
+     *
+     * @param nonces   the nonces.
+     * @param messages the messages to decrypt, each followed by its tag.
+     * @param arena    the arena to which decrypted messages are appended.
+     * @return given {@code arena}.
+     */
+    public JinahyaCryptoArena decryptAll(final List<byte[]> nonces, final List<byte[]> messages,
+                                         final JinahyaCryptoArena arena) {
+        return processAll(false, nonces, messages, arena);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param messages {@inheritDoc}
+     * @param arena    {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws IllegalArgumentException if more than one message are given, which would be encrypted under the same
+     *                                  nonce of the {@link #params}.
+     * @see #encryptAll(List, List, JinahyaCryptoArena)
+     */
+    @Override
+    public JinahyaCryptoArena encryptAll(final List<byte[]> messages, final JinahyaCryptoArena arena) {
+        if (Objects.requireNonNull(messages, "messages is null").size() > 1) {
+            throw nonceReused(messages.size());
+        }
+        return super.encryptAll(messages, arena);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param in      {@inheritDoc}
+     * @param offsets {@inheritDoc}
+     * @param arena   {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws IllegalArgumentException if more than one message are given, which would be encrypted under the same
+     *                                  nonce of the {@link #params}.
+     * @see #encryptAll(List, List, JinahyaCryptoArena)
+     */
+    @Override
+    public JinahyaCryptoArena encryptAll(final byte[] in, final int[] offsets, final JinahyaCryptoArena arena) {
+        if (Objects.requireNonNull(offsets, "offsets is null").length > 2) {
+            throw nonceReused(offsets.length - 1);
+        }
+        return super.encryptAll(in, offsets, arena);
+    }
+
+    private static IllegalArgumentException nonceReused(final int messages) {
+        return new IllegalArgumentException(
+                "unable to encrypt " + messages + " messages under the single nonce of the params;"
+                + " use encryptAll(nonces, messages, arena)");
+    }
+
+    @Override
+    protected int processMessage(final boolean encryption, final byte[] in, final int inoff, final int inlen,
+                                 final JinahyaCryptoArena arena) {
+        if (encryption) {
+            initForEncryption();
+        } else {
+            initForDecryption();
+        }
+        final var outoff = arena.reserve(cipher.getOutputSize(inlen));
+        try {
+            return JinahyaAEADCipherUtils.processBytesAndDoFinal(
+                    cipher,
+                    in,
+                    inoff,
+                    inlen,
+                    arena.array(),
+                    outoff
+            );
+        } catch (final InvalidCipherTextException icte) {
+            if (encryption) {
+                throw JinahyaCryptoException.ofEncryptionFailure(icte);
+            }
+            throw authenticationFailed(null, icte);
+        }
     }
 
     // -----------------------------------------------------------------------------------------------------------------
@@ -37,6 +396,7 @@ public class JinahyaAEADCipherCrypto
     public byte[] encrypt(final byte[] in) {
         Objects.requireNonNull(in, "in is null");
         initForEncryption();
+        final var operation = operationStarted(true);
         final var out = new byte[Math.max(cipher.getOutputSize(in.length), 1)];
         try {
             final var outlen = JinahyaAEADCipherUtils.processBytesAndDoFinal(
@@ -47,77 +407,192 @@ public class JinahyaAEADCipherCrypto
                     out,
                     0
             );
+            operationCompleted(operation, in.length, outlen);
             return Arrays.copyOf(out, outlen);
         } catch (final InvalidCipherTextException icte) {
-            throw JinahyaCryptoException.ofEncryptionFailure(icte);
+            final var exception = JinahyaCryptoException.ofEncryptionFailure(icte);
+            operationFailed(operation, exception);
+            throw exception;
+        } catch (final RuntimeException re) {
+            operationFailed(operation, re);
+            throw re;
         }
     }
 
     @Override
     public int encrypt(final ByteBuffer input, final ByteBuffer output) {
         initForEncryption();
+        final var operation = operationStarted(true);
+        final var inlen = Objects.requireNonNull(input, "input is null").remaining();
         try {
-            return JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, input, output);
+            final var outlen = JinahyaAEADCipherUtils.processBytesAndDoFinal(
+                    cipher,
+                    input,
+                    output
+            );
+            operationCompleted(operation, inlen, outlen);
+            return outlen;
         } catch (final InvalidCipherTextException icte) {
-            throw JinahyaCryptoException.ofEncryptionFailure(icte);
+            final var exception = JinahyaCryptoException.ofEncryptionFailure(icte);
+            operationFailed(operation, exception);
+            throw exception;
+        } catch (final RuntimeException re) {
+            operationFailed(operation, re);
+            throw re;
         }
     }
-
     // -----------------------------------------------------------------------------------------------------------------
     @Override
-    public byte[] decrypt(byte[] in) {
+    public byte[] decrypt(final byte[] in) {
         Objects.requireNonNull(in, "in is null");
         initForDecryption();
+        final var operation = operationStarted(false);
         final var out = new byte[Math.max(cipher.getOutputSize(in.length), 1)];
         try {
-            final var outlen = JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, in, 0, in.length, out, 0);
+            final var outlen = JinahyaAEADCipherUtils.processBytesAndDoFinal(
+                    cipher,
+                    in,
+                    0,
+                    in.length,
+                    out,
+                    0
+            );
+            operationCompleted(operation, in.length, outlen);
             return Arrays.copyOf(out, outlen);
         } catch (final InvalidCipherTextException icte) {
-            throw JinahyaCryptoException.ofDecryptionFailure(icte);
+            throw authenticationFailed(operation, icte);
+        } catch (final RuntimeException re) {
+            operationFailed(operation, re);
+            throw re;
         }
     }
 
     @Override
     public int decrypt(final ByteBuffer input, final ByteBuffer output) {
         initForDecryption();
+        final var operation = operationStarted(false);
+        final var inlen = Objects.requireNonNull(input, "input is null").remaining();
         try {
-            return JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, input, output);
+            final var outlen = JinahyaAEADCipherUtils.processBytesAndDoFinal(
+                    cipher,
+                    input,
+                    output
+            );
+            operationCompleted(operation, inlen, outlen);
+            return outlen;
         } catch (final InvalidCipherTextException icte) {
-            throw JinahyaCryptoException.ofDecryptionFailure(icte);
+            throw authenticationFailed(operation, icte);
+        } catch (final RuntimeException re) {
+            operationFailed(operation, re);
+            throw re;
         }
     }
-
     // -----------------------------------------------------------------------------------------------------------------
     @Override
     public long encrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
         initForEncryption();
+        final var operation = operationStarted(true);
         try {
-            return JinahyaAEADCipherUtils.processAllBytesAndDoFinal(
+            final var bytes = JinahyaAEADCipherUtils.processAllBytesAndDoFinal(
                     cipher,
                     in,
                     out,
                     inbuf,
                     null
             );
+            operationCompleted(operation, -1L, bytes);
+            return bytes;
         } catch (final InvalidCipherTextException icte) {
-            throw JinahyaCryptoException.ofEncryptionFailure(icte);
+            final var exception = JinahyaCryptoException.ofEncryptionFailure(icte);
+            operationFailed(operation, exception);
+            throw exception;
+        } catch (final IOException | RuntimeException e) {
+            operationFailed(operation, e);
+            throw e;
         }
     }
-
     // -----------------------------------------------------------------------------------------------------------------
     @Override
     public long decrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
         initForDecryption();
+        final var operation = operationStarted(false);
         try {
-            return JinahyaAEADCipherUtils.processAllBytesAndDoFinal(
+            final var bytes = JinahyaAEADCipherUtils.processAllBytesAndDoFinal(
                     cipher,
                     in,
                     out,
                     inbuf,
                     null
             );
+            operationCompleted(operation, -1L, bytes);
+            return bytes;
+        } catch (final InvalidCipherTextException icte) {
+            throw authenticationFailed(operation, icte);
+        } catch (final IOException | RuntimeException e) {
+            operationFailed(operation, e);
+            throw e;
+        }
+    }
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public long encrypt(final FileChannel input, final FileChannel output) throws IOException {
+        initForEncryption();
+        final var operation = operationStarted(true);
+        final var inlen = Objects.requireNonNull(input, "input is null").size() - input.position();
+        final var inbuf = JinahyaBufferPool.getDefault().acquire(FILE_BUFFER_SIZE);
+        try {
+            final var bytes = JinahyaAEADCipherUtils.processAllBytesAndDoFinal(
+                    cipher,
+                    input,
+                    output,
+                    inbuf,
+                    null
+            );
+            operationCompleted(operation, inlen, bytes);
+            return bytes;
         } catch (final InvalidCipherTextException icte) {
-            throw JinahyaCryptoException.ofDecryptionFailure(icte);
+            final var exception = JinahyaCryptoException.ofEncryptionFailure(icte);
+            operationFailed(operation, exception);
+            throw exception;
+        } catch (final IOException | RuntimeException e) {
+            operationFailed(operation, e);
+            throw e;
+        } finally {
+            JinahyaBufferPool.getDefault().release(inbuf);
         }
     }
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public long decrypt(final FileChannel input, final FileChannel output) throws IOException {
+        initForDecryption();
+        final var operation = operationStarted(false);
+        final var inlen = Objects.requireNonNull(input, "input is null").size() - input.position();
+        final var inbuf = JinahyaBufferPool.getDefault().acquire(FILE_BUFFER_SIZE);
+        try {
+            final var bytes = JinahyaAEADCipherUtils.processAllBytesAndDoFinal(
+                    cipher,
+                    input,
+                    output,
+                    inbuf,
+                    null
+            );
+            operationCompleted(operation, inlen, bytes);
+            return bytes;
+        } catch (final InvalidCipherTextException icte) {
+            throw authenticationFailed(operation, icte);
+        } catch (final IOException | RuntimeException e) {
+            operationFailed(operation, e);
+            throw e;
+        } finally {
+            JinahyaBufferPool.getDefault().release(inbuf);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * The direction for which the {@link #cipher} has last been initialized with the key of the {@link #params};
+     * {@code null} if never. Some ciphers, e.g., OCB, require the key for changing the direction.
+     */
+    private Boolean keyedFor;
 }
@@ -0,0 +1,82 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import io.github.jinahya.bouncycastle.crypto.JinahyaCipherOutputStream;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.modes.AEADBlockCipher;
+import org.bouncycastle.crypto.modes.AEADCipher;
+
+import java.io.OutputStream;
+import java.util.Objects;
+
+/**
+ * An output stream for an {@link AEADCipher}.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaAEADCipherCrypto
+ */
+public class JinahyaAEADCipherOutputStream
+        extends JinahyaCipherOutputStream {
+
+    /**
+     * Creates a new instance with the {@link #DEFAULT_BUFFER_SIZE}.
+     *
+     * @param out         the underlying output stream.
+     * @param cipher     the cipher.
+     * @param params     the cipher parameters.
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     */
+    public JinahyaAEADCipherOutputStream(final OutputStream out, final AEADCipher cipher,
+                                         final CipherParameters params, final boolean encryption) {
+        this(out, cipher, params, encryption, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a new instance with specified arguments.
+     *
+     * @param out         the underlying output stream.
+     * @param cipher     the cipher.
+     * @param params     the cipher parameters.
+     * @param encryption {@code true} for encryption; {@code false} for decryption.
+     * @param bufferSize the size of chunks in which written bytes are processed.
+     */
+    public JinahyaAEADCipherOutputStream(final OutputStream out, final AEADCipher cipher,
+                                         final CipherParameters params, final boolean encryption,
+                                         final int bufferSize) {
+        super(out, bufferSize, blockSize(cipher));
+        this.cipher = cipher;
+        this.cipher.init(encryption, Objects.requireNonNull(params, "params is null"));
+    }
+
+    // ---------------------------------------------------------------------------------------------------------- cipher
+    private static int blockSize(final AEADCipher cipher) {
+        if (Objects.requireNonNull(cipher, "cipher is null") instanceof AEADBlockCipher) {
+            return ((AEADBlockCipher) cipher).getUnderlyingCipher().getBlockSize();
+        }
+        return 1;
+    }
+
+    @Override
+    protected int getUpdateOutputSize(final int len) {
+        return cipher.getUpdateOutputSize(len);
+    }
+
+    @Override
+    protected int getFinalOutputSize() {
+        return cipher.getOutputSize(0);
+    }
+
+    @Override
+    protected int processBytes(final byte[] in, final int inoff, final int inlen, final byte[] out,
+                               final int outoff) {
+        return cipher.processBytes(in, inoff, inlen, out, outoff);
+    }
+
+    @Override
+    protected int doFinal(final byte[] out, final int outoff) throws InvalidCipherTextException {
+        return cipher.doFinal(out, outoff);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final AEADCipher cipher;
+}
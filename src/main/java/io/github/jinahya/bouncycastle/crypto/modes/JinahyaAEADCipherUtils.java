@@ -1,12 +1,16 @@
 package io.github.jinahya.bouncycastle.crypto.modes;
 
+import io.github.jinahya.bouncycastle.crypto.JinahyaBufferPool;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoInstrumentationUtils;
 import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.OutputLengthException;
 import org.bouncycastle.crypto.modes.AEADCipher;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
 import java.util.Objects;
 
@@ -18,6 +22,72 @@ import java.util.Objects;
  */
 public final class JinahyaAEADCipherUtils {
 
+    /**
+     * The maximum size of the staging window, in bytes, for processing buffers not backed by accessible arrays.
+     */
+    public static final int STAGING_WINDOW_SIZE = 8192;
+
+    /**
+     * The maximum size of each mapped window, in bytes, for processing file channels.
+     */
+    public static final int MAPPING_WINDOW_SIZE = 67108864;
+
+    // ------------------------------------------------------------------------------------------------------------- aad
+
+    /**
+     * Processes, using specified cipher, all remaining bytes of specified buffer as associated text.
+     *
+     * @param cipher the cipher.
+     * @param aad    the buffer whose remaining bytes are processed as associated text.
+     * @return the number of bytes processed.
+     * @implNote When the {@code aad} is not backed by an accessible array, this method streams through a staging window
+     * of at most {@value #STAGING_WINDOW_SIZE} bytes.
+     */
+    public static int processAADBytes(final AEADCipher cipher, final ByteBuffer aad) {
+        Objects.requireNonNull(cipher, "cipher is null");
+        Objects.requireNonNull(aad, "aad is null");
+        final var length = aad.remaining();
+        if (aad.hasArray()) {
+            cipher.processAADBytes(aad.array(), aad.arrayOffset() + aad.position(), length);
+            aad.position(aad.position() + length);
+            return length;
+        }
+        final var window = JinahyaBufferPool.getDefault().acquire(Math.max(Math.min(length, STAGING_WINDOW_SIZE), 1));
+        try {
+            for (int n; aad.hasRemaining(); ) {
+                n = Math.min(aad.remaining(), window.length);
+                aad.get(window, 0, n);
+                cipher.processAADBytes(window, 0, n);
+            }
+            return length;
+        } finally {
+            JinahyaBufferPool.getDefault().release(window);
+        }
+    }
+
+    /**
+     * Processes, using specified cipher, all bytes of specified stream as associated text.
+     *
+     * @param cipher the cipher.
+     * @param aad    the stream whose bytes are processed as associated text.
+     * @param buf    a buffer for reading bytes from the {@code aad}.
+     * @return the number of bytes processed.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static long processAllAADBytes(final AEADCipher cipher, final InputStream aad, final byte[] buf)
+            throws IOException {
+        Objects.requireNonNull(cipher, "cipher is null");
+        Objects.requireNonNull(aad, "aad is null");
+        if (Objects.requireNonNull(buf, "buf is null").length == 0) {
+            throw new IllegalArgumentException("buf.length is zero");
+        }
+        var bytes = 0L;
+        for (int r; (r = aad.read(buf)) != -1; bytes += r) {
+            cipher.processAADBytes(buf, 0, r);
+        }
+        return bytes;
+    }
+
     // -----------------------------------------------------------------------------------------------------------------
     public static int processBytesAndDoFinal(final AEADCipher cipher, final byte[] in, final int inoff, final int inlen,
                                              final byte[] out, final int outoff)
@@ -46,44 +116,165 @@ public final class JinahyaAEADCipherUtils {
         return processed + finalized;
     }
 
+    /**
+     * Processes and finalizes, using specified cipher, all remaining bytes of specified input buffer, and put processed
+     * bytes to specified output buffer.
+     *
+     * @param cipher the cipher.
+     * @param input  the input buffer whose remaining bytes are processed.
+     * @param output the output buffer onto which processed bytes are put.
+     * @return the number of bytes put on the output buffer.
+     * @throws InvalidCipherTextException if the MAC does not match.
+     * @implNote When either of the buffers is not backed by an accessible array, this method streams through a
+     * staging window of at most {@value #STAGING_WINDOW_SIZE} bytes, regardless of the number of remaining bytes.
+     * @see #processBytesAndDoFinal(AEADCipher, ByteBuffer, ByteBuffer, byte[], byte[])
+     */
     public static int processBytesAndDoFinal(final AEADCipher cipher, final ByteBuffer input, final ByteBuffer output)
             throws InvalidCipherTextException {
         Objects.requireNonNull(cipher, "cipher is null");
         Objects.requireNonNull(input, "input is null");
         Objects.requireNonNull(output, "output is null");
-        final byte[] in;
-        final int inoff;
-        final int inlen = input.remaining();
-        if (input.hasArray()) {
-            in = input.array();
-            inoff = input.arrayOffset() + input.position();
-        } else {
-            in = new byte[inlen];
-//            input.get(0, in); // Java 13
-            for (int p = input.position(), i = 0; i < in.length; p++, i++) {
-                in[i] = input.get(p);
+        if (!input.hasArray() || !output.hasArray()) {
+            final var inbuf = JinahyaBufferPool.getDefault().acquire(
+                    Math.max(Math.min(input.remaining(), STAGING_WINDOW_SIZE), 1));
+            try {
+                return processBytesAndDoFinal(cipher, input, output, inbuf, null);
+            } finally {
+                JinahyaBufferPool.getDefault().release(inbuf);
             }
-            inoff = 0;
         }
-        final byte[] out;
-        final int outoff;
-        if (output.hasArray()) {
-            out = output.array();
-            outoff = output.arrayOffset() + output.position();
-        } else {
-            out = new byte[output.remaining()];
-            outoff = 0;
+        final var in = input.array();
+        final var inoff = input.arrayOffset() + input.position();
+        final var inlen = input.remaining();
+        final var out = output.array();
+        final var outoff = output.arrayOffset() + output.position();
+        // only the bytes the call may write are wiped on failure; the rest of the remaining range is the caller's
+        final var bound = (int) Math.min((long) output.position() + cipher.getOutputSize(inlen), output.limit());
+        final int outlen;
+        try {
+            outlen = processBytesAndDoFinal(cipher, in, inoff, inlen, out, outoff);
+        } catch (final InvalidCipherTextException | RuntimeException e) {
+            wipe(output, output.position(), bound);
+            throw e;
         }
-        final var outlen = processBytesAndDoFinal(cipher, in, inoff, inlen, out, outoff);
         input.position(input.position() + inlen);
-        if (output.hasArray()) {
-            output.position(output.position() + outlen);
-        } else {
-            output.put(out, outoff, outlen);
-        }
+        output.position(output.position() + outlen);
         return outlen;
     }
 
+    /**
+     * Processes and finalizes, using specified cipher, all remaining bytes of specified input buffer, and put processed
+     * bytes to specified output buffer, streaming through specified staging buffers.
+     * <p>
+     * The {@code inbuf} is used as a window for bulk-getting bytes from the {@code input} when the {@code input} is not
+     * backed by an accessible array, and its length limits the number of bytes processed at once. The {@code outbuf} is
+     * used as a window for bulk-putting processed bytes to the {@code output}; an array is acquired from the
+     * {@link JinahyaBufferPool#getDefault() default pool} when it is {@code null} or too short. A given {@code outbuf}
+     * is wiped before this method returns.
+     * <p>
+     * Since a decrypting cipher, such as the GCM, may output bytes before their tag is verified, bytes put on the
+     * {@code output} are wiped, and positions of both buffers are restored, when this method fails.
+     *
+     * @param cipher the cipher.
+     * @param input  the input buffer whose remaining bytes are processed.
+     * @param output the output buffer onto which processed bytes are put.
+     * @param inbuf  a staging buffer for unprocessed bytes.
+     * @param outbuf a staging buffer for processed bytes; may be {@code null}.
+     * @return the number of bytes put on the output buffer.
+     * @throws InvalidCipherTextException if the MAC does not match.
+     * @throws OutputLengthException      if the {@code output} has not enough remaining for processed bytes.
+     */
+    public static int processBytesAndDoFinal(final AEADCipher cipher, final ByteBuffer input, final ByteBuffer output,
+                                             final byte[] inbuf, byte[] outbuf)
+            throws InvalidCipherTextException {
+        Objects.requireNonNull(cipher, "cipher is null");
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        if (Objects.requireNonNull(inbuf, "inbuf is null").length == 0) {
+            throw new IllegalArgumentException("inbuf.length is zero");
+        }
+        final var window = inbuf.length;
+        final var given = outbuf;
+        if (outbuf == null || outbuf.length == 0) {
+            outbuf = JinahyaBufferPool.getDefault().acquire(Math.max(cipher.getUpdateOutputSize(window), 1));
+        }
+        final var inpos = input.position();
+        final var outpos = output.position();
+        var succeeded = false;
+        try {
+            var outlen = 0;
+            for (int n; input.hasRemaining(); outlen += n) {
+                final var inlen = Math.min(input.remaining(), window);
+                final byte[] in;
+                final int inoff;
+                if (input.hasArray()) {
+                    in = input.array();
+                    inoff = input.arrayOffset() + input.position();
+                    input.position(input.position() + inlen);
+                } else {
+                    input.get(inbuf, 0, inlen);
+                    in = inbuf;
+                    inoff = 0;
+                }
+                if (output.hasArray()) {
+                    if (cipher.getUpdateOutputSize(inlen) > output.remaining()) {
+                        throw new OutputLengthException("output buffer too short");
+                    }
+                    n = cipher.processBytes(in, inoff, inlen, output.array(), output.arrayOffset() + output.position());
+                    output.position(output.position() + n);
+                    continue;
+                }
+                for (final var uos = cipher.getUpdateOutputSize(inlen); outbuf.length < uos; ) {
+                    outbuf = reallocate(cipher, outbuf, uos, given);
+                }
+                n = cipher.processBytes(in, inoff, inlen, outbuf, 0); // DataLengthException
+                if (n > output.remaining()) {
+                    throw new OutputLengthException("output buffer too short");
+                }
+                output.put(outbuf, 0, n);
+            }
+            for (final var os = cipher.getOutputSize(0); outbuf.length < os; ) {
+                outbuf = reallocate(cipher, outbuf, os, given);
+            }
+            final var n = cipher.doFinal(outbuf, 0); // InvalidCipherTextException
+            if (n > output.remaining()) {
+                throw new OutputLengthException("output buffer too short");
+            }
+            output.put(outbuf, 0, n);
+            succeeded = true;
+            return outlen + n;
+        } finally {
+            if (!succeeded) {
+                wipe(output, outpos, output.position());
+                output.position(outpos);
+                input.position(inpos);
+            }
+            if (outbuf == given) {
+                Arrays.fill(outbuf, (byte) 0);
+            } else {
+                JinahyaBufferPool.getDefault().release(outbuf);
+            }
+        }
+    }
+
+    /**
+     * Wipes bytes of specified buffer between specified absolute indices, without changing its position.
+     */
+    private static void wipe(final ByteBuffer buffer, final int from, final int to) {
+        if (from >= to) {
+            return;
+        }
+        if (buffer.hasArray()) {
+            Arrays.fill(buffer.array(), buffer.arrayOffset() + from, buffer.arrayOffset() + to, (byte) 0);
+            return;
+        }
+        final var zeros = new byte[Math.min(to - from, STAGING_WINDOW_SIZE)];
+        final var duplicate = buffer.duplicate().limit(to).position(from);
+        while (duplicate.hasRemaining()) {
+            duplicate.put(zeros, 0, Math.min(duplicate.remaining(), zeros.length));
+        }
+    }
+
     // -----------------------------------------------------------------------------------------------------------------
     public static long processAllBytesAndDoFinal(final AEADCipher cipher, final InputStream in, final OutputStream out,
                                                  final byte[] inbuf, byte[] outbuf)
@@ -94,31 +285,130 @@ public final class JinahyaAEADCipherUtils {
         if (Objects.requireNonNull(inbuf, "inbuf is null").length == 0) {
             throw new IllegalArgumentException("inbuf.length is zero");
         }
+        final var given = outbuf;
         if (outbuf == null || outbuf.length == 0) {
-            outbuf = new byte[cipher.getOutputSize(inbuf.length)];
+            outbuf = JinahyaBufferPool.getDefault().acquire(cipher.getOutputSize(inbuf.length));
         }
-        var bytes = 0L;
-        for (int r; (r = in.read(inbuf)) != -1; ) {
-            for (final var uos = cipher.getUpdateOutputSize(r); outbuf.length < uos; ) {
-                System.err.println("re-allocating outbuf(" + outbuf.length +
-                                           ") for an intermediate update output size: " + uos);
-                Arrays.fill(outbuf, (byte) 0);
-                outbuf = new byte[uos];
+        try {
+            var bytes = 0L;
+            for (int r; (r = in.read(inbuf)) != -1; ) {
+                for (final var uos = cipher.getUpdateOutputSize(r); outbuf.length < uos; ) {
+                    outbuf = reallocate(cipher, outbuf, uos, given);
+                }
+                final var outlen = cipher.processBytes(inbuf, 0, r, outbuf, 0); // DataLengthException
+                out.write(outbuf, 0, outlen);
+                bytes += outlen;
             }
-            final var outlen = cipher.processBytes(inbuf, 0, r, outbuf, 0); // DataLengthException
+            for (final var os = cipher.getOutputSize(0); outbuf.length < os; ) {
+                outbuf = reallocate(cipher, outbuf, os, given);
+            }
+            final var outlen = cipher.doFinal(outbuf, 0); // InvalidCipherTextException
             out.write(outbuf, 0, outlen);
             bytes += outlen;
+            Arrays.fill(outbuf, (byte) 0);
+            return bytes;
+        } finally {
+            if (outbuf != given) {
+                JinahyaBufferPool.getDefault().release(outbuf);
+            }
         }
-        for (final var os = cipher.getOutputSize(0); outbuf.length < os; ) {
-            System.err.println("re-allocating outbuf(" + outbuf.length + ") for the final output size: " + os);
+    }
+
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Processes and finalizes, using specified cipher, all bytes of specified input channel, from its current position,
+     * and writes processed bytes to specified output channel, from its current position.
+     * <p>
+     * The {@code input} is read through read-only mapped windows of at most {@value #MAPPING_WINDOW_SIZE} bytes,
+     * and processed bytes are written with positional writes; the {@code output} grows only by the bytes actually
+     * written. Positions of both channels are advanced. Since bytes are written before the MAC is verified, the
+     * {@code output} is truncated to its starting position when the MAC does not match.
+     *
+     * @param cipher the cipher.
+     * @param input  the input channel.
+     * @param output the output channel.
+     * @param inbuf  a buffer for staging bytes of mapped windows.
+     * @param outbuf a buffer for processed bytes; may be {@code null}.
+     * @return the number of bytes written to the {@code output}.
+     * @throws IOException                if an I/O error occurs.
+     * @throws InvalidCipherTextException if the MAC does not match.
+     */
+    public static long processAllBytesAndDoFinal(final AEADCipher cipher, final FileChannel input,
+                                                 final FileChannel output, final byte[] inbuf, byte[] outbuf)
+            throws IOException, InvalidCipherTextException {
+        Objects.requireNonNull(cipher, "cipher is null");
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        if (Objects.requireNonNull(inbuf, "inbuf is null").length == 0) {
+            throw new IllegalArgumentException("inbuf.length is zero");
+        }
+        final var given = outbuf;
+        if (outbuf == null || outbuf.length == 0) {
+            outbuf = JinahyaBufferPool.getDefault().acquire(
+                    Math.max(cipher.getUpdateOutputSize(inbuf.length), Math.max(cipher.getOutputSize(0), 1)));
+        }
+        try {
+            final var size = input.size();
+            final var outpos = output.position();
+            var bytes = 0L;
+            for (var position = input.position(); position < size; ) {
+                final var mapped = input.map(FileChannel.MapMode.READ_ONLY, position,
+                                             Math.min(size - position, MAPPING_WINDOW_SIZE));
+                position += mapped.remaining();
+                while (mapped.hasRemaining()) {
+                    final var r = Math.min(mapped.remaining(), inbuf.length);
+                    mapped.get(inbuf, 0, r);
+                    for (final var uos = cipher.getUpdateOutputSize(r); outbuf.length < uos; ) {
+                        outbuf = reallocate(cipher, outbuf, uos, given);
+                    }
+                    bytes += write(output, outbuf, cipher.processBytes(inbuf, 0, r, outbuf, 0), outpos + bytes);
+                }
+            }
+            for (final var os = cipher.getOutputSize(0); outbuf.length < os; ) {
+                outbuf = reallocate(cipher, outbuf, os, given);
+            }
+            final int outlen;
+            try {
+                outlen = cipher.doFinal(outbuf, 0);
+            } catch (final InvalidCipherTextException icte) {
+                output.truncate(outpos); // no unauthenticated plaintext is left
+                throw icte;
+            }
+            bytes += write(output, outbuf, outlen, outpos + bytes);
+            input.position(size);
+            output.position(outpos + bytes);
+            return bytes;
+        } finally {
+            if (outbuf != given) {
+                JinahyaBufferPool.getDefault().release(outbuf);
+            }
+        }
+    }
+
+    private static int write(final FileChannel channel, final byte[] buf, final int len, final long position)
+            throws IOException {
+        final var src = ByteBuffer.wrap(buf, 0, len);
+        while (src.hasRemaining()) {
+            channel.write(src, position + src.position());
+        }
+        return len;
+    }
+
+    /**
+     * Replaces specified output buffer with a pooled one of specified size; the old one is released unless it is the
+     * {@code given} one, which is just wiped.
+     */
+    private static byte[] reallocate(final AEADCipher cipher, final byte[] outbuf, final int size,
+                                     final byte[] given) {
+        JinahyaCryptoInstrumentationUtils.get().bufferReallocated(cipher.getAlgorithmName(), outbuf.length, size);
+        if (outbuf == given) {
             Arrays.fill(outbuf, (byte) 0);
-            outbuf = new byte[os];
+        } else {
+            JinahyaBufferPool.getDefault().release(outbuf);
         }
-        final var outlen = cipher.doFinal(outbuf, 0); // InvalidCipherTextException
-        out.write(outbuf, 0, outlen);
-        bytes += outlen;
-        Arrays.fill(outbuf, (byte) 0);
-        return bytes;
+        return JinahyaBufferPool.getDefault().acquire(size);
     }
 
     // -----------------------------------------------------------------------------------------------------------------
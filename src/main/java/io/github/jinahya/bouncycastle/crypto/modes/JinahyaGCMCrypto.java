@@ -0,0 +1,247 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoException;
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.modes.GCMModeCipher;
+import org.bouncycastle.crypto.modes.gcm.BasicGCMMultiplier;
+import org.bouncycastle.crypto.modes.gcm.GCMMultiplier;
+import org.bouncycastle.crypto.modes.gcm.Tables4kGCMMultiplier;
+import org.bouncycastle.crypto.modes.gcm.Tables64kGCMMultiplier;
+import org.bouncycastle.crypto.modes.gcm.Tables8kGCMMultiplier;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A thread-safe crypto for the GCM with a fixed key, whose messages are each encrypted with its own nonce and
+ * associated text.
+ * <p>
+ * Each thread keeps a {@link GCMBlockCipher} initialized with the key, once, hence the key schedule and the GHASH
+ * multiplier tables, derived from the key, are built once per thread; each message re-initializes only the nonce and
+ * the associated text. The {@link Multiplier multiplier} trades the memory of the tables, per thread, for speed.
+ * <p>
+ * The underlying cipher rejects a nonce reused for consecutive encryptions on the same thread; callers are still
+ * responsible for the uniqueness of nonces.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see GCMBlockCipher#newInstance(BlockCipher, GCMMultiplier)
+ */
+public class JinahyaGCMCrypto {
+
+    /**
+     * Multipliers of GHASH, in order of increasing memory, and speed.
+     */
+    public enum Multiplier {
+
+        /**
+         * A multiplier without tables.
+         */
+        BASIC(BasicGCMMultiplier::new),
+
+        /**
+         * A multiplier with 4 KiB of tables.
+         */
+        TABLES_4K(Tables4kGCMMultiplier::new),
+
+        /**
+         * A multiplier with 8 KiB of tables.
+         */
+        TABLES_8K(Tables8kGCMMultiplier::new),
+
+        /**
+         * A multiplier with 64 KiB of tables.
+         */
+        TABLES_64K(Tables64kGCMMultiplier::new);
+
+        Multiplier(final Supplier<? extends GCMMultiplier> supplier) {
+            this.supplier = supplier;
+        }
+
+        /**
+         * Returns a new instance of this multiplier.
+         *
+         * @return a new instance of this multiplier.
+         */
+        public GCMMultiplier newInstance() {
+            return supplier.get();
+        }
+
+        private final Supplier<? extends GCMMultiplier> supplier;
+    }
+
+    /**
+     * The default multiplier.
+     */
+    public static final Multiplier DEFAULT_MULTIPLIER = Multiplier.TABLES_4K;
+
+    /**
+     * The default MAC size, in bits.
+     */
+    public static final int DEFAULT_MAC_SIZE = 128;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance with the {@link #DEFAULT_MAC_SIZE} and the {@link #DEFAULT_MULTIPLIER}.
+     *
+     * @param engineSupplier a supplier for new block cipher engines, of 128-bit blocks.
+     * @param key            the key.
+     */
+    public JinahyaGCMCrypto(final Supplier<? extends BlockCipher> engineSupplier, final KeyParameter key) {
+        this(engineSupplier, key, DEFAULT_MAC_SIZE, DEFAULT_MULTIPLIER);
+    }
+
+    /**
+     * Creates a new instance with specified arguments.
+     *
+     * @param engineSupplier a supplier for new block cipher engines, of 128-bit blocks.
+     * @param key            the key.
+     * @param macSize        the MAC size, in bits; between {@code 32} and {@code 128}, and a multiple of {@code 8}.
+     * @param multiplier     the multiplier.
+     */
+    public JinahyaGCMCrypto(final Supplier<? extends BlockCipher> engineSupplier, final KeyParameter key,
+                            final int macSize, final Multiplier multiplier) {
+        super();
+        this.engineSupplier = Objects.requireNonNull(engineSupplier, "engineSupplier is null");
+        this.key = Objects.requireNonNull(key, "key is null");
+        if (macSize < 32 || macSize > 128 || macSize % 8 != 0) {
+            throw new IllegalArgumentException("invalid macSize: " + macSize);
+        }
+        this.macSize = macSize;
+        this.multiplier = Objects.requireNonNull(multiplier, "multiplier is null");
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the multiplier of this crypto.
+     *
+     * @return the multiplier.
+     */
+    public Multiplier getMultiplier() {
+        return multiplier;
+    }
+
+    /**
+     * Returns the MAC size of this crypto.
+     *
+     * @return the MAC size, in bits.
+     */
+    public int getMacSize() {
+        return macSize;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Encrypts specified input bytes with specified nonce and associated text.
+     *
+     * @param nonce the nonce, which should be unique for the key.
+     * @param aad   the associated text; may be {@code null}.
+     * @param in    the input bytes to encrypt.
+     * @return a new array of encrypted bytes, followed by the tag.
+     */
+    public byte[] encrypt(final byte[] nonce, final byte[] aad, final byte[] in) {
+        return process(true, nonce, aad, in);
+    }
+
+    /**
+     * Decrypts specified input bytes with specified nonce and associated text.
+     *
+     * @param nonce the nonce.
+     * @param aad   the associated text; may be {@code null}.
+     * @param in    the input bytes to decrypt, followed by the tag.
+     * @return a new array of decrypted bytes.
+     */
+    public byte[] decrypt(final byte[] nonce, final byte[] aad, final byte[] in) {
+        return process(false, nonce, aad, in);
+    }
+
+    /**
+     * Encrypts all remaining bytes of specified input buffer with specified nonce and associated text.
+     *
+     * @param nonce  the nonce, which should be unique for the key.
+     * @param aad    the associated text; may be {@code null}.
+     * @param input  the input buffer.
+     * @param output the output buffer.
+     * @return the number of bytes put on the {@code output}.
+     */
+    public int encrypt(final byte[] nonce, final byte[] aad, final ByteBuffer input, final ByteBuffer output) {
+        return process(true, nonce, aad, input, output);
+    }
+
+    /**
+     * Decrypts all remaining bytes of specified input buffer with specified nonce and associated text.
+     *
+     * @param nonce  the nonce.
+     * @param aad    the associated text; may be {@code null}.
+     * @param input  the input buffer.
+     * @param output the output buffer.
+     * @return the number of bytes put on the {@code output}.
+     */
+    public int decrypt(final byte[] nonce, final byte[] aad, final ByteBuffer input, final ByteBuffer output) {
+        return process(false, nonce, aad, input, output);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private byte[] process(final boolean encryption, final byte[] nonce, final byte[] aad, final byte[] in) {
+        Objects.requireNonNull(in, "in is null");
+        final var cipher = init(encryption, nonce, aad);
+        final var out = new byte[cipher.getOutputSize(in.length)];
+        try {
+            final var outlen = JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, in, 0, in.length, out, 0);
+            return outlen == out.length ? out : Arrays.copyOf(out, outlen);
+        } catch (final InvalidCipherTextException icte) {
+            throw encryption
+                  ? JinahyaCryptoException.ofEncryptionFailure(icte)
+                  : JinahyaCryptoException.ofDecryptionFailure(icte);
+        }
+    }
+
+    private int process(final boolean encryption, final byte[] nonce, final byte[] aad, final ByteBuffer input,
+                        final ByteBuffer output) {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        final var cipher = init(encryption, nonce, aad);
+        try {
+            return JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, input, output);
+        } catch (final InvalidCipherTextException icte) {
+            throw encryption
+                  ? JinahyaCryptoException.ofEncryptionFailure(icte)
+                  : JinahyaCryptoException.ofDecryptionFailure(icte);
+        }
+    }
+
+    /**
+     * Initializes the cipher of the current thread; with the {@link #key} only for the first time.
+     */
+    private GCMModeCipher init(final boolean encryption, final byte[] nonce, final byte[] aad) {
+        Objects.requireNonNull(nonce, "nonce is null");
+        var cipher = ciphers.get();
+        if (cipher == null) {
+            cipher = GCMBlockCipher.newInstance(engineSupplier.get(), multiplier.newInstance());
+            cipher.init(encryption, new AEADParameters(key, macSize, nonce, aad));
+            ciphers.set(cipher);
+            return cipher;
+        }
+        cipher.init(encryption, new AEADParameters(null, macSize, nonce, aad)); // reuses the key, and the tables
+        return cipher;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final Supplier<? extends BlockCipher> engineSupplier;
+
+    private final KeyParameter key;
+
+    private final int macSize;
+
+    private final Multiplier multiplier;
+
+    private final ThreadLocal<GCMModeCipher> ciphers = new ThreadLocal<>();
+}
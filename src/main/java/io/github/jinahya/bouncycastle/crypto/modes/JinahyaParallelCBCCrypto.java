@@ -0,0 +1,415 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import io.github.jinahya.bouncycastle.crypto.JinahyaBufferedBlockCipherCrypto;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCrypto;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoException;
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.DefaultBufferedBlockCipher;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.CBCModeCipher;
+import org.bouncycastle.crypto.paddings.BlockCipherPadding;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * A thread-safe crypto for the CBC mode which decrypts segments of large inputs in parallel.
+ * <p>
+ * Decrypting a block of the CBC mode needs only the block itself and its preceding cipher block, hence each segment is
+ * decrypted by its own {@link CBCBlockCipher} initialized with the last cipher block of the preceding segment as its
+ * iv. The padding, if any, is removed from the last block of the last segment. Results are identical to those of a
+ * {@link PaddedBufferedBlockCipher}, or, without padding, a {@link DefaultBufferedBlockCipher}, wrapping a
+ * {@link CBCBlockCipher}. Encryption, which is inherently sequential, is performed on the calling thread.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaParallelCTRCrypto
+ */
+public class JinahyaParallelCBCCrypto
+        implements JinahyaCrypto {
+
+    /**
+     * The default size of segments, in bytes.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 1048576;
+
+    /**
+     * The size of the window, in bytes, for staging segments of buffers not backed by accessible arrays.
+     */
+    private static final int STAGING_WINDOW_SIZE = 8192;
+
+    /**
+     * The number of segments in each batch of stream decryption.
+     */
+    private static final int STREAM_BATCH_SEGMENTS = 4;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance which runs on the {@link ForkJoinPool#commonPool() common pool} with the
+     * {@link #DEFAULT_SEGMENT_SIZE}.
+     *
+     * @param engineSupplier a supplier for new block cipher engines.
+     * @param padding        the padding; {@code null} for no padding.
+     * @param params         the cipher parameters; the key with the iv.
+     */
+    public JinahyaParallelCBCCrypto(final Supplier<? extends BlockCipher> engineSupplier,
+                                    final BlockCipherPadding padding, final ParametersWithIV params) {
+        this(engineSupplier, padding, params, ForkJoinPool.commonPool(), DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Creates a new instance with specified arguments.
+     *
+     * @param engineSupplier a supplier for new block cipher engines.
+     * @param padding        the padding; {@code null} for no padding. The padding is shared among threads, hence
+     *                       should be stateless, such as {@link org.bouncycastle.crypto.paddings.PKCS7Padding}.
+     * @param params         the cipher parameters; the key with the iv.
+     * @param executor       an executor on which segments are decrypted.
+     * @param segmentSize    the size of each segment; must be a positive multiple of the engine's block size.
+     */
+    public JinahyaParallelCBCCrypto(final Supplier<? extends BlockCipher> engineSupplier,
+                                    final BlockCipherPadding padding, final ParametersWithIV params,
+                                    final Executor executor, final int segmentSize) {
+        super();
+        this.engineSupplier = Objects.requireNonNull(engineSupplier, "engineSupplier is null");
+        this.padding = padding;
+        this.params = Objects.requireNonNull(params, "params is null");
+        this.executor = Objects.requireNonNull(executor, "executor is null");
+        blockSize = newEngine().getBlockSize();
+        if (params.getIV().length != blockSize) {
+            throw new IllegalArgumentException(
+                    "params.iv.length(" + params.getIV().length + ") != blockSize(" + blockSize + ")");
+        }
+        if (segmentSize <= 0 || segmentSize % blockSize != 0) {
+            throw new IllegalArgumentException(
+                    "segmentSize(" + segmentSize + ") is not a positive multiple of " + blockSize);
+        }
+        this.segmentSize = segmentSize;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private BlockCipher newEngine() {
+        return Objects.requireNonNull(engineSupplier.get(), "null supplied from " + engineSupplier);
+    }
+
+    private BufferedBlockCipher newBufferedCipher() {
+        final var cipher = CBCBlockCipher.newInstance(newEngine());
+        if (padding == null) {
+            return new DefaultBufferedBlockCipher(cipher);
+        }
+        return new PaddedBufferedBlockCipher(cipher, padding);
+    }
+
+    private CBCModeCipher newDecryptor(final byte[] iv) {
+        final var cipher = CBCBlockCipher.newInstance(newEngine());
+        cipher.init(false, new ParametersWithIV(params.getParameters(), iv));
+        return cipher;
+    }
+
+    private void requireDecryptable(final long length) {
+        if (length % blockSize != 0 || (padding != null && length == 0L)) {
+            throw new DataLengthException("last block incomplete in decryption");
+        }
+    }
+
+    private void processSegments(final long length, final JinahyaSegmentUtils.Segment segment) throws IOException {
+        JinahyaSegmentUtils.processSegments(executor, length, segmentSize, segment);
+    }
+
+    /**
+     * Returns the number of padding bytes in specified last block.
+     *
+     * @param block the last block.
+     * @return the number of padding bytes.
+     */
+    private int padCount(final byte[] block) {
+        if (padding == null) {
+            return 0;
+        }
+        try {
+            return padding.padCount(block);
+        } catch (final InvalidCipherTextException icte) {
+            throw JinahyaCryptoException.ofDecryptionFailure(icte);
+        }
+    }
+
+    /**
+     * Reads ivs of all segments of specified input buffer, i.e., specified iv followed by the last cipher block of each
+     * segment but the last, before any segment is decrypted, so that the input may be decrypted in place.
+     *
+     * @param iv    the iv for the first block.
+     * @param input the input buffer whose remaining bytes are segmented; its position is not changed.
+     * @return an array of ivs of segments.
+     */
+    private byte[][] ivs(final byte[] iv, final ByteBuffer input) {
+        final var length = input.remaining();
+        final var ivs = new byte[Math.max((int) ((length + (long) segmentSize - 1) / segmentSize), 1)][];
+        ivs[0] = iv;
+        for (int i = 1; i < ivs.length; i++) {
+            ivs[i] = new byte[blockSize];
+            input.duplicate().position(input.position() + i * segmentSize - blockSize).get(ivs[i]);
+        }
+        return ivs;
+    }
+
+    /**
+     * Checks that specified ranges of an input array and an output array are either identical or disjoint.
+     */
+    private static void requireNoPartialOverlap(final byte[] in, final int inoff, final byte[] out, final int outoff,
+                                                final int length) {
+        if (in == out && inoff != outoff && inoff < outoff + length && outoff < inoff + length) {
+            throw new IllegalArgumentException(
+                    "output range(" + outoff + ") partially overlaps input range(" + inoff + "), length: " + length);
+        }
+    }
+
+    /**
+     * Decrypts specified range of an input array into specified output array, in parallel.
+     *
+     * @param iv     the iv for the first block.
+     * @param in     the input array.
+     * @param inoff  the offset of the {@code in}.
+     * @param inlen  the number of bytes to decrypt; must be a multiple of the block size.
+     * @param out    the output array; may be the {@code in} only with the same offset.
+     * @param outoff the offset of the {@code out}.
+     */
+    private void decryptBlocks(final byte[] iv, final byte[] in, final int inoff, final int inlen, final byte[] out,
+                               final int outoff) {
+        requireNoPartialOverlap(in, inoff, out, outoff, inlen);
+        final var ivs = ivs(iv, ByteBuffer.wrap(in, inoff, inlen));
+        try {
+            processSegments(inlen, (i, p, l) -> {
+                final var s = (int) p;
+                final var cipher = newDecryptor(ivs[(int) i]);
+                for (int k = 0; k < l; k += blockSize) {
+                    cipher.processBlock(in, inoff + s + k, out, outoff + s + k);
+                }
+            });
+        } catch (final IOException ioe) {
+            throw new AssertionError("unexpected", ioe);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public byte[] encrypt(final byte[] in) {
+        return new JinahyaBufferedBlockCipherCrypto(newBufferedCipher(), params).encrypt(in);
+    }
+
+    @Override
+    public int encrypt(final ByteBuffer input, final ByteBuffer output) {
+        return new JinahyaBufferedBlockCipherCrypto(newBufferedCipher(), params).encrypt(input, output);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public byte[] decrypt(final byte[] in) {
+        Objects.requireNonNull(in, "in is null");
+        requireDecryptable(in.length);
+        final var out = new byte[in.length];
+        decryptBlocks(params.getIV(), in, 0, in.length, out, 0);
+        if (out.length == 0) {
+            return out;
+        }
+        return Arrays.copyOf(out, out.length - padCount(Arrays.copyOfRange(out, out.length - blockSize, out.length)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The {@code output} may share the content of the {@code input} for decrypting in place, as long as both start at
+     * the same address; boundary cipher blocks of segments are read before any segment is decrypted. Partially
+     * overlapping buffers are rejected when both are backed by arrays, and are not supported otherwise.
+     *
+     * @param input  {@inheritDoc}
+     * @param output {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public int decrypt(final ByteBuffer input, final ByteBuffer output) {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        final var length = input.remaining();
+        requireDecryptable(length);
+        if (output.remaining() < length) {
+            throw new OutputLengthException("output buffer too short");
+        }
+        final var inpos = input.position();
+        final var outpos = output.position();
+        if (input.hasArray() && output.hasArray()) {
+            requireNoPartialOverlap(input.array(), input.arrayOffset() + inpos, output.array(),
+                                    output.arrayOffset() + outpos, length);
+            decryptBlocks(params.getIV(), input.array(), input.arrayOffset() + inpos, length, output.array(),
+                          output.arrayOffset() + outpos);
+        } else {
+            final var ivs = ivs(params.getIV(), input);
+            try {
+                processSegments(length, (i, p, l) -> {
+                    final var src = input.duplicate().position(inpos + (int) p);
+                    final var dst = output.duplicate().position(outpos + (int) p);
+                    final var cipher = newDecryptor(ivs[(int) i]);
+                    final var window = new byte[Math.min(l, STAGING_WINDOW_SIZE)];
+                    for (int r = l; r > 0; ) {
+                        final var n = Math.min(r, window.length);
+                        src.get(window, 0, n);
+                        for (int k = 0; k < n; k += blockSize) {
+                            cipher.processBlock(window, k, window, k);
+                        }
+                        dst.put(window, 0, n);
+                        r -= n;
+                    }
+                });
+            } catch (final IOException ioe) {
+                throw new AssertionError("unexpected", ioe);
+            }
+        }
+        var outlen = length;
+        if (length > 0) {
+            final var block = new byte[blockSize];
+            output.duplicate().position(outpos + length - blockSize).get(block);
+            outlen -= padCount(block);
+        }
+        input.position(inpos + length);
+        output.position(outpos + outlen);
+        return outlen;
+    }
+
+    /**
+     * Decrypts all bytes of specified input channel, from its current position, in parallel, and writes decrypted
+     * bytes to specified output channel, from its current position. Segments are read and written with positional
+     * reads and writes, and positions of both channels are advanced at the end.
+     *
+     * @param input  the input channel.
+     * @param output the output channel.
+     * @return the number of bytes written to the {@code output}.
+     * @throws IOException if an I/O error occurs.
+     */
+    @Override
+    public long decrypt(final FileChannel input, final FileChannel output) throws IOException {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        final var inpos = input.position();
+        final var outpos = output.position();
+        final var length = Math.max(input.size() - inpos, 0L);
+        requireDecryptable(length);
+        final var pad = new int[1];
+        processSegments(length, (i, p, l) -> {
+            final var buffer = ByteBuffer.allocate(l + blockSize);
+            if (p == 0L) {
+                buffer.put(params.getIV());
+            }
+            while (buffer.hasRemaining()) {
+                if (input.read(buffer, inpos + p - blockSize + buffer.position()) == -1) {
+                    throw new IOException("unexpected end of channel");
+                }
+            }
+            final var array = buffer.array();
+            final var cipher = newDecryptor(Arrays.copyOf(array, blockSize));
+            for (int k = blockSize; k < array.length; k += blockSize) {
+                cipher.processBlock(array, k, array, k);
+            }
+            var n = l;
+            if (p + l == length) {
+                n -= (pad[0] = padCount(Arrays.copyOfRange(array, array.length - blockSize, array.length)));
+            }
+            final var decrypted = ByteBuffer.wrap(array, blockSize, n);
+            while (decrypted.hasRemaining()) {
+                output.write(decrypted, outpos + p + decrypted.position() - blockSize);
+            }
+        });
+        final var outlen = length - pad[0];
+        input.position(inpos + length);
+        output.position(outpos + outlen);
+        return outlen;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public long encrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
+        return new JinahyaBufferedBlockCipherCrypto(newBufferedCipher(), params).encrypt(in, out, inbuf);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The {@code in} is read, into an internal buffer, in batches of {@value #STREAM_BATCH_SEGMENTS} segments, or of
+     * {@code inbuf.length} bytes, rounded down to a multiple of the block size, if larger, each of which is decrypted,
+     * in place, in parallel. The last block of each full batch is held back until the next batch, so that the padding
+     * is removed only from the very last block.
+     *
+     * @param in    the input stream from which encrypted bytes are read.
+     * @param out   the output stream to which decrypted bytes are written.
+     * @param inbuf a buffer whose length hints the size of each batch; its length must not be less than twice the
+     *              block size. Its content is not used.
+     * @return {@inheritDoc}
+     * @throws IOException {@inheritDoc}
+     */
+    @Override
+    public long decrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
+        Objects.requireNonNull(in, "in is null");
+        Objects.requireNonNull(out, "out is null");
+        Objects.requireNonNull(inbuf, "inbuf is null");
+        final var hinted = inbuf.length - inbuf.length % blockSize;
+        if (hinted < blockSize << 1) {
+            throw new IllegalArgumentException(
+                    "inbuf.length(" + inbuf.length + ") < blockSize(" + blockSize + ") * 2");
+        }
+        final var segments = Math.min((long) segmentSize * STREAM_BATCH_SEGMENTS + blockSize,
+                                      Integer.MAX_VALUE - 8 - (Integer.MAX_VALUE - 8) % blockSize);
+        final var batch = (int) Math.max(hinted, segments);
+        final var buffer = new byte[batch];
+        try {
+            var iv = params.getIV();
+            var held = 0;
+            for (long written = 0L; ; ) {
+                final var r = held + in.readNBytes(buffer, held, batch - held);
+                if (r < batch) {
+                    requireDecryptable(r);
+                    decryptBlocks(iv, buffer, 0, r, buffer, 0);
+                    final var outlen = r == 0 ? 0 : r - padCount(Arrays.copyOfRange(buffer, r - blockSize, r));
+                    out.write(buffer, 0, outlen);
+                    return written + outlen;
+                }
+                final var l = batch - blockSize;
+                final var next = Arrays.copyOfRange(buffer, l - blockSize, l);
+                decryptBlocks(iv, buffer, 0, l, buffer, 0);
+                out.write(buffer, 0, l);
+                written += l;
+                iv = next;
+                System.arraycopy(buffer, l, buffer, 0, blockSize);
+                held = blockSize;
+            }
+        } finally {
+            Arrays.fill(buffer, (byte) 0);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final Supplier<? extends BlockCipher> engineSupplier;
+
+    private final BlockCipherPadding padding;
+
+    private final ParametersWithIV params;
+
+    private final Executor executor;
+
+    private final int segmentSize;
+
+    private final int blockSize;
+}
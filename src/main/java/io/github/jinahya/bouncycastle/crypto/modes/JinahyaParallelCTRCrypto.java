@@ -0,0 +1,334 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import io.github.jinahya.bouncycastle.crypto.JinahyaCrypto;
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.crypto.modes.CTRModeCipher;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * A thread-safe crypto for the CTR(SIC) mode which processes segments of large inputs in parallel.
+ * <p>
+ * Each segment is processed by its own {@link SICBlockCipher} seeked to the segment's offset, hence the result is
+ * identical to that of a single {@link SICBlockCipher} processing the whole input sequentially. Inputs not longer than
+ * a segment are processed on the calling thread. Since the CTR mode is symmetric, encryption and decryption are the
+ * same operation.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see SICBlockCipher#seekTo(long)
+ */
+public class JinahyaParallelCTRCrypto
+        implements JinahyaCrypto {
+
+    /**
+     * The default size of segments, in bytes.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 1048576;
+
+    /**
+     * The size of the window, in bytes, for staging segments of buffers not backed by accessible arrays.
+     */
+    private static final int STAGING_WINDOW_SIZE = 8192;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance which runs on the {@link ForkJoinPool#commonPool() common pool} with the
+     * {@link #DEFAULT_SEGMENT_SIZE}.
+     *
+     * @param engineSupplier a supplier for new block cipher engines.
+     * @param params         the cipher parameters; the key with the initial counter block.
+     */
+    public JinahyaParallelCTRCrypto(final Supplier<? extends BlockCipher> engineSupplier,
+                                    final ParametersWithIV params) {
+        this(engineSupplier, params, ForkJoinPool.commonPool(), DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Creates a new instance with specified arguments.
+     *
+     * @param engineSupplier a supplier for new block cipher engines.
+     * @param params         the cipher parameters; the key with the initial counter block.
+     * @param executor       an executor on which segments are processed.
+     * @param segmentSize    the size of each segment; must be a positive multiple of the engine's block size.
+     */
+    public JinahyaParallelCTRCrypto(final Supplier<? extends BlockCipher> engineSupplier,
+                                    final ParametersWithIV params, final Executor executor,
+                                    final int segmentSize) {
+        super();
+        this.engineSupplier = Objects.requireNonNull(engineSupplier, "engineSupplier is null");
+        this.params = Objects.requireNonNull(params, "params is null");
+        this.executor = Objects.requireNonNull(executor, "executor is null");
+        final var blockSize = newCipher(0L).getBlockSize();
+        if (segmentSize <= 0 || segmentSize % blockSize != 0) {
+            throw new IllegalArgumentException(
+                    "segmentSize(" + segmentSize + ") is not a positive multiple of " + blockSize);
+        }
+        this.segmentSize = segmentSize;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns a new cipher, initialized, and seeked to specified position.
+     *
+     * @param position the position, in bytes, from the initial counter block.
+     * @return a new cipher.
+     */
+    private CTRModeCipher newCipher(final long position) {
+        final var cipher = SICBlockCipher.newInstance(
+                Objects.requireNonNull(engineSupplier.get(), "null supplied from " + engineSupplier));
+        cipher.init(true, (CipherParameters) params);
+        if (position > 0L) {
+            cipher.seekTo(position);
+        }
+        return cipher;
+    }
+
+    private void processSegments(final long length, final JinahyaSegmentUtils.Segment segment) throws IOException {
+        JinahyaSegmentUtils.processSegments(executor, length, segmentSize, segment);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Processes specified range of an input array, and stores the result to specified output array.
+     *
+     * @param in     the input array.
+     * @param inoff  the offset of the {@code in}.
+     * @param inlen  the number of bytes to process.
+     * @param out    the output array; may be the {@code in} for processing in place, with the same offset.
+     * @param outoff the offset of the {@code out}.
+     * @return the number of bytes stored to the {@code out}, which is always {@code inlen}.
+     * @throws IllegalArgumentException if the output range partially overlaps the input range.
+     */
+    public int processBytes(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+        Objects.requireNonNull(in, "in is null");
+        if (inoff < 0) {
+            throw new IllegalArgumentException("inoff(" + inoff + ") is negative");
+        }
+        if (inlen < 0) {
+            throw new IllegalArgumentException("inlen(" + inlen + ") is negative");
+        }
+        if (inoff + inlen > in.length) {
+            throw new IllegalArgumentException(
+                    "inoff(" + inoff + ") + inlen(" + inlen + ") > in.length(" + in.length + ")");
+        }
+        Objects.requireNonNull(out, "out is null");
+        if (outoff < 0) {
+            throw new IllegalArgumentException("outoff(" + outoff + ") is negative");
+        }
+        if (outoff + inlen > out.length) {
+            throw new OutputLengthException("output buffer too short");
+        }
+        if (in == out && inoff != outoff && inoff < outoff + inlen && outoff < inoff + inlen) {
+            throw new IllegalArgumentException(
+                    "outoff(" + outoff + ") != inoff(" + inoff + ") for overlapping ranges of length " + inlen);
+        }
+        try {
+            processSegments(inlen, (i, p, l) -> {
+                newCipher(p).processBytes(in, inoff + (int) p, l, out, outoff + (int) p);
+            });
+        } catch (final IOException ioe) {
+            throw new AssertionError("unexpected", ioe);
+        }
+        return inlen;
+    }
+
+    /**
+     * Processes all remaining bytes of specified input buffer, and puts the result to specified output buffer. The
+     * {@code output} may share the content of the {@code input} for processing in place, as long as both start at the
+     * same address; partially overlapping buffers are rejected when both are backed by arrays, and are not supported
+     * otherwise.
+     *
+     * @param input  the input buffer.
+     * @param output the output buffer.
+     * @return the number of bytes put on the {@code output}.
+     */
+    public int processBytes(final ByteBuffer input, final ByteBuffer output) {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        final var length = input.remaining();
+        if (output.remaining() < length) {
+            throw new OutputLengthException("output buffer too short");
+        }
+        if (input.hasArray() && output.hasArray()) {
+            processBytes(input.array(), input.arrayOffset() + input.position(), length,
+                         output.array(), output.arrayOffset() + output.position());
+        } else {
+            final var inpos = input.position();
+            final var outpos = output.position();
+            try {
+                processSegments(length, (i, p, l) -> {
+                    final var cipher = newCipher(p);
+                    final var src = input.duplicate().position(inpos + (int) p);
+                    final var dst = output.duplicate().position(outpos + (int) p);
+                    final var window = new byte[Math.min(l, STAGING_WINDOW_SIZE)];
+                    for (int r = l; r > 0; ) {
+                        final var n = Math.min(r, window.length);
+                        src.get(window, 0, n);
+                        cipher.processBytes(window, 0, n, window, 0);
+                        dst.put(window, 0, n);
+                        r -= n;
+                    }
+                });
+            } catch (final IOException ioe) {
+                throw new AssertionError("unexpected", ioe);
+            }
+        }
+        input.position(input.position() + length);
+        if (output != input) {
+            output.position(output.position() + length);
+        }
+        return length;
+    }
+
+    /**
+     * Processes all bytes from specified input stream, and writes the result to specified output stream. The
+     * {@code in} is read in batches of {@code inbuf.length} bytes, each of which is processed, in place, in parallel.
+     *
+     * @param in    the input stream.
+     * @param out   the output stream.
+     * @param inbuf a buffer for each batch; a multiple of the segment size is recommended.
+     * @return the number of bytes written to the {@code out}.
+     * @throws IOException if an I/O error occurs.
+     */
+    public long processAllBytes(final InputStream in, final OutputStream out, final byte[] inbuf)
+            throws IOException {
+        Objects.requireNonNull(in, "in is null");
+        Objects.requireNonNull(out, "out is null");
+        Objects.requireNonNull(inbuf, "inbuf is null");
+        if (inbuf.length == 0) {
+            throw new IllegalArgumentException("inbuf.length is zero");
+        }
+        long position = 0L;
+        for (int r; (r = in.readNBytes(inbuf, 0, inbuf.length)) > 0; position += r) {
+            final var base = position;
+            processSegments(r, (i, p, l) -> {
+                newCipher(base + p).processBytes(inbuf, (int) p, l, inbuf, (int) p);
+            });
+            out.write(inbuf, 0, r);
+        }
+        return position;
+    }
+
+    /**
+     * Processes all bytes of specified input channel, from its current position, and writes the result to specified
+     * output channel, from its current position. Segments are read and written with positional reads and writes, and
+     * positions of both channels are advanced at the end.
+     *
+     * @param input  the input channel.
+     * @param output the output channel.
+     * @return the number of bytes written to the {@code output}.
+     * @throws IOException if an I/O error occurs.
+     */
+    public long processAllBytes(final FileChannel input, final FileChannel output) throws IOException {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        final var inpos = input.position();
+        final var outpos = output.position();
+        final var length = Math.max(input.size() - inpos, 0L);
+        processSegments(length, (i, p, l) -> {
+            final var buffer = ByteBuffer.allocate(l);
+            while (buffer.hasRemaining()) {
+                if (input.read(buffer, inpos + p + buffer.position()) == -1) {
+                    throw new IOException("unexpected end of channel at " + (inpos + p + buffer.position()));
+                }
+            }
+            newCipher(p).processBytes(buffer.array(), 0, l, buffer.array(), 0);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                output.write(buffer, outpos + p + buffer.position());
+            }
+        });
+        input.position(inpos + length);
+        output.position(outpos + length);
+        return length;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public byte[] encrypt(final byte[] in) {
+        Objects.requireNonNull(in, "in is null");
+        final var out = new byte[in.length];
+        processBytes(in, 0, in.length, out, 0);
+        return out;
+    }
+
+    @Override
+    public int encrypt(final ByteBuffer input, final ByteBuffer output) {
+        return processBytes(input, output);
+    }
+
+    /**
+     * Encrypts all bytes of specified input channel, and writes encrypted bytes to specified output channel.
+     *
+     * @param input  the input channel.
+     * @param output the output channel.
+     * @return the number of bytes written to the {@code output}.
+     * @throws IOException if an I/O error occurs.
+     * @see #processAllBytes(FileChannel, FileChannel)
+     */
+    @Override
+    public long encrypt(final FileChannel input, final FileChannel output) throws IOException {
+        return processAllBytes(input, output);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public byte[] decrypt(final byte[] in) {
+        return encrypt(in);
+    }
+
+    @Override
+    public int decrypt(final ByteBuffer input, final ByteBuffer output) {
+        return processBytes(input, output);
+    }
+
+    /**
+     * Decrypts all bytes of specified input channel, and writes decrypted bytes to specified output channel.
+     *
+     * @param input  the input channel.
+     * @param output the output channel.
+     * @return the number of bytes written to the {@code output}.
+     * @throws IOException if an I/O error occurs.
+     * @see #processAllBytes(FileChannel, FileChannel)
+     */
+    @Override
+    public long decrypt(final FileChannel input, final FileChannel output) throws IOException {
+        return processAllBytes(input, output);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public long encrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
+        return processAllBytes(in, out, inbuf);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public long decrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
+        return processAllBytes(in, out, inbuf);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final Supplier<? extends BlockCipher> engineSupplier;
+
+    private final ParametersWithIV params;
+
+    private final Executor executor;
+
+    private final int segmentSize;
+}
@@ -0,0 +1,394 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoException;
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.CBCModeCipher;
+import org.bouncycastle.crypto.modes.CTRModeCipher;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.paddings.BlockCipherPadding;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A read-only, seekable channel which decrypts CTR or CBC ciphertext of an underlying file channel on demand.
+ * <p>
+ * The ciphertext, from the position of the underlying channel at the time of creation to its end, is read, and
+ * decrypted, in block-aligned chunks, and the most recently used chunks are cached. Since a chunk is decrypted
+ * independently of any preceding chunk, by seeking the counter of the CTR mode, or by taking the preceding ciphertext
+ * block as the iv of the CBC mode, the cost of reading a range depends only on the length of the range.
+ * <p>
+ * Closing this channel closes the underlying channel. Instances of this class are safe for use by multiple threads.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see JinahyaParallelCTRCrypto
+ * @see JinahyaParallelCBCCrypto
+ */
+public abstract class JinahyaSeekableDecryptingChannel
+        implements SeekableByteChannel {
+
+    /**
+     * The default size of chunks, in bytes.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 65536;
+
+    /**
+     * The default number of cached chunks.
+     */
+    public static final int DEFAULT_CACHE_CAPACITY = 4;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    private static final class CTR
+            extends JinahyaSeekableDecryptingChannel {
+
+        private CTR(final FileChannel channel, final BlockCipher engine, final ParametersWithIV params,
+                    final int chunkSize, final int cacheCapacity)
+                throws IOException {
+            super(channel, engine.getBlockSize(), chunkSize, cacheCapacity);
+            cipher = SICBlockCipher.newInstance(engine);
+            cipher.init(false, params);
+            size = ciphertextSize;
+        }
+
+        @Override
+        void decrypt(final long offset, final byte[] in, final int len, final byte[] out) {
+            cipher.seekTo(offset);
+            cipher.processBytes(in, 0, len, out, 0);
+        }
+
+        private final CTRModeCipher cipher;
+    }
+
+    private static final class CBC
+            extends JinahyaSeekableDecryptingChannel {
+
+        private CBC(final FileChannel channel, final BlockCipher engine, final BlockCipherPadding padding,
+                    final ParametersWithIV params, final int chunkSize, final int cacheCapacity)
+                throws IOException {
+            super(channel, engine.getBlockSize(), chunkSize, cacheCapacity);
+            if (ciphertextSize % blockSize != 0 || (padding != null && ciphertextSize == 0L)) {
+                throw new DataLengthException("last block incomplete in decryption");
+            }
+            cipher = CBCBlockCipher.newInstance(engine);
+            cipher.init(false, params);
+            iv = params.getIV().clone();
+            if (padding == null || ciphertextSize == 0L) {
+                size = ciphertextSize;
+                return;
+            }
+            final var last = (ciphertextSize - 1L) / chunkSize;
+            final var chunk = chunk(last);
+            final var end = (int) (ciphertextSize - last * chunkSize);
+            try {
+                size = ciphertextSize - padding.padCount(Arrays.copyOfRange(chunk, end - blockSize, end));
+            } catch (final InvalidCipherTextException icte) {
+                throw JinahyaCryptoException.ofDecryptionFailure(icte);
+            }
+        }
+
+        @Override
+        void decrypt(final long offset, final byte[] in, final int len, final byte[] out) throws IOException {
+            final byte[] civ;
+            if (offset == 0L) {
+                civ = iv;
+            } else {
+                civ = new byte[blockSize];
+                readFully(ByteBuffer.wrap(civ), offset - blockSize);
+            }
+            cipher.init(false, new ParametersWithIV(null, civ)); // re-uses the key schedule
+            for (int k = 0; k < len; k += blockSize) {
+                cipher.processBlock(in, k, out, k);
+            }
+        }
+
+        private final CBCModeCipher cipher;
+
+        private final byte[] iv;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new channel which decrypts CTR ciphertext of specified channel, from its current position, with the
+     * {@link #DEFAULT_CHUNK_SIZE} and the {@link #DEFAULT_CACHE_CAPACITY}.
+     *
+     * @param channel the channel from which ciphertext is read.
+     * @param engine  the block cipher engine.
+     * @param params  the cipher parameters; the key with the initial counter block.
+     * @return a new channel.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static JinahyaSeekableDecryptingChannel ofCTR(final FileChannel channel, final BlockCipher engine,
+                                                         final ParametersWithIV params)
+            throws IOException {
+        return ofCTR(channel, engine, params, DEFAULT_CHUNK_SIZE, DEFAULT_CACHE_CAPACITY);
+    }
+
+    /**
+     * Creates a new channel which decrypts CTR ciphertext of specified channel, from its current position.
+     *
+     * @param channel       the channel from which ciphertext is read.
+     * @param engine        the block cipher engine.
+     * @param params        the cipher parameters; the key with the initial counter block.
+     * @param chunkSize     the size of chunks; must be a positive multiple of the engine's block size.
+     * @param cacheCapacity the number of cached chunks; must be positive.
+     * @return a new channel.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static JinahyaSeekableDecryptingChannel ofCTR(final FileChannel channel, final BlockCipher engine,
+                                                         final ParametersWithIV params, final int chunkSize,
+                                                         final int cacheCapacity)
+            throws IOException {
+        Objects.requireNonNull(engine, "engine is null");
+        Objects.requireNonNull(params, "params is null");
+        return new CTR(channel, engine, params, chunkSize, cacheCapacity);
+    }
+
+    /**
+     * Creates a new channel which decrypts CBC ciphertext of specified channel, from its current position, with the
+     * {@link #DEFAULT_CHUNK_SIZE} and the {@link #DEFAULT_CACHE_CAPACITY}.
+     *
+     * @param channel the channel from which ciphertext is read.
+     * @param engine  the block cipher engine.
+     * @param padding the padding of the ciphertext; {@code null} for no padding.
+     * @param params  the cipher parameters; the key with the iv.
+     * @return a new channel.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static JinahyaSeekableDecryptingChannel ofCBC(final FileChannel channel, final BlockCipher engine,
+                                                         final BlockCipherPadding padding,
+                                                         final ParametersWithIV params)
+            throws IOException {
+        return ofCBC(channel, engine, padding, params, DEFAULT_CHUNK_SIZE, DEFAULT_CACHE_CAPACITY);
+    }
+
+    /**
+     * Creates a new channel which decrypts CBC ciphertext of specified channel, from its current position.
+     *
+     * @param channel       the channel from which ciphertext is read.
+     * @param engine        the block cipher engine.
+     * @param padding       the padding of the ciphertext; {@code null} for no padding.
+     * @param params        the cipher parameters; the key with the iv.
+     * @param chunkSize     the size of chunks; must be a positive multiple of the engine's block size.
+     * @param cacheCapacity the number of cached chunks; must be positive.
+     * @return a new channel.
+     * @throws IOException         if an I/O error occurs.
+     * @throws DataLengthException if the length of the ciphertext is not a multiple of the block size.
+     */
+    public static JinahyaSeekableDecryptingChannel ofCBC(final FileChannel channel, final BlockCipher engine,
+                                                         final BlockCipherPadding padding,
+                                                         final ParametersWithIV params, final int chunkSize,
+                                                         final int cacheCapacity)
+            throws IOException {
+        Objects.requireNonNull(engine, "engine is null");
+        Objects.requireNonNull(params, "params is null");
+        return new CBC(channel, engine, padding, params, chunkSize, cacheCapacity);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private JinahyaSeekableDecryptingChannel(final FileChannel channel, final int blockSize, final int chunkSize,
+                                             final int cacheCapacity)
+            throws IOException {
+        super();
+        this.channel = Objects.requireNonNull(channel, "channel is null");
+        if (chunkSize <= 0 || chunkSize % blockSize != 0) {
+            throw new IllegalArgumentException(
+                    "chunkSize(" + chunkSize + ") is not a positive multiple of " + blockSize);
+        }
+        if (cacheCapacity <= 0) {
+            throw new IllegalArgumentException("cacheCapacity(" + cacheCapacity + ") is not positive");
+        }
+        this.blockSize = blockSize;
+        this.chunkSize = chunkSize;
+        origin = channel.position();
+        ciphertextSize = channel.size() - origin;
+        inbuf = new byte[chunkSize];
+        cache = new LinkedHashMap<>(16, .75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, byte[]> eldest) {
+                if (size() > cacheCapacity) {
+                    Arrays.fill(eldest.getValue(), (byte) 0);
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public synchronized int read(final ByteBuffer dst) throws IOException {
+        ensureOpen();
+        Objects.requireNonNull(dst, "dst is null");
+        if (position >= size) {
+            return -1;
+        }
+        var bytes = 0;
+        while (dst.hasRemaining() && position < size) {
+            final var index = position / chunkSize;
+            final var chunk = chunk(index);
+            final var start = index * chunkSize;
+            final var offset = (int) (position - start);
+            final var length = (int) Math.min(Math.min(start + chunk.length, size) - position, dst.remaining());
+            dst.put(chunk, offset, length);
+            position += length;
+            bytes += length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Throws a {@link NonWritableChannelException}.
+     *
+     * @param src the buffer.
+     * @return never returns.
+     */
+    @Override
+    public int write(final ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public synchronized long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public synchronized SeekableByteChannel position(final long newPosition) throws IOException {
+        if (newPosition < 0L) {
+            throw new IllegalArgumentException("newPosition(" + newPosition + ") is negative");
+        }
+        ensureOpen();
+        position = newPosition;
+        return this;
+    }
+
+    /**
+     * Returns the size of the plaintext.
+     *
+     * @return the size of the plaintext.
+     * @throws IOException if this channel is closed.
+     */
+    @Override
+    public synchronized long size() throws IOException {
+        ensureOpen();
+        return size;
+    }
+
+    /**
+     * Throws a {@link NonWritableChannelException}.
+     *
+     * @param size the size.
+     * @return never returns.
+     */
+    @Override
+    public SeekableByteChannel truncate(final long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        cache.values().forEach(v -> Arrays.fill(v, (byte) 0));
+        cache.clear();
+        channel.close();
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private void ensureOpen() throws ClosedChannelException {
+        if (!channel.isOpen()) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    /**
+     * Reads, from the underlying channel, as many bytes as remaining in specified buffer, from specified offset of
+     * the ciphertext.
+     *
+     * @param dst    the buffer.
+     * @param offset the offset of the ciphertext.
+     * @throws IOException if an I/O error occurs.
+     */
+    void readFully(final ByteBuffer dst, final long offset) throws IOException {
+        for (var p = origin + offset; dst.hasRemaining(); ) {
+            final var r = channel.read(dst, p);
+            if (r == -1) {
+                throw new EOFException("unexpected end of ciphertext at " + p);
+            }
+            p += r;
+        }
+    }
+
+    /**
+     * Returns the decrypted chunk of specified index, decrypting, and caching, it when absent.
+     *
+     * @param index the index of the chunk.
+     * @return the decrypted chunk.
+     * @throws IOException if an I/O error occurs.
+     */
+    byte[] chunk(final long index) throws IOException {
+        final var cached = cache.get(index);
+        if (cached != null) {
+            return cached;
+        }
+        final var offset = index * chunkSize;
+        final var length = (int) Math.min(chunkSize, ciphertextSize - offset);
+        readFully(ByteBuffer.wrap(inbuf, 0, length), offset);
+        final var chunk = new byte[length];
+        decrypt(offset, inbuf, length, chunk);
+        cache.put(index, chunk);
+        return chunk;
+    }
+
+    /**
+     * Decrypts specified ciphertext of a chunk.
+     *
+     * @param offset the offset of the chunk in the ciphertext.
+     * @param in     the ciphertext of the chunk.
+     * @param len    the length of the ciphertext.
+     * @param out    an array to which the plaintext is stored.
+     * @throws IOException if an I/O error occurs.
+     */
+    abstract void decrypt(long offset, byte[] in, int len, byte[] out) throws IOException;
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final FileChannel channel;
+
+    final int blockSize;
+
+    final int chunkSize;
+
+    private final long origin;
+
+    final long ciphertextSize;
+
+    private final byte[] inbuf;
+
+    private final Map<Long, byte[]> cache;
+
+    /**
+     * The size of the plaintext.
+     */
+    long size;
+
+    private long position;
+}
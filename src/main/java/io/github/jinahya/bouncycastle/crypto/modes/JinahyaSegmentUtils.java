@@ -0,0 +1,89 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * A utility class for processing segments of inputs in parallel.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ */
+final class JinahyaSegmentUtils {
+
+    /**
+     * An operation on a segment.
+     */
+    @FunctionalInterface
+    interface Segment {
+
+        /**
+         * Processes a segment.
+         *
+         * @param index    the index of the segment.
+         * @param position the position of the segment.
+         * @param length   the length of the segment.
+         * @throws IOException if an I/O error occurs.
+         */
+        void process(long index, long position, int length) throws IOException;
+    }
+
+    /**
+     * Processes all segments of specified total length, on specified executor, and waits for all of them to be done.
+     * A total length not greater than the segment size is processed, as a single segment, on the calling thread.
+     *
+     * @param executor    the executor.
+     * @param length      the total length of segments.
+     * @param segmentSize the size of each segment; the last segment may be shorter.
+     * @param segment     the operation for each segment.
+     * @throws IOException if an I/O error occurs.
+     */
+    static void processSegments(final Executor executor, final long length, final int segmentSize,
+                                final Segment segment)
+            throws IOException {
+        Objects.requireNonNull(executor, "executor is null");
+        Objects.requireNonNull(segment, "segment is null");
+        if (length <= segmentSize) {
+            segment.process(0L, 0L, (int) length);
+            return;
+        }
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (long i = 0L, p = 0L; p < length; i++, p += segmentSize) {
+            final var index = i;
+            final var position = p;
+            final var l = (int) Math.min(segmentSize, length - p);
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    segment.process(index, position, l);
+                } catch (final IOException ioe) {
+                    throw new UncheckedIOException(ioe);
+                }
+            }, executor));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (final CompletionException ce) {
+            final var cause = ce.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw ce;
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private JinahyaSegmentUtils() {
+        throw new AssertionError("instantiation is not allowed");
+    }
+}
@@ -0,0 +1,550 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import io.github.jinahya.bouncycastle.crypto.JinahyaBufferPool;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCrypto;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoException;
+import io.github.jinahya.bouncycastle.crypto.params.JinahyaNonceGenerator;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.generators.HKDFBytesGenerator;
+import org.bouncycastle.crypto.modes.AEADCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.HKDFParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * A thread-safe crypto for a segmented AEAD format, in the manner of the STREAM construction, whose segments are
+ * independently authenticated and processed in parallel.
+ * <p>
+ * An encrypted message is a header, of a random salt and a random nonce prefix, followed by encrypted segments. Each
+ * message is encrypted with its own subkey, derived, with HKDF-SHA256, from the key and the salt, as Tink's streaming
+ * AEADs do; hence, the nonce prefix needs to be unique only within a message, and the number of messages is not
+ * bounded by collisions of nonce prefixes. Each segment is encrypted, with its own tag, under a nonce of the prefix,
+ * the four-byte big-endian index of the segment, and a one-byte flag which is {@code 1} only for the last segment.
+ * Every segment but the last holds exactly {@code segmentSize} plain bytes, and the last segment, which always exists,
+ * holds less than {@code segmentSize} (possibly zero) plain bytes. Hence, reordered, truncated, or extended messages
+ * fail to decrypt, and a corrupt segment is detected as soon as it is read. Decrypting a stream never holds more than a
+ * batch of segments in memory, and buffers not backed by accessible arrays are streamed, segment by segment, through
+ * staging windows of at most {@value JinahyaAEADCipherUtils#STAGING_WINDOW_SIZE} bytes.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ * @see <a href="https://eprint.iacr.org/2015/189">Online Authenticated-Encryption and its Nonce-Reuse
+ * Misuse-Resistance</a>
+ * @see <a href="https://developers.google.com/tink/streaming-aead/aes_gcm_hkdf_streaming">AES-GCM-HKDF Streaming</a>
+ */
+public class JinahyaSegmentedAEADCrypto
+        implements JinahyaCrypto {
+
+    /**
+     * The default number of plain bytes in each segment.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 65536;
+
+    /**
+     * The number of nonce bytes following the nonce prefix; four for the segment index, and one for the last flag.
+     */
+    private static final int NONCE_SUFFIX_LENGTH = 5;
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance with a {@code 12}-byte nonce, a {@code 128}-bit tag, and the
+     * {@link #DEFAULT_SEGMENT_SIZE}, which runs on the {@link ForkJoinPool#commonPool() common pool}.
+     *
+     * @param cipherSupplier a supplier for new ciphers.
+     * @param key            the key.
+     */
+    public JinahyaSegmentedAEADCrypto(final Supplier<? extends AEADCipher> cipherSupplier, final KeyParameter key) {
+        this(cipherSupplier, key, 128, 12, DEFAULT_SEGMENT_SIZE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new instance with specified arguments.
+     *
+     * @param cipherSupplier a supplier for new ciphers.
+     * @param key            the key; the length of the random salt, and of each derived subkey, is the length of the
+     *                       key.
+     * @param macSize        the size of each tag, in bits.
+     * @param nonceLength    the length of each nonce, in bytes, which the cipher accepts; the length of the random
+     *                       nonce prefix is {@code nonceLength - 5}.
+     * @param segmentSize    the number of plain bytes in each segment.
+     * @param executor       an executor on which segments are processed.
+     */
+    public JinahyaSegmentedAEADCrypto(final Supplier<? extends AEADCipher> cipherSupplier, final KeyParameter key,
+                                      final int macSize, final int nonceLength, final int segmentSize,
+                                      final Executor executor) {
+        super();
+        this.cipherSupplier = Objects.requireNonNull(cipherSupplier, "cipherSupplier is null");
+        this.key = Objects.requireNonNull(key, "key is null");
+        if (macSize <= 0 || (macSize & 7) != 0) {
+            throw new IllegalArgumentException("macSize(" + macSize + ") is not a positive multiple of 8");
+        }
+        this.macSize = macSize;
+        if (nonceLength <= NONCE_SUFFIX_LENGTH) {
+            throw new IllegalArgumentException("nonceLength(" + nonceLength + ") <= " + NONCE_SUFFIX_LENGTH);
+        }
+        this.nonceLength = nonceLength;
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("segmentSize(" + segmentSize + ") is not positive");
+        }
+        this.segmentSize = segmentSize;
+        this.executor = Objects.requireNonNull(executor, "executor is null");
+        tagLength = macSize >> 3;
+        saltLength = key.getKeyLength();
+        prefixLength = nonceLength - NONCE_SUFFIX_LENGTH;
+        headerLength = saltLength + prefixLength;
+        headers = JinahyaNonceGenerator.ofRandom(headerLength);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the length of the header, of the salt and the nonce prefix, of each encrypted message.
+     *
+     * @return the length of the header.
+     */
+    public int getHeaderLength() {
+        return headerLength;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the length of the message encrypted from specified number of plain bytes.
+     *
+     * @param length the number of plain bytes.
+     * @return the length of the encrypted message.
+     */
+    public long getEncryptedSize(final long length) {
+        if (length < 0L) {
+            throw new IllegalArgumentException("length(" + length + ") is negative");
+        }
+        return headerLength + length + (length / segmentSize + 1) * tagLength;
+    }
+
+    /**
+     * Returns the number of plain bytes decrypted from an encrypted message of specified length.
+     *
+     * @param length the length of the encrypted message.
+     * @return the number of plain bytes.
+     * @throws JinahyaCryptoException if {@code length} is not a valid length of an encrypted message.
+     */
+    public long getDecryptedSize(final long length) {
+        if (length < 0L) {
+            throw new IllegalArgumentException("length(" + length + ") is negative");
+        }
+        final var body = length - headerLength;
+        final var chunk = segmentSize + tagLength;
+        if (body < tagLength || body % chunk < tagLength) {
+            throw JinahyaCryptoException.ofDecryptionFailure(
+                    new InvalidCipherTextException("invalid length of an encrypted message: " + length));
+        }
+        return body / chunk * segmentSize + body % chunk - tagLength;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    /**
+     * Derives the subkey of a message from specified header.
+     *
+     * @param header the header of the message.
+     * @return the subkey of the message, which should be wiped once the message is processed.
+     */
+    private KeyParameter subkey(final byte[] header) {
+        final var hkdf = new HKDFBytesGenerator(SHA256Digest.newInstance());
+        hkdf.init(new HKDFParameters(key.getKey(), Arrays.copyOf(header, saltLength), null));
+        final var subkey = new byte[saltLength];
+        hkdf.generateBytes(subkey, 0, subkey.length);
+        final var parameter = new KeyParameter(subkey);
+        Arrays.fill(subkey, (byte) 0);
+        return parameter;
+    }
+
+    private static void wipe(final KeyParameter subkey) {
+        Arrays.fill(subkey.getKey(), (byte) 0);
+    }
+
+    private AEADCipher newCipher(final boolean encryption, final KeyParameter subkey, final byte[] header,
+                                 final long index, final boolean last) {
+        if (index > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("too many segments");
+        }
+        final var nonce = new byte[nonceLength];
+        System.arraycopy(header, saltLength, nonce, 0, prefixLength);
+        nonce[prefixLength] = (byte) (index >> 24);
+        nonce[prefixLength + 1] = (byte) (index >> 16);
+        nonce[prefixLength + 2] = (byte) (index >> 8);
+        nonce[prefixLength + 3] = (byte) index;
+        nonce[prefixLength + 4] = (byte) (last ? 1 : 0);
+        final var cipher = Objects.requireNonNull(cipherSupplier.get(), "null supplied from " + cipherSupplier);
+        cipher.init(encryption, new AEADParameters(subkey, macSize, nonce));
+        return cipher;
+    }
+
+    /**
+     * Encrypts a segment.
+     *
+     * @return the number of bytes stored to the {@code out}.
+     */
+    private int seal(final KeyParameter subkey, final byte[] header, final long index, final boolean last,
+                     final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+        final var cipher = newCipher(true, subkey, header, index, last);
+        try {
+            final var processed = cipher.processBytes(in, inoff, inlen, out, outoff);
+            return processed + cipher.doFinal(out, outoff + processed);
+        } catch (final InvalidCipherTextException icte) {
+            throw JinahyaCryptoException.ofEncryptionFailure(icte);
+        }
+    }
+
+    /**
+     * Decrypts a segment.
+     *
+     * @return the number of bytes stored to the {@code out}.
+     */
+    private int open(final KeyParameter subkey, final byte[] header, final long index, final boolean last,
+                     final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+        final var cipher = newCipher(false, subkey, header, index, last);
+        try {
+            final var processed = cipher.processBytes(in, inoff, inlen, out, outoff);
+            return processed + cipher.doFinal(out, outoff + processed);
+        } catch (final InvalidCipherTextException icte) {
+            throw JinahyaCryptoException.ofDecryptionFailure(icte);
+        }
+    }
+
+    /**
+     * Encrypts, or decrypts, a segment of the remaining bytes of specified input buffer, through a staging window.
+     *
+     * @return the number of bytes put on the {@code out}.
+     */
+    private int stage(final boolean encryption, final KeyParameter subkey, final byte[] header, final long index,
+                      final boolean last, final ByteBuffer in, final ByteBuffer out) {
+        final var cipher = newCipher(encryption, subkey, header, index, last);
+        final var window = JinahyaBufferPool.getDefault().acquire(
+                Math.max(Math.min(in.remaining(), JinahyaAEADCipherUtils.STAGING_WINDOW_SIZE), 1));
+        try {
+            return JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, in, out, window, null);
+        } catch (final InvalidCipherTextException icte) {
+            throw encryption
+                  ? JinahyaCryptoException.ofEncryptionFailure(icte)
+                  : JinahyaCryptoException.ofDecryptionFailure(icte);
+        } finally {
+            JinahyaBufferPool.getDefault().release(window);
+        }
+    }
+
+    /**
+     * Processes specified number of segments, each of which is identified by its index, in parallel.
+     */
+    private void processSegments(final long count, final IntConsumer segment) {
+        try {
+            JinahyaSegmentUtils.processSegments(executor, count, 1, (i, p, l) -> segment.accept((int) i));
+        } catch (final IOException ioe) {
+            throw new AssertionError("unexpected", ioe);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private void encrypt(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+        final var header = headers.next();
+        System.arraycopy(header, 0, out, outoff, headerLength);
+        final var subkey = subkey(header);
+        try {
+            final var count = inlen / segmentSize + 1;
+            processSegments(count, i -> {
+                final var last = i == count - 1;
+                seal(subkey, header, i, last, in, inoff + i * segmentSize, last ? inlen % segmentSize : segmentSize,
+                     out, outoff + headerLength + i * (segmentSize + tagLength));
+            });
+        } finally {
+            wipe(subkey);
+        }
+    }
+
+    private void decrypt(final byte[] in, final int inoff, final int inlen, final byte[] out, final int outoff) {
+        final var chunk = segmentSize + tagLength;
+        final var header = Arrays.copyOfRange(in, inoff, inoff + headerLength);
+        final var subkey = subkey(header);
+        try {
+            final var body = inlen - headerLength;
+            final var count = body / chunk + 1;
+            processSegments(count, i -> {
+                final var last = i == count - 1;
+                open(subkey, header, i, last, in, inoff + headerLength + i * chunk, last ? body % chunk : chunk,
+                     out, outoff + i * segmentSize);
+            });
+        } finally {
+            wipe(subkey);
+        }
+    }
+
+    private void encrypt(final ByteBuffer input, final int inlen, final ByteBuffer output) {
+        final var inpos = input.position();
+        final var outpos = output.position();
+        final var header = headers.next();
+        output.duplicate().put(header);
+        final var subkey = subkey(header);
+        try {
+            final var count = inlen / segmentSize + 1;
+            processSegments(count, i -> {
+                final var last = i == count - 1;
+                final var src = input.duplicate().position(inpos + i * segmentSize);
+                src.limit(src.position() + (last ? inlen % segmentSize : segmentSize));
+                final var dst = output.duplicate().position(outpos + headerLength + i * (segmentSize + tagLength));
+                stage(true, subkey, header, i, last, src, dst);
+            });
+        } finally {
+            wipe(subkey);
+        }
+    }
+
+    private void decrypt(final ByteBuffer input, final int inlen, final ByteBuffer output) {
+        final var chunk = segmentSize + tagLength;
+        final var inpos = input.position();
+        final var outpos = output.position();
+        final var header = new byte[headerLength];
+        input.duplicate().get(header);
+        final var subkey = subkey(header);
+        try {
+            final var body = inlen - headerLength;
+            final var count = body / chunk + 1;
+            processSegments(count, i -> {
+                final var last = i == count - 1;
+                final var src = input.duplicate().position(inpos + headerLength + i * chunk);
+                src.limit(src.position() + (last ? body % chunk : chunk));
+                final var dst = output.duplicate().position(outpos + i * segmentSize);
+                stage(false, subkey, header, i, last, src, dst);
+            });
+        } finally {
+            wipe(subkey);
+        }
+    }
+
+    @Override
+    public byte[] encrypt(final byte[] in) {
+        Objects.requireNonNull(in, "in is null");
+        final var out = new byte[Math.toIntExact(getEncryptedSize(in.length))];
+        encrypt(in, 0, in.length, out, 0);
+        return out;
+    }
+
+    @Override
+    public int encrypt(final ByteBuffer input, final ByteBuffer output) {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        final var inlen = input.remaining();
+        final var outlen = Math.toIntExact(getEncryptedSize(inlen));
+        if (output.remaining() < outlen) {
+            throw new OutputLengthException("output buffer too short");
+        }
+        if (input.hasArray() && output.hasArray()) {
+            encrypt(input.array(), input.arrayOffset() + input.position(), inlen, output.array(),
+                    output.arrayOffset() + output.position());
+        } else {
+            encrypt(input, inlen, output);
+        }
+        input.position(input.position() + inlen);
+        output.position(output.position() + outlen);
+        return outlen;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    @Override
+    public byte[] decrypt(final byte[] in) {
+        Objects.requireNonNull(in, "in is null");
+        final var out = new byte[Math.toIntExact(getDecryptedSize(in.length))];
+        decrypt(in, 0, in.length, out, 0);
+        return out;
+    }
+
+    @Override
+    public int decrypt(final ByteBuffer input, final ByteBuffer output) {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        final var inlen = input.remaining();
+        final var outlen = Math.toIntExact(getDecryptedSize(inlen));
+        if (output.remaining() < outlen) {
+            throw new OutputLengthException("output buffer too short");
+        }
+        if (input.hasArray() && output.hasArray()) {
+            decrypt(input.array(), input.arrayOffset() + input.position(), inlen, output.array(),
+                    output.arrayOffset() + output.position());
+        } else {
+            decrypt(input, inlen, output);
+        }
+        input.position(input.position() + inlen);
+        output.position(output.position() + outlen);
+        return outlen;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The {@code inbuf} holds each batch of {@code inbuf.length / segmentSize} segments which are encrypted in
+     * parallel.
+     *
+     * @param in    {@inheritDoc}
+     * @param out   {@inheritDoc}
+     * @param inbuf {@inheritDoc}; its length must not be less than the segment size.
+     * @return {@inheritDoc}
+     * @throws IOException {@inheritDoc}
+     */
+    @Override
+    public long encrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
+        Objects.requireNonNull(in, "in is null");
+        Objects.requireNonNull(out, "out is null");
+        Objects.requireNonNull(inbuf, "inbuf is null");
+        final var batch = inbuf.length / segmentSize;
+        if (batch == 0) {
+            throw new IllegalArgumentException(
+                    "inbuf.length(" + inbuf.length + ") < segmentSize(" + segmentSize + ")");
+        }
+        final var chunk = segmentSize + tagLength;
+        final var outbuf = new byte[batch * chunk];
+        final var header = headers.next();
+        out.write(header);
+        long written = headerLength;
+        final var subkey = subkey(header);
+        try {
+            for (long index = 0L; ; ) {
+                var count = 0;
+                var lastLength = -1;
+                while (count < batch) {
+                    final var r = in.readNBytes(inbuf, count * segmentSize, segmentSize);
+                    count++;
+                    if (r < segmentSize) {
+                        lastLength = r;
+                        break;
+                    }
+                }
+                final var base = index;
+                final var c = count;
+                final var l = lastLength;
+                processSegments(c, i -> {
+                    final var last = l >= 0 && i == c - 1;
+                    seal(subkey, header, base + i, last, inbuf, i * segmentSize, last ? l : segmentSize, outbuf,
+                         i * chunk);
+                });
+                final var outlen = (c - 1) * chunk + (l >= 0 ? l + tagLength : chunk);
+                out.write(outbuf, 0, outlen);
+                written += outlen;
+                index += c;
+                if (l >= 0) {
+                    return written;
+                }
+            }
+        } finally {
+            wipe(subkey);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The {@code inbuf} holds each batch of {@code inbuf.length / (segmentSize + tagLength)} encrypted segments which
+     * are decrypted, and verified, in parallel, before written to the {@code out}.
+     *
+     * @param in    {@inheritDoc}
+     * @param out   {@inheritDoc}
+     * @param inbuf {@inheritDoc}; its length must not be less than the length of an encrypted segment.
+     * @return {@inheritDoc}
+     * @throws IOException {@inheritDoc}
+     */
+    @Override
+    public long decrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
+        Objects.requireNonNull(in, "in is null");
+        Objects.requireNonNull(out, "out is null");
+        Objects.requireNonNull(inbuf, "inbuf is null");
+        final var chunk = segmentSize + tagLength;
+        final var batch = inbuf.length / chunk;
+        if (batch == 0) {
+            throw new IllegalArgumentException(
+                    "inbuf.length(" + inbuf.length + ") < segmentSize(" + segmentSize + ") + tagLength("
+                    + tagLength + ")");
+        }
+        final var header = in.readNBytes(headerLength);
+        if (header.length < headerLength) {
+            throw JinahyaCryptoException.ofDecryptionFailure(new InvalidCipherTextException("truncated header"));
+        }
+        final var outbuf = new byte[batch * segmentSize];
+        long written = 0L;
+        final var subkey = subkey(header);
+        try {
+            for (long index = 0L; ; ) {
+                var count = 0;
+                var lastLength = -1;
+                while (count < batch) {
+                    final var r = in.readNBytes(inbuf, count * chunk, chunk);
+                    count++;
+                    if (r < chunk) {
+                        if (r < tagLength) {
+                            throw JinahyaCryptoException.ofDecryptionFailure(
+                                    new InvalidCipherTextException("truncated segment"));
+                        }
+                        lastLength = r;
+                        break;
+                    }
+                }
+                final var base = index;
+                final var c = count;
+                final var l = lastLength;
+                processSegments(c, i -> {
+                    final var last = l >= 0 && i == c - 1;
+                    open(subkey, header, base + i, last, inbuf, i * chunk, last ? l : chunk, outbuf,
+                         i * segmentSize);
+                });
+                final var outlen = (c - 1) * segmentSize + (l >= 0 ? l - tagLength : segmentSize);
+                out.write(outbuf, 0, outlen);
+                written += outlen;
+                index += c;
+                if (l >= 0) {
+                    return written;
+                }
+            }
+        } finally {
+            wipe(subkey);
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final Supplier<? extends AEADCipher> cipherSupplier;
+
+    private final KeyParameter key;
+
+    private final int macSize;
+
+    private final int nonceLength;
+
+    private final int segmentSize;
+
+    private final Executor executor;
+
+    private final int tagLength;
+
+    private final int saltLength;
+
+    private final int prefixLength;
+
+    private final int headerLength;
+
+    /**
+     * A generator of headers, each of which is a random salt followed by a random nonce prefix.
+     */
+    private final JinahyaNonceGenerator headers;
+}
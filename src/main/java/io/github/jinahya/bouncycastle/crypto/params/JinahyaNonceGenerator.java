@@ -0,0 +1,265 @@
+package io.github.jinahya.bouncycastle.crypto.params;
+
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bouncycastle.crypto.prng.SP800SecureRandomBuilder;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe generator of nonces, or ivs, which threads use without contending on a shared lock.
+ * <p>
+ * A {@link #ofCounter(int) counter} generator produces deterministic nonces, for AEAD modes which require only
+ * uniqueness, such as GCM, or CCM; a {@link #ofRandom(int) random} generator produces unpredictable ivs, for modes
+ * which require them, such as CBC.
+ * <p>
+ * Counter nonces are not meant for the raw CTR(SIC) mode, which increments its whole iv for each block; a nonce of a
+ * block length would overlap the keystream of the next nonce after the first block. Such nonces are rejected.
+ *
+ * <pre>{@code
+ * final var generator = JinahyaNonceGenerator.ofCounter(12);
+ * final var crypto = new JinahyaAEADCipherCrypto(cipher, generator.nextAEADParameters(key, 128, null));
+ * }</pre>
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ */
+public abstract class JinahyaNonceGenerator {
+
+    /**
+     * The length of the counter of a {@link #ofCounter(int) counter} generator, in bytes.
+     */
+    public static final int COUNTER_LENGTH = Long.BYTES;
+
+    /**
+     * The minimum length of the random prefix of nonces of a {@link #ofCounter(int) counter} generator, in bytes.
+     */
+    public static final int COUNTER_MIN_PREFIX_LENGTH = Integer.BYTES;
+
+    /**
+     * The number of counter values leased to a thread at once, by a {@link #ofCounter(int) counter} generator.
+     */
+    public static final int COUNTER_LEASE_SIZE = 1 << 16;
+
+    /**
+     * The maximum length of nonces of a {@link #ofCounter(int) counter} generator, which is less than the block size
+     * of 128-bit block ciphers.
+     */
+    public static final int COUNTER_MAX_NONCE_LENGTH = 15;
+
+    private static final class Counter
+            extends JinahyaNonceGenerator {
+
+        private Counter(final int nonceLength) {
+            super(nonceLength);
+            prefix = new byte[nonceLength - COUNTER_LENGTH];
+            new SecureRandom().nextBytes(prefix);
+        }
+
+        @Override
+        void generate(final byte[] nonce) {
+            final var lease = leases.get();
+            if (lease[0] == lease[1]) {
+                final var next = leased.getAndAdd(COUNTER_LEASE_SIZE);
+                if (next < 0L || next > Long.MAX_VALUE - COUNTER_LEASE_SIZE) {
+                    leased.set(Long.MIN_VALUE); // stays exhausted
+                    throw new IllegalStateException("counter exhausted");
+                }
+                lease[0] = next;
+                lease[1] = next + COUNTER_LEASE_SIZE;
+            }
+            final var counter = lease[0]++;
+            System.arraycopy(prefix, 0, nonce, 0, prefix.length);
+            for (int i = nonce.length - 1, s = 0; s < Long.SIZE; i--, s += Byte.SIZE) {
+                nonce[i] = (byte) (counter >> s);
+            }
+        }
+
+        private final byte[] prefix;
+
+        private final AtomicLong leased = new AtomicLong();
+
+        // {next, limit}
+        private final ThreadLocal<long[]> leases = ThreadLocal.withInitial(() -> new long[2]);
+    }
+
+    private static final class Random
+            extends JinahyaNonceGenerator {
+
+        private static final SecureRandom ENTROPY = new SecureRandom();
+
+        private static final int POOL_SIZE = 4096;
+
+        private static final class Pool {
+
+            private Pool() {
+                super();
+                final var nonce = new byte[Long.BYTES << 1];
+                final var id = Thread.currentThread().getId();
+                final var time = System.nanoTime();
+                for (int i = 0, s = 0; s < Long.SIZE; i++, s += Byte.SIZE) {
+                    nonce[i] = (byte) (id >> s);
+                    nonce[i + Long.BYTES] = (byte) (time >> s);
+                }
+                drbg = new SP800SecureRandomBuilder(ENTROPY, false)
+                        .buildCTR(AESEngine.newInstance(), 256, nonce, false);
+            }
+
+            private void take(final byte[] nonce) {
+                if (POOL_SIZE - position < nonce.length) {
+                    drbg.nextBytes(bytes);
+                    position = 0;
+                }
+                System.arraycopy(bytes, position, nonce, 0, nonce.length);
+                Arrays.fill(bytes, position, position + nonce.length, (byte) 0); // never handed out twice
+                position += nonce.length;
+            }
+
+            private final SecureRandom drbg;
+
+            private final byte[] bytes = new byte[POOL_SIZE];
+
+            private int position = POOL_SIZE;
+        }
+
+        private Random(final int nonceLength) {
+            super(nonceLength);
+        }
+
+        @Override
+        void generate(final byte[] nonce) {
+            if (nonce.length > POOL_SIZE) {
+                pools.get().drbg.nextBytes(nonce);
+                return;
+            }
+            pools.get().take(nonce);
+        }
+
+        private final ThreadLocal<Pool> pools = ThreadLocal.withInitial(Pool::new);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns a new generator of deterministic nonces, each of which is a random prefix, fixed for the generator,
+     * followed by a {@value #COUNTER_LENGTH}-byte big-endian counter.
+     * <p>
+     * Each thread leases {@value #COUNTER_LEASE_SIZE} counter values at once, hence the counter values are unique,
+     * though not in order, across threads. Every generator counts from zero, hence the random prefix is the only thing
+     * which keeps nonces of different generators, e.g., of different processes, or of restarts of a process, apart; it
+     * is at least {@value #COUNTER_MIN_PREFIX_LENGTH} bytes long. A single generator should be shared for a key.
+     * <p>
+     * Nonces longer than {@value #COUNTER_MAX_NONCE_LENGTH} bytes are rejected, for they would be taken as whole
+     * counter blocks by the CTR mode, which would overlap keystreams of consecutive nonces.
+     *
+     * @param nonceLength the length of nonces, between {@code COUNTER_LENGTH + COUNTER_MIN_PREFIX_LENGTH} and
+     *                    {@value #COUNTER_MAX_NONCE_LENGTH}, both inclusive; {@code 12} for GCM.
+     * @return a new counter generator.
+     */
+    public static JinahyaNonceGenerator ofCounter(final int nonceLength) {
+        if (nonceLength < COUNTER_LENGTH + COUNTER_MIN_PREFIX_LENGTH) {
+            throw new IllegalArgumentException(
+                    "nonceLength(" + nonceLength + ") < " + (COUNTER_LENGTH + COUNTER_MIN_PREFIX_LENGTH));
+        }
+        if (nonceLength > COUNTER_MAX_NONCE_LENGTH) {
+            throw new IllegalArgumentException("nonceLength(" + nonceLength + ") > " + COUNTER_MAX_NONCE_LENGTH);
+        }
+        return new Counter(nonceLength);
+    }
+
+    /**
+     * Returns a new generator of random nonces, each of which is taken from a block of bytes generated, at once, by a
+     * CTR-DRBG, of AES-256, of the current thread.
+     *
+     * @param nonceLength the length of nonces; {@code 16} for CBC of 128-bit blocks.
+     * @return a new random generator.
+     */
+    public static JinahyaNonceGenerator ofRandom(final int nonceLength) {
+        if (nonceLength <= 0) {
+            throw new IllegalArgumentException("nonceLength(" + nonceLength + ") is not positive");
+        }
+        return new Random(nonceLength);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private JinahyaNonceGenerator(final int nonceLength) {
+        super();
+        this.nonceLength = nonceLength;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the length of nonces of this generator.
+     *
+     * @return the length of nonces, in bytes.
+     */
+    public int getNonceLength() {
+        return nonceLength;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Fills specified array with a new nonce.
+     *
+     * @param nonce the array whose length is equal to the {@link #getNonceLength() nonce length}.
+     */
+    abstract void generate(byte[] nonce);
+
+    /**
+     * Fills specified array with a new nonce.
+     *
+     * @param nonce the array to fill; its length should be equal to the {@link #getNonceLength() nonce length}.
+     * @return given {@code nonce}.
+     */
+    public byte[] next(final byte[] nonce) {
+        if (Objects.requireNonNull(nonce, "nonce is null").length != nonceLength) {
+            throw new IllegalArgumentException("nonce.length(" + nonce.length + ") != " + nonceLength);
+        }
+        generate(nonce);
+        return nonce;
+    }
+
+    /**
+     * Returns a new array of a new nonce.
+     *
+     * @return a new array of a new nonce.
+     */
+    public byte[] next() {
+        final var nonce = new byte[nonceLength];
+        generate(nonce);
+        return nonce;
+    }
+
+    /**
+     * Returns new AEAD parameters of specified arguments, and a new nonce.
+     *
+     * @param key     the key; may be {@code null} to re-initialize a cipher with its current key.
+     * @param macSize the MAC size, in bits.
+     * @param aad     the associated text; may be {@code null}.
+     * @return new AEAD parameters.
+     */
+    public AEADParameters nextAEADParameters(final KeyParameter key, final int macSize, final byte[] aad) {
+        return new AEADParameters(key, macSize, next(), aad);
+    }
+
+    /**
+     * Returns new parameters of specified parameters, and a new iv.
+     *
+     * @param parameters the parameters, such as a {@link KeyParameter}; may be {@code null} to re-initialize a cipher
+     *                   with its current key.
+     * @return new parameters with a new iv.
+     */
+    public ParametersWithIV nextParametersWithIV(final CipherParameters parameters) {
+        return new ParametersWithIV(parameters, next());
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final int nonceLength;
+}
@@ -0,0 +1,347 @@
+package io.github.jinahya.bouncycastle.jce;
+
+import io.github.jinahya.bouncycastle.crypto.JinahyaCrypto;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoException;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoInstrumentation;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoInstrumentationUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A crypto backed by {@link Cipher JCE ciphers} of a specific transformation, e.g., {@code SEED/CBC/PKCS5Padding}.
+ * <p>
+ * Each thread uses its own pair of ciphers, one for each direction, which are created and initialized on the first
+ * use, and are kept initialized afterward; since a cipher returns to its initialized state on each
+ * {@link Cipher#doFinal() doFinal}, a subsequent operation with the same parameters does not initialize it at all.
+ * Operations with {@link #encrypt(AlgorithmParameterSpec, byte[]) per-message} parameters initialize it only when
+ * the parameters differ from the last ones. Hence, instances of this class are thread-safe, and are meant to be
+ * long-lived.
+ * <p>
+ * For authenticated transformations, e.g., {@code AES/GCM/NoPadding}, which must not encrypt twice with the same
+ * nonce, encryption is supported only with {@link #encrypt(AlgorithmParameterSpec, byte[]) per-message} parameters,
+ * and always initializes the cipher; the cipher rejects a nonce which it has just used.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ */
+public class JinahyaJceCrypto
+        implements JinahyaCrypto {
+
+    /**
+     * A cipher confined to a thread, along with the parameters with which it has been initialized.
+     */
+    private static final class Slot {
+
+        private void invalidate() {
+            initialized = false;
+            params = null;
+        }
+
+        private Cipher cipher;
+
+        private boolean initialized;
+
+        private AlgorithmParameterSpec params;
+    }
+
+    private static boolean sameParams(final AlgorithmParameterSpec p1, final AlgorithmParameterSpec p2) {
+        if (p1 == p2) {
+            return true;
+        }
+        if (p1 instanceof IvParameterSpec && p2 instanceof IvParameterSpec) {
+            return MessageDigest.isEqual(((IvParameterSpec) p1).getIV(), ((IvParameterSpec) p2).getIV());
+        }
+        if (p1 instanceof GCMParameterSpec && p2 instanceof GCMParameterSpec) {
+            return ((GCMParameterSpec) p1).getTLen() == ((GCMParameterSpec) p2).getTLen()
+                   && MessageDigest.isEqual(((GCMParameterSpec) p1).getIV(), ((GCMParameterSpec) p2).getIV());
+        }
+        return false;
+    }
+
+    /**
+     * Modes, in upper case, of authenticated transformations.
+     */
+    private static final Set<String> AUTHENTICATED_MODES = Set.of("GCM", "GCM-SIV", "CCM", "EAX", "OCB");
+
+    private static boolean authenticated(final String transformation) {
+        final var parts = transformation.toUpperCase(Locale.ROOT).split("/");
+        return parts[0].contains("POLY1305") || (parts.length > 1 && AUTHENTICATED_MODES.contains(parts[1]));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates a new instance.
+     *
+     * @param transformation the transformation, e.g., {@code ARIA/CBC/PKCS5Padding}.
+     * @param provider       the provider of ciphers; {@code null} for the most preferred provider.
+     * @param key            the key.
+     * @param params         the default parameters; {@code null} for transformations without parameters, e.g.,
+     *                       {@code ECB}. For authenticated transformations, these are used only for decryption.
+     * @throws IllegalArgumentException if the {@code transformation} is not supported by the {@code provider}.
+     */
+    public JinahyaJceCrypto(final String transformation, final Provider provider, final Key key,
+                            final AlgorithmParameterSpec params) {
+        super();
+        this.transformation = Objects.requireNonNull(transformation, "transformation is null");
+        this.provider = provider;
+        this.key = Objects.requireNonNull(key, "key is null");
+        this.params = params;
+        authenticated = authenticated(transformation);
+        newCipher(); // fails fast
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the transformation of this crypto.
+     *
+     * @return the transformation of this crypto.
+     */
+    public String getTransformation() {
+        return transformation;
+    }
+
+    /**
+     * Returns the key of this crypto.
+     *
+     * @return the key of this crypto.
+     */
+    public Key getKey() {
+        return key;
+    }
+
+    // ---------------------------------------------------------------------------------------------------------- cipher
+    private Cipher newCipher() {
+        try {
+            return provider == null
+                   ? Cipher.getInstance(transformation)
+                   : Cipher.getInstance(transformation, provider);
+        } catch (final NoSuchAlgorithmException | NoSuchPaddingException e) {
+            throw new IllegalArgumentException("unsupported transformation: " + transformation, e);
+        }
+    }
+
+    /**
+     * Returns the current thread's slot for specified direction, whose cipher is initialized with specified
+     * parameters.
+     */
+    private Slot slot(final boolean encryption, final AlgorithmParameterSpec params) {
+        final var slot = slots.get()[encryption ? 1 : 0];
+        if (slot.initialized && !(encryption && authenticated) && sameParams(slot.params, params)) {
+            return slot;
+        }
+        if (slot.cipher == null) {
+            slot.cipher = newCipher();
+        }
+        slot.invalidate();
+        final var opmode = encryption ? Cipher.ENCRYPT_MODE : Cipher.DECRYPT_MODE;
+        try {
+            if (params == null) {
+                slot.cipher.init(opmode, key);
+            } else {
+                slot.cipher.init(opmode, key, params);
+            }
+        } catch (final GeneralSecurityException gse) {
+            throw new IllegalArgumentException("failed to initialize the cipher", gse);
+        }
+        slot.initialized = true;
+        slot.params = params;
+        final var instrumentation = JinahyaCryptoInstrumentationUtils.get();
+        if (instrumentation != JinahyaCryptoInstrumentation.NOOP) {
+            instrumentation.cipherInitialized(transformation, encryption, true);
+        }
+        return slot;
+    }
+
+    /**
+     * Checks whether this crypto may encrypt with its default parameters.
+     *
+     * @throws UnsupportedOperationException if the transformation of this crypto is authenticated.
+     */
+    private void requireDefaultEncryption() {
+        if (authenticated) {
+            throw new UnsupportedOperationException(
+                    "authenticated transformation(" + transformation + ") requires per-message params to encrypt");
+        }
+    }
+
+    private static JinahyaCryptoException failure(final boolean encryption, final Throwable cause) {
+        return encryption
+               ? JinahyaCryptoException.ofEncryptionFailure(cause)
+               : JinahyaCryptoException.ofDecryptionFailure(cause);
+    }
+
+    // ---------------------------------------------------------------------------------------------------------- byte[]
+    private byte[] doFinal(final boolean encryption, final AlgorithmParameterSpec params, final byte[] in) {
+        Objects.requireNonNull(in, "in is null");
+        final var slot = slot(encryption, params);
+        var completed = false;
+        try {
+            final var out = slot.cipher.doFinal(in);
+            completed = true;
+            return out;
+        } catch (final GeneralSecurityException gse) {
+            throw failure(encryption, gse);
+        } finally {
+            if (!completed) {
+                slot.invalidate();
+            }
+        }
+    }
+
+    @Override
+    public byte[] encrypt(final byte[] in) {
+        requireDefaultEncryption();
+        return doFinal(true, params, in);
+    }
+
+    /**
+     * Encrypts specified input bytes with specified parameters, e.g., a per-message iv, instead of the default
+     * parameters.
+     *
+     * @param params the parameters; {@code null} for none.
+     * @param in     the input bytes to encrypt.
+     * @return an array of encrypted bytes.
+     * @throws IllegalArgumentException if the cipher rejects the {@code params}, e.g., a nonce just used for an
+     *                                  authenticated transformation.
+     */
+    public byte[] encrypt(final AlgorithmParameterSpec params, final byte[] in) {
+        if (authenticated && params == null) {
+            throw new IllegalArgumentException("params is null for an authenticated transformation");
+        }
+        return doFinal(true, params, in);
+    }
+
+    @Override
+    public byte[] decrypt(final byte[] in) {
+        return doFinal(false, params, in);
+    }
+
+    /**
+     * Decrypts specified input bytes with specified parameters, e.g., a per-message iv, instead of the default
+     * parameters.
+     *
+     * @param params the parameters; {@code null} for none.
+     * @param in     the input bytes to decrypt.
+     * @return an array of decrypted bytes.
+     */
+    public byte[] decrypt(final AlgorithmParameterSpec params, final byte[] in) {
+        return doFinal(false, params, in);
+    }
+
+    // ------------------------------------------------------------------------------------------------------ ByteBuffer
+    private int doFinal(final boolean encryption, final ByteBuffer input, final ByteBuffer output) {
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        final var slot = slot(encryption, params);
+        var completed = false;
+        try {
+            final var outlen = slot.cipher.doFinal(input, output);
+            completed = true;
+            return outlen;
+        } catch (final GeneralSecurityException gse) {
+            throw failure(encryption, gse);
+        } finally {
+            if (!completed) {
+                slot.invalidate();
+            }
+        }
+    }
+
+    @Override
+    public int encrypt(final ByteBuffer input, final ByteBuffer output) {
+        requireDefaultEncryption();
+        return doFinal(true, input, output);
+    }
+
+    @Override
+    public int decrypt(final ByteBuffer input, final ByteBuffer output) {
+        return doFinal(false, input, output);
+    }
+
+    // ---------------------------------------------------------------------------------------------------------- stream
+    private long doFinal(final boolean encryption, final InputStream in, final OutputStream out, final byte[] inbuf)
+            throws IOException {
+        Objects.requireNonNull(in, "in is null");
+        Objects.requireNonNull(out, "out is null");
+        if (Objects.requireNonNull(inbuf, "inbuf is null").length == 0) {
+            throw new IllegalArgumentException("inbuf.length is zero");
+        }
+        final var slot = slot(encryption, params);
+        final var cipher = slot.cipher;
+        var outbuf = new byte[cipher.getOutputSize(inbuf.length)];
+        var completed = false;
+        try {
+            var bytes = 0L;
+            int outlen;
+            for (int r; (r = in.read(inbuf)) != -1; ) {
+                final var os = cipher.getOutputSize(r);
+                if (outbuf.length < os) {
+                    Arrays.fill(outbuf, (byte) 0);
+                    outbuf = new byte[os];
+                }
+                outlen = cipher.update(inbuf, 0, r, outbuf, 0);
+                out.write(outbuf, 0, outlen);
+                bytes += outlen;
+            }
+            final var os = cipher.getOutputSize(0);
+            if (outbuf.length < os) {
+                Arrays.fill(outbuf, (byte) 0);
+                outbuf = new byte[os];
+            }
+            outlen = cipher.doFinal(outbuf, 0);
+            out.write(outbuf, 0, outlen);
+            bytes += outlen;
+            completed = true;
+            return bytes;
+        } catch (final GeneralSecurityException gse) {
+            throw failure(encryption, gse);
+        } finally {
+            Arrays.fill(outbuf, (byte) 0);
+            if (!completed) {
+                slot.invalidate();
+            }
+        }
+    }
+
+    @Override
+    public long encrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
+        requireDefaultEncryption();
+        return doFinal(true, in, out, inbuf);
+    }
+
+    @Override
+    public long decrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
+        return doFinal(false, in, out, inbuf);
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private final String transformation;
+
+    private final Provider provider;
+
+    private final Key key;
+
+    private final AlgorithmParameterSpec params;
+
+    private final boolean authenticated;
+
+    private final ThreadLocal<Slot[]> slots = ThreadLocal.withInitial(() -> new Slot[]{new Slot(), new Slot()});
+}
@@ -37,6 +37,16 @@ public final class BouncyCastleProviderUtils {
         }
     }
 
+    /**
+     * Returns the instance of the {@value #BOUNCY_CASTLE_PROVIDER_CLASS_NAME}, which may be passed directly to, e.g.,
+     * {@link javax.crypto.Cipher#getInstance(String, Provider)}, without being added to the {@link Security}.
+     *
+     * @return the instance of the {@value #BOUNCY_CASTLE_PROVIDER_CLASS_NAME}.
+     */
+    public static Provider getBouncyCastleProvider() {
+        return BOUNCY_CASTLE_PROVIDER;
+    }
+
     // ------------------------------------------------------------------------------------------------------------ name
     public static final String BOUNCY_CASTLE_PROVIDER_NAME = "BC";
 
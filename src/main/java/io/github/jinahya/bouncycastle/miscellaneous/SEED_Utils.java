@@ -1,85 +1,172 @@
 package io.github.jinahya.bouncycastle.miscellaneous;
 
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoException;
+import io.github.jinahya.bouncycastle.jce.JinahyaJceCrypto;
 import io.github.jinahya.bouncycastle.jce.provider.BouncyCastleProviderUtils;
+import org.bouncycastle.crypto.Mac;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.params.KeyParameter;
 
 import javax.crypto.BadPaddingException;
-import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
-import javax.crypto.NoSuchPaddingException;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
-import java.security.InvalidAlgorithmParameterException;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
-import java.security.NoSuchProviderException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 
+/**
+ * Utilities for the {@code SEED} algorithm.
+ * <p>
+ * Each thread retains, for each transformation, a crypto of the last key used, which is identified by a keyed hash
+ * of the key, rather than by the key itself; the key of the crypto lives until the thread uses another key for the
+ * same transformation, or {@link #clear() clears} its cryptos.
+ */
 final class SEED_Utils {
 
+    /**
+     * A crypto along with the fingerprint of its key.
+     */
+    private static final class Entry {
+
+        private Entry(final JinahyaJceCrypto crypto, final byte[] fingerprint) {
+            super();
+            this.crypto = crypto;
+            this.fingerprint = fingerprint;
+        }
+
+        private final JinahyaJceCrypto crypto;
+
+        private final byte[] fingerprint;
+    }
+
+    /**
+     * The key of fingerprints, which is random for each run.
+     */
+    private static final KeyParameter FINGERPRINT_KEY;
+
+    static {
+        final var key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        FINGERPRINT_KEY = new KeyParameter(key);
+        Arrays.fill(key, (byte) 0);
+    }
+
+    /**
+     * A mac, of the current thread, for fingerprints.
+     */
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(() -> {
+        final var mac = new HMac(SHA256Digest.newInstance());
+        mac.init(FINGERPRINT_KEY);
+        return mac;
+    });
+
+    /**
+     * Entries of the current thread, by transformations; each is replaced when a different key is used.
+     */
+    private static final ThreadLocal<Map<String, Entry>> ENTRIES = ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * Computes the fingerprint of specified key into specified array.
+     */
+    private static byte[] fingerprint(final byte[] key, final byte[] fingerprint) {
+        final var mac = MAC.get();
+        mac.update(key, 0, key.length);
+        mac.doFinal(fingerprint, 0);
+        return fingerprint;
+    }
+
     private static boolean keyBytesMatchesAny(final int keyBytes) {
         return SEED_Constants.getKeyBytesStream().anyMatch(kb -> kb == keyBytes);
     }
 
+    private static byte[] requireValidKey(final byte[] key) {
+        if (!keyBytesMatchesAny(Objects.requireNonNull(key, "key is null").length)) {
+            throw new IllegalArgumentException("invalid key.length(" + key.length + ")");
+        }
+        return key;
+    }
+
     private static byte[] requireValidIv(final byte[] iv) {
-        if (Objects.requireNonNull(iv, "iv is null").length != SEED_Constants.BLOCK_SIZE) {
+        if (Objects.requireNonNull(iv, "iv is null").length != SEED_Constants.BLOCK_BYTES) {
             throw new IllegalArgumentException("iv.length(" + iv.length + ") != " + SEED_Constants.BLOCK_BYTES);
         }
         return iv;
     }
 
-    private static byte[] doFinal(final String mode, final String padding, final byte[] key, final byte[] iv,
-                                  final int opmode, final byte[] in)
-            throws NoSuchPaddingException, NoSuchAlgorithmException, NoSuchProviderException,
-                   InvalidAlgorithmParameterException, InvalidKeyException,
-                   IllegalBlockSizeException, BadPaddingException {
-        if (!keyBytesMatchesAny(Objects.requireNonNull(key, "key is null").length)) {
-            throw new IllegalArgumentException("valid key.length(" + key.length + ")");
-        }
-        if (iv != null && iv.length != SEED_Constants.BLOCK_SIZE) {
-            throw new IllegalArgumentException("iv.length(" + iv.length + ") != " + SEED_Constants.BLOCK_BYTES);
+    private static JinahyaJceCrypto crypto(final String mode, final String padding, final byte[] key) {
+        final var transformation = SEED_Constants.ALGORITHM + '/' + mode + '/' + padding;
+        final var entries = ENTRIES.get();
+        final var entry = entries.get(transformation);
+        if (entry != null) {
+            final var fingerprint = fingerprint(key, new byte[entry.fingerprint.length]);
+            if (MessageDigest.isEqual(entry.fingerprint, fingerprint)) {
+                return entry.crypto;
+            }
         }
-        final var cipher = Cipher.getInstance(SEED_Constants.ALGORITHM + '/' + mode + '/' + padding,
-                                              BouncyCastleProviderUtils.BOUNCY_CASTLE_PROVIDER_NAME);
-        final var key_ = new SecretKeySpec(key, SEED_Constants.ALGORITHM);
+        final var created = new Entry(
+                new JinahyaJceCrypto(
+                        transformation,
+                        BouncyCastleProviderUtils.getBouncyCastleProvider(),
+                        new SecretKeySpec(key, SEED_Constants.ALGORITHM),
+                        null
+                ),
+                fingerprint(key, new byte[MAC.get().getMacSize()])
+        );
+        entries.put(transformation, created);
+        return created.crypto;
+    }
+
+    /**
+     * Removes all cryptos, along with their keys, retained by the current thread.
+     */
+    public static void clear() {
+        ENTRIES.remove();
+    }
+
+    private static byte[] doFinal(final String mode, final String padding, final byte[] key, final byte[] iv,
+                                  final boolean encryption, final byte[] in)
+            throws IllegalBlockSizeException, BadPaddingException {
+        final var crypto = crypto(mode, padding, requireValidKey(key));
         final var params = iv == null ? null : new IvParameterSpec(iv);
-        if (params != null) {
-            cipher.init(opmode, key_, params);
-        } else {
-            cipher.init(opmode, key_);
+        try {
+            return encryption ? crypto.encrypt(params, in) : crypto.decrypt(params, in);
+        } catch (final JinahyaCryptoException jce) {
+            final var cause = jce.getCause();
+            if (cause instanceof BadPaddingException) {
+                throw (BadPaddingException) cause;
+            }
+            if (cause instanceof IllegalBlockSizeException) {
+                throw (IllegalBlockSizeException) cause;
+            }
+            throw jce;
         }
-        return cipher.doFinal(in);
     }
 
     public static byte[] encrypt_CBC_PKCS5Padding(final byte[] key, final byte[] iv, final byte[] in)
-            throws NoSuchPaddingException, NoSuchAlgorithmException, NoSuchProviderException,
-                   InvalidAlgorithmParameterException, InvalidKeyException,
-                   IllegalBlockSizeException, BadPaddingException {
-        if (Objects.requireNonNull(iv, "iv is null").length != SEED_Constants.BLOCK_SIZE) {
-            throw new IllegalArgumentException("iv.length(" + iv.length + ") != " + SEED_Constants.BLOCK_BYTES);
-        }
+            throws IllegalBlockSizeException, BadPaddingException {
         return doFinal(
                 "CBC",
                 "PKCS5Padding",
                 key,
                 requireValidIv(iv),
-                Cipher.ENCRYPT_MODE,
+                true,
                 in
         );
     }
 
     public static byte[] decrypt_CBC_PKCS5Padding(final byte[] key, final byte[] iv, final byte[] in)
-            throws NoSuchPaddingException, NoSuchAlgorithmException, NoSuchProviderException,
-                   InvalidAlgorithmParameterException, InvalidKeyException,
-                   IllegalBlockSizeException, BadPaddingException {
-        if (Objects.requireNonNull(iv, "iv is null").length != SEED_Constants.BLOCK_SIZE) {
-            throw new IllegalArgumentException("iv.length(" + iv.length + ") != " + SEED_Constants.BLOCK_BYTES);
-        }
+            throws IllegalBlockSizeException, BadPaddingException {
         return doFinal(
                 "CBC",
                 "PKCS5Padding",
                 key,
                 requireValidIv(iv),
-                Cipher.DECRYPT_MODE,
+                false,
                 in
         );
     }
@@ -0,0 +1,35 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Thread-related utilities for Java 21 and later.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ */
+final class JinahyaCryptoThreads {
+
+    /**
+     * Checks whether specified thread is a virtual thread.
+     *
+     * @param thread the thread to check.
+     * @return {@code true} if {@code thread} is a virtual thread; {@code false} otherwise.
+     */
+    static boolean isVirtual(final Thread thread) {
+        return thread.isVirtual();
+    }
+
+    /**
+     * Creates a new executor for asynchronous operations.
+     *
+     * @return a new executor which starts a new virtual thread for each task.
+     */
+    static ExecutorService newExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("jinahya-crypto-", 0L).factory());
+    }
+
+    private JinahyaCryptoThreads() {
+        throw new AssertionError("instantiation is not allowed");
+    }
+}
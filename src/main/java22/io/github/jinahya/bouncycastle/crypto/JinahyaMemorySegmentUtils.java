@@ -0,0 +1,320 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.modes.AEADCipher;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A utility class for processing {@link MemorySegment memory segments}, of any kind, and of any size, with ciphers,
+ * for Java 22 and later.
+ * <p>
+ * Bytes of writable heap segments backed by {@code byte[]} are processed without being copied; bytes of other
+ * segments, e.g., native, or mapped, ones, are copied through staging windows of at most {@value #WINDOW_SIZE} bytes.
+ * The output may be the input, for processing in place.
+ *
+ * @author Jin Kwon &lt;onacit_at_gmail.com&gt;
+ */
+public final class JinahyaMemorySegmentUtils {
+
+    /**
+     * The maximum number of input bytes processed at once, in bytes.
+     */
+    public static final int WINDOW_SIZE = 65536;
+
+    /**
+     * Hooks of a cipher family.
+     */
+    private interface Cipher {
+
+        int getUpdateOutputSize(int len);
+
+        int getFinalOutputSize();
+
+        int processBytes(byte[] in, int inoff, int inlen, byte[] out, int outoff);
+
+        int doFinal(byte[] out, int outoff) throws InvalidCipherTextException;
+    }
+
+    private static byte[] array(final MemorySegment segment) {
+        return (byte[]) segment.heapBase().filter(byte[].class::isInstance).orElse(null);
+    }
+
+    private static int offset(final MemorySegment segment, final long position) {
+        return Math.toIntExact(segment.address() + position);
+    }
+
+    private static byte[] stage(final byte[] outbuf, final int length) {
+        if (outbuf != null && outbuf.length >= length) {
+            return outbuf;
+        }
+        if (outbuf != null) {
+            Arrays.fill(outbuf, (byte) 0);
+            JinahyaBufferPool.getDefault().release(outbuf);
+        }
+        return JinahyaBufferPool.getDefault().acquire(Math.max(length, 1));
+    }
+
+    private static void unstage(final byte[] outbuf, final int n, final MemorySegment output, final long outpos) {
+        if (n > output.byteSize() - outpos) {
+            throw new OutputLengthException("output segment too short");
+        }
+        MemorySegment.copy(outbuf, 0, output, ValueLayout.JAVA_BYTE, outpos, n);
+    }
+
+    private static long process(final Cipher cipher, final MemorySegment input, final MemorySegment output,
+                                final boolean finalize)
+            throws InvalidCipherTextException {
+        final var inarr = array(input);
+        final var outarr = array(output);
+        final var inbuf = inarr == null ? JinahyaBufferPool.getDefault().acquire(WINDOW_SIZE) : null;
+        byte[] outbuf = null;
+        try {
+            final var insize = input.byteSize();
+            var outpos = 0L;
+            for (long inpos = 0L; inpos < insize; ) {
+                final var inlen = (int) Math.min(insize - inpos, WINDOW_SIZE);
+                final byte[] in;
+                final int inoff;
+                if (inarr != null) {
+                    in = inarr;
+                    inoff = offset(input, inpos);
+                } else {
+                    MemorySegment.copy(input, ValueLayout.JAVA_BYTE, inpos, inbuf, 0, inlen);
+                    in = inbuf;
+                    inoff = 0;
+                }
+                inpos += inlen;
+                final var uos = cipher.getUpdateOutputSize(inlen);
+                if (outarr != null && uos <= output.byteSize() - outpos) {
+                    outpos += cipher.processBytes(in, inoff, inlen, outarr, offset(output, outpos));
+                    continue;
+                }
+                outbuf = stage(outbuf, uos);
+                final var n = cipher.processBytes(in, inoff, inlen, outbuf, 0);
+                unstage(outbuf, n, output, outpos);
+                outpos += n;
+            }
+            if (!finalize) {
+                return outpos;
+            }
+            final var fos = cipher.getFinalOutputSize();
+            if (outarr != null && fos <= output.byteSize() - outpos) {
+                return outpos + cipher.doFinal(outarr, offset(output, outpos));
+            }
+            outbuf = stage(outbuf, fos);
+            final var n = cipher.doFinal(outbuf, 0);
+            unstage(outbuf, n, output, outpos);
+            return outpos + n;
+        } finally {
+            if (inbuf != null) {
+                Arrays.fill(inbuf, (byte) 0);
+                JinahyaBufferPool.getDefault().release(inbuf);
+            }
+            if (outbuf != null) {
+                Arrays.fill(outbuf, (byte) 0);
+                JinahyaBufferPool.getDefault().release(outbuf);
+            }
+        }
+    }
+
+    // --------------------------------------------------------------------------------------------- BufferedBlockCipher
+
+    /**
+     * Processes and finalizes, using specified cipher, all bytes of specified input segment, and stores processed bytes
+     * to specified output segment, from its beginning.
+     *
+     * @param cipher the cipher.
+     * @param input  the input segment.
+     * @param output the output segment; may be the {@code input}.
+     * @return the number of bytes stored to the {@code output}.
+     * @throws InvalidCipherTextException if the padding is invalid.
+     * @throws OutputLengthException      if the {@code output} is too short.
+     */
+    public static long processBytesAndDoFinal(final BufferedBlockCipher cipher, final MemorySegment input,
+                                              final MemorySegment output)
+            throws InvalidCipherTextException {
+        Objects.requireNonNull(cipher, "cipher is null");
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        return process(new Cipher() {
+            @Override
+            public int getUpdateOutputSize(final int len) {
+                return cipher.getUpdateOutputSize(len);
+            }
+
+            @Override
+            public int getFinalOutputSize() {
+                return cipher.getOutputSize(0);
+            }
+
+            @Override
+            public int processBytes(final byte[] in, final int inoff, final int inlen, final byte[] out,
+                                    final int outoff) {
+                return cipher.processBytes(in, inoff, inlen, out, outoff);
+            }
+
+            @Override
+            public int doFinal(final byte[] out, final int outoff) throws InvalidCipherTextException {
+                return cipher.doFinal(out, outoff);
+            }
+        }, input, output, true);
+    }
+
+    /**
+     * Processes and finalizes, using specified cipher, all bytes of specified input segment, and returns processed
+     * bytes as a new segment allocated by specified arena.
+     *
+     * @param cipher the cipher.
+     * @param input  the input segment.
+     * @param arena  the arena by which the output segment is allocated.
+     * @return a new segment of processed bytes.
+     * @throws InvalidCipherTextException if the padding is invalid.
+     */
+    public static MemorySegment processBytesAndDoFinal(final BufferedBlockCipher cipher, final MemorySegment input,
+                                                       final Arena arena)
+            throws InvalidCipherTextException {
+        Objects.requireNonNull(cipher, "cipher is null");
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(arena, "arena is null");
+        final var output = arena.allocate(input.byteSize() + cipher.getOutputSize(0) + cipher.getBlockSize());
+        return output.asSlice(0L, processBytesAndDoFinal(cipher, input, output));
+    }
+
+    // ---------------------------------------------------------------------------------------------------- StreamCipher
+
+    /**
+     * Processes, using specified cipher, all bytes of specified input segment, and stores processed bytes to specified
+     * output segment, from its beginning.
+     *
+     * @param cipher the cipher.
+     * @param input  the input segment.
+     * @param output the output segment; may be the {@code input}.
+     * @return the number of bytes stored to the {@code output}.
+     * @throws OutputLengthException if the {@code output} is too short.
+     */
+    public static long processBytes(final StreamCipher cipher, final MemorySegment input,
+                                    final MemorySegment output) {
+        Objects.requireNonNull(cipher, "cipher is null");
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        try {
+            return process(new Cipher() {
+                @Override
+                public int getUpdateOutputSize(final int len) {
+                    return len;
+                }
+
+                @Override
+                public int getFinalOutputSize() {
+                    return 0;
+                }
+
+                @Override
+                public int processBytes(final byte[] in, final int inoff, final int inlen, final byte[] out,
+                                        final int outoff) {
+                    return cipher.processBytes(in, inoff, inlen, out, outoff);
+                }
+
+                @Override
+                public int doFinal(final byte[] out, final int outoff) {
+                    return 0;
+                }
+            }, input, output, false);
+        } catch (final InvalidCipherTextException icte) {
+            throw new AssertionError("never happens", icte);
+        }
+    }
+
+    /**
+     * Processes, using specified cipher, all bytes of specified input segment, and returns processed bytes as a new
+     * segment allocated by specified arena.
+     *
+     * @param cipher the cipher.
+     * @param input  the input segment.
+     * @param arena  the arena by which the output segment is allocated.
+     * @return a new segment of processed bytes.
+     */
+    public static MemorySegment processBytes(final StreamCipher cipher, final MemorySegment input, final Arena arena) {
+        Objects.requireNonNull(cipher, "cipher is null");
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(arena, "arena is null");
+        final var output = arena.allocate(input.byteSize());
+        return output.asSlice(0L, processBytes(cipher, input, output));
+    }
+
+    // ------------------------------------------------------------------------------------------------------ AEADCipher
+
+    /**
+     * Processes and finalizes, using specified cipher, all bytes of specified input segment, and stores processed bytes
+     * to specified output segment, from its beginning.
+     *
+     * @param cipher the cipher.
+     * @param input  the input segment.
+     * @param output the output segment; may be the {@code input}.
+     * @return the number of bytes stored to the {@code output}.
+     * @throws InvalidCipherTextException if the MAC does not match.
+     * @throws OutputLengthException      if the {@code output} is too short.
+     */
+    public static long processBytesAndDoFinal(final AEADCipher cipher, final MemorySegment input,
+                                              final MemorySegment output)
+            throws InvalidCipherTextException {
+        Objects.requireNonNull(cipher, "cipher is null");
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(output, "output is null");
+        return process(new Cipher() {
+            @Override
+            public int getUpdateOutputSize(final int len) {
+                return cipher.getUpdateOutputSize(len);
+            }
+
+            @Override
+            public int getFinalOutputSize() {
+                return cipher.getOutputSize(0);
+            }
+
+            @Override
+            public int processBytes(final byte[] in, final int inoff, final int inlen, final byte[] out,
+                                    final int outoff) {
+                return cipher.processBytes(in, inoff, inlen, out, outoff);
+            }
+
+            @Override
+            public int doFinal(final byte[] out, final int outoff) throws InvalidCipherTextException {
+                return cipher.doFinal(out, outoff);
+            }
+        }, input, output, true);
+    }
+
+    /**
+     * Processes and finalizes, using specified cipher, all bytes of specified input segment, and returns processed
+     * bytes as a new segment allocated by specified arena.
+     *
+     * @param cipher the cipher.
+     * @param input  the input segment.
+     * @param arena  the arena by which the output segment is allocated.
+     * @return a new segment of processed bytes.
+     * @throws InvalidCipherTextException if the MAC does not match.
+     */
+    public static MemorySegment processBytesAndDoFinal(final AEADCipher cipher, final MemorySegment input,
+                                                       final Arena arena)
+            throws InvalidCipherTextException {
+        Objects.requireNonNull(cipher, "cipher is null");
+        Objects.requireNonNull(input, "input is null");
+        Objects.requireNonNull(arena, "arena is null");
+        final var output = arena.allocate(input.byteSize() + cipher.getOutputSize(0));
+        return output.asSlice(0L, processBytesAndDoFinal(cipher, input, output));
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    private JinahyaMemorySegmentUtils() {
+        throw new AssertionError("instantiation is not allowed");
+    }
+}
@@ -0,0 +1,211 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import _javax.security._Random_TestUtils;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.engines.ChaCha7539Engine;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.paddings.PKCS7Padding;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaAsyncCryptoTest {
+
+    /**
+     * A crypto which records the maximum number of concurrent invocations of its delegate.
+     */
+    private static final class ConcurrencyRecordingCrypto
+            implements JinahyaCrypto {
+
+        private ConcurrencyRecordingCrypto(final JinahyaCrypto delegate) {
+            super();
+            this.delegate = delegate;
+        }
+
+        private <T> T record(final Supplier<T> operation) {
+            final var c = current.incrementAndGet();
+            maximum.accumulateAndGet(c, Math::max);
+            try {
+                Thread.sleep(10L);
+                return operation.get();
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(ie);
+            } finally {
+                current.decrementAndGet();
+            }
+        }
+
+        @Override
+        public byte[] encrypt(final byte[] in) {
+            return record(() -> delegate.encrypt(in));
+        }
+
+        @Override
+        public int encrypt(final ByteBuffer input, final ByteBuffer output) {
+            return record(() -> delegate.encrypt(input, output));
+        }
+
+        @Override
+        public byte[] decrypt(final byte[] in) {
+            return record(() -> delegate.decrypt(in));
+        }
+
+        @Override
+        public int decrypt(final ByteBuffer input, final ByteBuffer output) {
+            return record(() -> delegate.decrypt(input, output));
+        }
+
+        @Override
+        public long encrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
+            return delegate.encrypt(in, out, inbuf);
+        }
+
+        @Override
+        public long decrypt(final InputStream in, final OutputStream out, final byte[] inbuf) throws IOException {
+            return delegate.decrypt(in, out, inbuf);
+        }
+
+        private final JinahyaCrypto delegate;
+
+        private final AtomicInteger current = new AtomicInteger();
+
+        private final AtomicInteger maximum = new AtomicInteger();
+    }
+
+    private static JinahyaCrypto newPooledCrypto() {
+        final var params = new ParametersWithIV(new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                                                _Random_TestUtils.newRandomBytes(16));
+        return new JinahyaPooledCrypto(
+                () -> new JinahyaBufferedBlockCipherCrypto(
+                        new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()),
+                                                      new PKCS7Padding()),
+                        params),
+                4
+        );
+    }
+
+    @Test
+    void __bytes() {
+        final var crypto = newPooledCrypto();
+        final var async = new JinahyaAsyncCrypto(crypto);
+        final var futures = new ArrayList<CompletableFuture<byte[]>>();
+        final var plains = new ArrayList<byte[]>();
+        for (int i = 0; i < 64; i++) {
+            final var plain = _Random_TestUtils.newRandomBytes(i * 7);
+            plains.add(plain);
+            futures.add(async.encryptAsync(plain).thenCompose(async::decryptAsync));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            assertThat(futures.get(i).join()).isEqualTo(plains.get(i));
+        }
+        final var plain = _Random_TestUtils.newRandomBytes(100);
+        assertThat(async.encryptAsync(plain).join()).isEqualTo(crypto.encrypt(plain));
+    }
+
+    @Test
+    void __buffers() {
+        final var crypto = newPooledCrypto();
+        final var async = new JinahyaAsyncCrypto(crypto);
+        final var plain = _Random_TestUtils.newRandomBytes(100);
+        final var encrypted = ByteBuffer.allocate(128);
+        assertThat(async.encryptAsync(ByteBuffer.wrap(plain), encrypted).join()).isEqualTo(112);
+        final var decrypted = ByteBuffer.allocate(128);
+        assertThat(async.decryptAsync(encrypted.flip(), decrypted).join()).isEqualTo(plain.length);
+        assertThat(decrypted.flip()).isEqualTo(ByteBuffer.wrap(plain));
+    }
+
+    @Test
+    void __streams() {
+        final var crypto = newPooledCrypto();
+        final var async = new JinahyaAsyncCrypto(crypto);
+        final var plain = _Random_TestUtils.newRandomBytes(1000);
+        final var encrypted = new ByteArrayOutputStream();
+        async.encryptAsync(new ByteArrayInputStream(plain), encrypted, new byte[64]).join();
+        final var decrypted = new ByteArrayOutputStream();
+        async.decryptAsync(new ByteArrayInputStream(encrypted.toByteArray()), decrypted, new byte[64]).join();
+        assertThat(decrypted.toByteArray()).isEqualTo(plain);
+    }
+
+    @Test
+    void __paths(@TempDir final Path dir) throws IOException {
+        final var crypto = newPooledCrypto();
+        final var async = new JinahyaAsyncCrypto(crypto);
+        final var plain = dir.resolve("plain");
+        Files.write(plain, _Random_TestUtils.newRandomBytes(10000));
+        final var encrypted = dir.resolve("encrypted");
+        final var decrypted = dir.resolve("decrypted");
+        final var written = async.encryptAsync(plain, encrypted)
+                .thenCompose(l -> async.decryptAsync(encrypted, decrypted))
+                .join();
+        assertThat(written).isEqualTo(Files.size(plain));
+        assertThat(decrypted).hasSameBinaryContentAs(plain);
+    }
+
+    @Test
+    void __limited() {
+        final var params = new ParametersWithIV(new KeyParameter(_Random_TestUtils.newRandomBytes(32)),
+                                                _Random_TestUtils.newRandomBytes(12));
+        final var crypto = new ConcurrencyRecordingCrypto(
+                new JinahyaPooledCrypto(() -> new JinahyaStreamCipherCrypto(new ChaCha7539Engine(), params), 8));
+        final var executor = Executors.newFixedThreadPool(8);
+        try {
+            final var async = new JinahyaAsyncCrypto(crypto, executor, new Semaphore(2));
+            final var futures = new ArrayList<CompletableFuture<byte[]>>();
+            for (int i = 0; i < 32; i++) {
+                futures.add(async.encryptAsync(_Random_TestUtils.newRandomBytes(32)));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+            assertThat(crypto.maximum.get()).isBetween(1, 2);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void __failed() {
+        final var params = new ParametersWithIV(new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                                                _Random_TestUtils.newRandomBytes(16));
+        final var crypto = new JinahyaBufferedBlockCipherCrypto(
+                new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()),
+                                              new PKCS7Padding()),
+                params);
+        final var async = new JinahyaAsyncCrypto(crypto, Runnable::run, new Semaphore(1));
+        assertThatThrownBy(() -> async.decryptAsync(new byte[15]).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(DataLengthException.class);
+    }
+
+    @Test
+    void __rejected() {
+        final var executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        final var async = new JinahyaAsyncCrypto(newPooledCrypto(), executor, new Semaphore(1));
+        assertThatThrownBy(() -> async.encryptAsync(new byte[1]).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+    }
+}
@@ -0,0 +1,65 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaBufferPoolTest {
+
+    @Test
+    void sizeClass__() {
+        assertThat(JinahyaBufferPool.sizeClass(0)).isEqualTo(JinahyaBufferPool.MIN_SIZE_CLASS);
+        assertThat(JinahyaBufferPool.sizeClass(64)).isEqualTo(6);
+        assertThat(JinahyaBufferPool.sizeClass(65)).isEqualTo(7);
+        assertThat(JinahyaBufferPool.sizeClass(8192)).isEqualTo(13);
+        assertThat(JinahyaBufferPool.sizeClass(8193)).isEqualTo(14);
+    }
+
+    @Test
+    void acquire__powerOfTwo() {
+        final var pool = new JinahyaBufferPool(0L);
+        assertThat(pool.acquire(0)).hasSize(64);
+        assertThat(pool.acquire(100)).hasSize(128);
+        assertThat(pool.acquire(1 << JinahyaBufferPool.MAX_SIZE_CLASS)).hasSize(1 << JinahyaBufferPool.MAX_SIZE_CLASS);
+        assertThat(pool.acquire((1 << JinahyaBufferPool.MAX_SIZE_CLASS) + 1))
+                .hasSize((1 << JinahyaBufferPool.MAX_SIZE_CLASS) + 1);
+        assertThatThrownBy(() -> pool.acquire(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void release__wipesAndReuses() {
+        final var pool = new JinahyaBufferPool(0L);
+        final var array = pool.acquire(1000);
+        Arrays.fill(array, (byte) 1);
+        pool.release(array);
+        assertThat(array).containsOnly(0);
+        assertThat(pool.acquire(1000)).isSameAs(array);
+        final var foreign = new byte[100];
+        Arrays.fill(foreign, (byte) 1);
+        pool.release(foreign);
+        assertThat(foreign).containsOnly(0);
+        assertThat(pool.acquire(100)).isNotSameAs(foreign);
+    }
+
+    @Test
+    void release__depotIsCapped() throws Exception {
+        final var size = 1 << 16;
+        final var rounds = JinahyaBufferPool.MAGAZINE_BYTES / size;
+        final var pool = new JinahyaBufferPool((long) size * rounds);
+        final var arrays = new ArrayList<byte[]>();
+        for (int i = 0; i < rounds * 3; i++) {
+            arrays.add(pool.acquire(size));
+        }
+        arrays.forEach(pool::release);
+        assertThat(pool.getDepotBytes()).isEqualTo(pool.getCapacity());
+        // another thread takes the full magazine from the depot
+        final var taken = CompletableFuture.supplyAsync(() -> pool.acquire(size)).get();
+        assertThat(arrays).anyMatch(a -> a == taken);
+        assertThat(pool.getDepotBytes()).isZero();
+    }
+}
@@ -1,16 +1,140 @@
 package io.github.jinahya.bouncycastle.crypto;
 
+import _javax.security._Random_TestUtils;
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.paddings.PKCS7Padding;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 class JinahyaBufferedBlockCipherUtilsTest {
 
+    private static BufferedBlockCipher newCipher() {
+        return new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()), new PKCS7Padding());
+    }
+
+    private static CipherParameters newParams() {
+        return new ParametersWithIV(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                _Random_TestUtils.newRandomBytes(16)
+        );
+    }
+
+    private static byte[] expected(final boolean encryption, final CipherParameters params, final byte[] in)
+            throws Exception {
+        final var cipher = newCipher();
+        cipher.init(encryption, params);
+        final var out = new byte[cipher.getOutputSize(in.length)];
+        final var outlen = JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(cipher, in, 0, in.length, out, 0);
+        return Arrays.copyOf(out, outlen);
+    }
+
+    private static ByteBuffer buffer(final IntFunction<ByteBuffer> allocator, final byte[] bytes) {
+        return allocator.apply(bytes.length).put(bytes).flip();
+    }
+
+    private static byte[] bytes(final ByteBuffer buffer) {
+        final var bytes = new byte[buffer.flip().remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static Stream<Arguments> getAllocatorsAndLengthArgumentsStream() {
+        final IntFunction<ByteBuffer> heap = ByteBuffer::allocate;
+        final IntFunction<ByteBuffer> direct = ByteBuffer::allocateDirect;
+        return Stream.of(
+                Arguments.of(heap, direct),
+                Arguments.of(direct, heap),
+                Arguments.of(direct, direct)
+        ).flatMap(a -> IntStream.of(0, 1, 15, 16, 17, 8191, 8192, 8193, 65537)
+                .mapToObj(l -> Arguments.of(a.get()[0], a.get()[1], l)));
+    }
+
     @Nested
-    class aTest {
+    class ProcessBytesAndDoFinal_ByteBuffer_Test {
+
+        @DisplayName("processBytesAndDoFinal(cipher, input, output)")
+        @MethodSource({"io.github.jinahya.bouncycastle.crypto.JinahyaBufferedBlockCipherUtilsTest"
+                       + "#getAllocatorsAndLengthArgumentsStream"})
+        @ParameterizedTest
+        void __(final IntFunction<ByteBuffer> inputAllocator, final IntFunction<ByteBuffer> outputAllocator,
+                final int length)
+                throws Exception {
+            final var params = newParams();
+            final var plain = _Random_TestUtils.newRandomBytes(length);
+            final var cipher = newCipher();
+            // ------------------------------------------------------------------------------------------------- encrypt
+            cipher.init(true, params);
+            final var encrypted = outputAllocator.apply(cipher.getOutputSize(length));
+            {
+                final var input = buffer(inputAllocator, plain);
+                final var outlen = JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(cipher, input, encrypted);
+                assertThat(input.hasRemaining()).isFalse();
+                assertThat(outlen).isEqualTo(encrypted.position());
+            }
+            final var ciphertext = bytes(encrypted);
+            assertThat(ciphertext).isEqualTo(expected(true, params, plain));
+            // ------------------------------------------------------------------------------------------------- decrypt
+            cipher.init(false, params);
+            final var decrypted = inputAllocator.apply(cipher.getOutputSize(ciphertext.length));
+            {
+                final var input = buffer(outputAllocator, ciphertext);
+                JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(cipher, input, decrypted);
+            }
+            assertThat(bytes(decrypted)).isEqualTo(plain);
+        }
+
+        @DisplayName("processBytesAndDoFinal(cipher, input, output, inbuf, outbuf) with a tiny window")
+        @MethodSource({"io.github.jinahya.bouncycastle.crypto.JinahyaBufferedBlockCipherUtilsTest"
+                       + "#getAllocatorsAndLengthArgumentsStream"})
+        @ParameterizedTest
+        void __window(final IntFunction<ByteBuffer> inputAllocator, final IntFunction<ByteBuffer> outputAllocator,
+                      final int length)
+                throws Exception {
+            final var params = newParams();
+            final var plain = _Random_TestUtils.newRandomBytes(length);
+            final var cipher = newCipher();
+            cipher.init(true, params);
+            final var encrypted = outputAllocator.apply(cipher.getOutputSize(length));
+            JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(
+                    cipher,
+                    buffer(inputAllocator, plain),
+                    encrypted,
+                    new byte[17],
+                    new byte[1]
+            );
+            assertThat(bytes(encrypted)).isEqualTo(expected(true, params, plain));
+        }
 
+        @DisplayName("positioned heap buffers")
         @Test
-        void __() {
-//            BufferedBlockCipherUtils.processAllBytes()
+        void __positioned() throws Exception {
+            final var params = newParams();
+            final var plain = _Random_TestUtils.newRandomBytes(100);
+            final var cipher = newCipher();
+            cipher.init(true, params);
+            final var input = ByteBuffer.allocate(plain.length + 3).position(3).put(plain).position(3);
+            final var output = ByteBuffer.allocate(cipher.getOutputSize(plain.length) + 5).position(5);
+            final var outlen = JinahyaBufferedBlockCipherUtils.processBytesAndDoFinal(cipher, input, output);
+            final var encrypted = Arrays.copyOfRange(output.array(), 5, 5 + outlen);
+            assertThat(encrypted).isEqualTo(expected(true, params, plain));
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,131 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import _javax.security._Random_TestUtils;
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherCrypto;
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherFilePipeline;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.engines.ChaCha7539Engine;
+import org.bouncycastle.crypto.io.InvalidCipherTextIOException;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.paddings.PKCS7Padding;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaCipherFilePipelineTest {
+
+    private static final int BUFFER_SIZE = 100;
+
+    private static final int BUFFER_COUNT = 3;
+
+    private static Stream<Arguments> getPipelineFactoriesAndCryptosArgumentsStream() {
+        final var cbc = new ParametersWithIV(new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                                             _Random_TestUtils.newRandomBytes(16));
+        final var chacha = new ParametersWithIV(new KeyParameter(_Random_TestUtils.newRandomBytes(32)),
+                                                _Random_TestUtils.newRandomBytes(12));
+        final var gcm = new AEADParameters(new KeyParameter(_Random_TestUtils.newRandomBytes(16)), 128,
+                                           _Random_TestUtils.newRandomBytes(12));
+        return Stream.of(
+                Arguments.of(
+                        (Function<Boolean, JinahyaCipherFilePipeline>) e ->
+                                new JinahyaBufferedBlockCipherFilePipeline(
+                                        new PaddedBufferedBlockCipher(
+                                                CBCBlockCipher.newInstance(AESEngine.newInstance()),
+                                                new PKCS7Padding()),
+                                        cbc, e, BUFFER_SIZE, BUFFER_COUNT),
+                        (Supplier<JinahyaCrypto>) () -> new JinahyaBufferedBlockCipherCrypto(
+                                new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()),
+                                                              new PKCS7Padding()),
+                                cbc)
+                ),
+                Arguments.of(
+                        (Function<Boolean, JinahyaCipherFilePipeline>) e ->
+                                new JinahyaStreamCipherFilePipeline(new ChaCha7539Engine(), chacha, e, BUFFER_SIZE,
+                                                                    BUFFER_COUNT),
+                        (Supplier<JinahyaCrypto>) () -> new JinahyaStreamCipherCrypto(new ChaCha7539Engine(), chacha)
+                ),
+                Arguments.of(
+                        (Function<Boolean, JinahyaCipherFilePipeline>) e ->
+                                new JinahyaAEADCipherFilePipeline(GCMBlockCipher.newInstance(AESEngine.newInstance()),
+                                                                  gcm, e, BUFFER_SIZE, BUFFER_COUNT),
+                        (Supplier<JinahyaCrypto>) () -> new JinahyaAEADCipherCrypto(
+                                GCMBlockCipher.newInstance(AESEngine.newInstance()), gcm)
+                )
+        );
+    }
+
+    @MethodSource({"getPipelineFactoriesAndCryptosArgumentsStream"})
+    @ParameterizedTest
+    void process__(final Function<Boolean, JinahyaCipherFilePipeline> pipelineFactory,
+                   final Supplier<JinahyaCrypto> cryptoSupplier, @TempDir final Path dir)
+            throws IOException {
+        for (final var length : new int[] {0, 1, BUFFER_SIZE - 1, BUFFER_SIZE, BUFFER_SIZE * BUFFER_COUNT,
+                BUFFER_SIZE * BUFFER_COUNT * 7 + 13}) {
+            final var plain = Files.write(dir.resolve("plain" + length), _Random_TestUtils.newRandomBytes(length));
+            final var encrypted = dir.resolve("encrypted" + length);
+            final var written = pipelineFactory.apply(true).process(plain, encrypted);
+            assertThat(written).isEqualTo(Files.size(encrypted));
+            assertThat(Files.readAllBytes(encrypted))
+                    .isEqualTo(cryptoSupplier.get().encrypt(Files.readAllBytes(plain)));
+            final var decrypted = dir.resolve("decrypted" + length);
+            assertThat(pipelineFactory.apply(false).process(encrypted, decrypted)).isEqualTo(length);
+            assertThat(decrypted).hasSameBinaryContentAs(plain);
+        }
+    }
+
+    @Test
+    void process__tampered(@TempDir final Path dir) throws IOException {
+        final var gcm = new AEADParameters(new KeyParameter(_Random_TestUtils.newRandomBytes(16)), 128,
+                                           _Random_TestUtils.newRandomBytes(12));
+        final var plain = Files.write(dir.resolve("plain"), _Random_TestUtils.newRandomBytes(1000));
+        final var encrypted = dir.resolve("encrypted");
+        new JinahyaAEADCipherFilePipeline(GCMBlockCipher.newInstance(AESEngine.newInstance()), gcm, true)
+                .process(plain, encrypted);
+        final var bytes = Files.readAllBytes(encrypted);
+        bytes[500] ^= 1;
+        Files.write(encrypted, bytes);
+        final var pipeline = new JinahyaAEADCipherFilePipeline(
+                GCMBlockCipher.newInstance(AESEngine.newInstance()), gcm, false, BUFFER_SIZE, BUFFER_COUNT);
+        assertThatThrownBy(() -> pipeline.process(encrypted, dir.resolve("decrypted")))
+                .isInstanceOf(InvalidCipherTextIOException.class);
+        assertThatThrownBy(() -> pipeline.process(encrypted, dir.resolve("decrypted")))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void process__tamperedTag(@TempDir final Path dir) throws IOException {
+        final var gcm = new AEADParameters(new KeyParameter(_Random_TestUtils.newRandomBytes(16)), 128,
+                                           _Random_TestUtils.newRandomBytes(12));
+        final var plain = Files.write(dir.resolve("plain"), _Random_TestUtils.newRandomBytes(BUFFER_SIZE * 10));
+        final var encrypted = dir.resolve("encrypted");
+        new JinahyaAEADCipherFilePipeline(GCMBlockCipher.newInstance(AESEngine.newInstance()), gcm, true)
+                .process(plain, encrypted);
+        final var bytes = Files.readAllBytes(encrypted);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(encrypted, bytes);
+        final var decrypted = dir.resolve("decrypted");
+        assertThatThrownBy(() -> new JinahyaAEADCipherFilePipeline(
+                GCMBlockCipher.newInstance(AESEngine.newInstance()), gcm, false, BUFFER_SIZE, BUFFER_COUNT)
+                .process(encrypted, decrypted))
+                .isInstanceOf(InvalidCipherTextIOException.class);
+        // no unauthenticated plaintext left
+        assertThat(decrypted).isEmptyFile();
+    }
+}
@@ -0,0 +1,139 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import _javax.security._Random_TestUtils;
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherCrypto;
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherInputStream;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.engines.ChaCha7539Engine;
+import org.bouncycastle.crypto.io.InvalidCipherTextIOException;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.paddings.PKCS7Padding;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaCipherInputStreamTest {
+
+    private static final int BUFFER_SIZE = 64;
+
+    private static Stream<Arguments> getStreamFactoriesAndCryptosArgumentsStream() {
+        final var cbc = new ParametersWithIV(new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                                             _Random_TestUtils.newRandomBytes(16));
+        final var chacha = new ParametersWithIV(new KeyParameter(_Random_TestUtils.newRandomBytes(32)),
+                                                _Random_TestUtils.newRandomBytes(12));
+        final var gcm = new AEADParameters(new KeyParameter(_Random_TestUtils.newRandomBytes(16)), 128,
+                                           _Random_TestUtils.newRandomBytes(12));
+        return Stream.of(
+                Arguments.of(
+                        (BiFunction<InputStream, Boolean, InputStream>) (i, e) ->
+                                new JinahyaBufferedBlockCipherInputStream(
+                                        i,
+                                        new PaddedBufferedBlockCipher(
+                                                CBCBlockCipher.newInstance(AESEngine.newInstance()),
+                                                new PKCS7Padding()),
+                                        cbc, e, BUFFER_SIZE + 7),
+                        (Supplier<JinahyaCrypto>) () -> new JinahyaBufferedBlockCipherCrypto(
+                                new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()),
+                                                              new PKCS7Padding()),
+                                cbc)
+                ),
+                Arguments.of(
+                        (BiFunction<InputStream, Boolean, InputStream>) (i, e) ->
+                                new JinahyaStreamCipherInputStream(i, new ChaCha7539Engine(), chacha, e, BUFFER_SIZE),
+                        (Supplier<JinahyaCrypto>) () -> new JinahyaStreamCipherCrypto(new ChaCha7539Engine(), chacha)
+                ),
+                Arguments.of(
+                        (BiFunction<InputStream, Boolean, InputStream>) (i, e) ->
+                                new JinahyaAEADCipherInputStream(
+                                        i, GCMBlockCipher.newInstance(AESEngine.newInstance()), gcm, e, BUFFER_SIZE),
+                        (Supplier<JinahyaCrypto>) () -> new JinahyaAEADCipherCrypto(
+                                GCMBlockCipher.newInstance(AESEngine.newInstance()), gcm)
+                )
+        ).flatMap(a -> IntStream.of(0, 1, 16, 63, 64, 65, 1000).mapToObj(
+                l -> Arguments.of(a.get()[0], a.get()[1], l)));
+    }
+
+    private static InputStream open(final BiFunction<InputStream, Boolean, InputStream> factory, final byte[] bytes,
+                                    final boolean encryption) {
+        return factory.apply(new ByteArrayInputStream(bytes), encryption);
+    }
+
+    @MethodSource({"getStreamFactoriesAndCryptosArgumentsStream"})
+    @ParameterizedTest
+    void __(final BiFunction<InputStream, Boolean, InputStream> factory, final Supplier<JinahyaCrypto> crypto,
+            final int length) throws IOException {
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var expected = crypto.get().encrypt(plain);
+        // readAllBytes
+        try (var in = open(factory, plain, true)) {
+            assertThat(in.readAllBytes()).isEqualTo(expected);
+            assertThat(in.read()).isEqualTo(-1);
+        }
+        // read()
+        try (var in = open(factory, expected, false)) {
+            final var out = new ByteArrayOutputStream();
+            for (int b; (b = in.read()) != -1; ) {
+                out.write(b);
+            }
+            assertThat(out.toByteArray()).isEqualTo(plain);
+        }
+        // transferTo
+        try (var in = open(factory, expected, false)) {
+            final var out = new ByteArrayOutputStream();
+            assertThat(in.transferTo(out)).isEqualTo(plain.length);
+            assertThat(out.toByteArray()).isEqualTo(plain);
+        }
+        // skip, and readNBytes
+        try (var in = open(factory, expected, false)) {
+            final var skip = length / 3;
+            assertThat(in.skip(skip)).isEqualTo(skip);
+            assertThat(in.readNBytes(length)).isEqualTo(Arrays.copyOfRange(plain, skip, length));
+            assertThat(in.skip(1L)).isZero();
+        }
+    }
+
+    @Test
+    void __authenticationFailure() throws IOException {
+        final var params = new AEADParameters(new KeyParameter(_Random_TestUtils.newRandomBytes(16)), 128,
+                                              _Random_TestUtils.newRandomBytes(12));
+        final var encrypted = new JinahyaAEADCipherCrypto(GCMBlockCipher.newInstance(AESEngine.newInstance()), params)
+                .encrypt(new byte[100]);
+        encrypted[0] ^= 1;
+        try (var in = new JinahyaAEADCipherInputStream(new ByteArrayInputStream(encrypted),
+                                                       GCMBlockCipher.newInstance(AESEngine.newInstance()), params,
+                                                       false)) {
+            assertThatThrownBy(in::readAllBytes).isInstanceOf(InvalidCipherTextIOException.class);
+        }
+    }
+
+    @Test
+    void __closed() throws IOException {
+        final var params = new ParametersWithIV(new KeyParameter(_Random_TestUtils.newRandomBytes(32)),
+                                                _Random_TestUtils.newRandomBytes(12));
+        final var in = new JinahyaStreamCipherInputStream(new ByteArrayInputStream(new byte[10]),
+                                                          new ChaCha7539Engine(), params, true);
+        assertThat(in.read()).isNotNegative();
+        in.close();
+        assertThatThrownBy(in::read).isInstanceOf(IOException.class);
+        assertThatThrownBy(in::available).isInstanceOf(IOException.class);
+    }
+}
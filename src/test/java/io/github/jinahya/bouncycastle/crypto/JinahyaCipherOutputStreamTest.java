@@ -0,0 +1,117 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import _javax.security._Random_TestUtils;
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherCrypto;
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherOutputStream;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.engines.ChaCha7539Engine;
+import org.bouncycastle.crypto.io.InvalidCipherTextIOException;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.paddings.PKCS7Padding;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaCipherOutputStreamTest {
+
+    private static final int BUFFER_SIZE = 64;
+
+    private static Stream<Arguments> getStreamFactoriesAndCryptosArgumentsStream() {
+        final var cbc = new ParametersWithIV(new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                                             _Random_TestUtils.newRandomBytes(16));
+        final var chacha = new ParametersWithIV(new KeyParameter(_Random_TestUtils.newRandomBytes(32)),
+                                                _Random_TestUtils.newRandomBytes(12));
+        final var gcm = new AEADParameters(new KeyParameter(_Random_TestUtils.newRandomBytes(16)), 128,
+                                           _Random_TestUtils.newRandomBytes(12));
+        return Stream.of(
+                Arguments.of(
+                        (BiFunction<OutputStream, Boolean, OutputStream>) (o, e) ->
+                                new JinahyaBufferedBlockCipherOutputStream(
+                                        o,
+                                        new PaddedBufferedBlockCipher(
+                                                CBCBlockCipher.newInstance(AESEngine.newInstance()),
+                                                new PKCS7Padding()),
+                                        cbc, e, BUFFER_SIZE),
+                        (Supplier<JinahyaCrypto>) () -> new JinahyaBufferedBlockCipherCrypto(
+                                new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()),
+                                                              new PKCS7Padding()),
+                                cbc)
+                ),
+                Arguments.of(
+                        (BiFunction<OutputStream, Boolean, OutputStream>) (o, e) ->
+                                new JinahyaStreamCipherOutputStream(o, new ChaCha7539Engine(), chacha, e, BUFFER_SIZE),
+                        (Supplier<JinahyaCrypto>) () -> new JinahyaStreamCipherCrypto(new ChaCha7539Engine(), chacha)
+                ),
+                Arguments.of(
+                        (BiFunction<OutputStream, Boolean, OutputStream>) (o, e) ->
+                                new JinahyaAEADCipherOutputStream(
+                                        o, GCMBlockCipher.newInstance(AESEngine.newInstance()), gcm, e, BUFFER_SIZE),
+                        (Supplier<JinahyaCrypto>) () -> new JinahyaAEADCipherCrypto(
+                                GCMBlockCipher.newInstance(AESEngine.newInstance()), gcm)
+                )
+        ).flatMap(a -> IntStream.of(0, 1, 16, 63, 64, 65, 1000).mapToObj(
+                l -> Arguments.of(a.get()[0], a.get()[1], l)));
+    }
+
+    private static byte[] write(final BiFunction<OutputStream, Boolean, OutputStream> factory, final byte[] bytes,
+                                final boolean encryption, final int chunk) throws IOException {
+        final var out = new ByteArrayOutputStream();
+        try (var stream = factory.apply(out, encryption)) {
+            for (int i = 0; i < bytes.length; ) {
+                final var n = Math.min(bytes.length - i, chunk);
+                if (n == 1) {
+                    stream.write(bytes[i]);
+                } else {
+                    stream.write(bytes, i, n);
+                }
+                i += n;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @MethodSource({"getStreamFactoriesAndCryptosArgumentsStream"})
+    @ParameterizedTest
+    void __(final BiFunction<OutputStream, Boolean, OutputStream> factory, final Supplier<JinahyaCrypto> crypto,
+            final int length) throws IOException {
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var expected = crypto.get().encrypt(plain);
+        for (final var chunk : new int[]{1, 17, BUFFER_SIZE * 3 + 1}) {
+            assertThat(write(factory, plain, true, chunk)).isEqualTo(expected);
+            assertThat(write(factory, expected, false, chunk)).isEqualTo(plain);
+        }
+    }
+
+    @Test
+    void __authenticationFailure() {
+        final var params = new AEADParameters(new KeyParameter(_Random_TestUtils.newRandomBytes(16)), 128,
+                                              _Random_TestUtils.newRandomBytes(12));
+        final var encrypted = new JinahyaAEADCipherCrypto(GCMBlockCipher.newInstance(AESEngine.newInstance()), params)
+                .encrypt(new byte[100]);
+        encrypted[encrypted.length - 1] ^= 1;
+        final var stream = new JinahyaAEADCipherOutputStream(
+                new ByteArrayOutputStream(), GCMBlockCipher.newInstance(AESEngine.newInstance()), params, false);
+        assertThatThrownBy(() -> {
+            stream.write(encrypted);
+            stream.close();
+        }).isInstanceOf(InvalidCipherTextIOException.class);
+        assertThatThrownBy(() -> stream.write(1)).isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,282 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import _javax.security._Random_TestUtils;
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherCrypto;
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherProcessor;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.engines.ChaCha7539Engine;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.paddings.PKCS7Padding;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JinahyaCipherProcessorTest {
+
+    private static final int BUFFER_SIZE = 64;
+
+    /**
+     * A publisher publishes specified items, on demand, on the requesting thread.
+     */
+    private static class ItemsPublisher
+            implements Flow.Publisher<ByteBuffer> {
+
+        ItemsPublisher(final List<ByteBuffer> items) {
+            this.items = items;
+        }
+
+        @Override
+        public void subscribe(final Flow.Subscriber<? super ByteBuffer> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(final long n) {
+                    requested += n;
+                    if (emitting) {
+                        return;
+                    }
+                    emitting = true;
+                    while (requested > 0 && !cancelled) {
+                        if (index == items.size()) {
+                            subscriber.onComplete();
+                            cancelled = true;
+                            break;
+                        }
+                        requested--;
+                        subscriber.onNext(items.get(index++));
+                    }
+                    emitting = false;
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+
+        private final List<ByteBuffer> items;
+
+        private int index;
+
+        private long requested;
+
+        private boolean emitting;
+
+        private boolean cancelled;
+    }
+
+    /**
+     * A subscriber collects bytes, requesting one buffer at a time.
+     */
+    private static class CollectingSubscriber
+            implements Flow.Subscriber<ByteBuffer> {
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (autoRequest) {
+                subscription.request(1L);
+            }
+        }
+
+        @Override
+        public void onNext(final ByteBuffer item) {
+            assertThat(item.remaining()).isPositive().isLessThanOrEqualTo(BUFFER_SIZE);
+            received++;
+            final var bytes = new byte[item.remaining()];
+            item.get(bytes);
+            collected.writeBytes(bytes);
+            if (autoRequest) {
+                subscription.request(1L);
+            }
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+        private boolean autoRequest = true;
+
+        private Flow.Subscription subscription;
+
+        private final ByteArrayOutputStream collected = new ByteArrayOutputStream();
+
+        private int received;
+
+        private Throwable error;
+
+        private boolean completed;
+    }
+
+    private static List<ByteBuffer> split(final byte[] bytes, final boolean direct) {
+        final var items = new ArrayList<ByteBuffer>();
+        for (int i = 0; i < bytes.length; ) {
+            final var n = Math.min(bytes.length - i, 1 + i % 150);
+            final var item = direct ? ByteBuffer.allocateDirect(n) : ByteBuffer.allocate(n);
+            items.add(item.put(bytes, i, n).flip());
+            i += n;
+        }
+        return items;
+    }
+
+    private static CollectingSubscriber run(final JinahyaCipherProcessor processor, final byte[] input,
+                                            final boolean direct) {
+        final var subscriber = new CollectingSubscriber();
+        processor.subscribe(subscriber);
+        new ItemsPublisher(split(input, direct)).subscribe(processor);
+        return subscriber;
+    }
+
+    private static Stream<Arguments> getProcessorFactoriesAndCryptosArgumentsStream() {
+        final var cbc = new ParametersWithIV(new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                                             _Random_TestUtils.newRandomBytes(16));
+        final var chacha = new ParametersWithIV(new KeyParameter(_Random_TestUtils.newRandomBytes(32)),
+                                                _Random_TestUtils.newRandomBytes(12));
+        final var gcm = new AEADParameters(new KeyParameter(_Random_TestUtils.newRandomBytes(16)), 128,
+                                           _Random_TestUtils.newRandomBytes(12));
+        return Stream.of(
+                Arguments.of(
+                        (Function<Boolean, JinahyaCipherProcessor>) e -> new JinahyaBufferedBlockCipherProcessor(
+                                new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()),
+                                                              new PKCS7Padding()),
+                                cbc, e, BUFFER_SIZE, 2),
+                        (Supplier<JinahyaCrypto>) () -> new JinahyaBufferedBlockCipherCrypto(
+                                new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()),
+                                                              new PKCS7Padding()),
+                                cbc)
+                ),
+                Arguments.of(
+                        (Function<Boolean, JinahyaCipherProcessor>) e -> new JinahyaStreamCipherProcessor(
+                                new ChaCha7539Engine(), chacha, e, BUFFER_SIZE, 2),
+                        (Supplier<JinahyaCrypto>) () -> new JinahyaStreamCipherCrypto(new ChaCha7539Engine(), chacha)
+                ),
+                Arguments.of(
+                        (Function<Boolean, JinahyaCipherProcessor>) e -> new JinahyaAEADCipherProcessor(
+                                GCMBlockCipher.newInstance(AESEngine.newInstance()), gcm, e, BUFFER_SIZE, 2),
+                        (Supplier<JinahyaCrypto>) () -> new JinahyaAEADCipherCrypto(
+                                GCMBlockCipher.newInstance(AESEngine.newInstance()), gcm)
+                )
+        ).flatMap(a -> IntStream.of(0, 1, 16, 63, 64, 65, 1000).boxed().flatMap(
+                l -> Stream.of(true, false).map(d -> Arguments.of(a.get()[0], a.get()[1], l, d))));
+    }
+
+    @MethodSource({"getProcessorFactoriesAndCryptosArgumentsStream"})
+    @ParameterizedTest
+    void __(final Function<Boolean, JinahyaCipherProcessor> factory, final Supplier<JinahyaCrypto> crypto,
+            final int length, final boolean direct) {
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var encrypted = run(factory.apply(true), plain, direct);
+        assertThat(encrypted.error).isNull();
+        assertThat(encrypted.completed).isTrue();
+        assertThat(encrypted.collected.toByteArray()).isEqualTo(crypto.get().encrypt(plain));
+        final var decrypted = run(factory.apply(false), encrypted.collected.toByteArray(), direct);
+        assertThat(decrypted.error).isNull();
+        assertThat(decrypted.completed).isTrue();
+        assertThat(decrypted.collected.toByteArray()).isEqualTo(plain);
+    }
+
+    @Test
+    void __backpressure() {
+        final var params = new ParametersWithIV(new KeyParameter(_Random_TestUtils.newRandomBytes(32)),
+                                                _Random_TestUtils.newRandomBytes(12));
+        final var processor = new JinahyaStreamCipherProcessor(new ChaCha7539Engine(), params, true, BUFFER_SIZE, 2);
+        final var subscriber = new CollectingSubscriber();
+        subscriber.autoRequest = false;
+        processor.subscribe(subscriber);
+        final var publisher = new ItemsPublisher(List.of(ByteBuffer.allocate(BUFFER_SIZE * 3),
+                                                         ByteBuffer.allocate(BUFFER_SIZE)));
+        publisher.subscribe(processor);
+        assertThat(publisher.index).isZero();
+        subscriber.subscription.request(2L);
+        assertThat(subscriber.received).isEqualTo(2);
+        assertThat(publisher.index).isEqualTo(1);
+        subscriber.subscription.request(2L);
+        assertThat(subscriber.received).isEqualTo(4);
+        assertThat(subscriber.completed).isFalse();
+        subscriber.subscription.request(1L);
+        assertThat(subscriber.completed).isTrue();
+        assertThat(subscriber.collected.size()).isEqualTo(BUFFER_SIZE * 4);
+    }
+
+    @Test
+    void __authenticationFailure() {
+        final var params = new AEADParameters(new KeyParameter(_Random_TestUtils.newRandomBytes(16)), 128,
+                                              _Random_TestUtils.newRandomBytes(12));
+        final BiFunction<Boolean, Integer, JinahyaCipherProcessor> factory = (e, s) -> new JinahyaAEADCipherProcessor(
+                GCMBlockCipher.newInstance(AESEngine.newInstance()), params, e, s, 1);
+        final var encrypted = run(factory.apply(true, BUFFER_SIZE), new byte[100], false).collected.toByteArray();
+        encrypted[encrypted.length - 1] ^= 1;
+        final var decrypted = run(factory.apply(false, BUFFER_SIZE), encrypted, false);
+        assertThat(decrypted.completed).isFalse();
+        assertThat(decrypted.error).isNotNull();
+    }
+
+    @Test
+    void __retainedBuffers() {
+        final var params = new ParametersWithIV(new KeyParameter(_Random_TestUtils.newRandomBytes(32)),
+                                                _Random_TestUtils.newRandomBytes(12));
+        final var plain = _Random_TestUtils.newRandomBytes(1000);
+        final var expected = new JinahyaStreamCipherCrypto(new ChaCha7539Engine(), params).encrypt(plain);
+        final var processor = new JinahyaStreamCipherProcessor(new ChaCha7539Engine(), params, true, BUFFER_SIZE, 2);
+        final var retained = new ArrayList<ByteBuffer>();
+        final var tail = new ByteArrayOutputStream();
+        processor.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(final Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1L);
+            }
+
+            @Override
+            public void onNext(final ByteBuffer item) {
+                retained.add(item); // no copy; the last two are not reused
+                subscription.request(1L);
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+                retained.subList(retained.size() - 2, retained.size()).forEach(b -> {
+                    final var bytes = new byte[b.remaining()];
+                    b.get(bytes);
+                    tail.writeBytes(bytes);
+                });
+            }
+
+            private Flow.Subscription subscription;
+        });
+        new ItemsPublisher(split(plain, false)).subscribe(processor);
+        final var bytes = tail.toByteArray();
+        assertThat(bytes).isNotEmpty();
+        assertThat(bytes).isEqualTo(Arrays.copyOfRange(expected, expected.length - bytes.length, expected.length));
+    }
+}
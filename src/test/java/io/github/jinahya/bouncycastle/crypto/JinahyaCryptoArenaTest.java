@@ -0,0 +1,137 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import _javax.security._Random_TestUtils;
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherCrypto;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.engines.ChaCha7539Engine;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.paddings.PKCS7Padding;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaCryptoArenaTest {
+
+    private static Stream<Supplier<JinahyaCrypto>> getCryptoSuppliersStream() {
+        final var cbc = new ParametersWithIV(new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                                             _Random_TestUtils.newRandomBytes(16));
+        final var chacha = new ParametersWithIV(new KeyParameter(_Random_TestUtils.newRandomBytes(32)),
+                                                _Random_TestUtils.newRandomBytes(12));
+        return Stream.of(
+                () -> new JinahyaBufferedBlockCipherCrypto(
+                        new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()),
+                                                      new PKCS7Padding()),
+                        cbc),
+                () -> new JinahyaStreamCipherCrypto(new ChaCha7539Engine(), chacha),
+                () -> new JinahyaPooledCrypto(() -> new JinahyaStreamCipherCrypto(new ChaCha7539Engine(), chacha), 2)
+        );
+    }
+
+    private static List<byte[]> newMessages(final int count) {
+        final var messages = new ArrayList<byte[]>();
+        for (int i = 0; i < count; i++) {
+            messages.add(_Random_TestUtils.newRandomBytes(ThreadLocalRandom.current().nextInt(201)));
+        }
+        return messages;
+    }
+
+    @MethodSource({"getCryptoSuppliersStream"})
+    @ParameterizedTest
+    void encryptAll__messages(final Supplier<JinahyaCrypto> cryptoSupplier) {
+        final var crypto = cryptoSupplier.get();
+        final var messages = newMessages(100);
+        final var encrypted = crypto.encryptAll(messages, new JinahyaCryptoArena());
+        assertThat(encrypted.count()).isEqualTo(messages.size());
+        final var encryptedMessages = new ArrayList<byte[]>();
+        for (int i = 0; i < messages.size(); i++) {
+            assertThat(encrypted.copyOf(i)).isEqualTo(cryptoSupplier.get().encrypt(messages.get(i)));
+            encryptedMessages.add(encrypted.copyOf(i));
+        }
+        final var decrypted = crypto.decryptAll(encryptedMessages, new JinahyaCryptoArena(16, 1));
+        for (int i = 0; i < messages.size(); i++) {
+            assertThat(decrypted.copyOf(i)).isEqualTo(messages.get(i));
+        }
+    }
+
+    @MethodSource({"getCryptoSuppliersStream"})
+    @ParameterizedTest
+    void encryptAll__offsets(final Supplier<JinahyaCrypto> cryptoSupplier) {
+        final var crypto = cryptoSupplier.get();
+        final var messages = newMessages(100);
+        final var offsets = new int[messages.size() + 1];
+        final var in = new JinahyaCryptoArena();
+        for (int i = 0; i < messages.size(); i++) {
+            in.append(messages.get(i), 0, messages.get(i).length);
+            offsets[i + 1] = in.size();
+        }
+        final var arena = new JinahyaCryptoArena();
+        crypto.encryptAll(in.array(), offsets, arena);
+        final var encryptedOffsets = new int[arena.count() + 1];
+        for (int i = 0; i < arena.count(); i++) {
+            encryptedOffsets[i + 1] = arena.offset(i) + arena.length(i);
+        }
+        final var decrypted = crypto.decryptAll(arena.array(), encryptedOffsets, new JinahyaCryptoArena());
+        for (int i = 0; i < messages.size(); i++) {
+            assertThat(decrypted.copyOf(i)).isEqualTo(messages.get(i));
+        }
+    }
+
+    @Test
+    void decryptAll__aead() {
+        final var params = new AEADParameters(new KeyParameter(_Random_TestUtils.newRandomBytes(16)), 128,
+                                              _Random_TestUtils.newRandomBytes(12));
+        final var plain = _Random_TestUtils.newRandomBytes(100);
+        final var encrypted = new JinahyaAEADCipherCrypto(GCMBlockCipher.newInstance(AESEngine.newInstance()), params)
+                .encrypt(plain);
+        final var crypto = new JinahyaAEADCipherCrypto(GCMBlockCipher.newInstance(AESEngine.newInstance()), params);
+        final var decrypted = crypto.decryptAll(Collections.nCopies(10, encrypted), new JinahyaCryptoArena());
+        assertThat(decrypted.count()).isEqualTo(10);
+        for (int i = 0; i < decrypted.count(); i++) {
+            assertThat(decrypted.copyOf(i)).isEqualTo(plain);
+        }
+        final var tampered = encrypted.clone();
+        tampered[0] ^= 1;
+        assertThatThrownBy(() -> crypto.decryptAll(List.of(encrypted, tampered), new JinahyaCryptoArena()))
+                .isInstanceOf(JinahyaCryptoException.class);
+    }
+
+    @Test
+    void clear__reusesArray() {
+        final var arena = new JinahyaCryptoArena();
+        arena.append(new byte[]{1, 2, 3}, 0, 3);
+        arena.append(new byte[]{4}, 0, 1);
+        assertThat(arena.count()).isEqualTo(2);
+        assertThat(arena.size()).isEqualTo(4);
+        assertThat(arena.buffer(1).get()).isEqualTo((byte) 4);
+        final var array = arena.array();
+        arena.clear();
+        assertThat(arena.count()).isZero();
+        assertThat(array).containsOnly(0);
+        arena.append(new byte[]{5, 6}, 0, 2);
+        assertThat(arena.array()).isSameAs(array);
+        assertThatThrownBy(() -> arena.offset(1)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    void requireValidOffsets__decreasing() {
+        assertThatThrownBy(() -> JinahyaCryptoArena.requireValidOffsets(new byte[10], new int[]{0, 5, 4}))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> JinahyaCryptoArena.requireValidOffsets(new byte[10], new int[]{0, 11}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,175 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import _javax.security._Random_TestUtils;
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherCrypto;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.paddings.PKCS7Padding;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaCryptoCacheTest {
+
+    private static JinahyaCryptoCache newCbcCache(final long maximumSize) {
+        return JinahyaCryptoCache.ofBufferedBlockCipher(
+                () -> new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()),
+                                                    new PKCS7Padding()),
+                2,
+                maximumSize
+        );
+    }
+
+    private static ParametersWithIV newCbcParams() {
+        return new ParametersWithIV(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                _Random_TestUtils.newRandomBytes(16)
+        );
+    }
+
+    @Test
+    void __hitAndMiss() {
+        final var cache = newCbcCache(4);
+        final var params = newCbcParams();
+        final var plain = _Random_TestUtils.newRandomBytes(100);
+        final var encrypted = cache.get(params).encrypt(plain);
+        assertThat(cache.getMissCount()).isEqualTo(1L);
+        // an equal, but distinct, parameters hits the same entry
+        final var copy = JinahyaCipherParametersUtils.copyOf(params);
+        assertThat(cache.get(copy).decrypt(encrypted)).isEqualTo(plain);
+        assertThat(cache.getMissCount()).isEqualTo(1L);
+        assertThat(cache.getHitCount()).isEqualTo(1L);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void __ecb() {
+        final var cache = JinahyaCryptoCache.ofBufferedBlockCipher(
+                () -> new PaddedBufferedBlockCipher(AESEngine.newInstance(), new PKCS7Padding()),
+                2,
+                4
+        );
+        final var key = new KeyParameter(_Random_TestUtils.newRandomBytes(16));
+        final var plain = _Random_TestUtils.newRandomBytes(100);
+        final var expected = new JinahyaBufferedBlockCipherCrypto(
+                new PaddedBufferedBlockCipher(AESEngine.newInstance(), new PKCS7Padding()), key).encrypt(plain);
+        for (int i = 0; i < 4; i++) {
+            assertThat(cache.get(key).encrypt(plain)).isEqualTo(expected);
+            assertThat(cache.get(new KeyParameter(key.getKey().clone())).decrypt(expected)).isEqualTo(plain);
+        }
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(7L);
+    }
+
+    @Test
+    void __perMessageIvs() {
+        final var cache = newCbcCache(4);
+        final var key = new KeyParameter(_Random_TestUtils.newRandomBytes(16));
+        final var plain = _Random_TestUtils.newRandomBytes(100);
+        for (int i = 0; i < 8; i++) {
+            final var params = new ParametersWithIV(key, _Random_TestUtils.newRandomBytes(16));
+            final var encrypted = cache.get(params).encrypt(plain);
+            // the same as a crypto of its own
+            assertThat(encrypted).isEqualTo(new JinahyaBufferedBlockCipherCrypto(
+                    new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()),
+                                                  new PKCS7Padding()),
+                    params).encrypt(plain));
+            assertThat(cache.get(params).decrypt(encrypted)).isEqualTo(plain);
+        }
+        // ivs share the entry of the key
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1L);
+        assertThat(cache.getHitCount()).isEqualTo(15L);
+    }
+
+    @Test
+    void __lruEviction() {
+        final var cache = newCbcCache(2);
+        final var p1 = newCbcParams();
+        final var p2 = newCbcParams();
+        final var p3 = newCbcParams();
+        final var plain = _Random_TestUtils.newRandomBytes(32);
+        final var c1 = cache.get(p1).encrypt(plain);
+        cache.get(p2).encrypt(plain);
+        cache.get(p1).encrypt(plain); // p2 becomes the eldest
+        cache.get(p3).encrypt(plain);
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictionCount()).isEqualTo(1L);
+        final var misses = cache.getMissCount();
+        assertThat(cache.get(p1).decrypt(c1)).isEqualTo(plain);
+        assertThat(cache.getMissCount()).isEqualTo(misses);
+        cache.get(p2).encrypt(plain);
+        assertThat(cache.getMissCount()).isEqualTo(misses + 1);
+    }
+
+    @Test
+    void __viewSurvivesEviction() {
+        final var cache = newCbcCache(1);
+        final var params = newCbcParams();
+        final var view = cache.get(params);
+        final var plain = _Random_TestUtils.newRandomBytes(48);
+        final var encrypted = view.encrypt(plain);
+        cache.invalidateAll();
+        assertThat(cache.size()).isZero();
+        assertThat(view.decrypt(encrypted)).isEqualTo(plain);
+        // the caller's parameters are never wiped
+        assertThat(((KeyParameter) params.getParameters()).getKey()).isNotEqualTo(new byte[16]);
+    }
+
+    @Test
+    void __weigher() {
+        final var cache = new JinahyaCryptoCache(
+                () -> new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance())),
+                JinahyaBufferedBlockCipherCrypto::new,
+                1,
+                10L,
+                p -> 4L
+        );
+        for (int i = 0; i < 5; i++) {
+            cache.get(newCbcParams()).encrypt(new byte[16]);
+        }
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictionCount()).isEqualTo(3L);
+    }
+
+    @Test
+    void __aead_concurrent() throws Exception {
+        final var cache = JinahyaCryptoCache.ofAEADCipher(
+                () -> GCMBlockCipher.newInstance(AESEngine.newInstance()), 4, 3);
+        final var params = new ArrayList<AEADParameters>();
+        for (int i = 0; i < 5; i++) {
+            params.add(new AEADParameters(new KeyParameter(_Random_TestUtils.newRandomBytes(16)), 128,
+                                          _Random_TestUtils.newRandomBytes(12)));
+        }
+        final var plain = _Random_TestUtils.newRandomBytes(1024);
+        final var tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < 64; i++) {
+            final var p = params.get(i % params.size());
+            tasks.add(() -> {
+                final var decrypted = cache.get(p).decrypt(
+                        new JinahyaAEADCipherCrypto(GCMBlockCipher.newInstance(AESEngine.newInstance()), p)
+                                .encrypt(plain));
+                assertThat(decrypted).isEqualTo(plain);
+                return null;
+            });
+        }
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (final var future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        }
+        assertThat(cache.size()).isLessThanOrEqualTo(3);
+        assertThatThrownBy(() -> cache.get(params.get(0)).encrypt(plain))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+}
@@ -0,0 +1,156 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import _javax.security._Random_TestUtils;
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherCrypto;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.paddings.PKCS7Padding;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaCryptoInstrumentationTest {
+
+    private static class Recorder
+            implements JinahyaCryptoInstrumentation {
+
+        @Override
+        public Operation operationStarted(final String algorithm, final boolean encryption) {
+            return new Operation() {
+                @Override
+                public void completed(final long inputBytes, final long outputBytes) {
+                    records.add(algorithm + ":" + encryption + ":" + inputBytes + ":" + outputBytes);
+                }
+
+                @Override
+                public void failed(final Throwable cause) {
+                    records.add(algorithm + ":" + encryption + ":" + cause.getClass().getSimpleName());
+                }
+            };
+        }
+
+        @Override
+        public void cipherInitialized(final String algorithm, final boolean encryption, final boolean rekeyed) {
+            records.add("init:" + algorithm + ":" + encryption + ":" + rekeyed);
+        }
+
+        @Override
+        public void bufferReallocated(final String algorithm, final int size, final int newSize) {
+            records.add("realloc:" + algorithm + ":" + size + ":" + newSize);
+        }
+
+        @Override
+        public void authenticationFailed(final String algorithm) {
+            records.add("auth:" + algorithm);
+        }
+
+        private final List<String> records = new CopyOnWriteArrayList<>();
+    }
+
+    private static JinahyaBufferedBlockCipherCrypto newCbcCrypto() {
+        return new JinahyaBufferedBlockCipherCrypto(
+                new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()), new PKCS7Padding()),
+                new ParametersWithIV(new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                                     _Random_TestUtils.newRandomBytes(16))
+        );
+    }
+
+    @AfterEach
+    void resetInstrumentation() {
+        JinahyaCryptoInstrumentationUtils.set(JinahyaCryptoInstrumentation.NOOP);
+    }
+
+    @Test
+    void get__noopByDefault() {
+        assertThat(JinahyaCryptoInstrumentationUtils.get()).isSameAs(JinahyaCryptoInstrumentation.NOOP);
+    }
+
+    @Test
+    void __operationsAndInitializations() {
+        final var recorder = new Recorder();
+        JinahyaCryptoInstrumentationUtils.set(recorder);
+        final var crypto = newCbcCrypto();
+        final var encrypted = crypto.encrypt(new byte[17]);
+        crypto.encrypt(new byte[17]);
+        crypto.decrypt(encrypted);
+        assertThat(recorder.records).containsExactly(
+                "init:AES/CBC:true:true",
+                "AES/CBC:true:17:32",
+                "init:AES/CBC:true:false",
+                "AES/CBC:true:17:32",
+                "init:AES/CBC:false:true",
+                "AES/CBC:false:32:17"
+        );
+    }
+
+    @Test
+    void __authenticationFailure() {
+        final var recorder = new Recorder();
+        JinahyaCryptoInstrumentationUtils.set(recorder);
+        final var crypto = new JinahyaAEADCipherCrypto(
+                GCMBlockCipher.newInstance(AESEngine.newInstance()),
+                new AEADParameters(new KeyParameter(_Random_TestUtils.newRandomBytes(16)), 128,
+                                   _Random_TestUtils.newRandomBytes(12))
+        );
+        final var encrypted = crypto.encrypt(new byte[16]);
+        encrypted[0] ^= 1;
+        assertThatThrownBy(() -> crypto.decrypt(encrypted)).isInstanceOf(JinahyaCryptoException.class);
+        assertThat(recorder.records).contains("auth:AES/GCM", "AES/GCM:false:JinahyaCryptoException");
+    }
+
+    @Test
+    void __bufferReallocation() throws Exception {
+        final var recorder = new Recorder();
+        JinahyaCryptoInstrumentationUtils.set(recorder);
+        final var cipher = new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()),
+                                                         new PKCS7Padding());
+        cipher.init(true, new ParametersWithIV(new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                                               _Random_TestUtils.newRandomBytes(16)));
+        final var out = new ByteArrayOutputStream();
+        JinahyaBufferedBlockCipherUtils.processAllBytesAndDoFinal(
+                cipher, new ByteArrayInputStream(new byte[100]), out, new byte[64], new byte[1]);
+        assertThat(out.size()).isEqualTo(112);
+        assertThat(recorder.records).isNotEmpty().allMatch(r -> r.startsWith("realloc:AES/CBC:"));
+    }
+
+    @Test
+    void __flightRecorder(@TempDir final Path dir) throws Exception {
+        JinahyaCryptoInstrumentationUtils.set(new JinahyaCryptoFlightRecorder());
+        final var file = dir.resolve("crypto.jfr");
+        try (var recording = new Recording()) {
+            recording.enable(JinahyaCryptoFlightRecorder.OPERATION_EVENT_NAME).withThreshold(null);
+            recording.enable(JinahyaCryptoFlightRecorder.CIPHER_INITIALIZATION_EVENT_NAME);
+            recording.start();
+            final var crypto = newCbcCrypto();
+            crypto.decrypt(crypto.encrypt(new byte[1000]));
+            recording.stop();
+            recording.dump(file);
+        }
+        final var events = RecordingFile.readAllEvents(file).stream()
+                .collect(Collectors.groupingBy(e -> e.getEventType().getName()));
+        final var operations = events.get(JinahyaCryptoFlightRecorder.OPERATION_EVENT_NAME);
+        assertThat(operations).hasSize(2);
+        assertThat(operations).extracting((RecordedEvent e) -> e.getString("algorithm")).containsOnly("AES/CBC");
+        assertThat(operations).extracting((RecordedEvent e) -> e.getLong("outputBytes"))
+                .containsExactlyInAnyOrder(1008L, 1000L);
+        assertThat(events.get(JinahyaCryptoFlightRecorder.CIPHER_INITIALIZATION_EVENT_NAME)).hasSize(2);
+    }
+}
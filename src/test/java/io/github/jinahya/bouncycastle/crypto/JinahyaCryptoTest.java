@@ -0,0 +1,145 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import _javax.security._Random_TestUtils;
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherCrypto;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.engines.ChaCha7539Engine;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.paddings.PKCS7Padding;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaCryptoTest {
+
+    private static Stream<Arguments> getCryptoSuppliersAndLengthsArgumentsStream() {
+        final var cbc = new ParametersWithIV(new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                                             _Random_TestUtils.newRandomBytes(16));
+        final var chacha = new ParametersWithIV(new KeyParameter(_Random_TestUtils.newRandomBytes(32)),
+                                                _Random_TestUtils.newRandomBytes(12));
+        final var gcm = new AEADParameters(new KeyParameter(_Random_TestUtils.newRandomBytes(16)), 128,
+                                           _Random_TestUtils.newRandomBytes(12));
+        return Stream.<Supplier<JinahyaCrypto>>of(
+                () -> new JinahyaBufferedBlockCipherCrypto(
+                        new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()),
+                                                      new PKCS7Padding()),
+                        cbc),
+                () -> new JinahyaStreamCipherCrypto(new ChaCha7539Engine(), chacha),
+                () -> new JinahyaAEADCipherCrypto(GCMBlockCipher.newInstance(AESEngine.newInstance()), gcm)
+        ).flatMap(s -> IntStream.of(0, 1, 16, 65535, 65536, 200000).mapToObj(l -> Arguments.of(s, l)));
+    }
+
+    private static byte[] viaStreams(final JinahyaCrypto crypto, final boolean encryption, final byte[] in)
+            throws Exception {
+        final var out = new ByteArrayOutputStream();
+        if (encryption) {
+            crypto.encrypt(new ByteArrayInputStream(in), out, new byte[1024]);
+        } else {
+            crypto.decrypt(new ByteArrayInputStream(in), out, new byte[1024]);
+        }
+        return out.toByteArray();
+    }
+
+    @MethodSource({"getCryptoSuppliersAndLengthsArgumentsStream"})
+    @ParameterizedTest
+    void __path(final Supplier<JinahyaCrypto> cryptoSupplier, final int length, @TempDir final Path dir)
+            throws Exception {
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var plainFile = Files.write(dir.resolve("plain"), plain);
+        final var encryptedFile = Files.write(dir.resolve("encrypted"), new byte[length * 2 + 100]); // truncated
+        final var decryptedFile = dir.resolve("decrypted");
+        final var encrypted = cryptoSupplier.get().encrypt(plainFile, encryptedFile);
+        assertThat(Files.size(encryptedFile)).isEqualTo(encrypted);
+        assertThat(Files.readAllBytes(encryptedFile)).isEqualTo(viaStreams(cryptoSupplier.get(), true, plain));
+        final var decrypted = cryptoSupplier.get().decrypt(encryptedFile, decryptedFile);
+        assertThat(decrypted).isEqualTo(length);
+        assertThat(Files.readAllBytes(decryptedFile)).isEqualTo(plain);
+    }
+
+    @Test
+    void __fileChannel_positions(@TempDir final Path dir) throws Exception {
+        final var plain = _Random_TestUtils.newRandomBytes(1000);
+        final var params = new ParametersWithIV(new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                                                _Random_TestUtils.newRandomBytes(16));
+        final var crypto = new JinahyaBufferedBlockCipherCrypto(
+                new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()),
+                                              new PKCS7Padding()),
+                params);
+        final var source = dir.resolve("source");
+        Files.write(source, new byte[10]);
+        Files.write(source, plain, StandardOpenOption.APPEND);
+        final var target = dir.resolve("target");
+        try (var input = FileChannel.open(source);
+             var output = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            input.position(10L);
+            output.position(3L);
+            final var written = crypto.encrypt(input, output);
+            assertThat(input.position()).isEqualTo(input.size());
+            assertThat(output.position()).isEqualTo(3L + written);
+            assertThat(output.size()).isEqualTo(3L + written);
+        }
+        final var encrypted = Files.readAllBytes(target);
+        assertThat(crypto.decrypt(Arrays.copyOfRange(encrypted, 3, encrypted.length))).isEqualTo(plain);
+    }
+
+    @Test
+    void __fileChannel_failure(@TempDir final Path dir) throws Exception {
+        final var params = new ParametersWithIV(new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                                                _Random_TestUtils.newRandomBytes(16));
+        final Supplier<JinahyaCrypto> supplier = () -> new JinahyaBufferedBlockCipherCrypto(
+                new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()),
+                                              new PKCS7Padding()),
+                params);
+        final var encrypted = supplier.get().encrypt(_Random_TestUtils.newRandomBytes(1000));
+        encrypted[encrypted.length - 1] ^= 0x7F; // breaks the padding
+        final var source = Files.write(dir.resolve("source"), encrypted);
+        final var target = dir.resolve("target");
+        try (var input = FileChannel.open(source);
+             var output = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            assertThatThrownBy(() -> supplier.get().decrypt(input, output))
+                    .isInstanceOf(JinahyaCryptoException.class);
+            // no room reserved beyond the bytes written, which precede the last block
+            assertThat(output.size()).isEqualTo(encrypted.length - 16L);
+        }
+    }
+
+    @Test
+    void __fileChannel_tamperedTag(@TempDir final Path dir) throws Exception {
+        final var params = new AEADParameters(new KeyParameter(_Random_TestUtils.newRandomBytes(16)), 128,
+                                              _Random_TestUtils.newRandomBytes(12));
+        final Supplier<JinahyaCrypto> supplier = () -> new JinahyaAEADCipherCrypto(
+                GCMBlockCipher.newInstance(AESEngine.newInstance()), params);
+        final var encrypted = supplier.get().encrypt(_Random_TestUtils.newRandomBytes(100000));
+        encrypted[encrypted.length - 1] ^= 1;
+        final var source = Files.write(dir.resolve("source"), encrypted);
+        final var target = dir.resolve("target");
+        try (var input = FileChannel.open(source);
+             var output = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            assertThatThrownBy(() -> supplier.get().decrypt(input, output))
+                    .isInstanceOf(JinahyaCryptoException.class);
+            // no unauthenticated plaintext left
+            assertThat(output.size()).isZero();
+        }
+    }
+}
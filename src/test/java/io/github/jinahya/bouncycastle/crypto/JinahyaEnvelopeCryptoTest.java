@@ -0,0 +1,156 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import _javax.security._Random_TestUtils;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaEnvelopeCryptoTest {
+
+    private static final Map<Integer, KeyParameter> KEYS = Map.of(
+            1, new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+            2, new KeyParameter(_Random_TestUtils.newRandomBytes(32))
+    );
+
+    private static Stream<Arguments> getAlgorithmsAndModesArgumentsStream() {
+        return Stream.of(JinahyaEnvelope.Algorithm.values()).flatMap(a -> Stream.of(
+                Arguments.of(a, JinahyaEnvelope.Mode.CBC_PKCS7, 0, 16),
+                Arguments.of(a, JinahyaEnvelope.Mode.CTR, 0, 16),
+                Arguments.of(a, JinahyaEnvelope.Mode.GCM, 16, 12),
+                Arguments.of(a, JinahyaEnvelope.Mode.CCM, 8, 13)
+        ));
+    }
+
+    @MethodSource({"getAlgorithmsAndModesArgumentsStream"})
+    @ParameterizedTest
+    void __bytes(final JinahyaEnvelope.Algorithm algorithm, final JinahyaEnvelope.Mode mode, final int tagLength,
+                 final int ivLength) {
+        final var crypto = new JinahyaEnvelopeCrypto(algorithm, mode, tagLength, KEYS::get);
+        final var keyId = algorithm == JinahyaEnvelope.Algorithm.SEED ? 1 : 2;
+        for (final var length : new int[] {0, 1, 15, 16, 17, 1000}) {
+            final var plain = _Random_TestUtils.newRandomBytes(length);
+            final var iv = _Random_TestUtils.newRandomBytes(ivLength);
+            final var encrypted = crypto.encrypt(keyId, iv, plain);
+            final var envelope = new JinahyaEnvelope().wrap(ByteBuffer.wrap(encrypted));
+            assertThat(envelope.getAlgorithm()).isSameAs(algorithm);
+            assertThat(envelope.getMode()).isSameAs(mode);
+            assertThat(envelope.getTagLength()).isEqualTo(tagLength);
+            assertThat(envelope.getKeyId()).isEqualTo(keyId);
+            assertThat(envelope.getIv()).isEqualTo(iv);
+            assertThat(envelope.getHeaderSize() + envelope.getCiphertextLength()).isEqualTo(encrypted.length);
+            assertThat(crypto.decrypt(encrypted)).isEqualTo(plain);
+            // never decrypts by the header alone, with a crypto configured differently
+            final var other = mode == JinahyaEnvelope.Mode.CTR
+                              ? new JinahyaEnvelopeCrypto(algorithm, JinahyaEnvelope.Mode.CBC_PKCS7, 0, KEYS::get)
+                              : new JinahyaEnvelopeCrypto(algorithm, JinahyaEnvelope.Mode.CTR, 0, KEYS::get);
+            assertThatThrownBy(() -> other.decrypt(encrypted)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @MethodSource({"getAlgorithmsAndModesArgumentsStream"})
+    @ParameterizedTest
+    void __buffers(final JinahyaEnvelope.Algorithm algorithm, final JinahyaEnvelope.Mode mode, final int tagLength,
+                   final int ivLength) {
+        final var crypto = new JinahyaEnvelopeCrypto(algorithm, mode, tagLength, KEYS::get);
+        final var plain = _Random_TestUtils.newRandomBytes(100);
+        for (final var direct : new boolean[] {false, true}) {
+            final var iv = _Random_TestUtils.newRandomBytes(ivLength);
+            final var input = direct ? ByteBuffer.allocateDirect(plain.length) : ByteBuffer.allocate(plain.length);
+            input.put(plain).flip();
+            final var encrypted = direct ? ByteBuffer.allocateDirect(256) : ByteBuffer.allocate(256);
+            encrypted.position(3);
+            final var written = crypto.encrypt(1, iv, input, encrypted);
+            assertThat(input.hasRemaining()).isFalse();
+            assertThat(encrypted.position()).isEqualTo(3 + written);
+            encrypted.flip().position(3);
+            encrypted.order(ByteOrder.LITTLE_ENDIAN); // irrelevant to the header
+            final var decrypted = direct ? ByteBuffer.allocateDirect(256) : ByteBuffer.allocate(256);
+            assertThat(crypto.decrypt(encrypted, decrypted)).isEqualTo(plain.length);
+            assertThat(decrypted.flip()).isEqualTo(ByteBuffer.wrap(plain));
+        }
+    }
+
+    @Test
+    void decrypt__tampered() {
+        final var crypto = new JinahyaEnvelopeCrypto(JinahyaEnvelope.Algorithm.AES, JinahyaEnvelope.Mode.GCM, 16,
+                                                     KEYS::get);
+        final var encrypted = crypto.encrypt(1, _Random_TestUtils.newRandomBytes(12), new byte[32]);
+        encrypted[encrypted.length - 1] ^= 1;
+        assertThatThrownBy(() -> crypto.decrypt(encrypted)).isInstanceOf(JinahyaCryptoException.class);
+    }
+
+    @Test
+    void decrypt__tamperedHeader() {
+        final var crypto = new JinahyaEnvelopeCrypto(JinahyaEnvelope.Algorithm.AES, JinahyaEnvelope.Mode.GCM, 16,
+                                                     KEYS::get);
+        final var iv = _Random_TestUtils.newRandomBytes(12);
+        final var plain = _Random_TestUtils.newRandomBytes(32);
+        final var encrypted = crypto.encrypt(1, iv, plain);
+        // relabeled as CTR, with the GCM counter block of the first plaintext block
+        final var relabeled = new byte[JinahyaEnvelope.getHeaderSize(16) + plain.length];
+        JinahyaEnvelope.writeHeader(JinahyaEnvelope.Algorithm.AES, JinahyaEnvelope.Mode.CTR, 0, 1,
+                                    Arrays.copyOf(iv, 16), relabeled, 0);
+        relabeled[JinahyaEnvelope.getHeaderSize(16) - 1] = 2;
+        System.arraycopy(encrypted, JinahyaEnvelope.getHeaderSize(12), relabeled, JinahyaEnvelope.getHeaderSize(16),
+                         plain.length);
+        assertThat(new JinahyaEnvelopeCrypto(JinahyaEnvelope.Algorithm.AES, JinahyaEnvelope.Mode.CTR, 0, KEYS::get)
+                           .decrypt(relabeled)).isEqualTo(plain); // hence, should never be accepted by the GCM one
+        assertThatThrownBy(() -> crypto.decrypt(relabeled)).isInstanceOf(IllegalArgumentException.class);
+        // a truncated tag
+        final var truncated = Arrays.copyOf(encrypted, encrypted.length - 4);
+        truncated[3] = 12;
+        assertThatThrownBy(() -> crypto.decrypt(truncated)).isInstanceOf(IllegalArgumentException.class);
+        // the header is bound as the associated text
+        final var keyId = encrypted.clone();
+        keyId[7] = 2;
+        assertThatThrownBy(() -> crypto.decrypt(keyId)).isInstanceOf(JinahyaCryptoException.class);
+        final var direct = ByteBuffer.allocateDirect(encrypted.length);
+        direct.put(encrypted).put(JinahyaEnvelope.FIXED_HEADER_BYTES, (byte) ~encrypted[9]).flip();
+        assertThatThrownBy(() -> crypto.decrypt(direct, ByteBuffer.allocate(64)))
+                .isInstanceOf(JinahyaCryptoException.class);
+        assertThat(crypto.decrypt(ByteBuffer.allocateDirect(encrypted.length).put(encrypted).flip(),
+                                  ByteBuffer.allocate(64))).isEqualTo(plain.length);
+    }
+
+    @Test
+    void decrypt__invalidHeader() {
+        final var crypto = new JinahyaEnvelopeCrypto(JinahyaEnvelope.Algorithm.AES, JinahyaEnvelope.Mode.CTR, 0,
+                                                     KEYS::get);
+        final var encrypted = crypto.encrypt(1, new byte[16], new byte[32]);
+        assertThatThrownBy(() -> crypto.decrypt(Arrays.copyOf(encrypted, 8)))
+                .isInstanceOf(IllegalArgumentException.class);
+        final var version = encrypted.clone();
+        version[0] = 2;
+        assertThatThrownBy(() -> crypto.decrypt(version)).isInstanceOf(IllegalArgumentException.class);
+        final var algorithm = encrypted.clone();
+        algorithm[1] = 0;
+        assertThatThrownBy(() -> crypto.decrypt(algorithm)).isInstanceOf(IllegalArgumentException.class);
+        final var keyId = encrypted.clone();
+        keyId[7] = 3;
+        assertThatThrownBy(() -> crypto.decrypt(keyId)).isInstanceOf(IllegalArgumentException.class);
+        final var tagLength = encrypted.clone();
+        tagLength[3] = 16;
+        assertThatThrownBy(() -> crypto.decrypt(tagLength)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void __invalidTagLength() {
+        assertThatThrownBy(() -> new JinahyaEnvelopeCrypto(JinahyaEnvelope.Algorithm.AES, JinahyaEnvelope.Mode.GCM,
+                                                           0, KEYS::get))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new JinahyaEnvelopeCrypto(JinahyaEnvelope.Algorithm.AES,
+                                                           JinahyaEnvelope.Mode.CBC_PKCS7, 16, KEYS::get))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,116 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaKnownAnswerTestRunnerTest {
+
+    private static final String NAME = "/symmetric/aes/KAT_AES.zip";
+
+    // the first vectors of ECBGFSbox128.rsp
+    private static final String RSP = """
+            # CAVS 11.1
+            # Config info for aes_values
+
+            [ENCRYPT]
+
+            COUNT = 0
+            KEY = 00000000000000000000000000000000
+            PLAINTEXT = f34481ec3cc627bacd5dc3fb08f273e6
+            CIPHERTEXT = 0336763e966d92595a567cc9ce537f5e
+
+            [DECRYPT]
+
+            COUNT = 0
+            KEY = 00000000000000000000000000000000
+            CIPHERTEXT = 0336763e966d92595a567cc9ce537f5e
+            PLAINTEXT = f34481ec3cc627bacd5dc3fb08f273e6
+            """;
+
+    private static byte[] zip(final String name, final String rsp) throws IOException {
+        final var baos = new ByteArrayOutputStream();
+        try (var zos = new ZipOutputStream(baos)) {
+            zos.putNextEntry(new ZipEntry(name));
+            zos.write(rsp.replace("\n", "\r\n").getBytes(StandardCharsets.US_ASCII));
+            zos.closeEntry();
+        }
+        return baos.toByteArray();
+    }
+
+    @Test
+    void run__KAT_AES() throws Exception {
+        final var runner = new JinahyaKnownAnswerTestRunner(AESEngine::newInstance);
+        try (var zip = getClass().getResourceAsStream(NAME)) {
+            final var result = runner.run(zip, Duration.ofMinutes(1L));
+            assertThat(result.getFailures()).isEmpty();
+            assertThat(result.isPassed()).isTrue();
+            assertThat(result.getEntries()).isEqualTo(60); // 5 modes * 4 kinds * 3 key sizes
+            assertThat(result.getVectors()).isPositive();
+            assertThat(result.getSkippedEntries())
+                    .filteredOn(n -> n.endsWith(".rsp"))
+                    .hasSize(12)
+                    .allSatisfy(n -> assertThat(n).startsWith("CFB1"));
+        }
+    }
+
+    @Test
+    void run__passed() throws Exception {
+        final var result = new JinahyaKnownAnswerTestRunner(AESEngine::newInstance, Runnable::run)
+                .run(new ByteArrayInputStream(zip("ECBGFSbox128.rsp", RSP)), Duration.ofSeconds(10L));
+        assertThat(result.isPassed()).isTrue();
+        assertThat(result.getEntries()).isEqualTo(1);
+        assertThat(result.getVectors()).isEqualTo(2L);
+    }
+
+    @Test
+    void run__tampered() throws Exception {
+        final var rsp = RSP.replaceFirst("CIPHERTEXT = 0", "CIPHERTEXT = 1");
+        final var result = new JinahyaKnownAnswerTestRunner(AESEngine::newInstance)
+                .run(new ByteArrayInputStream(zip("ECBGFSbox128.rsp", rsp)), Duration.ofSeconds(10L));
+        assertThat(result.isPassed()).isFalse();
+        assertThat(result.getFailures()).containsExactly("ECBGFSbox128.rsp ENCRYPT COUNT = 0");
+    }
+
+    @Test
+    void run__incomplete() throws Exception {
+        final var rsp = RSP.replaceFirst("CIPHERTEXT = 0336763e966d92595a567cc9ce537f5e\n", "");
+        final var result = new JinahyaKnownAnswerTestRunner(AESEngine::newInstance, Runnable::run)
+                .run(new ByteArrayInputStream(zip("ECBGFSbox128.rsp", rsp)), Duration.ofSeconds(10L));
+        assertThat(result.isPassed()).isFalse();
+        assertThat(result.getFailures()).containsExactly("ECBGFSbox128.rsp ENCRYPT COUNT = 0 (incomplete)");
+    }
+
+    @Test
+    void run__empty() throws Exception {
+        final var runner = new JinahyaKnownAnswerTestRunner(AESEngine::newInstance, Runnable::run);
+        // no recognized entry
+        final var none = runner.run(new ByteArrayInputStream(zip("CFB1GFSbox128.rsp", RSP)), Duration.ofSeconds(10L));
+        assertThat(none.getEntries()).isZero();
+        assertThat(none.isPassed()).isFalse();
+        // no vector
+        final var empty = runner.run(new ByteArrayInputStream(zip("ECBGFSbox128.rsp", "# CAVS 11.1\n")),
+                                     Duration.ofSeconds(10L));
+        assertThat(empty.getEntries()).isEqualTo(1);
+        assertThat(empty.getVectors()).isZero();
+        assertThat(empty.isPassed()).isFalse();
+    }
+
+    @Test
+    void run__timeout() {
+        final var runner = new JinahyaKnownAnswerTestRunner(AESEngine::newInstance);
+        assertThatThrownBy(() -> runner.run(new ByteArrayInputStream(zip("ECBGFSbox128.rsp", RSP)), Duration.ZERO))
+                .isInstanceOf(TimeoutException.class);
+    }
+}
@@ -0,0 +1,128 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import _javax.security._Random_TestUtils;
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherCrypto;
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.engines.ChaChaEngine;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.paddings.PKCS7Padding;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaPooledCryptoTest {
+
+    private static BufferedBlockCipher newCipher() {
+        return new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()), new PKCS7Padding());
+    }
+
+    @Test
+    void ofBufferedBlockCipher__concurrent() throws Exception {
+        final var params = new ParametersWithIV(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                _Random_TestUtils.newRandomBytes(16)
+        );
+        final var created = new AtomicInteger();
+        final var crypto = new JinahyaPooledCrypto(
+                () -> {
+                    created.incrementAndGet();
+                    return new JinahyaBufferedBlockCipherCrypto(newCipher(), params);
+                },
+                4
+        );
+        final var expected = new JinahyaBufferedBlockCipherCrypto(newCipher(), params);
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            final var tasks = IntStream.range(0, 256).<Callable<Void>>mapToObj(i -> () -> {
+                for (int j = 0; j < 16; j++) {
+                    final var plain = _Random_TestUtils.newRandomBytes(i + j);
+                    final var encrypted = crypto.encrypt(plain);
+                    synchronized (expected) {
+                        assertThat(encrypted).isEqualTo(expected.encrypt(plain));
+                    }
+                    assertThat(crypto.decrypt(encrypted)).isEqualTo(plain);
+                }
+                return null;
+            }).toList();
+            for (final var future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        }
+        assertThat(created.get()).isPositive();
+    }
+
+    @Test
+    void __reused() {
+        final var params = new ParametersWithIV(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                _Random_TestUtils.newRandomBytes(16)
+        );
+        final var created = new AtomicInteger();
+        final var crypto = new JinahyaPooledCrypto(
+                () -> {
+                    created.incrementAndGet();
+                    return new JinahyaBufferedBlockCipherCrypto(newCipher(), params);
+                },
+                1
+        );
+        for (int i = 0; i < 16; i++) {
+            final var plain = _Random_TestUtils.newRandomBytes(i);
+            assertThat(crypto.decrypt(crypto.encrypt(plain))).isEqualTo(plain);
+        }
+        assertThat(created).hasValue(2); // one for each direction
+    }
+
+    @Test
+    void ofStreamCipher__() {
+        final var params = new ParametersWithIV(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(32)),
+                _Random_TestUtils.newRandomBytes(8)
+        );
+        final var crypto = JinahyaPooledCrypto.ofStreamCipher(ChaChaEngine::new, params, 2);
+        final var expected = new JinahyaStreamCipherCrypto(new ChaChaEngine(), params);
+        _Random_TestUtils.getRandomBytesStream().forEach(plain -> {
+            final var encrypted = crypto.encrypt(plain);
+            assertThat(encrypted).isEqualTo(expected.encrypt(plain));
+            assertThat(crypto.decrypt(encrypted)).isEqualTo(plain);
+        });
+    }
+
+    @Test
+    void ofAEADCipher__() {
+        final var params = new AEADParameters(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                128,
+                _Random_TestUtils.newRandomBytes(12)
+        );
+        final var crypto = JinahyaPooledCrypto.ofAEADCipher(
+                () -> GCMBlockCipher.newInstance(AESEngine.newInstance()),
+                params,
+                2
+        );
+        final var plain = _Random_TestUtils.newRandomBytes(1024);
+        final var encrypted = new JinahyaAEADCipherCrypto(GCMBlockCipher.newInstance(AESEngine.newInstance()), params)
+                .encrypt(plain);
+        for (int i = 0; i < 4; i++) {
+            assertThat(crypto.decrypt(encrypted)).isEqualTo(plain);
+        }
+        // decrypt-only; the shared nonce would be reused across pooled cryptos
+        assertThatThrownBy(() -> crypto.encrypt(plain)).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> crypto.encrypt(ByteBuffer.wrap(plain), ByteBuffer.allocate(2048)))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> crypto.encryptAll(List.of(plain), new JinahyaCryptoArena()))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+}
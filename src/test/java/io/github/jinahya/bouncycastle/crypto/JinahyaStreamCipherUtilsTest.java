@@ -0,0 +1,129 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import _javax.security._Random_TestUtils;
+import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.engines.ChaCha7539Engine;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaStreamCipherUtilsTest {
+
+    private static final ParametersWithIV PARAMS = new ParametersWithIV(
+            new KeyParameter(_Random_TestUtils.newRandomBytes(32)),
+            _Random_TestUtils.newRandomBytes(12)
+    );
+
+    private static StreamCipher newCipher(final boolean encryption) {
+        final var cipher = new ChaCha7539Engine();
+        cipher.init(encryption, PARAMS);
+        return cipher;
+    }
+
+    private static byte[] expected(final byte[] in) {
+        return JinahyaStreamCipherUtils.processBytes(newCipher(true), in, 0, in.length);
+    }
+
+    private static Stream<Arguments> getAllocatorsAndLengthArgumentsStream() {
+        final IntFunction<ByteBuffer> heap = ByteBuffer::allocate;
+        final IntFunction<ByteBuffer> direct = ByteBuffer::allocateDirect;
+        return Stream.of(heap, direct).flatMap(a -> IntStream.of(0, 1, 63, 8192, 8193, 20000)
+                .mapToObj(l -> Arguments.of(a, l)));
+    }
+
+    @Test
+    void processBytes__exactSize() {
+        final var plain = _Random_TestUtils.newRandomBytes(1000);
+        final var encrypted = expected(plain);
+        assertThat(encrypted).hasSameSizeAs(plain);
+        assertThat(JinahyaStreamCipherUtils.processBytes(newCipher(false), encrypted, 0, encrypted.length))
+                .isEqualTo(plain);
+    }
+
+    @Test
+    void processBytes__callerBuffer() {
+        final var plain = _Random_TestUtils.newRandomBytes(1000);
+        final var out = new byte[plain.length + 10];
+        assertThat(JinahyaStreamCipherUtils.processBytes(newCipher(true), plain, 0, plain.length, out, 10))
+                .isEqualTo(plain.length);
+        assertThat(out).endsWith(expected(plain));
+        assertThatThrownBy(() -> JinahyaStreamCipherUtils.processBytes(newCipher(true), plain, 0, plain.length,
+                                                                        out, 11))
+                .isInstanceOf(OutputLengthException.class);
+    }
+
+    @Test
+    void processBytesInPlace__array() {
+        final var plain = _Random_TestUtils.newRandomBytes(1000);
+        final var buf = plain.clone();
+        assertThat(JinahyaStreamCipherUtils.processBytesInPlace(newCipher(true), buf, 0, buf.length))
+                .isEqualTo(buf.length);
+        assertThat(buf).isEqualTo(expected(plain));
+        JinahyaStreamCipherUtils.processBytesInPlace(newCipher(false), buf, 0, buf.length);
+        assertThat(buf).isEqualTo(plain);
+    }
+
+    @MethodSource({"getAllocatorsAndLengthArgumentsStream"})
+    @ParameterizedTest
+    void processBytes__buffers(final IntFunction<ByteBuffer> allocator, final int length) {
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var input = allocator.apply(length).put(plain).flip();
+        final var output = allocator.apply(length);
+        assertThat(JinahyaStreamCipherUtils.processBytes(newCipher(true), input, output)).isEqualTo(length);
+        assertThat(input.hasRemaining()).isFalse();
+        assertThat(output.hasRemaining()).isFalse();
+        final var encrypted = new byte[length];
+        output.flip().get(encrypted);
+        assertThat(encrypted).isEqualTo(expected(plain));
+    }
+
+    @MethodSource({"getAllocatorsAndLengthArgumentsStream"})
+    @ParameterizedTest
+    void processBytesInPlace__buffer(final IntFunction<ByteBuffer> allocator, final int length) {
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var buffer = allocator.apply(length).put(plain).flip();
+        assertThat(JinahyaStreamCipherUtils.processBytesInPlace(newCipher(true), buffer)).isEqualTo(length);
+        assertThat(buffer.hasRemaining()).isFalse();
+        final var encrypted = new byte[length];
+        buffer.flip().get(encrypted);
+        assertThat(encrypted).isEqualTo(expected(plain));
+    }
+
+    @Test
+    void processBytes__outputTooShort() {
+        final var input = ByteBuffer.allocate(10);
+        final var output = ByteBuffer.allocateDirect(9);
+        assertThatThrownBy(() -> JinahyaStreamCipherUtils.processBytes(newCipher(true), input, output))
+                .isInstanceOf(OutputLengthException.class);
+        assertThat(input.position()).isZero();
+    }
+
+    @Test
+    void processAllBytes__pooledOutbuf() throws Exception {
+        final var plain = _Random_TestUtils.newRandomBytes(10000);
+        final var encrypted = expected(plain);
+        final var out = new ByteArrayOutputStream();
+        final var inbuf = new byte[100];
+        assertThat(JinahyaStreamCipherUtils.processAllBytes(newCipher(false), new ByteArrayInputStream(encrypted), out,
+                                                             inbuf, null))
+                .isEqualTo(plain.length);
+        assertThat(out.toByteArray()).isEqualTo(plain);
+        // the caller's inbuf holds only what was read; no decrypted bytes are left in it
+        assertThat(inbuf).isEqualTo(Arrays.copyOfRange(encrypted, encrypted.length - inbuf.length, encrypted.length));
+    }
+}
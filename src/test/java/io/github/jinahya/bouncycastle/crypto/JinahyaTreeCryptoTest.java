@@ -0,0 +1,133 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import _javax.security._Random_TestUtils;
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaParallelCTRCrypto;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.paddings.PKCS7Padding;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JinahyaTreeCryptoTest {
+
+    private static final JinahyaTreeCrypto.Listener NOOP = (f, i, o) -> {
+    };
+
+    private static Function<byte[], JinahyaCrypto> newCbcCryptoFactory() {
+        final var key = new KeyParameter(_Random_TestUtils.newRandomBytes(16));
+        return iv -> new JinahyaBufferedBlockCipherCrypto(
+                new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()),
+                                              new PKCS7Padding()),
+                new ParametersWithIV(key, iv)
+        );
+    }
+
+    private static int populate(final Path source) throws IOException {
+        var count = 0;
+        for (int d = 0; d < 3; d++) {
+            final var directory = Files.createDirectories(source.resolve("d" + d).resolve("e" + d));
+            for (int f = 0; f < 10; f++) {
+                final var length = f == 0 ? 300000 : ThreadLocalRandom.current().nextInt(2000);
+                Files.write(directory.resolve("f" + f + ".txt"), _Random_TestUtils.newRandomBytes(length));
+                count++;
+            }
+        }
+        Files.write(source.resolve("root.bin"), _Random_TestUtils.newRandomBytes(10));
+        return count + 1;
+    }
+
+    private static void assertSameTree(final Path expected, final Path actual) throws IOException {
+        try (var paths = Files.walk(expected)) {
+            for (final var path : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+                assertThat(actual.resolve(expected.relativize(path).toString())).hasSameBinaryContentAs(path);
+            }
+        }
+    }
+
+    @Test
+    void __roundTrip(@TempDir final Path dir) throws IOException {
+        final var source = Files.createDirectory(dir.resolve("source"));
+        final var count = populate(source);
+        final var pool = new ForkJoinPool(4);
+        try {
+            final var crypto = new JinahyaTreeCrypto(newCbcCryptoFactory(), 16, pool, 4096L);
+            final var processed = ConcurrentHashMap.<Path>newKeySet();
+            final var encrypted = crypto.encrypt(source, dir.resolve("encrypted"), (p, a) -> true,
+                                                 (f, i, o) -> processed.add(f));
+            assertThat(encrypted.getProcessedFiles()).isEqualTo(count);
+            assertThat(encrypted.getSkippedFiles()).isZero();
+            assertThat(processed).hasSize(count);
+            final var decrypted = crypto.decrypt(dir.resolve("encrypted"), dir.resolve("decrypted"),
+                                                 (p, a) -> !p.getFileName().toString().startsWith("."), NOOP);
+            assertThat(decrypted.getOutputBytes()).isEqualTo(encrypted.getInputBytes());
+            assertSameTree(source, dir.resolve("decrypted"));
+            // each file has its own iv
+            final var ivs = new HashSet<String>();
+            try (var paths = Files.walk(dir.resolve("encrypted"))) {
+                for (final var path : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+                    if (!path.endsWith(JinahyaTreeCrypto.MANIFEST_FILE_NAME)) {
+                        assertThat(ivs.add(HexFormat.of().formatHex(Files.readAllBytes(path), 0, 16))).isTrue();
+                    }
+                }
+            }
+            assertThat(ivs).hasSize(count);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void __restart(@TempDir final Path dir) throws IOException {
+        final var source = Files.createDirectory(dir.resolve("source"));
+        final var count = populate(source);
+        final var target = dir.resolve("target");
+        final var crypto = new JinahyaTreeCrypto(newCbcCryptoFactory(), 16);
+        final var first = crypto.encrypt(source, target, (p, a) -> p.toString().contains("d1"), NOOP);
+        assertThat(first.getProcessedFiles()).isEqualTo(10L);
+        Files.write(source.resolve("root.bin"), _Random_TestUtils.newRandomBytes(11));
+        final Set<Path> processed = ConcurrentHashMap.newKeySet();
+        final var second = crypto.encrypt(source, target, (p, a) -> true, (f, i, o) -> processed.add(f));
+        assertThat(second.getSkippedFiles()).isEqualTo(10L);
+        assertThat(second.getProcessedFiles()).isEqualTo(count - 10L);
+        assertThat(processed).noneMatch(p -> p.toString().contains("d1"));
+        final var third = crypto.encrypt(source, target, (p, a) -> true, NOOP);
+        assertThat(third.getProcessedFiles()).isZero();
+        assertThat(third.getSkippedFiles()).isEqualTo(count);
+    }
+
+    @Test
+    void __parallelCrypto(@TempDir final Path dir) throws IOException {
+        final var source = Files.createDirectory(dir.resolve("source"));
+        populate(source);
+        final var pool = new ForkJoinPool(4);
+        try {
+            final var key = new KeyParameter(_Random_TestUtils.newRandomBytes(16));
+            final var tree = new JinahyaTreeCrypto(
+                    iv -> new JinahyaParallelCTRCrypto(AESEngine::newInstance, new ParametersWithIV(key, iv), pool,
+                                                       65536),
+                    16, pool, JinahyaTreeCrypto.DEFAULT_BATCH_BYTES);
+            tree.encrypt(source, dir.resolve("encrypted"), (p, a) -> true, NOOP);
+            tree.decrypt(dir.resolve("encrypted"), dir.resolve("decrypted"),
+                         (p, a) -> !p.endsWith(JinahyaTreeCrypto.MANIFEST_FILE_NAME), NOOP);
+            assertSameTree(source, dir.resolve("decrypted"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import _javax.security._Random_TestUtils;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoArena;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoException;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.AEADCipher;
+import org.bouncycastle.crypto.modes.CCMBlockCipher;
+import org.bouncycastle.crypto.modes.ChaCha20Poly1305;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.modes.OCBBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaAEADCipherCryptoTest {
+
+    private static final KeyParameter KEY = new KeyParameter(_Random_TestUtils.newRandomBytes(32));
+
+    private static Stream<Arguments> getCipherSuppliersAndParamsArgumentsStream() {
+        return Stream.of(
+                Arguments.of((Supplier<AEADCipher>) () -> GCMBlockCipher.newInstance(AESEngine.newInstance()),
+                             new AEADParameters(KEY, 128, new byte[12]), 12),
+                Arguments.of((Supplier<AEADCipher>) () -> CCMBlockCipher.newInstance(AESEngine.newInstance()),
+                             new AEADParameters(KEY, 64, new byte[13]), 13),
+                Arguments.of((Supplier<AEADCipher>) ChaCha20Poly1305::new,
+                             new ParametersWithIV(KEY, new byte[12]), 12)
+        );
+    }
+
+    /**
+     * Returns parameters of specified parameters, with specified nonce, and associated text.
+     */
+    private static CipherParameters with(final CipherParameters params, final byte[] nonce, final byte[] aad) {
+        if (params instanceof AEADParameters p) {
+            return new AEADParameters(p.getKey(), p.getMacSize(), nonce, aad);
+        }
+        final var p = (ParametersWithIV) params;
+        final var key = (KeyParameter) p.getParameters();
+        return new AEADParameters(key, 128, nonce, aad);
+    }
+
+    @MethodSource({"getCipherSuppliersAndParamsArgumentsStream"})
+    @ParameterizedTest
+    void __bytes(final Supplier<AEADCipher> cipherSupplier, final CipherParameters params, final int nonceLength) {
+        final var crypto = new JinahyaAEADCipherCrypto(cipherSupplier.get(), params);
+        for (int i = 0; i < 8; i++) {
+            final var nonce = _Random_TestUtils.newRandomBytes(nonceLength);
+            final var aad = i % 2 == 0 ? null : _Random_TestUtils.newRandomBytes(i * 7);
+            final var plain = _Random_TestUtils.newRandomBytes(i * 17);
+            final var encrypted = crypto.encrypt(nonce, aad, plain);
+            final var expected = new JinahyaAEADCipherCrypto(cipherSupplier.get(), with(params, nonce, aad))
+                    .encrypt(plain);
+            assertThat(encrypted).isEqualTo(expected);
+            assertThat(crypto.decrypt(nonce, aad, encrypted)).isEqualTo(plain);
+        }
+        // still works with the params
+        final var plain = _Random_TestUtils.newRandomBytes(31);
+        final var encrypted = crypto.encrypt(plain);
+        assertThat(encrypted).isEqualTo(new JinahyaAEADCipherCrypto(cipherSupplier.get(), params).encrypt(plain));
+        assertThat(crypto.decrypt(encrypted)).isEqualTo(plain);
+    }
+
+    @MethodSource({"getCipherSuppliersAndParamsArgumentsStream"})
+    @ParameterizedTest
+    void __buffers(final Supplier<AEADCipher> cipherSupplier, final CipherParameters params, final int nonceLength) {
+        final var crypto = new JinahyaAEADCipherCrypto(cipherSupplier.get(), params);
+        final var nonce = _Random_TestUtils.newRandomBytes(nonceLength);
+        final var aad = _Random_TestUtils.newRandomBytes(20000); // larger than the staging window
+        final var plain = _Random_TestUtils.newRandomBytes(1000);
+        final var encrypted = ByteBuffer.allocate(1024);
+        final var direct = ByteBuffer.allocateDirect(aad.length).put(aad).flip();
+        final var written = crypto.encrypt(nonce, direct, ByteBuffer.wrap(plain), encrypted);
+        assertThat(direct.hasRemaining()).isFalse();
+        assertThat(encrypted.flip().remaining()).isEqualTo(written);
+        assertThat(crypto.decrypt(nonce, aad, Arrays.copyOf(encrypted.array(), written))).isEqualTo(plain);
+        final var decrypted = ByteBuffer.allocateDirect(1024);
+        assertThat(crypto.decrypt(nonce, ByteBuffer.wrap(aad), encrypted, decrypted)).isEqualTo(plain.length);
+        assertThat(decrypted.flip()).isEqualTo(ByteBuffer.wrap(plain));
+    }
+
+    @MethodSource({"getCipherSuppliersAndParamsArgumentsStream"})
+    @ParameterizedTest
+    void __streams(final Supplier<AEADCipher> cipherSupplier, final CipherParameters params, final int nonceLength)
+            throws IOException {
+        final var crypto = new JinahyaAEADCipherCrypto(cipherSupplier.get(), params);
+        final var nonce = _Random_TestUtils.newRandomBytes(nonceLength);
+        final var aad = _Random_TestUtils.newRandomBytes(5000);
+        final var plain = _Random_TestUtils.newRandomBytes(3000);
+        final var encrypted = new ByteArrayOutputStream();
+        crypto.encrypt(nonce, new ByteArrayInputStream(aad), new ByteArrayInputStream(plain), encrypted,
+                       new byte[128]);
+        assertThat(crypto.decrypt(nonce, aad, encrypted.toByteArray())).isEqualTo(plain);
+        final var decrypted = new ByteArrayOutputStream();
+        crypto.decrypt(nonce, new ByteArrayInputStream(aad), new ByteArrayInputStream(encrypted.toByteArray()),
+                       decrypted, new byte[128]);
+        assertThat(decrypted.toByteArray()).isEqualTo(plain);
+    }
+
+    @MethodSource({"getCipherSuppliersAndParamsArgumentsStream"})
+    @ParameterizedTest
+    void __all(final Supplier<AEADCipher> cipherSupplier, final CipherParameters params, final int nonceLength) {
+        final var crypto = new JinahyaAEADCipherCrypto(cipherSupplier.get(), params);
+        final var nonces = IntStream.range(0, 8).mapToObj(i -> _Random_TestUtils.newRandomBytes(nonceLength)).toList();
+        final var messages = IntStream.range(0, 8).mapToObj(i -> _Random_TestUtils.newRandomBytes(i * 17)).toList();
+        final var encrypted = crypto.encryptAll(nonces, messages, new JinahyaCryptoArena());
+        assertThat(encrypted.count()).isEqualTo(messages.size());
+        final var ciphertexts = new ArrayList<byte[]>();
+        for (int i = 0; i < encrypted.count(); i++) {
+            ciphertexts.add(encrypted.copyOf(i));
+            final var expected = new JinahyaAEADCipherCrypto(cipherSupplier.get(), params)
+                    .encrypt(nonces.get(i), (byte[]) null, messages.get(i));
+            assertThat(ciphertexts.get(i)).isEqualTo(expected);
+        }
+        final var decrypted = crypto.decryptAll(nonces, ciphertexts, new JinahyaCryptoArena());
+        for (int i = 0; i < decrypted.count(); i++) {
+            assertThat(decrypted.copyOf(i)).isEqualTo(messages.get(i));
+        }
+        assertThatThrownBy(() -> crypto.encryptAll(nonces.subList(1, 8), messages, new JinahyaCryptoArena()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void encryptAll__singleNonce() {
+        final var params = new AEADParameters(KEY, 128, _Random_TestUtils.newRandomBytes(12));
+        final var crypto = new JinahyaAEADCipherCrypto(GCMBlockCipher.newInstance(AESEngine.newInstance()), params);
+        final var messages = List.of(new byte[1], new byte[2]);
+        // rejected up front, with nothing appended
+        final var arena = new JinahyaCryptoArena();
+        assertThatThrownBy(() -> crypto.encryptAll(messages, arena)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> crypto.encryptAll(new byte[3], new int[]{0, 1, 3}, arena))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(arena.count()).isZero();
+        // a single message is fine
+        assertThat(crypto.encryptAll(List.of(new byte[1]), arena).count()).isEqualTo(1);
+    }
+
+    @Test
+    void decrypt__tamperedAad() {
+        final var crypto = new JinahyaAEADCipherCrypto(GCMBlockCipher.newInstance(AESEngine.newInstance()),
+                                                       new AEADParameters(KEY, 128, new byte[12]));
+        final var nonce = _Random_TestUtils.newRandomBytes(12);
+        final var aad = _Random_TestUtils.newRandomBytes(16);
+        final var encrypted = crypto.encrypt(nonce, aad, new byte[10]);
+        aad[0] ^= 1;
+        assertThatThrownBy(() -> crypto.decrypt(nonce, aad, encrypted)).isInstanceOf(JinahyaCryptoException.class);
+    }
+
+    @Test
+    void encrypt__reusedNonce() {
+        final var crypto = new JinahyaAEADCipherCrypto(GCMBlockCipher.newInstance(AESEngine.newInstance()),
+                                                       new AEADParameters(KEY, 128, new byte[12]));
+        final var nonce = _Random_TestUtils.newRandomBytes(12);
+        crypto.encrypt(nonce, (byte[]) null, new byte[1]);
+        assertThatThrownBy(() -> crypto.encrypt(nonce, (byte[]) null, new byte[1]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void __ocb() {
+        final var crypto = new JinahyaAEADCipherCrypto(
+                new OCBBlockCipher(AESEngine.newInstance(), AESEngine.newInstance()),
+                new AEADParameters(KEY, 128, new byte[12]));
+        for (int i = 0; i < 4; i++) {
+            // the direction changes for each message
+            final var nonce = _Random_TestUtils.newRandomBytes(12);
+            final var plain = _Random_TestUtils.newRandomBytes(i * 33);
+            final var encrypted = crypto.encrypt(nonce, (byte[]) null, plain);
+            assertThat(crypto.decrypt(nonce, (byte[]) null, encrypted)).isEqualTo(plain);
+            assertThat(crypto.decrypt(crypto.encrypt(plain))).isEqualTo(plain);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import _javax.security._Random_TestUtils;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.AEADCipher;
+import org.bouncycastle.crypto.modes.CCMBlockCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaAEADCipherUtilsTest {
+
+    private static Stream<Arguments> getCipherAllocatorsAndLengthArgumentsStream() {
+        final IntFunction<ByteBuffer> heap = ByteBuffer::allocate;
+        final IntFunction<ByteBuffer> direct = ByteBuffer::allocateDirect;
+        final Supplier<AEADCipher> gcm = () -> GCMBlockCipher.newInstance(AESEngine.newInstance());
+        final Supplier<AEADCipher> ccm = () -> CCMBlockCipher.newInstance(AESEngine.newInstance());
+        return Stream.of(gcm, ccm).flatMap(c -> Stream.of(
+                Arguments.of(heap, direct),
+                Arguments.of(direct, heap),
+                Arguments.of(direct, direct)
+        ).flatMap(a -> IntStream.of(0, 1, 16, 8191, 8193, 65537)
+                .mapToObj(l -> Arguments.of(c, a.get()[0], a.get()[1], l))));
+    }
+
+    private static ByteBuffer buffer(final IntFunction<ByteBuffer> allocator, final byte[] bytes) {
+        return allocator.apply(bytes.length).put(bytes).flip();
+    }
+
+    private static byte[] bytes(final ByteBuffer buffer) {
+        final var bytes = new byte[buffer.flip().remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    @Nested
+    class ProcessBytesAndDoFinal_ByteBuffer_Test {
+
+        @MethodSource({"io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherUtilsTest"
+                       + "#getCipherAllocatorsAndLengthArgumentsStream"})
+        @ParameterizedTest
+        void __(final Supplier<AEADCipher> cipherSupplier, final IntFunction<ByteBuffer> inputAllocator,
+                final IntFunction<ByteBuffer> outputAllocator, final int length)
+                throws Exception {
+            final var params = new AEADParameters(
+                    new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                    128,
+                    _Random_TestUtils.newRandomBytes(12)
+            );
+            final var plain = _Random_TestUtils.newRandomBytes(length);
+            final var cipher = cipherSupplier.get();
+            // ------------------------------------------------------------------------------------------------ expected
+            cipher.init(true, params);
+            final byte[] expected;
+            {
+                final var out = new byte[cipher.getOutputSize(length)];
+                final var outlen = JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, plain, 0, length, out, 0);
+                expected = Arrays.copyOf(out, outlen);
+            }
+            // ------------------------------------------------------------------------------------------------- encrypt
+            final var another = cipherSupplier.get();
+            another.init(true, params);
+            final var encrypted = outputAllocator.apply(another.getOutputSize(length));
+            JinahyaAEADCipherUtils.processBytesAndDoFinal(
+                    another,
+                    buffer(inputAllocator, plain),
+                    encrypted,
+                    new byte[17],
+                    null
+            );
+            final var ciphertext = bytes(encrypted);
+            assertThat(ciphertext).isEqualTo(expected);
+            // ------------------------------------------------------------------------------------------------- decrypt
+            another.init(false, params);
+            final var decrypted = inputAllocator.apply(another.getOutputSize(ciphertext.length));
+            JinahyaAEADCipherUtils.processBytesAndDoFinal(another, buffer(outputAllocator, ciphertext), decrypted);
+            assertThat(bytes(decrypted)).isEqualTo(plain);
+        }
+
+        @Test
+        void __tamperedTag() throws Exception {
+            final var params = new AEADParameters(
+                    new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                    128,
+                    _Random_TestUtils.newRandomBytes(12)
+            );
+            final var plain = _Random_TestUtils.newRandomBytes(20000);
+            final var cipher = GCMBlockCipher.newInstance(AESEngine.newInstance());
+            cipher.init(true, params);
+            final var ciphertext = new byte[cipher.getOutputSize(plain.length)];
+            JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, plain, 0, plain.length, ciphertext, 0);
+            ciphertext[ciphertext.length - 1] ^= 1;
+            for (final var allocator : List.<IntFunction<ByteBuffer>>of(ByteBuffer::allocate,
+                                                                       ByteBuffer::allocateDirect)) {
+                cipher.init(false, params);
+                final var input = ByteBuffer.allocateDirect(ciphertext.length).put(ciphertext).flip();
+                final var output = allocator.apply(plain.length + 10).position(10);
+                final var outbuf = new byte[64];
+                assertThatThrownBy(() -> JinahyaAEADCipherUtils.processBytesAndDoFinal(
+                        cipher, input, output, new byte[1024], outbuf))
+                        .isInstanceOf(InvalidCipherTextException.class);
+                // no unauthenticated plaintext left, and nothing consumed
+                assertThat(input.position()).isZero();
+                assertThat(output.position()).isEqualTo(10);
+                assertThat(bytes(output.position(plain.length + 10))).containsOnly(0);
+                assertThat(outbuf).containsOnly(0);
+            }
+        }
+
+        @Test
+        void __tamperedTag_arrayBacked() throws Exception {
+            final var params = new AEADParameters(
+                    new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                    128,
+                    _Random_TestUtils.newRandomBytes(12)
+            );
+            final var plain = _Random_TestUtils.newRandomBytes(1024);
+            final var cipher = GCMBlockCipher.newInstance(AESEngine.newInstance());
+            cipher.init(true, params);
+            final var ciphertext = new byte[cipher.getOutputSize(plain.length)];
+            JinahyaAEADCipherUtils.processBytesAndDoFinal(cipher, plain, 0, plain.length, ciphertext, 0);
+            ciphertext[ciphertext.length - 1] ^= 1;
+            cipher.init(false, params);
+            final var output = ByteBuffer.allocate(plain.length + 64);
+            final var trailing = _Random_TestUtils.newRandomBytes(64);
+            output.put(plain.length, trailing);
+            assertThatThrownBy(() -> JinahyaAEADCipherUtils.processBytesAndDoFinal(
+                    cipher, ByteBuffer.wrap(ciphertext), output))
+                    .isInstanceOf(InvalidCipherTextException.class);
+            // only the bytes the call may have written are wiped
+            assertThat(output.position()).isZero();
+            assertThat(Arrays.copyOfRange(output.array(), 0, plain.length)).containsOnly(0);
+            assertThat(Arrays.copyOfRange(output.array(), plain.length, plain.length + 64)).isEqualTo(trailing);
+        }
+    }
+}
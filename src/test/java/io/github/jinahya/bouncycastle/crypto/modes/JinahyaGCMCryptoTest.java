@@ -0,0 +1,92 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import _javax.security._Random_TestUtils;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoException;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaGCMCryptoTest {
+
+    @EnumSource(JinahyaGCMCrypto.Multiplier.class)
+    @ParameterizedTest
+    void __(final JinahyaGCMCrypto.Multiplier multiplier) {
+        final var key = new KeyParameter(_Random_TestUtils.newRandomBytes(16));
+        final var crypto = new JinahyaGCMCrypto(AESEngine::newInstance, key, 96, multiplier);
+        for (int i = 0; i < 16; i++) {
+            final var nonce = _Random_TestUtils.newRandomBytes(12);
+            final var aad = i % 2 == 0 ? null : _Random_TestUtils.newRandomBytes(i);
+            final var plain = _Random_TestUtils.newRandomBytes(i * 13);
+            final var encrypted = crypto.encrypt(nonce, aad, plain);
+            // identical to a freshly keyed cipher
+            final var expected = new JinahyaAEADCipherCrypto(GCMBlockCipher.newInstance(AESEngine.newInstance()),
+                                                             new AEADParameters(key, 96, nonce, aad))
+                    .encrypt(plain);
+            assertThat(encrypted).isEqualTo(expected);
+            assertThat(crypto.decrypt(nonce, aad, encrypted)).isEqualTo(plain);
+        }
+    }
+
+    @Test
+    void __buffers() {
+        final var crypto = new JinahyaGCMCrypto(AESEngine::newInstance,
+                                                new KeyParameter(_Random_TestUtils.newRandomBytes(32)));
+        final var nonce = _Random_TestUtils.newRandomBytes(12);
+        final var plain = _Random_TestUtils.newRandomBytes(100);
+        final var encrypted = ByteBuffer.allocateDirect(128);
+        assertThat(crypto.encrypt(nonce, null, ByteBuffer.wrap(plain), encrypted)).isEqualTo(116);
+        final var decrypted = ByteBuffer.allocate(128);
+        assertThat(crypto.decrypt(nonce, null, encrypted.flip(), decrypted)).isEqualTo(100);
+        assertThat(decrypted.flip()).isEqualTo(ByteBuffer.wrap(plain));
+    }
+
+    @Test
+    void decrypt__tampered() {
+        final var crypto = new JinahyaGCMCrypto(AESEngine::newInstance,
+                                                new KeyParameter(_Random_TestUtils.newRandomBytes(16)));
+        final var nonce = _Random_TestUtils.newRandomBytes(12);
+        final var aad = _Random_TestUtils.newRandomBytes(8);
+        final var encrypted = crypto.encrypt(nonce, aad, new byte[10]);
+        aad[0] ^= 1;
+        assertThatThrownBy(() -> crypto.decrypt(nonce, aad, encrypted)).isInstanceOf(JinahyaCryptoException.class);
+    }
+
+    @Test
+    void encrypt__reusedNonce() {
+        final var crypto = new JinahyaGCMCrypto(AESEngine::newInstance,
+                                                new KeyParameter(_Random_TestUtils.newRandomBytes(16)));
+        final var nonce = _Random_TestUtils.newRandomBytes(12);
+        crypto.encrypt(nonce, null, new byte[1]);
+        assertThatThrownBy(() -> crypto.encrypt(nonce, null, new byte[1]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void __concurrent() {
+        final var key = new KeyParameter(_Random_TestUtils.newRandomBytes(16));
+        final var crypto = new JinahyaGCMCrypto(AESEngine::newInstance, key, 128,
+                                                JinahyaGCMCrypto.Multiplier.TABLES_64K);
+        final var futures = new ArrayList<CompletableFuture<Void>>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 100; i++) {
+                    final var nonce = _Random_TestUtils.newRandomBytes(12);
+                    final var plain = _Random_TestUtils.newRandomBytes(i);
+                    assertThat(crypto.decrypt(nonce, null, crypto.encrypt(nonce, null, plain))).isEqualTo(plain);
+                }
+            }));
+        }
+        futures.forEach(CompletableFuture::join);
+    }
+}
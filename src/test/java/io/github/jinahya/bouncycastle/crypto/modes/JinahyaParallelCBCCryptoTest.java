@@ -0,0 +1,186 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import _javax.security._Random_TestUtils;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoException;
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.engines.ARIAEngine;
+import org.bouncycastle.crypto.engines.LEAEngine;
+import org.bouncycastle.crypto.engines.SEEDEngine;
+import org.bouncycastle.crypto.paddings.PKCS7Padding;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaParallelCBCCryptoTest {
+
+    private static final int SEGMENT_SIZE = 256;
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(4);
+
+    @AfterAll
+    static void shutdownExecutor() {
+        EXECUTOR.shutdown();
+    }
+
+    private static Stream<Arguments> getEnginesAndLengthsArgumentsStream() {
+        return Stream.<Supplier<BlockCipher>>of(AESEngine::newInstance, ARIAEngine::new, LEAEngine::new,
+                                                SEEDEngine::new)
+                .flatMap(s -> IntStream.of(0, 1, 16, 255, 256, 257, 1000, 4096)
+                        .mapToObj(l -> Arguments.of(s, l)));
+    }
+
+    private static ParametersWithIV newParams() {
+        return new ParametersWithIV(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                _Random_TestUtils.newRandomBytes(16)
+        );
+    }
+
+    private static JinahyaParallelCBCCrypto newCrypto(final Supplier<BlockCipher> engineSupplier,
+                                                      final ParametersWithIV params) {
+        return new JinahyaParallelCBCCrypto(engineSupplier, new PKCS7Padding(), params, EXECUTOR, SEGMENT_SIZE);
+    }
+
+    @MethodSource({"getEnginesAndLengthsArgumentsStream"})
+    @ParameterizedTest
+    void __bytes(final Supplier<BlockCipher> engineSupplier, final int length) {
+        final var params = newParams();
+        final var crypto = newCrypto(engineSupplier, params);
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var encrypted = crypto.encrypt(plain);
+        assertThat(crypto.decrypt(encrypted)).isEqualTo(plain);
+    }
+
+    @MethodSource({"getEnginesAndLengthsArgumentsStream"})
+    @ParameterizedTest
+    void __directBuffers(final Supplier<BlockCipher> engineSupplier, final int length) {
+        final var params = newParams();
+        final var crypto = newCrypto(engineSupplier, params);
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var encrypted = crypto.encrypt(plain);
+        final var input = ByteBuffer.allocateDirect(encrypted.length).put(encrypted).flip();
+        final var output = ByteBuffer.allocateDirect(encrypted.length);
+        assertThat(crypto.decrypt(input, output)).isEqualTo(length);
+        assertThat(input.hasRemaining()).isFalse();
+        final var decrypted = new byte[length];
+        output.flip().get(decrypted);
+        assertThat(decrypted).isEqualTo(plain);
+    }
+
+    @MethodSource({"getEnginesAndLengthsArgumentsStream"})
+    @ParameterizedTest
+    void __stream(final Supplier<BlockCipher> engineSupplier, final int length) throws Exception {
+        final var params = newParams();
+        final var crypto = newCrypto(engineSupplier, params);
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var encrypted = crypto.encrypt(plain);
+        final var out = new ByteArrayOutputStream();
+        assertThat(crypto.decrypt(new ByteArrayInputStream(encrypted), out, new byte[SEGMENT_SIZE * 2 + 1]))
+                .isEqualTo(length);
+        assertThat(out.toByteArray()).isEqualTo(plain);
+    }
+
+    @MethodSource({"getEnginesAndLengthsArgumentsStream"})
+    @ParameterizedTest
+    void __fileChannel(final Supplier<BlockCipher> engineSupplier, final int length, @TempDir final Path dir)
+            throws Exception {
+        final var params = newParams();
+        final var crypto = newCrypto(engineSupplier, params);
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var source = Files.write(dir.resolve("encrypted"), crypto.encrypt(plain));
+        final var target = dir.resolve("decrypted");
+        try (var input = FileChannel.open(source);
+             var output = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            assertThat(crypto.decrypt(input, output)).isEqualTo(length);
+        }
+        assertThat(Files.readAllBytes(target)).isEqualTo(plain);
+    }
+
+    @Test
+    void __noPadding() {
+        final var params = newParams();
+        final var crypto = new JinahyaParallelCBCCrypto(AESEngine::newInstance, null, params, EXECUTOR,
+                                                        SEGMENT_SIZE);
+        final var plain = _Random_TestUtils.newRandomBytes(SEGMENT_SIZE * 3 + 16);
+        final var encrypted = crypto.encrypt(plain);
+        assertThat(encrypted).hasSameSizeAs(plain);
+        assertThat(crypto.decrypt(encrypted)).isEqualTo(plain);
+        assertThatThrownBy(() -> crypto.decrypt(new byte[17])).isInstanceOf(DataLengthException.class);
+    }
+
+    @Test
+    void __invalidPadding() {
+        final var params = newParams();
+        final var plain = _Random_TestUtils.newRandomBytes(SEGMENT_SIZE * 2);
+        plain[plain.length - 1] = 0; // never a valid PKCS7 pad
+        final var encrypted = new JinahyaParallelCBCCrypto(AESEngine::newInstance, null, params, EXECUTOR,
+                                                           SEGMENT_SIZE).encrypt(plain);
+        final var crypto = newCrypto(AESEngine::newInstance, params);
+        assertThatThrownBy(() -> crypto.decrypt(encrypted)).isInstanceOf(JinahyaCryptoException.class);
+    }
+
+    @MethodSource({"getEnginesAndLengthsArgumentsStream"})
+    @ParameterizedTest
+    void __streamWithSmallBuffer(final Supplier<BlockCipher> engineSupplier, final int length) throws Exception {
+        final var params = newParams();
+        final var crypto = newCrypto(engineSupplier, params);
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var encrypted = crypto.encrypt(plain);
+        final var out = new ByteArrayOutputStream();
+        final var inbuf = new byte[32];
+        assertThat(crypto.decrypt(new ByteArrayInputStream(encrypted), out, inbuf)).isEqualTo(length);
+        assertThat(out.toByteArray()).isEqualTo(plain);
+        assertThat(inbuf).containsOnly(0); // not used
+    }
+
+    @MethodSource({"getEnginesAndLengthsArgumentsStream"})
+    @ParameterizedTest
+    void __inPlace(final Supplier<BlockCipher> engineSupplier, final int length) {
+        final var params = newParams();
+        final var crypto = newCrypto(engineSupplier, params);
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var encrypted = crypto.encrypt(plain);
+        for (final var buffer : new ByteBuffer[]{ByteBuffer.wrap(encrypted.clone()),
+                                                 ByteBuffer.allocateDirect(encrypted.length).put(encrypted).flip()}) {
+            assertThat(crypto.decrypt(buffer, buffer.duplicate())).isEqualTo(length);
+            final var decrypted = new byte[length];
+            buffer.flip().get(decrypted);
+            assertThat(decrypted).isEqualTo(plain);
+        }
+    }
+
+    @Test
+    void __partialOverlap() {
+        final var params = newParams();
+        final var crypto = newCrypto(AESEngine::newInstance, params);
+        final var encrypted = crypto.encrypt(_Random_TestUtils.newRandomBytes(SEGMENT_SIZE * 3));
+        final var array = new byte[encrypted.length + 16];
+        System.arraycopy(encrypted, 0, array, 0, encrypted.length);
+        assertThatThrownBy(() -> crypto.decrypt(ByteBuffer.wrap(array, 0, encrypted.length),
+                                                ByteBuffer.wrap(array, 16, encrypted.length)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
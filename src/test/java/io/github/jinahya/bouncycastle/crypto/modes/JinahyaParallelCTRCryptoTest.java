@@ -0,0 +1,140 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import _javax.security._Random_TestUtils;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaParallelCTRCryptoTest {
+
+    private static final int SEGMENT_SIZE = 1024;
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(4);
+
+    @AfterAll
+    static void shutdownExecutor() {
+        EXECUTOR.shutdown();
+    }
+
+    private static ParametersWithIV newParams() {
+        return new ParametersWithIV(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                _Random_TestUtils.newRandomBytes(16)
+        );
+    }
+
+    private static byte[] sequential(final ParametersWithIV params, final byte[] in) {
+        final var cipher = SICBlockCipher.newInstance(AESEngine.newInstance());
+        cipher.init(true, params);
+        final var out = new byte[in.length];
+        cipher.processBytes(in, 0, in.length, out, 0);
+        return out;
+    }
+
+    private static JinahyaParallelCTRCrypto newCrypto(final ParametersWithIV params) {
+        return new JinahyaParallelCTRCrypto(AESEngine::newInstance, params, EXECUTOR, SEGMENT_SIZE);
+    }
+
+    @ValueSource(ints = {0, 1, 15, 16, 1023, 1024, 1025, 4095, 10000})
+    @ParameterizedTest
+    void __bytes(final int length) {
+        final var params = newParams();
+        final var crypto = newCrypto(params);
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var encrypted = crypto.encrypt(plain);
+        assertThat(encrypted).isEqualTo(sequential(params, plain));
+        assertThat(crypto.decrypt(encrypted)).isEqualTo(plain);
+    }
+
+    @ValueSource(ints = {0, 17, 1024, 10000})
+    @ParameterizedTest
+    void __directBuffers(final int length) {
+        final var params = newParams();
+        final var crypto = newCrypto(params);
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var input = ByteBuffer.allocateDirect(length).put(plain).flip();
+        final var output = ByteBuffer.allocateDirect(length + 3).position(3);
+        assertThat(crypto.encrypt(input, output)).isEqualTo(length);
+        assertThat(input.hasRemaining()).isFalse();
+        final var encrypted = new byte[length];
+        output.flip().position(3).get(encrypted);
+        assertThat(encrypted).isEqualTo(sequential(params, plain));
+    }
+
+    @Test
+    void __stream() throws Exception {
+        final var params = newParams();
+        final var crypto = newCrypto(params);
+        final var plain = _Random_TestUtils.newRandomBytes(10000);
+        final var out = new ByteArrayOutputStream();
+        assertThat(crypto.encrypt(new ByteArrayInputStream(plain), out, new byte[SEGMENT_SIZE * 3])).isEqualTo(10000L);
+        assertThat(out.toByteArray()).isEqualTo(sequential(params, plain));
+    }
+
+    @Test
+    void __fileChannel(@TempDir final Path dir) throws Exception {
+        final var params = newParams();
+        final var crypto = newCrypto(params);
+        final var plain = _Random_TestUtils.newRandomBytes(12345);
+        final var source = Files.write(dir.resolve("plain"), plain);
+        final var target = dir.resolve("encrypted");
+        try (var input = FileChannel.open(source);
+             var output = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            assertThat(crypto.encrypt(input, output)).isEqualTo(plain.length);
+        }
+        assertThat(Files.readAllBytes(target)).isEqualTo(sequential(params, plain));
+    }
+
+    @Test
+    void __segmentSizeNotAligned() {
+        assertThatThrownBy(() -> new JinahyaParallelCTRCrypto(AESEngine::newInstance, newParams(),
+                                                              Runnable::run, 17))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void __inPlace() {
+        final var params = newParams();
+        final var crypto = newCrypto(params);
+        final var plain = _Random_TestUtils.newRandomBytes(10000);
+        final var array = plain.clone();
+        assertThat(crypto.processBytes(array, 0, array.length, array, 0)).isEqualTo(array.length);
+        assertThat(array).isEqualTo(sequential(params, plain));
+        final var buffer = ByteBuffer.wrap(plain.clone());
+        assertThat(crypto.processBytes(buffer, buffer)).isEqualTo(plain.length);
+        assertThat(buffer.position()).isEqualTo(plain.length);
+        assertThat(buffer.array()).isEqualTo(sequential(params, plain));
+    }
+
+    @Test
+    void __partialOverlap() {
+        final var crypto = newCrypto(newParams());
+        final var array = new byte[10016];
+        assertThatThrownBy(() -> crypto.processBytes(array, 0, 10000, array, 16))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> crypto.processBytes(ByteBuffer.wrap(array, 16, 10000),
+                                                     ByteBuffer.wrap(array, 0, 10000)))
+                .isInstanceOf(IllegalArgumentException.class);
+        // disjoint ranges of the same array
+        assertThat(crypto.processBytes(array, 0, 5000, array, 5000)).isEqualTo(5000);
+    }
+}
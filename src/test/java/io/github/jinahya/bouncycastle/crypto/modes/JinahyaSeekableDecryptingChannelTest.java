@@ -0,0 +1,133 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import _javax.security._Random_TestUtils;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.paddings.PKCS7Padding;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaSeekableDecryptingChannelTest {
+
+    private static final int HEADER_SIZE = 7;
+
+    private static final int CHUNK_SIZE = 64;
+
+    private static ParametersWithIV newParams() {
+        return new ParametersWithIV(
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                _Random_TestUtils.newRandomBytes(16)
+        );
+    }
+
+    private static Path write(final Path dir, final byte[] encrypted) throws Exception {
+        final var path = dir.resolve("encrypted");
+        Files.write(path, new byte[HEADER_SIZE]);
+        Files.write(path, encrypted, StandardOpenOption.APPEND);
+        return path;
+    }
+
+    private static FileChannel open(final Path path) throws Exception {
+        return FileChannel.open(path).position(HEADER_SIZE);
+    }
+
+    private static void verifyRanges(final JinahyaSeekableDecryptingChannel channel, final byte[] plain)
+            throws Exception {
+        assertThat(channel.size()).isEqualTo(plain.length);
+        final var random = ThreadLocalRandom.current();
+        for (int i = 0; i < 64; i++) {
+            final var from = random.nextInt(plain.length + 1);
+            final var to = from + random.nextInt(plain.length - from + 1);
+            final var dst = ByteBuffer.allocate(to - from);
+            channel.position(from);
+            while (dst.hasRemaining()) {
+                assertThat(channel.read(dst)).isPositive();
+            }
+            assertThat(dst.array()).isEqualTo(Arrays.copyOfRange(plain, from, to));
+            assertThat(channel.position()).isEqualTo(to);
+        }
+        channel.position(plain.length);
+        assertThat(channel.read(ByteBuffer.allocate(1))).isEqualTo(-1);
+        channel.position(plain.length + 100L);
+        assertThat(channel.read(ByteBuffer.allocate(1))).isEqualTo(-1);
+    }
+
+    @ValueSource(ints = {0, 1, 15, 16, 63, 64, 65, 1000})
+    @ParameterizedTest
+    void ofCTR__ranges(final int length, @TempDir final Path dir) throws Exception {
+        final var params = newParams();
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var crypto = new JinahyaParallelCTRCrypto(AESEngine::newInstance, params);
+        final var path = write(dir, crypto.encrypt(plain));
+        try (var channel = JinahyaSeekableDecryptingChannel.ofCTR(open(path), AESEngine.newInstance(), params,
+                                                                   CHUNK_SIZE, 2)) {
+            verifyRanges(channel, plain);
+        }
+    }
+
+    @ValueSource(ints = {0, 1, 15, 16, 63, 64, 65, 1000})
+    @ParameterizedTest
+    void ofCBC__ranges(final int length, @TempDir final Path dir) throws Exception {
+        final var params = newParams();
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var crypto = new JinahyaParallelCBCCrypto(AESEngine::newInstance, new PKCS7Padding(), params);
+        final var path = write(dir, crypto.encrypt(plain));
+        try (var channel = JinahyaSeekableDecryptingChannel.ofCBC(open(path), AESEngine.newInstance(),
+                                                                   new PKCS7Padding(), params, CHUNK_SIZE, 2)) {
+            verifyRanges(channel, plain);
+        }
+    }
+
+    @Test
+    void ofCBC__noPadding(@TempDir final Path dir) throws Exception {
+        final var params = newParams();
+        final var plain = _Random_TestUtils.newRandomBytes(CHUNK_SIZE * 3 + 16);
+        final var crypto = new JinahyaParallelCBCCrypto(AESEngine::newInstance, null, params);
+        final var path = write(dir, crypto.encrypt(plain));
+        try (var channel = JinahyaSeekableDecryptingChannel.ofCBC(open(path), AESEngine.newInstance(), null,
+                                                                   params, CHUNK_SIZE, 1)) {
+            verifyRanges(channel, plain);
+        }
+    }
+
+    @Test
+    void ofCBC__incomplete(@TempDir final Path dir) throws Exception {
+        final var path = write(dir, new byte[17]);
+        try (var channel = open(path)) {
+            assertThatThrownBy(() -> JinahyaSeekableDecryptingChannel.ofCBC(
+                    channel, AESEngine.newInstance(), new PKCS7Padding(), newParams()))
+                    .isInstanceOf(DataLengthException.class);
+        }
+    }
+
+    @Test
+    void __readOnlyAndClose(@TempDir final Path dir) throws Exception {
+        final var params = newParams();
+        final var path = write(dir, new JinahyaParallelCTRCrypto(AESEngine::newInstance, params).encrypt(new byte[10]));
+        final var channel = JinahyaSeekableDecryptingChannel.ofCTR(open(path), AESEngine.newInstance(), params);
+        assertThatThrownBy(() -> channel.write(ByteBuffer.allocate(1)))
+                .isInstanceOf(NonWritableChannelException.class);
+        assertThatThrownBy(() -> channel.truncate(0L)).isInstanceOf(NonWritableChannelException.class);
+        assertThat(channel.read(ByteBuffer.allocate(20))).isEqualTo(10);
+        channel.close();
+        assertThat(channel.isOpen()).isFalse();
+        assertThatThrownBy(() -> channel.read(ByteBuffer.allocate(1))).isInstanceOf(ClosedChannelException.class);
+    }
+}
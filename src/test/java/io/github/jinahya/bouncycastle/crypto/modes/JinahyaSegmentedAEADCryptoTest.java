@@ -0,0 +1,158 @@
+package io.github.jinahya.bouncycastle.crypto.modes;
+
+import _javax.security._Random_TestUtils;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoException;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.CCMBlockCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaSegmentedAEADCryptoTest {
+
+    private static final int SEGMENT_SIZE = 100;
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(4);
+
+    @AfterAll
+    static void shutdownExecutor() {
+        EXECUTOR.shutdown();
+    }
+
+    private static JinahyaSegmentedAEADCrypto newGcmCrypto() {
+        return new JinahyaSegmentedAEADCrypto(
+                () -> GCMBlockCipher.newInstance(AESEngine.newInstance()),
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                128,
+                12,
+                SEGMENT_SIZE,
+                EXECUTOR
+        );
+    }
+
+    @ValueSource(ints = {0, 1, 99, 100, 101, 200, 1000, 1234})
+    @ParameterizedTest
+    void __bytes(final int length) {
+        final var crypto = newGcmCrypto();
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var encrypted = crypto.encrypt(plain);
+        assertThat(encrypted).hasSize((int) crypto.getEncryptedSize(length));
+        assertThat(crypto.getDecryptedSize(encrypted.length)).isEqualTo(length);
+        assertThat(crypto.decrypt(encrypted)).isEqualTo(plain);
+    }
+
+    @ValueSource(ints = {0, 1, 99, 100, 101, 200, 1000, 1234})
+    @ParameterizedTest
+    void __stream(final int length) throws Exception {
+        final var crypto = newGcmCrypto();
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var encrypted = new ByteArrayOutputStream();
+        crypto.encrypt(new ByteArrayInputStream(plain), encrypted, new byte[SEGMENT_SIZE * 3]);
+        // the stream format is the same as the array format
+        assertThat(crypto.decrypt(encrypted.toByteArray())).isEqualTo(plain);
+        final var decrypted = new ByteArrayOutputStream();
+        final var written = crypto.decrypt(new ByteArrayInputStream(encrypted.toByteArray()), decrypted,
+                                           new byte[(SEGMENT_SIZE + 16) * 2]);
+        assertThat(written).isEqualTo(length);
+        assertThat(decrypted.toByteArray()).isEqualTo(plain);
+    }
+
+    @ValueSource(ints = {0, 1, 99, 100, 101, 555, 20000})
+    @ParameterizedTest
+    void __directBuffers(final int length) {
+        final var crypto = newGcmCrypto();
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        final var input = ByteBuffer.allocateDirect(plain.length + 3).position(3).put(plain).flip().position(3);
+        final var encrypted = ByteBuffer.allocateDirect((int) crypto.getEncryptedSize(plain.length) + 5).position(5);
+        crypto.encrypt(input, encrypted);
+        assertThat(input.hasRemaining()).isFalse();
+        assertThat(encrypted.hasRemaining()).isFalse();
+        final var bytes = new byte[encrypted.capacity() - 5];
+        encrypted.position(5).get(bytes);
+        // the buffer format is the same as the array format
+        assertThat(crypto.decrypt(bytes)).isEqualTo(plain);
+        final var decrypted = ByteBuffer.allocateDirect(plain.length);
+        assertThat(crypto.decrypt(encrypted.position(5), decrypted)).isEqualTo(plain.length);
+        assertThat(encrypted.hasRemaining()).isFalse();
+        final var actual = new byte[plain.length];
+        decrypted.flip().get(actual);
+        assertThat(actual).isEqualTo(plain);
+    }
+
+    @Test
+    void __directBuffers_corruptSegment() {
+        final var crypto = newGcmCrypto();
+        final var encrypted = crypto.encrypt(_Random_TestUtils.newRandomBytes(SEGMENT_SIZE * 10));
+        encrypted[crypto.getHeaderLength() + (SEGMENT_SIZE + 16) * 4 + 3] ^= 1;
+        final var input = ByteBuffer.allocateDirect(encrypted.length).put(encrypted).flip();
+        final var output = ByteBuffer.allocateDirect(SEGMENT_SIZE * 10);
+        assertThatThrownBy(() -> crypto.decrypt(input, output)).isInstanceOf(JinahyaCryptoException.class);
+        assertThat(input.position()).isZero();
+        assertThat(output.position()).isZero();
+    }
+
+    @Test
+    void __ccm() {
+        final var crypto = new JinahyaSegmentedAEADCrypto(
+                () -> CCMBlockCipher.newInstance(AESEngine.newInstance()),
+                new KeyParameter(_Random_TestUtils.newRandomBytes(16)),
+                64,
+                13,
+                SEGMENT_SIZE,
+                EXECUTOR
+        );
+        final var plain = _Random_TestUtils.newRandomBytes(777);
+        assertThat(crypto.decrypt(crypto.encrypt(plain))).isEqualTo(plain);
+    }
+
+    @Test
+    void __corruptSegment() throws Exception {
+        final var crypto = newGcmCrypto();
+        final var plain = _Random_TestUtils.newRandomBytes(SEGMENT_SIZE * 10);
+        final var encrypted = crypto.encrypt(plain);
+        encrypted[crypto.getHeaderLength() + (SEGMENT_SIZE + 16) + 3] ^= 1; // the second segment
+        final var decrypted = new ByteArrayOutputStream();
+        assertThatThrownBy(() -> crypto.decrypt(new ByteArrayInputStream(encrypted), decrypted,
+                                                new byte[SEGMENT_SIZE + 16]))
+                .isInstanceOf(JinahyaCryptoException.class);
+        // only the first segment has been released
+        assertThat(decrypted.toByteArray()).isEqualTo(Arrays.copyOf(plain, SEGMENT_SIZE));
+    }
+
+    @Test
+    void __truncated() {
+        final var crypto = newGcmCrypto();
+        final var encrypted = crypto.encrypt(_Random_TestUtils.newRandomBytes(SEGMENT_SIZE * 3 + 5));
+        // drops the last segment
+        final var truncated = Arrays.copyOf(encrypted, crypto.getHeaderLength() + (SEGMENT_SIZE + 16) * 3);
+        assertThatThrownBy(() -> crypto.decrypt(truncated)).isInstanceOf(JinahyaCryptoException.class);
+        final var segments = Arrays.copyOf(encrypted, crypto.getHeaderLength() + (SEGMENT_SIZE + 16) * 2 + 16 + 1);
+        assertThatThrownBy(() -> crypto.decrypt(segments)).isInstanceOf(JinahyaCryptoException.class);
+    }
+
+    @Test
+    void __tamperedSalt() {
+        final var crypto = newGcmCrypto();
+        // a salt as long as the key, and a nonce prefix of 12 - 5 bytes
+        assertThat(crypto.getHeaderLength()).isEqualTo(16 + 7);
+        final var plain = _Random_TestUtils.newRandomBytes(SEGMENT_SIZE * 2);
+        final var encrypted = crypto.encrypt(plain);
+        // each message has its own subkey
+        assertThat(crypto.encrypt(plain)).isNotEqualTo(encrypted);
+        encrypted[0] ^= 1;
+        assertThatThrownBy(() -> crypto.decrypt(encrypted)).isInstanceOf(JinahyaCryptoException.class);
+    }
+}
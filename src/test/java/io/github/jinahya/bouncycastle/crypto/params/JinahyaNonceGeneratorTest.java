@@ -0,0 +1,107 @@
+package io.github.jinahya.bouncycastle.crypto.params;
+
+import _javax.security._Random_TestUtils;
+import io.github.jinahya.bouncycastle.crypto.JinahyaBufferedBlockCipherCrypto;
+import io.github.jinahya.bouncycastle.crypto.modes.JinahyaAEADCipherCrypto;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.paddings.PKCS7Padding;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaNonceGeneratorTest {
+
+    private static Set<ByteBuffer> generateConcurrently(final JinahyaNonceGenerator generator, final int threads,
+                                                        final int count) {
+        final var nonces = ConcurrentHashMap.<ByteBuffer>newKeySet();
+        final var futures = new ArrayList<CompletableFuture<Void>>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < count; i++) {
+                    final var nonce = generator.next();
+                    assertThat(nonce).hasSize(generator.getNonceLength());
+                    assertThat(nonces.add(ByteBuffer.wrap(nonce))).isTrue();
+                }
+            }));
+        }
+        futures.forEach(CompletableFuture::join);
+        return nonces;
+    }
+
+    @Test
+    void ofCounter__unique() {
+        final var generator = JinahyaNonceGenerator.ofCounter(12);
+        final var count = JinahyaNonceGenerator.COUNTER_LEASE_SIZE + 100;
+        final var nonces = generateConcurrently(generator, 4, count);
+        assertThat(nonces).hasSize(4 * count);
+        // all share the same prefix
+        final var prefix = Arrays.copyOf(nonces.iterator().next().array(), 4);
+        assertThat(nonces).allSatisfy(n -> assertThat(Arrays.copyOf(n.array(), 4)).isEqualTo(prefix));
+    }
+
+    @Test
+    void ofCounter__sequential() {
+        final var generator = JinahyaNonceGenerator.ofCounter(12);
+        final var first = generator.next();
+        assertThat(Arrays.copyOfRange(first, 4, 12)).isEqualTo(new byte[8]);
+        final var nonce = generator.next(new byte[12]);
+        assertThat(Arrays.copyOf(nonce, 4)).isEqualTo(Arrays.copyOf(first, 4));
+        assertThat(Arrays.copyOfRange(nonce, 4, 12)).isEqualTo(new byte[] {0, 0, 0, 0, 0, 0, 0, 1});
+    }
+
+    @Test
+    void ofRandom__unique() {
+        final var generator = JinahyaNonceGenerator.ofRandom(16);
+        assertThat(generateConcurrently(generator, 4, 10000)).hasSize(40000);
+    }
+
+    @Test
+    void __invalidArguments() {
+        assertThatThrownBy(() -> JinahyaNonceGenerator.ofCounter(7)).isInstanceOf(IllegalArgumentException.class);
+        // no, or too short, random prefix
+        assertThatThrownBy(() -> JinahyaNonceGenerator.ofCounter(8)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> JinahyaNonceGenerator.ofCounter(11)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(JinahyaNonceGenerator.ofCounter(12).next()).hasSize(12);
+        assertThatThrownBy(() -> JinahyaNonceGenerator.ofCounter(16)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> JinahyaNonceGenerator.ofRandom(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> JinahyaNonceGenerator.ofCounter(12).next(new byte[16]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void nextAEADParameters__JinahyaAEADCipherCrypto() {
+        final var generator = JinahyaNonceGenerator.ofCounter(12);
+        final var key = new KeyParameter(_Random_TestUtils.newRandomBytes(16));
+        final var plain = _Random_TestUtils.newRandomBytes(100);
+        final var params = generator.nextAEADParameters(key, 128, null);
+        assertThat(params.getNonce()).hasSize(12);
+        final var crypto = new JinahyaAEADCipherCrypto(GCMBlockCipher.newInstance(AESEngine.newInstance()), params);
+        assertThat(crypto.decrypt(crypto.encrypt(plain))).isEqualTo(plain);
+        assertThat(generator.nextAEADParameters(key, 128, null).getNonce()).isNotEqualTo(params.getNonce());
+    }
+
+    @Test
+    void nextParametersWithIV__JinahyaBufferedBlockCipherCrypto() {
+        final var generator = JinahyaNonceGenerator.ofRandom(16);
+        final var key = new KeyParameter(_Random_TestUtils.newRandomBytes(16));
+        final var plain = _Random_TestUtils.newRandomBytes(100);
+        final var params = generator.nextParametersWithIV(key);
+        assertThat(params.getParameters()).isSameAs(key);
+        final var crypto = new JinahyaBufferedBlockCipherCrypto(
+                new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()), new PKCS7Padding()),
+                params);
+        assertThat(crypto.decrypt(crypto.encrypt(plain))).isEqualTo(plain);
+    }
+}
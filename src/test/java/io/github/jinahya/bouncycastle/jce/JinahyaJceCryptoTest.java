@@ -0,0 +1,182 @@
+package io.github.jinahya.bouncycastle.jce;
+
+import _javax.security._Random_TestUtils;
+import io.github.jinahya.bouncycastle.crypto.JinahyaBufferedBlockCipherCrypto;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoException;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoInstrumentation;
+import io.github.jinahya.bouncycastle.crypto.JinahyaCryptoInstrumentationUtils;
+import io.github.jinahya.bouncycastle.jce.provider.BouncyCastleProviderUtils;
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.engines.ARIAEngine;
+import org.bouncycastle.crypto.engines.SEEDEngine;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.paddings.PKCS7Padding;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaJceCryptoTest {
+
+    private static Stream<Arguments> getAlgorithmsAndEnginesArgumentsStream() {
+        return Stream.of(
+                Arguments.of("AES", (Supplier<BlockCipher>) AESEngine::newInstance),
+                Arguments.of("ARIA", (Supplier<BlockCipher>) ARIAEngine::new),
+                Arguments.of("SEED", (Supplier<BlockCipher>) SEEDEngine::new)
+        );
+    }
+
+    private static JinahyaJceCrypto newCrypto(final String algorithm, final byte[] key, final byte[] iv) {
+        return new JinahyaJceCrypto(
+                algorithm + "/CBC/PKCS5Padding",
+                BouncyCastleProviderUtils.getBouncyCastleProvider(),
+                new SecretKeySpec(key, algorithm),
+                new IvParameterSpec(iv)
+        );
+    }
+
+    @MethodSource({"getAlgorithmsAndEnginesArgumentsStream"})
+    @ParameterizedTest
+    void __(final String algorithm, final Supplier<BlockCipher> engine) throws Exception {
+        final var key = _Random_TestUtils.newRandomBytes(16);
+        final var iv = _Random_TestUtils.newRandomBytes(16);
+        final var crypto = newCrypto(algorithm, key, iv);
+        final var expected = new JinahyaBufferedBlockCipherCrypto(
+                new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(engine.get()), new PKCS7Padding()),
+                new ParametersWithIV(new KeyParameter(key), iv)
+        );
+        for (final var length : new int[]{0, 1, 15, 16, 17, 1000}) {
+            final var plain = _Random_TestUtils.newRandomBytes(length);
+            // byte[]
+            final var encrypted = crypto.encrypt(plain);
+            assertThat(encrypted).isEqualTo(expected.encrypt(plain));
+            assertThat(crypto.decrypt(encrypted)).isEqualTo(plain);
+            // ByteBuffer
+            final var output = ByteBuffer.allocate(encrypted.length);
+            assertThat(crypto.encrypt(ByteBuffer.wrap(plain), output)).isEqualTo(encrypted.length);
+            assertThat(output.array()).isEqualTo(encrypted);
+            // stream
+            final var out = new ByteArrayOutputStream();
+            assertThat(crypto.decrypt(new ByteArrayInputStream(encrypted), out, new byte[7]))
+                    .isEqualTo(plain.length);
+            assertThat(out.toByteArray()).isEqualTo(plain);
+        }
+    }
+
+    @Test
+    void __initializesOnlyWhenParamsChange() {
+        final var initializations = new AtomicInteger();
+        final var previous = JinahyaCryptoInstrumentationUtils.set(new JinahyaCryptoInstrumentation() {
+            @Override
+            public void cipherInitialized(final String algorithm, final boolean encryption, final boolean rekeyed) {
+                initializations.incrementAndGet();
+            }
+        });
+        try {
+            final var iv = _Random_TestUtils.newRandomBytes(16);
+            final var crypto = newCrypto("SEED", _Random_TestUtils.newRandomBytes(16), iv);
+            for (int i = 0; i < 10; i++) {
+                crypto.encrypt(new byte[i]);
+                crypto.encrypt(new IvParameterSpec(iv.clone()), new byte[i]);
+            }
+            assertThat(initializations).hasValue(1);
+            final var other = new IvParameterSpec(_Random_TestUtils.newRandomBytes(16));
+            final var encrypted = crypto.encrypt(other, new byte[10]);
+            assertThat(initializations).hasValue(2);
+            assertThat(crypto.decrypt(other, encrypted)).isEqualTo(new byte[10]);
+            assertThat(initializations).hasValue(3);
+        } finally {
+            JinahyaCryptoInstrumentationUtils.set(previous);
+        }
+    }
+
+    @Test
+    void __decryptionFailure() {
+        final var crypto = newCrypto("SEED", _Random_TestUtils.newRandomBytes(16), _Random_TestUtils.newRandomBytes(16));
+        assertThatThrownBy(() -> crypto.decrypt(new byte[17])).isInstanceOf(JinahyaCryptoException.class);
+        final var plain = _Random_TestUtils.newRandomBytes(100);
+        assertThat(crypto.decrypt(crypto.encrypt(plain))).isEqualTo(plain);
+    }
+
+    @Test
+    void __threads() throws Exception {
+        final var crypto = newCrypto("ARIA", _Random_TestUtils.newRandomBytes(32), _Random_TestUtils.newRandomBytes(16));
+        final var plain = _Random_TestUtils.newRandomBytes(1000);
+        final var encrypted = crypto.encrypt(plain);
+        final var executor = Executors.newFixedThreadPool(4);
+        try {
+            final var tasks = IntStream.range(0, 64).mapToObj(i -> (Callable<Boolean>) () -> {
+                for (int j = 0; j < 16; j++) {
+                    assertThat(crypto.decrypt(crypto.encrypt(plain))).isEqualTo(plain);
+                }
+                return true;
+            }).collect(Collectors.toList());
+            for (final var future : executor.invokeAll(tasks)) {
+                assertThat(future.get()).isTrue();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(crypto.decrypt(encrypted)).isEqualTo(plain);
+    }
+
+    @Test
+    void __unsupportedTransformation() {
+        assertThatThrownBy(() -> new JinahyaJceCrypto(
+                "UNKNOWN/CBC/PKCS5Padding",
+                BouncyCastleProviderUtils.getBouncyCastleProvider(),
+                new SecretKeySpec(new byte[16], "UNKNOWN"),
+                null
+        )).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void __authenticated() {
+        final var key = new SecretKeySpec(_Random_TestUtils.newRandomBytes(16), "AES");
+        final var crypto = new JinahyaJceCrypto(
+                "AES/GCM/NoPadding",
+                BouncyCastleProviderUtils.getBouncyCastleProvider(),
+                key,
+                new GCMParameterSpec(128, _Random_TestUtils.newRandomBytes(12))
+        );
+        // no encryption with the default nonce
+        assertThatThrownBy(() -> crypto.encrypt(new byte[1])).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> crypto.encrypt(ByteBuffer.allocate(1), ByteBuffer.allocate(17)))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> crypto.encrypt(new ByteArrayInputStream(new byte[1]), new ByteArrayOutputStream(),
+                                                new byte[1]))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> crypto.encrypt(null, new byte[1])).isInstanceOf(IllegalArgumentException.class);
+        // per-message nonces
+        final var plain = _Random_TestUtils.newRandomBytes(100);
+        for (int i = 0; i < 4; i++) {
+            final var params = new GCMParameterSpec(128, _Random_TestUtils.newRandomBytes(12));
+            final var encrypted = crypto.encrypt(params, plain);
+            assertThat(crypto.decrypt(params, encrypted)).isEqualTo(plain);
+            assertThat(crypto.decrypt(params, encrypted)).isEqualTo(plain);
+            // the nonce just used
+            assertThatThrownBy(() -> crypto.encrypt(params, plain)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package io.github.jinahya.bouncycastle.miscellaneous;
+
+import _javax.security._Random_TestUtils;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.IllegalBlockSizeException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SEED_UtilsTest {
+
+    @Test
+    void CBC_PKCS5Padding__() throws Exception {
+        final var key = _Random_TestUtils.newRandomBytes(SEED_Constants.BLOCK_BYTES);
+        final var iv = _Random_TestUtils.newRandomBytes(SEED_Constants.BLOCK_BYTES);
+        for (int i = 0; i < 100; i++) {
+            final var plain = _Random_TestUtils.newRandomBytes(i);
+            final var encrypted = SEED_Utils.encrypt_CBC_PKCS5Padding(key, iv, plain);
+            assertThat(SEED_Utils.decrypt_CBC_PKCS5Padding(key, iv, encrypted)).isEqualTo(plain);
+        }
+        assertThatThrownBy(() -> SEED_Utils.decrypt_CBC_PKCS5Padding(key, iv, new byte[17]))
+                .isInstanceOf(IllegalBlockSizeException.class);
+    }
+
+    @Test
+    void CBC_PKCS5Padding__invalidIv() {
+        final var key = new byte[SEED_Constants.BLOCK_BYTES];
+        assertThatThrownBy(() -> SEED_Utils.encrypt_CBC_PKCS5Padding(key, new byte[SEED_Constants.BLOCK_SIZE],
+                                                                     new byte[0]))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SEED_Utils.decrypt_CBC_PKCS5Padding(key, new byte[15], new byte[16]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void CBC_PKCS5Padding__keys() throws Exception {
+        final var key1 = _Random_TestUtils.newRandomBytes(SEED_Constants.BLOCK_BYTES);
+        final var key2 = _Random_TestUtils.newRandomBytes(SEED_Constants.BLOCK_BYTES);
+        final var iv = _Random_TestUtils.newRandomBytes(SEED_Constants.BLOCK_BYTES);
+        final var plain = _Random_TestUtils.newRandomBytes(100);
+        final var encrypted1 = SEED_Utils.encrypt_CBC_PKCS5Padding(key1, iv, plain);
+        final var encrypted2 = SEED_Utils.encrypt_CBC_PKCS5Padding(key2, iv, plain);
+        assertThat(encrypted2).isNotEqualTo(encrypted1);
+        assertThat(SEED_Utils.decrypt_CBC_PKCS5Padding(key1, iv, encrypted1)).isEqualTo(plain);
+        SEED_Utils.clear();
+        assertThat(SEED_Utils.decrypt_CBC_PKCS5Padding(key2, iv, encrypted2)).isEqualTo(plain);
+    }
+}
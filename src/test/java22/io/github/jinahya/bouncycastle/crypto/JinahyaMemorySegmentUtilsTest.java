@@ -0,0 +1,150 @@
+package io.github.jinahya.bouncycastle.crypto;
+
+import _javax.security._Random_TestUtils;
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.DefaultBufferedBlockCipher;
+import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.modes.GCMModeCipher;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.paddings.PKCS7Padding;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JinahyaMemorySegmentUtilsTest {
+
+    private static final KeyParameter KEY = new KeyParameter(_Random_TestUtils.newRandomBytes(16));
+
+    private static PaddedBufferedBlockCipher cbc(final boolean encryption) {
+        final var cipher = new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()),
+                                                         new PKCS7Padding());
+        cipher.init(encryption, new ParametersWithIV(KEY, new byte[16]));
+        return cipher;
+    }
+
+    private static SICBlockCipher ctr(final boolean encryption) {
+        final var cipher = (SICBlockCipher) SICBlockCipher.newInstance(AESEngine.newInstance());
+        cipher.init(encryption, new ParametersWithIV(KEY, new byte[16]));
+        return cipher;
+    }
+
+    private static GCMModeCipher gcm(final boolean encryption) {
+        final var cipher = GCMBlockCipher.newInstance(AESEngine.newInstance());
+        cipher.init(encryption, new AEADParameters(KEY, 128, new byte[12]));
+        return cipher;
+    }
+
+    private static byte[] bytes(final MemorySegment segment) {
+        return segment.toArray(ValueLayout.JAVA_BYTE);
+    }
+
+    private static byte[] expected(final BufferedBlockCipher cipher, final byte[] in) throws Exception {
+        final var out = new byte[cipher.getOutputSize(in.length)];
+        final var n = cipher.processBytes(in, 0, in.length, out, 0);
+        return Arrays.copyOf(out, n + cipher.doFinal(out, n));
+    }
+
+    @ValueSource(ints = {0, 1, 16, 65535, 65537, 200000})
+    @ParameterizedTest
+    void __heapAndNative(final int length) throws Exception {
+        final var plain = _Random_TestUtils.newRandomBytes(length);
+        try (var arena = Arena.ofConfined()) {
+            final var inputs = new MemorySegment[] {
+                    MemorySegment.ofArray(plain),
+                    arena.allocate(length).copyFrom(MemorySegment.ofArray(plain)),
+                    MemorySegment.ofArray(plain).asReadOnly()
+            };
+            for (final var input : inputs) {
+                // CBC, onto segments allocated by the arena
+                final var cbc = JinahyaMemorySegmentUtils.processBytesAndDoFinal(cbc(true), input, arena);
+                assertThat(bytes(cbc)).isEqualTo(expected(cbc(true), plain));
+                assertThat(bytes(JinahyaMemorySegmentUtils.processBytesAndDoFinal(cbc(false), cbc, arena)))
+                        .isEqualTo(plain);
+                // CTR
+                final var ctr = JinahyaMemorySegmentUtils.processBytes(ctr(true), input, arena);
+                assertThat(bytes(ctr)).isEqualTo(expected(new DefaultBufferedBlockCipher(ctr(true)), plain));
+                assertThat(bytes(JinahyaMemorySegmentUtils.processBytes(ctr(false), ctr, arena))).isEqualTo(plain);
+                // GCM, onto a heap segment
+                final var gcm = MemorySegment.ofArray(new byte[length + 16]);
+                assertThat(JinahyaMemorySegmentUtils.processBytesAndDoFinal(gcm(true), input, gcm))
+                        .isEqualTo(length + 16L);
+                assertThat(bytes(JinahyaMemorySegmentUtils.processBytesAndDoFinal(gcm(false), gcm, arena)))
+                        .isEqualTo(plain);
+            }
+        }
+    }
+
+    @Test
+    void __inPlace() throws Exception {
+        final var plain = _Random_TestUtils.newRandomBytes(100000);
+        try (var arena = Arena.ofConfined()) {
+            for (final var segment : new MemorySegment[] {MemorySegment.ofArray(plain.clone()),
+                                                          arena.allocate(plain.length)
+                                                                  .copyFrom(MemorySegment.ofArray(plain))}) {
+                assertThat(JinahyaMemorySegmentUtils.processBytes(ctr(true), segment, segment))
+                        .isEqualTo(plain.length);
+                assertThat(bytes(segment)).isEqualTo(bytes(JinahyaMemorySegmentUtils.processBytes(
+                        ctr(true), MemorySegment.ofArray(plain), arena)));
+                JinahyaMemorySegmentUtils.processBytes(ctr(false), segment, segment);
+                assertThat(bytes(segment)).isEqualTo(plain);
+            }
+        }
+    }
+
+    @Test
+    void __slicesOfHeap() throws Exception {
+        // a slice, of a larger array, should never be written beyond its bounds
+        final var plain = _Random_TestUtils.newRandomBytes(100);
+        final var array = new byte[300];
+        final var output = MemorySegment.ofArray(array).asSlice(50L, 116L);
+        assertThat(JinahyaMemorySegmentUtils.processBytesAndDoFinal(gcm(true), MemorySegment.ofArray(plain), output))
+                .isEqualTo(116L);
+        assertThat(Arrays.copyOfRange(array, 0, 50)).containsOnly(0);
+        assertThat(Arrays.copyOfRange(array, 166, 300)).containsOnly(0);
+        assertThatThrownBy(() -> JinahyaMemorySegmentUtils.processBytesAndDoFinal(
+                gcm(true), MemorySegment.ofArray(plain), MemorySegment.ofArray(array).asSlice(0L, 115L)))
+                .isInstanceOf(OutputLengthException.class);
+    }
+
+    @Test
+    void __mapped(@TempDir final Path dir) throws Exception {
+        final var plain = _Random_TestUtils.newRandomBytes(300000);
+        final var source = Files.write(dir.resolve("source"), plain);
+        final var target = dir.resolve("target");
+        try (var arena = Arena.ofConfined();
+             var input = FileChannel.open(source, StandardOpenOption.READ);
+             var output = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                                           StandardOpenOption.WRITE)) {
+            final var in = input.map(FileChannel.MapMode.READ_ONLY, 0L, input.size(), arena);
+            final var out = output.map(FileChannel.MapMode.READ_WRITE, 0L, input.size() + 16L, arena);
+            assertThat(JinahyaMemorySegmentUtils.processBytesAndDoFinal(gcm(true), in, out))
+                    .isEqualTo(plain.length + 16L);
+            out.force();
+        }
+        try (var arena = Arena.ofConfined()) {
+            final var encrypted = MemorySegment.ofArray(Files.readAllBytes(target));
+            assertThat(bytes(JinahyaMemorySegmentUtils.processBytesAndDoFinal(gcm(false), encrypted, arena)))
+                    .isEqualTo(plain);
+        }
+    }
+}